@@ -19,6 +19,7 @@ import com.retailmax.inventario.model.enums.TipoMovimiento;
 import com.retailmax.inventario.repository.MovimientoStockRepository;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
 import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import com.retailmax.inventario.service.ResumenMovimientoService;
 
 import net.datafaker.Faker;
 
@@ -32,6 +33,8 @@ public class DataLoader implements CommandLineRunner {
     private ProductoInventarioRepository productoInventarioRepository;
     @Autowired
     private UmbralAlertaRepository umbralAlertaRepository;
+    @Autowired
+    private ResumenMovimientoService resumenMovimientoService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -145,6 +148,7 @@ public class DataLoader implements CommandLineRunner {
                 movimientoStockRepository.save(movimiento);
             }
             System.out.println("-> " + movimientoStockRepository.count() + " MovimientosStock cargados.");
+            resumenMovimientoService.reconstruirResumenes(); // Los movimientos se guardan directo en el repositorio
         } else {
             System.out.println("-> No se pudieron generar MovimientosStock porque no hay ProductosInventario.");
         }
@@ -4,6 +4,8 @@ import com.retailmax.inventario.controller.MovimientoStockController;
 import com.retailmax.inventario.controller.ProductoInventarioController; // Para enlazar al producto asociado
 import com.retailmax.inventario.dto.MovimientoStockDTO;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.lang.NonNull;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
@@ -12,21 +14,29 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 /**
  * Assembler para convertir objetos MovimientoStockDTO a EntityModel<MovimientoStockDTO>
- * con enlaces HATEOAS.
+ * con enlaces HATEOAS. Las rutas se toman de los mappings una sola vez (ver PlantillaEnlace).
  */
 @Component
 public class MovimientoStockModelAssembler implements RepresentationModelAssembler<MovimientoStockDTO, EntityModel<MovimientoStockDTO>> {
 
+    private final PlantillaEnlace movimientoPorId = PlantillaEnlace.de(
+            linkTo(methodOn(MovimientoStockController.class).getMovimientoById(PlantillaEnlace.MARCADOR_ID)));
+    private final PlantillaEnlace movimientosPorSku = PlantillaEnlace.de(
+            linkTo(methodOn(MovimientoStockController.class).obtenerHistorialMovimientos(PlantillaEnlace.MARCADOR)));
+    private final PlantillaEnlace productoPorSku = PlantillaEnlace.de(
+            linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(PlantillaEnlace.MARCADOR)));
+
     @Override
     @NonNull
     public EntityModel<MovimientoStockDTO> toModel(@NonNull MovimientoStockDTO movimientoStock) {
         // Construye el EntityModel para un MovimientoStockDTO individual
+        String base = PlantillaEnlace.base();
         return EntityModel.of(movimientoStock,
                 // Enlace 'self' al movimiento individual por su ID
-                linkTo(methodOn(MovimientoStockController.class).getMovimientoById(movimientoStock.getId())).withSelfRel(),
+                Link.of(movimientoPorId.expandir(base, movimientoStock.getId()), IanaLinkRelations.SELF),
                 // Enlace a la colección de movimientos para el mismo SKU
-                linkTo(methodOn(MovimientoStockController.class).obtenerHistorialMovimientos(movimientoStock.getSku())).withRel("movimientos-del-sku"),
+                Link.of(movimientosPorSku.expandir(base, movimientoStock.getSku()), "movimientos-del-sku"),
                 // Enlace al producto de inventario asociado
-                linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(movimientoStock.getSku())).withRel("producto-asociado"));
+                Link.of(productoPorSku.expandir(base, movimientoStock.getSku()), "producto-asociado"));
     }
 }
@@ -0,0 +1,79 @@
+package com.retailmax.inventario.assemblers;
+
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ruta de un endpoint tomada una sola vez de su mapping, con linkTo(methodOn(...)) y un valor marcador en la variable.
+ * Por elemento solo se concatena la base del pedido con el valor codificado: sin el proxy de methodOn ni la
+ * búsqueda del mapping en cada enlace. La base (esquema, host, contexto y encabezados Forwarded) es la misma que
+ * usa WebMvcLinkBuilder y se resuelve una vez por pedido.
+ */
+final class PlantillaEnlace {
+
+    static final String MARCADOR = "plantilla-enlace-variable";
+    static final long MARCADOR_ID = Long.MIN_VALUE;
+
+    private static final String ATRIBUTO_BASE = PlantillaEnlace.class.getName() + ".BASE";
+
+    private final String prefijo;
+    private final String sufijo;
+
+    private PlantillaEnlace(String prefijo, String sufijo) {
+        this.prefijo = prefijo;
+        this.sufijo = sufijo;
+    }
+
+    /** Plantilla de un endpoint con una variable de ruta, invocado en methodOn con MARCADOR o MARCADOR_ID. */
+    static PlantillaEnlace de(WebMvcLinkBuilder enlace) {
+        String ruta = ruta(enlace);
+        String marcador = ruta.contains(MARCADOR) ? MARCADOR : Long.toString(MARCADOR_ID);
+        int posicion = ruta.indexOf(marcador);
+        if (posicion < 0 || ruta.indexOf(marcador, posicion + 1) >= 0) {
+            throw new IllegalArgumentException("La ruta " + ruta + " debe tener exactamente un marcador de variable");
+        }
+        return new PlantillaEnlace(ruta.substring(0, posicion), ruta.substring(posicion + marcador.length()));
+    }
+
+    /** Plantilla de un endpoint sin variables. */
+    static PlantillaEnlace fija(WebMvcLinkBuilder enlace) {
+        return new PlantillaEnlace(ruta(enlace), null);
+    }
+
+    // Codifica todo lo que no sea un carácter no reservado, igual que WebMvcLinkBuilder con las variables de ruta
+    String expandir(String base, Object valor) {
+        return base + prefijo + UriUtils.encode(String.valueOf(valor), StandardCharsets.UTF_8) + sufijo;
+    }
+
+    String expandir(String base) {
+        return base + prefijo;
+    }
+
+    /** Base de los enlaces del pedido actual, como la arma WebMvcLinkBuilder; fuera de un pedido, vacía. */
+    static String base() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return "";
+        }
+        String base = (String) atributos.getAttribute(ATRIBUTO_BASE, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = sinBarraFinal(ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString());
+            atributos.setAttribute(ATRIBUTO_BASE, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        return base;
+    }
+
+    // Construida al arrancar, sin pedido en curso: WebMvcLinkBuilder parte de "/" y deja solo la ruta del mapping
+    private static String ruta(WebMvcLinkBuilder enlace) {
+        return enlace.toUri().getRawPath();
+    }
+
+    private static String sinBarraFinal(String uri) {
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+}
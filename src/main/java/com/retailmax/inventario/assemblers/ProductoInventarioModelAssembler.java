@@ -3,6 +3,8 @@ package com.retailmax.inventario.assemblers;
 import com.retailmax.inventario.controller.ProductoInventarioController;
 import com.retailmax.inventario.dto.ProductoInventarioDTO;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.lang.NonNull;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
@@ -11,19 +13,25 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 /**
  * Assembler para convertir objetos ProductoInventarioDTO a EntityModel<ProductoInventarioDTO>
- * con enlaces HATEOAS.
+ * con enlaces HATEOAS. Las rutas se toman de los mappings una sola vez (ver PlantillaEnlace).
  */
 @Component
 public class ProductoInventarioModelAssembler implements RepresentationModelAssembler<ProductoInventarioDTO, EntityModel<ProductoInventarioDTO>> {
 
+    private final PlantillaEnlace productoPorSku = PlantillaEnlace.de(
+            linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(PlantillaEnlace.MARCADOR)));
+    private final PlantillaEnlace productos = PlantillaEnlace.fija(
+            linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()));
+
     @Override
     @NonNull
     public EntityModel<ProductoInventarioDTO> toModel(@NonNull ProductoInventarioDTO productoInventario) {
         // Construye el EntityModel para un ProductoInventarioDTO individual
+        String base = PlantillaEnlace.base();
         // Agrega un enlace 'self' que apunta a la consulta del producto por su SKU
         return EntityModel.of(productoInventario,
-                linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(productoInventario.getSku())).withSelfRel(),
+                Link.of(productoPorSku.expandir(base, productoInventario.getSku()), IanaLinkRelations.SELF),
                 // Agrega un enlace 'productos' que apunta a la colección completa de productos
-                linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()).withRel("productos"));
+                Link.of(productos.expandir(base), "productos"));
     }
 }
@@ -3,6 +3,8 @@ package com.retailmax.inventario.assemblers;
 import com.retailmax.inventario.controller.UmbralAlertaController;
 import com.retailmax.inventario.dto.UmbralAlertaDTO;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.lang.NonNull;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
@@ -11,19 +13,25 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 /**
  * Assembler para convertir objetos UmbralAlertaDTO a EntityModel<UmbralAlertaDTO>
- * con enlaces HATEOAS.
+ * con enlaces HATEOAS. Las rutas se toman de los mappings una sola vez (ver PlantillaEnlace).
  */
 @Component
 public class UmbralAlertaModelAssembler implements RepresentationModelAssembler<UmbralAlertaDTO, EntityModel<UmbralAlertaDTO>> {
 
+    private final PlantillaEnlace umbralPorSku = PlantillaEnlace.de(
+            linkTo(methodOn(UmbralAlertaController.class).getUmbralBySku(PlantillaEnlace.MARCADOR)));
+    private final PlantillaEnlace umbrales = PlantillaEnlace.fija(
+            linkTo(methodOn(UmbralAlertaController.class).getAllUmbrales()));
+
     @Override
     @NonNull
     public EntityModel<UmbralAlertaDTO> toModel(@NonNull UmbralAlertaDTO umbralAlerta) {
         // Construye el EntityModel para un UmbralAlertaDTO individual
+        String base = PlantillaEnlace.base();
         // Agrega un enlace 'self' que apunta a la consulta del umbral por su SKU
         return EntityModel.of(umbralAlerta,
-                linkTo(methodOn(UmbralAlertaController.class).getUmbralBySku(umbralAlerta.getSku())).withSelfRel(),
+                Link.of(umbralPorSku.expandir(base, umbralAlerta.getSku()), IanaLinkRelations.SELF),
                 // Agrega un enlace 'umbrales' que apunta a la colección completa de umbrales
-                linkTo(methodOn(UmbralAlertaController.class).getAllUmbrales()).withRel("umbrales"));
+                Link.of(umbrales.expandir(base), "umbrales"));
     }
 }
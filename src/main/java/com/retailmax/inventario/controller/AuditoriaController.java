@@ -1,7 +1,9 @@
 package com.retailmax.inventario.controller;
 
-import com.retailmax.inventario.dto.DiscrepanciaStockDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
+import com.retailmax.inventario.dto.ResultadoConciliacionDTO;
 import com.retailmax.inventario.service.AuditoriaInventarioService;
+import com.retailmax.inventario.service.ConciliacionStockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -9,7 +11,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @CrossOrigin(origins = "*")
@@ -20,16 +21,28 @@ import java.util.Map;
 public class AuditoriaController {
 
     private final AuditoriaInventarioService auditoriaInventarioService;
+    private final ConciliacionStockService conciliacionStockService;
 
     @PostMapping("/comparar")
     @Operation(
         summary = "Comparar stock físico con stock en sistema",
-        description = "Recibe un mapa de SKU y cantidades físicas, y retorna discrepancias detectadas"
+        description = "Recibe un mapa de SKU y cantidades físicas, y retorna las discrepancias detectadas junto con la fecha de la foto consultada"
     )
-    public ResponseEntity<List<DiscrepanciaStockDTO>> compararStockFisico(
+    public ResponseEntity<ResultadoAuditoriaDTO> compararStockFisico(
             @Valid @RequestBody Map<String, Integer> stockFisico) {
 
-        List<DiscrepanciaStockDTO> discrepancias = auditoriaInventarioService.compararConStockFisico(stockFisico);
-        return ResponseEntity.ok(discrepancias);
+        ResultadoAuditoriaDTO resultado = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        return ResponseEntity.ok(resultado);
+    }
+
+    @PostMapping("/conciliacion")
+    @Operation(
+        summary = "Conciliar saldos contra el historial de movimientos",
+        description = "Compara cantidadDisponible de cada SKU con el saldo que resulta de sus movimientos. Con reparar=true corrige las desviaciones"
+    )
+    public ResponseEntity<ResultadoConciliacionDTO> conciliarStock(
+            @RequestParam(defaultValue = "false") boolean reparar) {
+
+        return ResponseEntity.ok(conciliacionStockService.conciliar(reparar));
     }
 }
@@ -0,0 +1,44 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.service.DisponibilidadPosService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/disponibilidad")
+@ConditionalOnProperty(name = "inventario.disponibilidad.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Tag(name = "Disponibilidad POS", description = "Sincronización compacta de disponibilidad para terminales de tienda")
+public class DisponibilidadPosController {
+
+    // Binario de FormatoDisponibilidad comprimido con gzip; la terminal descomprime y lee, sin negociar Content-Encoding
+    public static final MediaType DISPONIBILIDAD_GZIP = MediaType.parseMediaType("application/vnd.retailmax.disponibilidad+gzip");
+
+    private final DisponibilidadPosService disponibilidadPosService;
+
+    /**
+     * GET /api/inventario/disponibilidad?ubicacion=TIENDA-01&desde=1520&limite=5000
+     * Cambios de la ubicación posteriores a la versión 'desde'; la versión de la respuesta es el 'desde' de la próxima.
+     */
+    @GetMapping
+    @Operation(summary = "Cambios de disponibilidad de una ubicación",
+            description = "Con desde=0 devuelve la disponibilidad completa de la ubicación; si no, solo los SKUs que "
+                    + "cambiaron después de esa versión, con estado vacío para los que hay que quitar. Responde 410 si "
+                    + "la versión ya no está en el historial y hay que volver a cargar desde 0.")
+    public ResponseEntity<byte[]> consultarCambios(
+            @RequestParam String ubicacion,
+            @RequestParam(defaultValue = "0") long desde,
+            @RequestParam(defaultValue = "5000") int limite) {
+        return ResponseEntity.ok()
+                .contentType(DISPONIBILIDAD_GZIP)
+                .cacheControl(CacheControl.noStore())
+                .body(disponibilidadPosService.consultarCambios(ubicacion, desde, limite));
+    }
+}
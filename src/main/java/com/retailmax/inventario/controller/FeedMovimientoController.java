@@ -0,0 +1,39 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.dto.FeedMovimientosDTO;
+import com.retailmax.inventario.service.FeedMovimientosService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/movimientos/feed")
+@RequiredArgsConstructor
+@Tag(name = "MovimientoStock", description = "Operaciones relacionadas con el historial de movimientos de stock")
+public class FeedMovimientoController {
+
+    private final FeedMovimientosService feedMovimientosService;
+
+    /**
+     * GET /api/inventario/movimientos/feed?cursor=0&limite=500&esperaMs=20000
+     * Movimientos posteriores al cursor en orden de secuencia; el cursor de la respuesta es el de la próxima consulta.
+     * Un movimiento se entrega recién cuando pasó inventario.feed.ventana-confirmacion-ms desde que se registró, para
+     * que uno con ID menor confirmado más tarde (en esta u otra instancia) no quede detrás del cursor. Con varias
+     * instancias, la ventana debe superar la transacción más larga que registra movimientos más la diferencia de
+     * reloj entre instancias; pasado ese margen, un movimiento confirmado más tarde puede saltearse.
+     */
+    @GetMapping
+    @Operation(summary = "Feed de movimientos de stock",
+            description = "Devuelve hasta 'limite' movimientos con ID mayor al cursor, en forma compacta. Con esperaMs > 0 y "
+                    + "sin movimientos nuevos, la respuesta espera hasta que se confirme uno o venza el plazo. Los movimientos se "
+                    + "entregan con la demora de la ventana de confirmación.")
+    public DeferredResult<FeedMovimientosDTO> consultarFeed(
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(defaultValue = "500") int limite,
+            @RequestParam(defaultValue = "0") long esperaMs) {
+        return feedMovimientosService.esperar(cursor, limite, esperaMs);
+    }
+}
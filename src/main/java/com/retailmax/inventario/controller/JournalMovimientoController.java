@@ -0,0 +1,55 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.dto.EstadoJournalDTO;
+import com.retailmax.inventario.dto.EstadoMovimientoJournalDTO;
+import com.retailmax.inventario.dto.MovimientoAceptadoDTO;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.service.JournalMovimientoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/movimientos/journal")
+@ConditionalOnProperty(name = "inventario.journal.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Tag(name = "MovimientoStock", description = "Operaciones relacionadas con el historial de movimientos de stock")
+public class JournalMovimientoController {
+
+    private final JournalMovimientoService journalMovimientoService;
+
+    /**
+     * POST /api/inventario/movimientos/journal
+     * Acepta el movimiento cuando queda sincronizado en el journal (202); se escribe en la base de datos en segundo plano.
+     */
+    @PostMapping
+    @Operation(summary = "Registrar movimiento de stock vía journal",
+            description = "Acepta un movimiento de entrada o salida una vez persistido en el journal local y lo aplica a la base de datos de forma asíncrona.")
+    public ResponseEntity<MovimientoAceptadoDTO> aceptarMovimiento(@Valid @RequestBody MovimientoStock movimiento) {
+        return ResponseEntity.accepted().body(journalMovimientoService.aceptarMovimiento(movimiento));
+    }
+
+    /**
+     * GET /api/inventario/movimientos/journal/{journal}/{secuencia}
+     * Si un movimiento aceptado ya se aplicó, sigue pendiente o fue rechazado al aplicarse (con el motivo).
+     */
+    @GetMapping("/{journal}/{secuencia}")
+    @Operation(summary = "Estado de un movimiento aceptado por el journal",
+            description = "PENDIENTE, APLICADO o RECHAZADO (p. ej. por stock insuficiente al aplicarse), según el journal y la secuencia devueltos al aceptarlo.")
+    public ResponseEntity<EstadoMovimientoJournalDTO> consultarMovimiento(@PathVariable String journal,
+                                                                          @PathVariable long secuencia) {
+        return ResponseEntity.ok(journalMovimientoService.consultarMovimiento(journal, secuencia));
+    }
+
+    @GetMapping("/estado")
+    @Operation(summary = "Estado del journal de movimientos",
+            description = "Secuencias escrita, durable y aplicada, movimientos pendientes y rechazados.")
+    public ResponseEntity<EstadoJournalDTO> consultarEstado() {
+        return ResponseEntity.ok(journalMovimientoService.consultarEstado());
+    }
+}
@@ -2,8 +2,12 @@ package com.retailmax.inventario.controller;
 
 import com.retailmax.inventario.assemblers.MovimientoStockModelAssembler;
 import com.retailmax.inventario.dto.MovimientoStockDTO;
+import com.retailmax.inventario.dto.ResumenMovimientoDiarioDTO;
+import com.retailmax.inventario.dto.StockEnFechaDTO;
 import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.service.CheckpointStockService;
 import com.retailmax.inventario.service.MovimientoStockService;
+import com.retailmax.inventario.service.ResumenMovimientoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,12 +15,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -31,16 +40,24 @@ public class MovimientoStockController {
 
     private final MovimientoStockService movimientoStockService;
     private final MovimientoStockModelAssembler assembler;
+    private final CheckpointStockService checkpointStockService;
+    private final ResumenMovimientoService resumenMovimientoService;
 
     /**
      * RF15: Permite la consulta del historial de stock de un producto dado su SKU.
      * GET /api/inventario/movimientos/{sku}
      */
-    @GetMapping(value = "/{sku}", produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(value = "/{sku}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Obtener historial de movimientos de stock por SKU",
             description = "Consulta el historial de movimientos de stock para un producto dado su SKU.")
-    public ResponseEntity<CollectionModel<EntityModel<MovimientoStockDTO>>> obtenerHistorialMovimientos(@PathVariable String sku) {
-        List<EntityModel<MovimientoStockDTO>> movimientos = movimientoStockService.obtenerHistorialMovimientos(sku, null, null).stream()
+    public ResponseEntity<?> obtenerHistorialMovimientos(@PathVariable String sku) {
+        RepresentacionLigera.rechazarCamposEnHal();
+        List<MovimientoStockDTO> historial = movimientoStockService.obtenerHistorialMovimientos(sku, null, null);
+        // Representación plana (ver RepresentacionLigera): la lista de DTOs, sin pasar por el assembler
+        if (RepresentacionLigera.solicitada()) {
+            return ResponseEntity.ok(historial);
+        }
+        List<EntityModel<MovimientoStockDTO>> movimientos = historial.stream()
                 .map(assembler::toModel)
                 .collect(Collectors.toList());
 
@@ -49,15 +66,74 @@ public class MovimientoStockController {
                         linkTo(methodOn(MovimientoStockController.class).obtenerHistorialMovimientos(sku)).withSelfRel()));
     }
 
+    /**
+     * GET /api/inventario/movimientos/{sku}?fields=tipoMovimiento,cantidadMovida,fechaMovimiento
+     * Historial con solo los campos pedidos de MovimientoStockDTO, como JSON plano sin enlaces.
+     * Pedido solo como application/hal+json cae en obtenerHistorialMovimientos, que responde 406.
+     */
+    @GetMapping(value = "/{sku}", params = "fields", produces = {MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
+    @Operation(summary = "Obtener campos seleccionados del historial de movimientos por SKU",
+            description = "Devuelve, por movimiento del SKU, solo los campos de MovimientoStockDTO indicados en fields (separados por coma).")
+    public ResponseEntity<List<Map<String, Object>>> obtenerCamposHistorialMovimientos(
+            @PathVariable String sku,
+            @RequestParam List<String> fields) {
+        return ResponseEntity.ok(movimientoStockService.obtenerHistorialMovimientos(sku, fields));
+    }
+
+    /**
+     * GET /api/inventario/movimientos/{sku}/stock-en-fecha?fecha=2025-01-31T23:59:59
+     * Stock disponible del SKU en una fecha, a partir del checkpoint más cercano y los movimientos posteriores.
+     */
+    @GetMapping("/{sku}/stock-en-fecha") // Consulta puntual, no devuelve un recurso HATEOAS.
+    @Operation(summary = "Consultar stock de un SKU en una fecha",
+            description = "Reconstruye el stock disponible en la fecha indicada desde el checkpoint más cercano, reproduciendo solo los movimientos posteriores.")
+    public ResponseEntity<StockEnFechaDTO> consultarStockEnFecha(
+            @PathVariable String sku,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(checkpointStockService.consultarStockEnFecha(sku, fecha));
+    }
+
+    /**
+     * GET /api/inventario/movimientos/{sku}/resumen-diario?desde=2025-01-01&hasta=2025-01-31
+     * Totales diarios por tipo de movimiento del SKU, leídos de los resúmenes precalculados.
+     */
+    @GetMapping("/{sku}/resumen-diario")
+    @Operation(summary = "Resumen diario de movimientos de un SKU",
+            description = "Devuelve, por día y tipo de movimiento, la cantidad total y el número de movimientos del SKU en el rango indicado.")
+    public ResponseEntity<List<ResumenMovimientoDiarioDTO>> consultarResumenDiario(
+            @PathVariable String sku,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(resumenMovimientoService.consultarResumenDiario(sku, desde, hasta));
+    }
+
+    /**
+     * GET /api/inventario/movimientos/resumen/totales?desde=2025-01-01&hasta=2025-01-07
+     * Totales por tipo de movimiento de todos los SKUs en el rango (p. ej. unidades vendidas en la semana).
+     */
+    @GetMapping("/resumen/totales")
+    @Operation(summary = "Totales de movimientos por tipo",
+            description = "Suma, para todos los SKUs, la cantidad y el número de movimientos por tipo en el rango de días indicado.")
+    public ResponseEntity<List<ResumenMovimientoDiarioDTO>> consultarTotalesPorTipo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(resumenMovimientoService.consultarTotalesPorTipo(desde, hasta));
+    }
+
     /**
      * POST /api/inventario/movimientos
      * Permite registrar un nuevo movimiento de stock.
      */
-    @PostMapping(produces = MediaTypes.HAL_JSON_VALUE)
+    @PostMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Registrar nuevo movimiento de stock",
             description = "Permite registrar un movimiento de entrada o salida de stock para un producto existente.")
-    public ResponseEntity<EntityModel<MovimientoStockDTO>> registrarMovimiento(@Valid @RequestBody MovimientoStock movimiento) {
+    public ResponseEntity<?> registrarMovimiento(@Valid @RequestBody MovimientoStock movimiento) {
         MovimientoStockDTO nuevoMovimiento = movimientoStockService.registrarMovimiento(movimiento);
+        if (RepresentacionLigera.solicitada()) {
+            return ResponseEntity
+                    .created(linkTo(methodOn(MovimientoStockController.class).getMovimientoById(nuevoMovimiento.getId())).toUri())
+                    .body(nuevoMovimiento);
+        }
         EntityModel<MovimientoStockDTO> entityModel = assembler.toModel(nuevoMovimiento);
 
         return ResponseEntity
@@ -65,12 +141,12 @@ public class MovimientoStockController {
                 .body(entityModel);
     }
 
-    @GetMapping(value = "/id/{id}", produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(value = "/id/{id}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Consultar un movimiento de stock por ID",
             description = "Permite consultar un movimiento de stock específico utilizando su ID.")
-    public ResponseEntity<EntityModel<MovimientoStockDTO>> getMovimientoById(@PathVariable Long id) {
+    public ResponseEntity<?> getMovimientoById(@PathVariable Long id) {
         MovimientoStockDTO movimiento = movimientoStockService.consultarMovimientoPorId(id);
-        return ResponseEntity.ok(assembler.toModel(movimiento));
+        return ResponseEntity.ok(RepresentacionLigera.solicitada() ? movimiento : assembler.toModel(movimiento));
     }
 
     @GetMapping(produces = MediaTypes.HAL_JSON_VALUE)
@@ -10,12 +10,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -31,46 +35,55 @@ public class ProductoInventarioController {
     private final ProductoInventarioService productoInventarioService;
     private final ProductoInventarioModelAssembler assembler;
 
-    @PostMapping(produces = MediaTypes.HAL_JSON_VALUE)
+    @PostMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Agregar un nuevo producto al inventario",
             description = "Permite agregar un nuevo producto al inventario con los detalles proporcionados.")
-    public ResponseEntity<EntityModel<ProductoInventarioDTO>> agregarProducto(
+    public ResponseEntity<?> agregarProducto(
             @Valid @RequestBody AgregarProductoInventarioRequestDTO requestDTO) {
         ProductoInventarioDTO nuevoProducto = productoInventarioService.agregarProductoInventario(requestDTO);
         return ResponseEntity
                 .created(linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(nuevoProducto.getSku())).toUri())
-                .body(assembler.toModel(nuevoProducto));
+                .body(representar(nuevoProducto));
     }
 
-    @GetMapping(produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Consultar todos los productos del inventario",
             description = "Permite consultar todos los productos actualmente registrados en el inventario.")
-    public ResponseEntity<CollectionModel<EntityModel<ProductoInventarioDTO>>> consultarTodosLosProductos() {
-        List<EntityModel<ProductoInventarioDTO>> productos = productoInventarioService.consultarTodosLosProductos().stream()
-                .map(assembler::toModel)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> consultarTodosLosProductos() {
+        RepresentacionLigera.rechazarCamposEnHal();
+        return ResponseEntity.ok(representar(productoInventarioService.consultarTodosLosProductos(),
+                () -> linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()).withSelfRel()));
+    }
 
-        return ResponseEntity.ok(
-                CollectionModel.of(productos,
-                        linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()).withSelfRel()));
+    /**
+     * GET /api/inventario/productos?fields=sku,cantidadDisponible
+     * Solo los campos pedidos de ProductoInventarioDTO: la consulta lee esas columnas y la respuesta es JSON plano,
+     * sin enlaces (el self de cada producto necesita el SKU, que puede no estar entre los campos). Con un Accept que
+     * solo admite application/hal+json el pedido cae en consultarTodosLosProductos, que responde 406.
+     */
+    @GetMapping(params = "fields", produces = {MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
+    @Operation(summary = "Consultar campos seleccionados de todos los productos",
+            description = "Devuelve, por producto, solo los campos de ProductoInventarioDTO indicados en fields (separados por coma).")
+    public ResponseEntity<List<Map<String, Object>>> consultarCamposDeProductos(@RequestParam List<String> fields) {
+        return ResponseEntity.ok(productoInventarioService.consultarTodosLosProductos(fields));
     }
 
-    @GetMapping(value = "/{sku}", produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(value = "/{sku}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Consultar un producto por SKU",
             description = "Permite consultar un producto específico del inventario utilizando su SKU.")
-    public ResponseEntity<EntityModel<ProductoInventarioDTO>> consultarProductoPorSku(@PathVariable String sku) {
+    public ResponseEntity<?> consultarProductoPorSku(@PathVariable String sku) {
         ProductoInventarioDTO producto = productoInventarioService.consultarProductoPorSku(sku);
-        return ResponseEntity.ok(assembler.toModel(producto));
+        return ResponseEntity.ok(representar(producto));
     }
 
-    @PutMapping(value = "/{sku}", produces = MediaTypes.HAL_JSON_VALUE)
+    @PutMapping(value = "/{sku}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Actualizar un producto existente en el inventario",
             description = "Permite actualizar los detalles de un producto existente en el inventario utilizando su SKU.")
-    public ResponseEntity<EntityModel<ProductoInventarioDTO>> actualizarProducto(
+    public ResponseEntity<?> actualizarProducto(
             @PathVariable String sku,
             @Valid @RequestBody AgregarProductoInventarioRequestDTO requestDTO) {
         ProductoInventarioDTO productoActualizado = productoInventarioService.actualizarProducto(sku, requestDTO);
-        return ResponseEntity.ok(assembler.toModel(productoActualizado));
+        return ResponseEntity.ok(representar(productoActualizado));
     }
 
     @DeleteMapping(value = "/{sku}", produces = MediaTypes.HAL_JSON_VALUE)
@@ -81,22 +94,22 @@ public class ProductoInventarioController {
         return ResponseEntity.noContent().build();
     }
 
-    @PutMapping(value = "/stock", produces = MediaTypes.HAL_JSON_VALUE)
+    @PutMapping(value = "/stock", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Actualizar el stock de un producto",
             description = "Permite actualizar el stock de un producto específico en el inventario.")
-    public ResponseEntity<EntityModel<ProductoInventarioDTO>> actualizarStock(
+    public ResponseEntity<?> actualizarStock(
             @Valid @RequestBody ActualizarStockRequestDTO requestDTO) {
         ProductoInventarioDTO updatedProducto = productoInventarioService.actualizarStock(requestDTO);
-        return ResponseEntity.ok(assembler.toModel(updatedProducto));
+        return ResponseEntity.ok(representar(updatedProducto));
     }
 
     //  RF8 - Ajuste Manual de Stock
-    @PostMapping(value = "/stock/ajuste-manual", produces = MediaTypes.HAL_JSON_VALUE)
+    @PostMapping(value = "/stock/ajuste-manual", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(
             summary = "Realizar un ajuste manual de stock",
             description = "Permite ajustar manualmente el stock de un producto, especificando si es una ENTRADA o SALIDA."
     )
-    public ResponseEntity<EntityModel<ProductoInventarioDTO>> ajustarStockManual(
+    public ResponseEntity<?> ajustarStockManual(
             @Valid @RequestBody AjusteStockManualRequestDTO dto) {
 
         TipoMovimiento tipoMovimiento;
@@ -115,7 +128,7 @@ public class ProductoInventarioController {
         );
 
         ProductoInventarioDTO actualizado = productoInventarioService.actualizarStock(request);
-        return ResponseEntity.ok(assembler.toModel(actualizado));
+        return ResponseEntity.ok(representar(actualizado));
     }
 
     //  RF10 - Reserva de Stock
@@ -155,29 +168,34 @@ public class ProductoInventarioController {
         return ResponseEntity.ok("Stock liberado exitosamente.");
     }
 
-    @GetMapping(value = "/bajo-stock/{umbralCantidadMinima}", produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(value = "/bajo-stock/{umbralCantidadMinima}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Consultar productos con stock bajo",
             description = "Permite consultar productos cuyo stock está por debajo de un umbral específico.")
-    public ResponseEntity<CollectionModel<EntityModel<ProductoInventarioDTO>>> verificarYNotificarStockBajo(@PathVariable Integer umbralCantidadMinima) {
-        List<EntityModel<ProductoInventarioDTO>> productosBajoStock = productoInventarioService.verificarYNotificarStockBajo(umbralCantidadMinima).stream()
-                .map(assembler::toModel)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(
-                CollectionModel.of(productosBajoStock,
-                        linkTo(methodOn(ProductoInventarioController.class).verificarYNotificarStockBajo(umbralCantidadMinima)).withSelfRel()));
+    public ResponseEntity<?> verificarYNotificarStockBajo(@PathVariable Integer umbralCantidadMinima) {
+        return ResponseEntity.ok(representar(productoInventarioService.verificarYNotificarStockBajo(umbralCantidadMinima),
+                () -> linkTo(methodOn(ProductoInventarioController.class).verificarYNotificarStockBajo(umbralCantidadMinima)).withSelfRel()));
     }
 
-    @GetMapping(value = "/exceso-stock/{umbralCantidadExcesiva}", produces = MediaTypes.HAL_JSON_VALUE)
+    @GetMapping(value = "/exceso-stock/{umbralCantidadExcesiva}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE, RepresentacionLigera.VALOR})
     @Operation(summary = "Consultar productos con stock excesivo",
             description = "Permite consultar productos cuyo stock está por encima de un umbral específico.")
-    public ResponseEntity<CollectionModel<EntityModel<ProductoInventarioDTO>>> verificarYNotificarStockExcesivo(@PathVariable Integer umbralCantidadExcesiva) {
-        List<EntityModel<ProductoInventarioDTO>> productosExcesoStock = productoInventarioService.verificarYNotificarStockExcesivo(umbralCantidadExcesiva).stream()
+    public ResponseEntity<?> verificarYNotificarStockExcesivo(@PathVariable Integer umbralCantidadExcesiva) {
+        return ResponseEntity.ok(representar(productoInventarioService.verificarYNotificarStockExcesivo(umbralCantidadExcesiva),
+                () -> linkTo(methodOn(ProductoInventarioController.class).verificarYNotificarStockExcesivo(umbralCantidadExcesiva)).withSelfRel()));
+    }
+
+    // Con la representación plana (ver RepresentacionLigera) el DTO va tal cual y el assembler no se usa
+    private Object representar(ProductoInventarioDTO producto) {
+        return RepresentacionLigera.solicitada() ? producto : assembler.toModel(producto);
+    }
+
+    private Object representar(List<ProductoInventarioDTO> productos, Supplier<Link> self) {
+        if (RepresentacionLigera.solicitada()) {
+            return productos;
+        }
+        List<EntityModel<ProductoInventarioDTO>> modelos = productos.stream()
                 .map(assembler::toModel)
                 .collect(Collectors.toList());
-
-        return ResponseEntity.ok(
-                CollectionModel.of(productosExcesoStock,
-                        linkTo(methodOn(ProductoInventarioController.class).verificarYNotificarStockExcesivo(umbralCantidadExcesiva)).withSelfRel()));
+        return CollectionModel.of(modelos, self.get());
     }
 }
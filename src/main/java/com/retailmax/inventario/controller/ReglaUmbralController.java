@@ -0,0 +1,74 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.dto.ReglaUmbralDTO;
+import com.retailmax.inventario.dto.UmbralEfectivoDTO;
+import com.retailmax.inventario.service.ReglaUmbralService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/reglas-umbral")
+@Tag(name = "UmbralAlerta", description = "Operaciones relacionadas con la gestión de umbrales de alerta para productos de inventario")
+@RequiredArgsConstructor
+public class ReglaUmbralController {
+
+    private final ReglaUmbralService reglaUmbralService;
+
+    @GetMapping
+    @Operation(summary = "Consultar reglas de umbral",
+            description = "Reglas de umbral por defecto por prefijo de producto base, ubicación, color o talla.")
+    public ResponseEntity<List<ReglaUmbralDTO>> getReglas() {
+        return ResponseEntity.ok(reglaUmbralService.consultarReglas());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Consultar regla de umbral por ID")
+    public ResponseEntity<ReglaUmbralDTO> getRegla(@PathVariable Long id) {
+        return ResponseEntity.ok(reglaUmbralService.consultarRegla(id));
+    }
+
+    /**
+     * POST /api/inventario/reglas-umbral
+     * Crea una regla que se aplica a todos los SKUs cuyo producto cumple el criterio y no tienen umbral propio.
+     */
+    @PostMapping
+    @Operation(summary = "Crear regla de umbral",
+            description = "Crea un umbral por defecto para los productos que cumplen el criterio; el umbral propio de un SKU tiene precedencia.")
+    public ResponseEntity<ReglaUmbralDTO> createRegla(@Valid @RequestBody ReglaUmbralDTO requestDTO) {
+        ReglaUmbralDTO nueva = reglaUmbralService.crearRegla(requestDTO);
+        return ResponseEntity.created(URI.create("/api/inventario/reglas-umbral/" + nueva.getId())).body(nueva);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Actualizar regla de umbral",
+            description = "Actualiza tipo, cantidad, histéresis, prioridad o estado de la regla; el criterio y el valor no cambian.")
+    public ResponseEntity<ReglaUmbralDTO> updateRegla(@PathVariable Long id, @Valid @RequestBody ReglaUmbralDTO requestDTO) {
+        return ResponseEntity.ok(reglaUmbralService.actualizarRegla(id, requestDTO));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Eliminar regla de umbral")
+    public ResponseEntity<Void> deleteRegla(@PathVariable Long id) {
+        reglaUmbralService.eliminarRegla(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/inventario/reglas-umbral/efectivo/{sku}
+     * Umbral que se aplica al SKU y de dónde sale (su fila en umbrales_alerta o una regla).
+     */
+    @GetMapping("/efectivo/{sku}")
+    @Operation(summary = "Consultar umbral efectivo de un SKU",
+            description = "Devuelve el umbral propio del SKU o, si no tiene, el de la regla de mayor precedencia que cumple su producto.")
+    public ResponseEntity<UmbralEfectivoDTO> getUmbralEfectivo(@PathVariable String sku) {
+        return ResponseEntity.ok(reglaUmbralService.consultarUmbralEfectivo(sku));
+    }
+}
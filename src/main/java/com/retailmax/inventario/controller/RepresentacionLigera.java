@@ -0,0 +1,75 @@
+package com.retailmax.inventario.controller;
+
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Representación JSON plana de productos y movimientos: los DTOs tal cual, sin EntityModel ni _links, para servicios
+ * internos que no navegan enlaces. Se sirve solo si el cliente la prefiere explícitamente en Accept (application/json
+ * o el tipo propio); sin Accept, con comodines o con application/hal+json la respuesta sigue siendo HAL.
+ */
+public final class RepresentacionLigera {
+
+    public static final String VALOR = "application/vnd.retailmax.inventario+json";
+    public static final MediaType TIPO = MediaType.parseMediaType(VALOR);
+
+    private RepresentacionLigera() {
+    }
+
+    /** true si el Accept del pedido actual prefiere la representación plana a HAL. */
+    public static boolean solicitada() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return false;
+        }
+        return preferida(atributos.getRequest().getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * fields= solo existe en la representación plana: su handler produce application/json o el tipo propio. Un pedido
+     * con fields que llega a un handler HAL es porque su Accept no admite ninguno de los dos; se responde 406 en lugar
+     * de devolver el recurso completo ignorando los campos.
+     */
+    public static void rechazarCamposEnHal() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+                && atributos.getRequest().getParameter("fields") != null) {
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE,
+                    "fields solo se sirve como application/json o " + VALOR + ", no como " + MediaTypes.HAL_JSON_VALUE + ".");
+        }
+    }
+
+    static boolean preferida(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> aceptados;
+        try {
+            aceptados = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        // Orden estable por calidad: a igual q manda el orden en que los escribió el cliente
+        aceptados.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType aceptado : aceptados) {
+            if (aceptado.getQualityValue() == 0) {
+                continue;
+            }
+            if (aceptado.isWildcardType() || aceptado.isWildcardSubtype() || aceptado.equalsTypeAndSubtype(MediaTypes.HAL_JSON)) {
+                return false;
+            }
+            if (aceptado.equalsTypeAndSubtype(MediaType.APPLICATION_JSON) || aceptado.equalsTypeAndSubtype(TIPO)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
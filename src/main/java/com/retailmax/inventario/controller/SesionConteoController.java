@@ -0,0 +1,64 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.dto.LecturaConteoDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
+import com.retailmax.inventario.dto.SesionConteoDTO;
+import com.retailmax.inventario.service.SesionConteoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/auditoria/sesiones")
+@RequiredArgsConstructor
+@Tag(name = "Sesiones de Conteo", description = "Conteo físico con escáneres de mano, agregado en el servidor por sesión")
+public class SesionConteoController {
+
+    private final SesionConteoService sesionConteoService;
+
+    @PostMapping
+    @Operation(
+        summary = "Abrir una sesión de conteo",
+        description = "Crea una sesión de conteo, opcionalmente asociada a una zona, a la que los escáneres envían sus lecturas"
+    )
+    public ResponseEntity<SesionConteoDTO> abrirSesion(@RequestParam(required = false) String zona) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(sesionConteoService.abrirSesion(zona));
+    }
+
+    @PostMapping("/{id}/lecturas")
+    @Operation(
+        summary = "Registrar un lote de lecturas",
+        description = "Recibe un lote pequeño de lecturas (sku, cantidad, zona) y las agrega a la sesión abierta"
+    )
+    public ResponseEntity<Void> registrarLecturas(
+            @PathVariable Long id,
+            @Valid @RequestBody List<@Valid LecturaConteoDTO> lecturas) {
+        sesionConteoService.registrarLecturas(id, lecturas);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/{id}")
+    @Operation(
+        summary = "Consultar una sesión de conteo",
+        description = "Retorna el estado de la sesión y los totales contados por SKU hasta el momento"
+    )
+    public ResponseEntity<SesionConteoDTO> consultarSesion(@PathVariable Long id) {
+        return ResponseEntity.ok(sesionConteoService.consultarSesion(id));
+    }
+
+    @PostMapping("/{id}/cerrar")
+    @Operation(
+        summary = "Cerrar una sesión de conteo",
+        description = "Cierra la sesión, compara los totales contados contra el stock del sistema y retorna las discrepancias"
+    )
+    public ResponseEntity<ResultadoAuditoriaDTO> cerrarSesion(@PathVariable Long id) {
+        return ResponseEntity.ok(sesionConteoService.cerrarSesion(id));
+    }
+}
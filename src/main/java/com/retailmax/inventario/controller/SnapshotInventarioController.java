@@ -0,0 +1,115 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.service.SnapshotInventarioService;
+import com.retailmax.inventario.service.SnapshotInventarioService.SnapshotInventario;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/snapshot")
+@ConditionalOnProperty(name = "inventario.snapshot.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Tag(name = "ProductoInventario", description = "Operaciones relacionadas con la gestión de inventario de productos")
+public class SnapshotInventarioController {
+
+    // Atributos de Tomcat para sendfile: el conector copia el archivo al socket sin pasar por la JVM
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private final SnapshotInventarioService snapshotInventarioService;
+
+    /**
+     * GET /api/inventario/snapshot
+     * Inventario completo como NDJSON comprimido con gzip. Admite If-None-Match y un rango de bytes (Range/If-Range),
+     * así una descarga cortada se retoma donde quedó mientras el snapshot no cambie.
+     */
+    @GetMapping
+    @Operation(summary = "Descargar snapshot de inventario",
+            description = "Devuelve el último snapshot generado (un ProductoInventarioDTO por línea, gzip). El header "
+                    + "X-Inventario-Version es el cursor del feed de movimientos desde el que seguir.")
+    public void descargarSnapshot(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SnapshotInventario snapshot = snapshotInventarioService.actual();
+        String etag = "\"" + snapshot.etag() + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, snapshot.generado())) {
+            return;
+        }
+        response.setHeader("X-Inventario-Version", Long.toString(snapshot.version()));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + snapshot.archivo().getFileName() + "\"");
+        response.setContentType("application/gzip");
+
+        // Un If-Range de otro snapshot pide el archivo completo; varios rangos también se responden completos
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rango != null && (ifRange == null || ifRange.equals(etag))) {
+            ResourceRegion region;
+            try {
+                List<HttpRange> rangos = HttpRange.parseRanges(rango);
+                region = rangos.size() == 1 ? rangos.get(0).toResourceRegion(new FileSystemResource(snapshot.archivo())) : null;
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + snapshot.tamano());
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (region != null) {
+                long fin = region.getPosition() + region.getCount() - 1;
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + region.getPosition() + "-" + fin + "/" + snapshot.tamano());
+                transferir(snapshot.archivo(), region.getPosition(), region.getCount(), request, response);
+                return;
+            }
+        }
+        transferir(snapshot.archivo(), 0, snapshot.tamano(), request, response);
+    }
+
+    private static void transferir(Path archivo, long inicio, long largo, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(largo);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, inicio + largo);
+            return;
+        }
+        // Sin sendfile: transferTo desde el canal del archivo, sin pasar por un buffer propio
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviados = 0;
+            while (enviados < largo) {
+                long transferidos = canal.transferTo(inicio + enviados, largo - enviados, salida);
+                if (transferidos <= 0) {
+                    break;
+                }
+                enviados += transferidos;
+            }
+        }
+    }
+}
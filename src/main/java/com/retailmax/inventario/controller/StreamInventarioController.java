@@ -0,0 +1,37 @@
+package com.retailmax.inventario.controller;
+
+import com.retailmax.inventario.service.StreamInventarioService;
+import com.retailmax.inventario.service.StreamInventarioService.FiltroStream;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/inventario/stream")
+@ConditionalOnProperty(name = "inventario.stream.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Tag(name = "ProductoInventario", description = "Operaciones relacionadas con la gestión de productos de inventario")
+public class StreamInventarioController {
+
+    private final StreamInventarioService streamInventarioService;
+
+    /**
+     * GET /api/inventario/stream?skus=SKU1,SKU2&ubicaciones=A1
+     * Server-Sent Events con los cambios confirmados de productos y las alertas; sin filtros recibe todos.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suscribirse a los cambios de inventario",
+            description = "Stream SSE de eventos producto, producto-eliminado y alerta, filtrados por SKU y ubicación. "
+                    + "Un evento descartados indica que se perdieron eventos por lentitud del cliente.")
+    public SseEmitter suscribir(@RequestParam(required = false) List<String> skus,
+                                @RequestParam(required = false) List<String> ubicaciones) {
+        return streamInventarioService.suscribir(FiltroStream.de(skus, ubicaciones));
+    }
+}
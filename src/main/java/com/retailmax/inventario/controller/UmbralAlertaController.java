@@ -1,20 +1,31 @@
 package com.retailmax.inventario.controller;
 
 import com.retailmax.inventario.assemblers.UmbralAlertaModelAssembler;
+import com.retailmax.inventario.dto.ResultadoCargaUmbralesDTO;
 import com.retailmax.inventario.dto.UmbralAlertaDTO;
 import com.retailmax.inventario.service.UmbralAlertaService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import com.retailmax.inventario.model.enums.TipoAlerta;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -117,16 +128,46 @@ public class UmbralAlertaController {
     }
 
     /**
-     * GET /api/inventario/umbrales/tipo/{tipoAlerta}
-     * Consulta umbrales activos por tipo de alerta con enlaces HATEOAS.
+     * POST /api/inventario/umbrales/carga-masiva
+     * Crea o actualiza por SKU los umbrales de la lista, con una búsqueda y un MERGE por lote en lugar de uno por SKU.
+     *
+     * @param umbrales Umbrales a crear o actualizar; en los existentes solo se modifican los campos presentes.
+     * @return Cantidades creadas, actualizadas y rechazadas, con el motivo de los rechazos.
+     */
+    @PostMapping(value = "/carga-masiva", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Carga masiva de umbrales de alerta",
+               description = "Crea o actualiza los umbrales de una lista de SKUs en lotes; las filas inválidas se informan sin detener la carga.")
+    public ResponseEntity<ResultadoCargaUmbralesDTO> cargarUmbrales(@RequestBody List<UmbralAlertaDTO> umbrales) {
+        return ResponseEntity.ok(umbralAlertaService.cargarUmbrales(umbrales));
+    }
+
+    /**
+     * POST /api/inventario/umbrales/carga-masiva (text/csv)
+     * Igual que la carga masiva JSON, leyendo el cuerpo como CSV a medida que llega:
+     * sku,tipoAlerta,umbralCantidad,activo[,histeresis], con encabezado opcional.
+     */
+    @PostMapping(value = "/carga-masiva", consumes = "text/csv")
+    @Operation(summary = "Carga masiva de umbrales de alerta desde CSV",
+               description = "Crea o actualiza umbrales desde un CSV sku,tipoAlerta,umbralCantidad,activo[,histeresis] sin cargarlo entero en memoria.")
+    public ResponseEntity<ResultadoCargaUmbralesDTO> cargarUmbralesCsv(Reader csv) throws IOException {
+        return ResponseEntity.ok(umbralAlertaService.cargarUmbralesCsv(csv));
+    }
+
+    /**
+     * GET /api/inventario/umbrales/tipo/{tipoAlerta}?page=0&size=100
+     * Consulta umbrales activos por tipo de alerta, paginados por SKU, con enlaces HATEOAS.
      *
      * @param tipoAlerta El tipo de alerta (ej. BAJO_STOCK, EXCESO_STOCK).
-     * @return CollectionModel de EntityModel de UmbralAlertaDTO.
+     * @param pageable Página y tamaño de página (100 por defecto); el orden es siempre por SKU.
+     * @return PagedModel de EntityModel de UmbralAlertaDTO, con enlaces a las páginas vecinas.
      */
     @GetMapping(value = "/tipo/{tipoAlerta}", produces = MediaTypes.HAL_JSON_VALUE)
     @Operation(summary = "Consultar umbrales activos por tipo de alerta",
-               description = "Permite consultar los umbrales de alerta activos filtrados por tipo de alerta.")
-    public ResponseEntity<CollectionModel<EntityModel<UmbralAlertaDTO>>> getUmbralesActivosPorTipo(@PathVariable String tipoAlerta) {
+               description = "Permite consultar los umbrales de alerta activos filtrados por tipo de alerta, paginados por SKU.")
+    public ResponseEntity<PagedModel<EntityModel<UmbralAlertaDTO>>> getUmbralesActivosPorTipo(
+            @PathVariable String tipoAlerta,
+            @ParameterObject @PageableDefault(size = 100) Pageable pageable,
+            @Parameter(hidden = true) PagedResourcesAssembler<UmbralAlertaDTO> pagedAssembler) {
         TipoAlerta alertType;
         try {
             alertType = TipoAlerta.fromName(tipoAlerta); // Convertir String del path a Enum
@@ -134,13 +175,9 @@ public class UmbralAlertaController {
             // Manejo de error si el tipo de alerta es inválido
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        List<EntityModel<UmbralAlertaDTO>> umbrales = umbralAlertaService.consultarUmbralesActivosPorTipo(alertType).stream()
-                .map(assembler::toModel)
-                .collect(Collectors.toList());
+        Page<UmbralAlertaDTO> umbrales = umbralAlertaService.consultarUmbralesActivosPorTipo(alertType, pageable);
 
-        // Retorna la colección de umbrales filtrados con un enlace a sí misma
-        return ResponseEntity.ok(
-                CollectionModel.of(umbrales,
-                        linkTo(methodOn(UmbralAlertaController.class).getUmbralesActivosPorTipo(tipoAlerta)).withSelfRel()));
+        // Retorna la página de umbrales filtrados con enlaces a sí misma y a las páginas vecinas
+        return ResponseEntity.ok(pagedAssembler.toModel(umbrales, assembler));
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertaInventarioDTO {
+
+    private String sku;
+    private String tipoAlerta;
+    private Integer umbralCantidad;
+    private Integer cantidadDisponible;
+    private Boolean activa;
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,19 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DesviacionStockDTO {
+
+    private String sku;
+    private Integer saldoRegistrado; // cantidadDisponible en ProductoInventario
+    private Integer saldoSegunMovimientos; // Saldo que resulta del historial de movimientos
+    private Integer diferencia; // saldoRegistrado - saldoSegunMovimientos
+    private Boolean reparado;
+}
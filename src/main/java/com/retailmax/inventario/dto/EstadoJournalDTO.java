@@ -0,0 +1,20 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadoJournalDTO {
+
+    private String journal; // Identificador del journal de esta instancia
+    private Long secuenciaEscrita; // Último movimiento agregado al journal
+    private Long secuenciaDurable; // Último movimiento sincronizado a disco (aceptado)
+    private Long secuenciaAplicada; // Último movimiento escrito en la base de datos
+    private Long pendientes; // Aceptados que aún no están en la base de datos
+    private Long rechazados; // Movimientos que no se pudieron aplicar (p. ej. stock insuficiente) desde el arranque
+}
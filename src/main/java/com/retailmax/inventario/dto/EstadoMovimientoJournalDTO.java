@@ -0,0 +1,19 @@
+package com.retailmax.inventario.dto;
+
+import com.retailmax.inventario.model.enums.EstadoMovimientoJournal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadoMovimientoJournalDTO {
+
+    private String journal;
+    private Long secuencia;
+    private EstadoMovimientoJournal estado;
+    private String motivoRechazo; // Solo en RECHAZADO
+}
@@ -0,0 +1,33 @@
+package com.retailmax.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL) // Cada tipo de evento lleva solo sus campos
+public class EventoWebhookDTO {
+
+    private String tipoEvento; // ALERTA o MOVIMIENTO
+    private String sku;
+    private LocalDateTime fecha;
+
+    // ALERTA
+    private String tipoAlerta;
+    private Integer umbralCantidad;
+    private Integer cantidadDisponible;
+    private Boolean activa;
+
+    // MOVIMIENTO
+    private Long movimientoId;
+    private String tipoMovimiento;
+    private Integer cantidadMovida;
+    private Integer stockFinalDespuesMovimiento;
+}
@@ -0,0 +1,19 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeedMovimientosDTO {
+
+    private List<MovimientoFeedDTO> movimientos;
+    private Long cursor; // Cursor para la siguiente consulta: ID del último movimiento entregado
+    private Boolean hayMas; // Hay más movimientos confirmados después de esta página
+}
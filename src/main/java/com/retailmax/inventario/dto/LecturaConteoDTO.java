@@ -0,0 +1,26 @@
+package com.retailmax.inventario.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para una lectura de escáner dentro de una sesión de conteo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LecturaConteoDTO {
+
+    @NotBlank(message = "El SKU no puede estar vacío")
+    private String sku;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser al menos 1")
+    private Integer cantidad;
+
+    private String zona; // Opcional: si no viene, se usa la zona de la sesión
+}
@@ -0,0 +1,22 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimientoAceptadoDTO {
+
+    private String journal; // Journal de la instancia que lo aceptó
+    private Long secuencia; // Posición del movimiento en ese journal
+    private String sku;
+    private String tipoMovimiento;
+    private Integer cantidadMovida;
+    private LocalDateTime fechaMovimiento;
+}
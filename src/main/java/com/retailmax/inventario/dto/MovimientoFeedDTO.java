@@ -0,0 +1,29 @@
+package com.retailmax.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Forma compacta de un movimiento en el feed: sin enlaces ni producto, nombres cortos y sin campos nulos
+@Data
+@NoArgsConstructor
+@AllArgsConstructor // Usado por la proyección JPQL de MovimientoStockRepository.findFeed
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovimientoFeedDTO {
+
+    private Long id; // Secuencia del feed
+    private String sku;
+    private TipoMovimiento tipo;
+    private Integer cantidad;
+    private Integer stockFinal;
+    private LocalDateTime fecha;
+    private String ref; // referenciaExterna
+
+    @JsonIgnore
+    private LocalDateTime registro; // fechaRegistro: solo para la ventana de confirmación, no se publica
+}
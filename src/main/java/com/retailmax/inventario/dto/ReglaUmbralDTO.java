@@ -0,0 +1,42 @@
+package com.retailmax.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReglaUmbralDTO {
+
+    // Solo lectura
+    private Long id;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaUltimaActualizacion;
+
+    // Como en UmbralAlertaDTO, los obligatorios para crear se validan en el servicio (el PUT es parcial)
+    private String criterio; // PREFIJO_PRODUCTO_BASE, UBICACION_ALMACEN, COLOR o TALLA
+
+    @Size(min = 1, max = 100, message = "El valor de la regla debe tener entre 1 y 100 caracteres")
+    private String valor;
+
+    private String tipoAlerta;
+
+    @Min(value = 0, message = "La cantidad del umbral no puede ser negativa")
+    private Integer umbralCantidad;
+
+    @Min(value = 0, message = "La histéresis no puede ser negativa")
+    private Integer histeresis;
+
+    private Integer prioridad; // 0 si no se indica al crear
+
+    private Boolean activo;
+}
@@ -0,0 +1,19 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoAuditoriaDTO {
+
+    private LocalDateTime fechaSnapshot; // Hora de la base de datos al fijar la lectura consistente
+    private List<DiscrepanciaStockDTO> discrepancias;
+}
@@ -0,0 +1,21 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoCargaUmbralesDTO {
+
+    private Integer recibidos; // Filas de la solicitud (o líneas de datos del CSV)
+    private Integer creados;
+    private Integer actualizados;
+    private Integer rechazados; // Filas inválidas; las demás se aplican igual
+    private List<String> errores; // Motivo de los primeros rechazos, con su fila
+}
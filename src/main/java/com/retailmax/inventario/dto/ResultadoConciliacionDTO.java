@@ -0,0 +1,23 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoConciliacionDTO {
+
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+    private Boolean modoReparacion;
+    private Integer skusRevisados;
+    private Integer lotesProcesados;
+    private List<DesviacionStockDTO> desviaciones;
+}
@@ -0,0 +1,21 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenMovimientoDiarioDTO {
+
+    private String sku; // null en los totales de todos los SKUs
+    private LocalDate fecha; // null en los totales de un rango
+    private String tipoMovimiento;
+    private Long cantidadTotal;
+    private Long numeroMovimientos;
+}
@@ -0,0 +1,25 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SesionConteoDTO {
+
+    private Long id;
+    private String zona;
+    private String estado; // El nombre del Enum como String
+    private LocalDateTime fechaApertura;
+    private LocalDateTime fechaCierre;
+    private Integer skusContados;
+    private Long unidadesContadas;
+    private Map<String, Long> conteoPorSku; // Solo se incluye al consultar la sesión
+}
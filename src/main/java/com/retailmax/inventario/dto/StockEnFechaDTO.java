@@ -0,0 +1,21 @@
+package com.retailmax.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockEnFechaDTO {
+
+    private String sku;
+    private LocalDateTime fecha;
+    private Integer cantidadDisponible; // Stock disponible del SKU en esa fecha
+    private Long movimientoIdCheckpoint; // Checkpoint usado como punto de partida (null si se reprodujo desde el inicio)
+    private Integer movimientosReproducidos; // Movimientos aplicados sobre el checkpoint
+}
@@ -47,4 +47,9 @@ public class UmbralAlertaDTO {
     // Estado activo: Requerido para la creación, opcional para la actualización.
     // No se marca como @NotNull aquí para permitir actualizaciones parciales.
     private Boolean activo;
+
+    // Histéresis: opcional. Unidades que el stock debe recuperar más allá del umbral para dar la alerta por resuelta
+    // (por encima en BAJO_STOCK, por debajo en EXCESO_STOCK), así un stock que oscila en el umbral no repite alertas.
+    @Min(value = 0, message = "La histéresis no puede ser negativa")
+    private Integer histeresis;
 }
\ No newline at end of file
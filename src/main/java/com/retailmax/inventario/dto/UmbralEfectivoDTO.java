@@ -0,0 +1,24 @@
+package com.retailmax.inventario.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UmbralEfectivoDTO {
+
+    private String sku;
+    private String tipoAlerta;
+    private Integer umbralCantidad;
+    private Integer histeresis;
+    private String origen; // SKU (fila propia en umbrales_alerta) o REGLA
+    private Long reglaId; // Solo si origen es REGLA
+    private String criterio;
+    private String valor;
+}
@@ -0,0 +1,25 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Se publica cuando un SKU entra en la condición de su umbral de alerta (activa = true) o sale de ella (activa = false).
+ * Lo emite MotorAlertasService al cerrar la ventana de agrupación, con el último estado del SKU en ella; fecha es la
+ * del cambio que lo produjo. Las SIN_MOVIMIENTO se activan al vencer el plazo sin movimientos (umbralCantidad son
+ * días y cantidadDisponible es null).
+ */
+@Getter
+@RequiredArgsConstructor
+public class AlertaInventarioEvent {
+
+    private final String sku;
+    private final TipoAlerta tipoAlerta;
+    private final int umbralCantidad;
+    private final Integer cantidadDisponible;
+    private final boolean activa;
+    private final LocalDateTime fecha;
+}
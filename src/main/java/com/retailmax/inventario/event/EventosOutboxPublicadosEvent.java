@@ -0,0 +1,19 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.EventoOutbox;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lote de eventos del outbox publicado por DestinoOutboxEnProceso (inventario.outbox.destino=en-proceso).
+ * Se publica en el hilo del relay, antes de que confirme el borrado del lote: un listener que falla hace que
+ * el lote se reintente.
+ */
+@Getter
+@RequiredArgsConstructor
+public class EventosOutboxPublicadosEvent {
+
+    private final List<EventoOutbox> eventos;
+}
@@ -0,0 +1,17 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.MovimientoStock;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica cada vez que se guarda un MovimientoStock, dentro de la transacción que lo registra.
+ * Los listeners síncronos (@EventListener) participan de esa transacción; los que solo deben ver
+ * movimientos confirmados usan @TransactionalEventListener.
+ */
+@Getter
+@RequiredArgsConstructor
+public class MovimientoStockRegistradoEvent {
+
+    private final MovimientoStock movimiento;
+}
@@ -0,0 +1,18 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.ProductoInventario;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica al insertar, modificar o borrar una fila de inventarios, desde los callbacks JPA de la entidad,
+ * así lo emite cualquier escritura (servicios, conciliación, cargas) sin que cada una tenga que publicarlo.
+ * Se publica dentro de la transacción; quien necesite solo cambios confirmados usa @TransactionalEventListener.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ProductoInventarioActualizadoEvent {
+
+    private final ProductoInventario producto;
+    private final boolean eliminado;
+}
@@ -0,0 +1,37 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.ProductoInventario;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA de ProductoInventario. Hibernate lo instancia a través del contenedor de Spring,
+ * por eso puede recibir el publicador de eventos por constructor.
+ */
+@RequiredArgsConstructor
+public class ProductoInventarioEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void alCargar(ProductoInventario producto) {
+        producto.setUbicacionAlmacenGuardada(producto.getUbicacionAlmacen());
+    }
+
+    // Los listeners síncronos del evento todavía ven en ubicacionAlmacenGuardada la ubicación anterior al cambio
+    @PostPersist
+    @PostUpdate
+    public void alGuardar(ProductoInventario producto) {
+        eventPublisher.publishEvent(new ProductoInventarioActualizadoEvent(producto, false));
+        producto.setUbicacionAlmacenGuardada(producto.getUbicacionAlmacen());
+    }
+
+    @PostRemove
+    public void alEliminar(ProductoInventario producto) {
+        eventPublisher.publishEvent(new ProductoInventarioActualizadoEvent(producto, true));
+    }
+}
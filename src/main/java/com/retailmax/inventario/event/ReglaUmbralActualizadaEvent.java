@@ -0,0 +1,17 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.ReglaUmbral;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica al insertar, modificar o borrar una fila de reglas_umbral, desde los callbacks JPA de la entidad.
+ * Se publica dentro de la transacción.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReglaUmbralActualizadaEvent {
+
+    private final ReglaUmbral regla;
+    private final boolean eliminada;
+}
@@ -0,0 +1,29 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.ReglaUmbral;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA de ReglaUmbral: las reglas compiladas se invalidan con cualquier escritura, incluidas las cargas
+ * que van directo al repositorio.
+ */
+@RequiredArgsConstructor
+public class ReglaUmbralEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void alGuardar(ReglaUmbral regla) {
+        eventPublisher.publishEvent(new ReglaUmbralActualizadaEvent(regla, false));
+    }
+
+    @PostRemove
+    public void alEliminar(ReglaUmbral regla) {
+        eventPublisher.publishEvent(new ReglaUmbralActualizadaEvent(regla, true));
+    }
+}
@@ -0,0 +1,17 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.UmbralAlerta;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica al insertar, modificar o borrar una fila de umbrales_alerta, desde los callbacks JPA de la entidad.
+ * Igual que ProductoInventarioActualizadoEvent, se publica dentro de la transacción.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UmbralAlertaActualizadoEvent {
+
+    private final UmbralAlerta umbral;
+    private final boolean eliminado;
+}
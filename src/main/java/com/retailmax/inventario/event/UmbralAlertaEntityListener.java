@@ -0,0 +1,29 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.UmbralAlerta;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA de UmbralAlerta, para que el motor de alertas vea los cambios de configuración
+ * sin importar qué servicio los haga.
+ */
+@RequiredArgsConstructor
+public class UmbralAlertaEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void alGuardar(UmbralAlerta umbral) {
+        eventPublisher.publishEvent(new UmbralAlertaActualizadoEvent(umbral, false));
+    }
+
+    @PostRemove
+    public void alEliminar(UmbralAlerta umbral) {
+        eventPublisher.publishEvent(new UmbralAlertaActualizadoEvent(umbral, true));
+    }
+}
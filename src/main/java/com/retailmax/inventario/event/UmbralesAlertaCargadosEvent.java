@@ -0,0 +1,19 @@
+package com.retailmax.inventario.event;
+
+import com.retailmax.inventario.model.UmbralAlerta;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Se publica una vez al terminar una carga masiva de umbrales, dentro de su transacción, con el estado final
+ * de cada umbral creado o actualizado. La carga escribe con MERGE por JDBC, sin pasar por los callbacks JPA,
+ * así que no emite un UmbralAlertaActualizadoEvent por fila: quien mantenga umbrales en memoria escucha también este.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UmbralesAlertaCargadosEvent {
+
+    private final List<UmbralAlerta> umbrales;
+}
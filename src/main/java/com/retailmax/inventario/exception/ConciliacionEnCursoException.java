@@ -0,0 +1,12 @@
+package com.retailmax.inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT) // 409: otra conciliación (en esta u otra instancia) tiene el bloqueo; se reintenta al terminar
+public class ConciliacionEnCursoException extends RuntimeException {
+
+    public ConciliacionEnCursoException(String message) {
+        super(message);
+    }
+}
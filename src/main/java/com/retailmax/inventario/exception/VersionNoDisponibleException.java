@@ -0,0 +1,12 @@
+package com.retailmax.inventario.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE) // 410: la versión pedida ya no está en el historial; el cliente debe recargar desde cero
+public class VersionNoDisponibleException extends RuntimeException {
+
+    public VersionNoDisponibleException(String message) {
+        super(message);
+    }
+}
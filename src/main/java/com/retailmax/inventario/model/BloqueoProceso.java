@@ -0,0 +1,36 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "bloqueos_proceso")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Bloqueo con vencimiento de un proceso que debe correr en una sola instancia a la vez, con su punto de avance */
+public class BloqueoProceso {
+
+    @Id
+    @Column(length = 100)
+    private String nombre;
+
+    @Column(length = 36)
+    private String propietario; // Instancia que lo tiene tomado; null si está libre
+
+    private LocalDateTime vence; // Pasada esta fecha otra instancia puede tomarlo (la dueña se cayó)
+
+    @Column(length = 200)
+    private String avance; // Punto de reanudación del proceso, p. ej. el último SKU procesado
+
+    @Column(nullable = false)
+    private Boolean completado;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,43 @@
+package com.retailmax.inventario.model;
+
+import com.retailmax.inventario.model.enums.EstadoStock;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cambios_disponibilidad", indexes = {
+        @Index(name = "idx_cambios_disp_ubicacion_version", columnList = "ubicacion, version"), // Delta por tienda
+        @Index(name = "idx_cambios_disp_fecha", columnList = "fecha") // Ventana de confirmación y poda
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Cambio de disponibilidad de un SKU en una ubicación, en orden de versión global (sincronización de terminales POS) */
+public class CambioDisponibilidad {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long version;
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Column(length = 100) // Consistente con ProductoInventario.ubicacionAlmacen
+    private String ubicacion;
+
+    private Integer disponible;
+
+    @Enumerated(EnumType.STRING)
+    private EstadoStock estado;
+
+    @Column(nullable = false)
+    private Boolean eliminado; // El SKU se borró o dejó esta ubicación: la terminal lo quita
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,39 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "checkpoints_stock", indexes = {
+        @Index(name = "idx_checkpoints_sku_movimiento", columnList = "sku, movimiento_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Foto periódica del stock disponible de un SKU en un punto del historial de movimientos */
+public class CheckpointStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Column(nullable = false)
+    private Integer cantidadDisponible; // Stock disponible resultante tras aplicar el movimiento movimientoId
+
+    @Column(name = "movimiento_id", nullable = false)
+    private Long movimientoId; // Último MovimientoStock incluido en la foto
+
+    @Column(nullable = false)
+    private LocalDateTime fechaMovimiento; // Fecha más tardía entre los movimientos incluidos hasta movimientoId
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+}
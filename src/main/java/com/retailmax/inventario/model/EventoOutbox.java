@@ -0,0 +1,39 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_eventos", indexes = {
+        @Index(name = "idx_outbox_eventos_fecha", columnList = "fecha_creacion") // Retraso del relay
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Evento pendiente de publicar, escrito en la misma transacción que el cambio que lo origina (outbox transaccional) */
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 30)
+    private String tipoEvento; // MOVIMIENTO_STOCK
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String clave; // SKU del evento: los consumidores lo usan para particionar
+
+    private Long agregadoId; // ID del movimiento que originó el evento
+
+    @Lob
+    @Column(nullable = false)
+    private String payload; // El evento en JSON
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,49 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "webhooks_fallidos", indexes = {
+        @Index(name = "idx_webhooks_fallidos_destino_fecha", columnList = "destino, fecha_creacion")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Evento que no se pudo entregar a un webhook después de agotar los reintentos (cola de mensajes muertos) */
+public class EventoWebhookFallido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 500)
+    private String destino; // URL del webhook
+
+    @Column(nullable = false, length = 20)
+    private String tipoEvento; // ALERTA o MOVIMIENTO
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload; // El evento en JSON, tal como se habría enviado dentro del lote
+
+    @Column(nullable = false)
+    private Integer intentos;
+
+    @Column(length = 1000)
+    private String ultimoError;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaEvento;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,37 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "lecturas_conteo", indexes = @Index(name = "idx_lecturas_conteo_sesion", columnList = "sesion_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Bitácora compacta de una sesión de conteo: una fila por (sku, zona) por cada lote recibido, ya agregado */
+public class LecturaConteo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sesion_id", nullable = false)
+    private Long sesionId;
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Column(length = 100)
+    private String zona;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaRegistro;
+}
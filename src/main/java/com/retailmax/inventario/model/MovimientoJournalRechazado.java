@@ -0,0 +1,52 @@
+package com.retailmax.inventario.model;
+
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "movimientos_journal_rechazados", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_journal_rechazados_secuencia", columnNames = {"journal", "secuencia"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Movimiento aceptado por el journal (202) que no se pudo aplicar en la base de datos, p. ej. por stock insuficiente */
+public class MovimientoJournalRechazado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String journal;
+
+    @Column(nullable = false)
+    private Long secuencia; // La devuelta al aceptar el movimiento
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoMovimiento tipoMovimiento;
+
+    @Column(nullable = false)
+    private Integer cantidadMovida;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaMovimiento;
+
+    private String referenciaExterna;
+
+    @Column(length = 1000)
+    private String motivoRechazo;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaRechazo;
+}
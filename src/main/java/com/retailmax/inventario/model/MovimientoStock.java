@@ -7,7 +7,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import com.retailmax.inventario.model.enums.TipoMovimiento; // Asegúrate de que este Enum esté definido correctamente
 @Entity
-@Table(name = "movimientos_stock")
+@Table(name = "movimientos_stock", indexes = {
+        @Index(name = "idx_movimientos_sku_id", columnList = "sku, id"), // Reproducción de historial desde un checkpoint
+        @Index(name = "idx_movimientos_fecha_registro", columnList = "fecha_registro") // Versión confirmada del feed
+})
 @Data 
 @NoArgsConstructor
 @AllArgsConstructor // Genera un constructor con todos los argumentos (id, productoInventario, sku, etc.)
@@ -54,4 +57,14 @@ public class MovimientoStock {
 
     @Column(nullable = false)
     private LocalDateTime fechaMovimiento;
+
+    // Momento del INSERT según el reloj del servidor; fechaMovimiento puede venir del cliente o de un journal.
+    // El feed lo usa para no entregar movimientos recién insertados (ver FeedMovimientosService)
+    @Column(name = "fecha_registro")
+    private LocalDateTime fechaRegistro;
+
+    @PrePersist
+    void alRegistrar() {
+        fechaRegistro = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,28 @@
+package com.retailmax.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "posiciones_journal")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Última secuencia aplicada en la base de datos de cada journal local de movimientos (una fila por instancia) */
+public class PosicionJournal {
+
+    @Id
+    @Column(length = 36)
+    private String journal; // Identificador del journal, guardado junto a sus segmentos en directorio-datos
+
+    @Column(nullable = false)
+    private Long secuencia; // Se actualiza en la misma transacción que el movimiento aplicado
+
+    @Column(nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
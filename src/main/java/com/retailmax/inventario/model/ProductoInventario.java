@@ -2,19 +2,24 @@ package com.retailmax.inventario.model;
 
 import java.time.LocalDateTime;
 
+import com.retailmax.inventario.event.ProductoInventarioEntityListener;
 import com.retailmax.inventario.model.enums.EstadoStock;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
@@ -22,6 +27,7 @@ import lombok.NoArgsConstructor;
 
 @Table(name = "inventarios")
 @Entity
+@EntityListeners(ProductoInventarioEntityListener.class)
 
 /*Clase base para empezar a mover productos dentro del MS Inventario */
 public class ProductoInventario {
@@ -73,4 +79,10 @@ public class ProductoInventario {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private EstadoStock estado = EstadoStock.DISPONIBLE;
+
+    // Ubicación tal como está en la base de datos (al leer o al último guardado); la mantiene el listener de la entidad
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String ubicacionAlmacenGuardada;
 }
@@ -0,0 +1,56 @@
+package com.retailmax.inventario.model;
+
+import com.retailmax.inventario.event.ReglaUmbralEntityListener;
+import com.retailmax.inventario.model.enums.CriterioRegla;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reglas_umbral",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reglas_umbral_criterio_valor", columnNames = {"criterio", "valor"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(ReglaUmbralEntityListener.class) // Publica ReglaUmbralActualizadaEvent en cada escritura
+
+/*Umbral de alerta por defecto para los SKUs cuyo producto cumple el criterio; un UmbralAlerta del SKU lo reemplaza */
+public class ReglaUmbral {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private CriterioRegla criterio;
+
+    @Column(nullable = false, length = 100) // Prefijo de productoBaseSku, o talla, color o ubicación exactos
+    private String valor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoAlerta tipoAlerta;
+
+    @Column(nullable = false)
+    private Integer umbralCantidad;
+
+    @Column // Opcional, como en UmbralAlerta
+    private Integer histeresis;
+
+    @Column(nullable = false)
+    private Integer prioridad; // Si varias reglas cumplen, gana la de mayor prioridad
+
+    @Column(nullable = false)
+    private Boolean activo;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaUltimaActualizacion;
+}
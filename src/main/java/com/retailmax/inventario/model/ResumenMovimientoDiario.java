@@ -0,0 +1,41 @@
+package com.retailmax.inventario.model;
+
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "resumen_movimientos_diarios", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_sku_fecha_tipo", columnNames = {"sku", "fecha", "tipo_movimiento"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Totales diarios de movimientos por SKU y tipo, mantenidos al registrar cada movimiento */
+public class ResumenMovimientoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100) // Consistente con ProductoInventario.sku
+    private String sku;
+
+    @Column(nullable = false)
+    private LocalDate fecha; // Día de fechaMovimiento
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoMovimiento tipoMovimiento;
+
+    @Column(nullable = false)
+    private Long cantidadTotal; // Suma de cantidades en valor absoluto; el sentido lo da el tipo
+
+    @Column(nullable = false)
+    private Long numeroMovimientos;
+}
@@ -0,0 +1,35 @@
+package com.retailmax.inventario.model;
+
+import com.retailmax.inventario.model.enums.EstadoSesionConteo;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sesiones_conteo")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+/*Sesión de conteo físico: agrupa las lecturas de los escáneres hasta que se cierra y se compara contra el sistema */
+public class SesionConteo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100)
+    private String zona; // Zona o bodega que se está contando (opcional)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EstadoSesionConteo estado;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaApertura;
+
+    private LocalDateTime fechaCierre;
+}
@@ -1,5 +1,6 @@
 package com.retailmax.inventario.model;
 
+import com.retailmax.inventario.event.UmbralAlertaEntityListener;
 import com.retailmax.inventario.model.enums.TipoAlerta; // Importar el Enum
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -9,10 +10,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity // Indica que es una entidad JPA
-@Table(name = "umbrales_alerta") // Define el nombre de la tabla en la DB
+@Table(name = "umbrales_alerta", // Define el nombre de la tabla en la DB
+        indexes = @Index(name = "idx_umbrales_tipo_activo_sku", columnList = "tipo_alerta, activo, sku")) // Activos por tipo, recorridos por SKU
 @Data // Genera getters, setters, toString, equals, hashCode (Lombok)
 @NoArgsConstructor // Genera constructor sin argumentos (Lombok)
 @AllArgsConstructor // Genera constructor con todos los argumentos (Lombok)
+@EntityListeners(UmbralAlertaEntityListener.class) // Publica UmbralAlertaActualizadoEvent en cada escritura
 public class UmbralAlerta {
 
     @Id // Marca el campo como la clave primaria
@@ -32,6 +35,9 @@ public class UmbralAlerta {
     @Column(nullable = false)
     private Boolean activo; // Indica si el umbral de alerta está activo o no
 
+    @Column // Opcional: sin valor se usa inventario.alertas.histeresis-por-defecto
+    private Integer histeresis; // Unidades que el stock debe recuperar más allá del umbral para resolver la alerta
+
     // Campos de auditoría (serán gestionados por el servicio en un modelo anémico)
     @Column(nullable = false)
     private LocalDateTime fechaCreacion;
@@ -0,0 +1,13 @@
+package com.retailmax.inventario.model.enums;
+
+// Atributo del producto que compara una ReglaUmbral. Con igual prioridad gana el que aparece primero.
+public enum CriterioRegla {
+    PREFIJO_PRODUCTO_BASE, // valor es un prefijo de productoBaseSku (o del SKU si el producto no tiene base)
+    UBICACION_ALMACEN,
+    COLOR,
+    TALLA;
+
+    public static CriterioRegla fromName(String name) {
+        return CriterioRegla.valueOf(name.toUpperCase());
+    }
+}
@@ -0,0 +1,8 @@
+package com.retailmax.inventario.model.enums;
+
+/*Estados de un movimiento aceptado por el journal respecto de la base de datos*/
+public enum EstadoMovimientoJournal {
+    PENDIENTE,
+    APLICADO,
+    RECHAZADO
+}
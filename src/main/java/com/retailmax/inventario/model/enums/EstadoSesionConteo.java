@@ -0,0 +1,7 @@
+package com.retailmax.inventario.model.enums;
+
+/*Estados de una sesión de conteo físico con escáner*/
+public enum EstadoSesionConteo {
+    ABIERTA,
+    CERRADA
+}
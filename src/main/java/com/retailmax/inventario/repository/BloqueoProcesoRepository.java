@@ -0,0 +1,20 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.BloqueoProceso;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BloqueoProcesoRepository extends JpaRepository<BloqueoProceso, String> {
+
+    // SELECT ... FOR UPDATE: dos instancias que intentan tomar el mismo bloqueo se ordenan en la fila
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BloqueoProceso b WHERE b.nombre = :nombre")
+    Optional<BloqueoProceso> findParaActualizar(@Param("nombre") String nombre);
+}
@@ -0,0 +1,38 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.CambioDisponibilidad;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CambioDisponibilidadRepository extends JpaRepository<CambioDisponibilidad, Long> {
+
+    // Cambios de una ubicación posteriores a una versión y hasta el límite visible, en orden de versión
+    @Query("SELECT c FROM CambioDisponibilidad c WHERE c.ubicacion = :ubicacion " +
+            "AND c.version > :desde AND c.version <= :hasta ORDER BY c.version")
+    List<CambioDisponibilidad> findCambios(@Param("ubicacion") String ubicacion, @Param("desde") Long desde,
+                                           @Param("hasta") Long hasta, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.version), 0) FROM CambioDisponibilidad c WHERE c.version <= :hasta")
+    long findUltimaVersionHasta(@Param("hasta") Long hasta);
+
+    // Versión del cambio registrado más recientemente hasta el corte (usar con PageRequest.of(0, 1))
+    @Query("SELECT c.version FROM CambioDisponibilidad c WHERE c.fecha <= :corte ORDER BY c.fecha DESC")
+    List<Long> findVersionesRegistradasHasta(@Param("corte") LocalDateTime corte, Pageable pageable);
+
+    @Query("SELECT COALESCE(MIN(c.version), 0) FROM CambioDisponibilidad c")
+    long findPrimeraVersion();
+
+    // Poda: nunca borra el último cambio, así la primera versión conservada marca hasta dónde hay historial
+    @Modifying
+    @Query("DELETE FROM CambioDisponibilidad c WHERE c.fecha < :limite " +
+            "AND c.version < (SELECT MAX(u.version) FROM CambioDisponibilidad u)")
+    int deleteAnterioresA(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,104 @@
+package com.retailmax.inventario.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Lista blanca de campos que un DTO permite pedir con fields=, cada uno con la expresión que lo calcula sobre la
+ * entidad. La consulta selecciona solo esas expresiones (una tupla, sin entidades en el contexto de persistencia) y
+ * cada fila se devuelve como un mapa campo -> valor en el orden pedido.
+ */
+final class CamposProyeccion<E> {
+
+    private record Campo<E>(BiFunction<CriteriaBuilder, Root<E>, Selection<?>> expresion, Function<Object, Object> conversion) {
+    }
+
+    private final Class<E> entidad;
+    private final Map<String, Campo<E>> campos = new LinkedHashMap<>();
+
+    CamposProyeccion(Class<E> entidad) {
+        this.entidad = entidad;
+    }
+
+    /** Campo que es un atributo de la entidad con el mismo nombre. */
+    CamposProyeccion<E> atributo(String nombre) {
+        return campo(nombre, (cb, root) -> root.get(nombre));
+    }
+
+    CamposProyeccion<E> campo(String nombre, BiFunction<CriteriaBuilder, Root<E>, Selection<?>> expresion) {
+        return campo(nombre, expresion, Function.identity());
+    }
+
+    CamposProyeccion<E> campo(String nombre, BiFunction<CriteriaBuilder, Root<E>, Selection<?>> expresion,
+                              Function<Object, Object> conversion) {
+        campos.put(nombre, new Campo<>(expresion, conversion));
+        return this;
+    }
+
+    /** Campos pedidos sin repetir, en su orden; uno fuera de la lista blanca es un IllegalArgumentException. */
+    Set<String> validar(Collection<String> pedidos) {
+        Set<String> validos = new LinkedHashSet<>();
+        for (String pedido : pedidos) {
+            String nombre = pedido == null ? "" : pedido.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            if (!campos.containsKey(nombre)) {
+                throw new IllegalArgumentException("Campo no disponible en fields: " + nombre
+                        + ". Campos admitidos: " + String.join(",", campos.keySet()));
+            }
+            validos.add(nombre);
+        }
+        if (validos.isEmpty()) {
+            throw new IllegalArgumentException("fields debe indicar al menos un campo: " + String.join(",", campos.keySet()));
+        }
+        return validos;
+    }
+
+    List<Map<String, Object>> consultar(EntityManager entityManager, Collection<String> pedidos,
+                                        BiFunction<CriteriaBuilder, Root<E>, Predicate> filtro,
+                                        BiFunction<CriteriaBuilder, Root<E>, List<Order>> orden) {
+        Set<String> nombres = validar(pedidos);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(entidad);
+        List<Selection<?>> seleccion = new ArrayList<>(nombres.size());
+        for (String nombre : nombres) {
+            seleccion.add(campos.get(nombre).expresion().apply(cb, root).alias(nombre));
+        }
+        query.multiselect(seleccion);
+        if (filtro != null) {
+            query.where(filtro.apply(cb, root));
+        }
+        query.orderBy(orden.apply(cb, root));
+
+        List<Tuple> filas = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Map<String, Object> valores = new LinkedHashMap<>();
+            for (TupleElement<?> elemento : fila.getElements()) {
+                Object valor = fila.get(elemento);
+                valores.put(elemento.getAlias(), valor == null ? null : campos.get(elemento.getAlias()).conversion().apply(valor));
+            }
+            resultado.add(valores);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,26 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.CheckpointStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CheckpointStockRepository extends JpaRepository<CheckpointStock, Long> {
+
+    // Último checkpoint generado para el SKU (punto de partida del siguiente)
+    Optional<CheckpointStock> findFirstBySkuOrderByMovimientoIdDesc(String sku);
+
+    // Último checkpoint cuyos movimientos son todos anteriores (o iguales) a una fecha, para consultas de stock histórico
+    Optional<CheckpointStock> findFirstBySkuAndFechaMovimientoLessThanEqualOrderByMovimientoIdDesc(String sku, LocalDateTime fecha);
+
+    // Último checkpoint de cada SKU de un rango (conciliación por lotes)
+    @Query("SELECT c FROM CheckpointStock c WHERE c.sku BETWEEN :desde AND :hasta " +
+            "AND c.movimientoId = (SELECT MAX(c2.movimientoId) FROM CheckpointStock c2 WHERE c2.sku = c.sku)")
+    List<CheckpointStock> findUltimosPorRangoSku(@Param("desde") String desde, @Param("hasta") String hasta);
+}
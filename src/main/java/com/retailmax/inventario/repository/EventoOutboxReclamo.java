@@ -0,0 +1,15 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.EventoOutbox;
+
+import java.util.List;
+
+// Reclamo de eventos de outbox_eventos con SKIP LOCKED, fuera de JPA (ver EventoOutboxReclamoImpl)
+public interface EventoOutboxReclamo {
+
+    /**
+     * Bloquea y devuelve hasta tamano eventos pendientes en orden de ID, salteando los que otra transacción ya
+     * tiene bloqueados. Debe llamarse dentro de una transacción: el bloqueo dura hasta su fin.
+     */
+    List<EventoOutbox> reclamarLote(int tamano);
+}
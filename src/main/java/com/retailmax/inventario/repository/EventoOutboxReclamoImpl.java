@@ -0,0 +1,44 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.EventoOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * SELECT ... FOR UPDATE SKIP LOCKED sin FETCH FIRST ni ROWNUM: Oracle no admite FOR UPDATE con FETCH FIRST, y ROWNUM
+ * se aplicaría antes de saltear filas bloqueadas. El tamaño del lote lo pone setMaxRows; Oracle bloquea las filas a
+ * medida que las lee, así que cada relay se queda solo con las que recibe.
+ */
+@RequiredArgsConstructor
+public class EventoOutboxReclamoImpl implements EventoOutboxReclamo {
+
+    private static final String RECLAMAR = """
+            SELECT id, tipo_evento, clave, agregado_id, payload, fecha_creacion
+            FROM outbox_eventos ORDER BY id
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final RowMapper<EventoOutbox> MAPEO = (rs, fila) -> new EventoOutbox(
+            rs.getLong("id"),
+            rs.getString("tipo_evento"),
+            rs.getString("clave"),
+            rs.getObject("agregado_id", Long.class),
+            rs.getString("payload"),
+            rs.getTimestamp("fecha_creacion").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<EventoOutbox> reclamarLote(int tamano) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RECLAMAR);
+            ps.setMaxRows(tamano);
+            ps.setFetchSize(tamano);
+            return ps;
+        }, MAPEO);
+    }
+}
@@ -0,0 +1,16 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.EventoOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long>, EventoOutboxReclamo {
+
+    // Pendientes y fecha del más antiguo, para las métricas del relay. Una sola fila: [cantidad (Long), fecha (LocalDateTime)].
+    @Query("SELECT COUNT(e), MIN(e.fechaCreacion) FROM EventoOutbox e")
+    List<Object[]> findPendientesYMasAntiguo();
+}
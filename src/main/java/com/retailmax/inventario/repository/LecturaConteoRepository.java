@@ -0,0 +1,18 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.LecturaConteo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LecturaConteoRepository extends JpaRepository<LecturaConteo, Long> {
+
+    // Totales por SKU de una sesión, usados para reconstruir la agregación en memoria tras un reinicio.
+    // Cada fila es [sku (String), cantidad (Long)].
+    @Query("SELECT l.sku, SUM(l.cantidad) FROM LecturaConteo l WHERE l.sesionId = :sesionId GROUP BY l.sku")
+    List<Object[]> sumarCantidadesPorSku(@Param("sesionId") Long sesionId);
+}
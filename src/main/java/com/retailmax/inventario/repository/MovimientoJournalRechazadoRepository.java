@@ -0,0 +1,13 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.MovimientoJournalRechazado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MovimientoJournalRechazadoRepository extends JpaRepository<MovimientoJournalRechazado, Long> {
+
+    Optional<MovimientoJournalRechazado> findByJournalAndSecuencia(String journal, Long secuencia);
+}
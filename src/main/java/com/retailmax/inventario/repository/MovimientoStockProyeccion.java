@@ -0,0 +1,15 @@
+package com.retailmax.inventario.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Lecturas parciales de movimientos para fields= (ver MovimientoStockProyeccionImpl)
+public interface MovimientoStockProyeccion {
+
+    /**
+     * Movimientos del producto, del más reciente al más antiguo, con solo los campos de MovimientoStockDTO pedidos.
+     * Un campo fuera de la lista blanca es un IllegalArgumentException.
+     */
+    List<Map<String, Object>> findCamposPorProducto(Long productoInventarioId, Collection<String> campos);
+}
@@ -0,0 +1,37 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.MovimientoStock;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SELECT de solo las columnas de los campos pedidos, con los nombres de MovimientoStockDTO. productoInventarioId es la
+ * clave foránea, sin join a productos_inventario; tipoMovimiento va como el nombre del enum, igual que en el DTO.
+ */
+public class MovimientoStockProyeccionImpl implements MovimientoStockProyeccion {
+
+    private static final CamposProyeccion<MovimientoStock> CAMPOS = new CamposProyeccion<>(MovimientoStock.class)
+            .atributo("id")
+            .campo("productoInventarioId", (cb, root) -> root.get("productoInventario").get("id"))
+            .atributo("sku")
+            .campo("tipoMovimiento", (cb, root) -> root.get("tipoMovimiento"), tipo -> ((Enum<?>) tipo).name())
+            .atributo("cantidadMovida")
+            .atributo("stockFinalDespuesMovimiento")
+            .atributo("referenciaExterna")
+            .atributo("motivo")
+            .atributo("fechaMovimiento");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCamposPorProducto(Long productoInventarioId, Collection<String> campos) {
+        return CAMPOS.consultar(entityManager, campos,
+                (cb, root) -> cb.equal(root.get("productoInventario").get("id"), productoInventarioId),
+                (cb, root) -> List.of(cb.desc(root.get("fechaMovimiento"))));
+    }
+}
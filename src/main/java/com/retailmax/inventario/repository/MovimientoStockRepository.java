@@ -1,15 +1,19 @@
 package com.retailmax.inventario.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
+import com.retailmax.inventario.dto.MovimientoFeedDTO;
 import com.retailmax.inventario.model.MovimientoStock;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
+public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long>, MovimientoStockProyeccion {
     // Método para buscar movimientos por SKU
     List<MovimientoStock> findBySku(String sku);
     // Método para buscar movimientos por ID de producto y rango de fechas, ordenados por fecha descendente
@@ -22,4 +26,70 @@ public interface MovimientoStockRepository extends JpaRepository<MovimientoStock
 
     Optional<MovimientoStock> findBySkuIgnoreCase(String sku);
 
+    // Movimientos posteriores a un checkpoint, en orden de aplicación
+    List<MovimientoStock> findBySkuAndIdGreaterThanOrderByIdAsc(String sku, Long movimientoId);
+
+    // Movimientos entre un checkpoint y un movimiento dado (checkpoint previo al archivado)
+    List<MovimientoStock> findBySkuAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(String sku, Long desdeMovimientoId, Long hastaMovimientoId);
+
+    // Movimientos anteriores a una fecha, por páginas en orden de ID (archivado de historial frío)
+    List<MovimientoStock> findByFechaMovimientoLessThanOrderByIdAsc(LocalDateTime limite, Pageable pageable);
+
+    // Movimientos posteriores a un checkpoint y hasta una fecha, para reconstruir el stock histórico
+    List<MovimientoStock> findBySkuAndIdGreaterThanAndFechaMovimientoLessThanEqualOrderByIdAsc(String sku, Long movimientoId, LocalDateTime fecha);
+
+    // Conciliación: último AJUSTE de cada SKU del rango. Cada fila es [sku (String), id (Long)].
+    @Query("SELECT m.sku, MAX(m.id) FROM MovimientoStock m " +
+            "WHERE m.sku BETWEEN :desde AND :hasta " +
+            "AND m.tipoMovimiento = com.retailmax.inventario.model.enums.TipoMovimiento.AJUSTE " +
+            "GROUP BY m.sku")
+    List<Object[]> findUltimoAjustePorSku(@Param("desde") String desde, @Param("hasta") String hasta);
+
+    // Conciliación: variación neta de cada SKU del rango posterior a su último AJUSTE y a su último checkpoint,
+    // con las mismas reglas de signo que CalculoStock. Cada fila es [sku (String), variacion (Long), movimientos (Long)].
+    @Query("SELECT m.sku, " +
+            "SUM(CASE WHEN m.tipoMovimiento IN (com.retailmax.inventario.model.enums.TipoMovimiento.ENTRADA, " +
+            "                                   com.retailmax.inventario.model.enums.TipoMovimiento.DEVOLUCION_CLIENTE) " +
+            "         THEN ABS(m.cantidadMovida) " +
+            "         WHEN m.tipoMovimiento IN (com.retailmax.inventario.model.enums.TipoMovimiento.SALIDA, " +
+            "                                   com.retailmax.inventario.model.enums.TipoMovimiento.DEVOLUCION_PROVEEDOR, " +
+            "                                   com.retailmax.inventario.model.enums.TipoMovimiento.AJUSTE_NEGATIVO) " +
+            "         THEN -ABS(m.cantidadMovida) " +
+            "         ELSE 0 END), " +
+            "COUNT(m) " +
+            "FROM MovimientoStock m " +
+            "WHERE m.sku BETWEEN :desde AND :hasta " +
+            "AND m.id > COALESCE((SELECT MAX(a.id) FROM MovimientoStock a WHERE a.sku = m.sku " +
+            "                     AND a.tipoMovimiento = com.retailmax.inventario.model.enums.TipoMovimiento.AJUSTE), 0) " +
+            "AND m.id > COALESCE((SELECT MAX(c.movimientoId) FROM CheckpointStock c WHERE c.sku = m.sku), 0) " +
+            "GROUP BY m.sku")
+    List<Object[]> sumarVariacionPorSku(@Param("desde") String desde, @Param("hasta") String hasta);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM MovimientoStock m")
+    long findUltimoId();
+
+    // Feed de movimientos: los posteriores al cursor y hasta el límite visible, en orden de ID (rango sobre la PK)
+    @Query("SELECT new com.retailmax.inventario.dto.MovimientoFeedDTO(m.id, m.sku, m.tipoMovimiento, m.cantidadMovida, " +
+            "m.stockFinalDespuesMovimiento, m.fechaMovimiento, m.referenciaExterna, m.fechaRegistro) " +
+            "FROM MovimientoStock m WHERE m.id > :cursor AND m.id <= :hasta ORDER BY m.id")
+    List<MovimientoFeedDTO> findFeed(@Param("cursor") Long cursor, @Param("hasta") Long hasta, Pageable pageable);
+
+    // IDs por fecha de registro (índice idx_movimientos_fecha_registro): el registrado más recientemente hasta el corte
+    @Query("SELECT m.id FROM MovimientoStock m WHERE m.fechaRegistro <= :corte ORDER BY m.fechaRegistro DESC")
+    List<Long> findIdsRegistradosHasta(@Param("corte") LocalDateTime corte, Pageable pageable);
+
+    // ... y el primero con fecha de registro: los anteriores son filas de antes de que existiera la columna
+    @Query("SELECT m.id FROM MovimientoStock m WHERE m.fechaRegistro IS NOT NULL ORDER BY m.fechaRegistro")
+    List<Long> findIdsPorRegistro(Pageable pageable);
+
+    // SKUs con movimientos registrados después del ID dado (cola a reproducir sobre un snapshot)
+    @Query("SELECT DISTINCT m.sku FROM MovimientoStock m WHERE m.id > :movimientoId")
+    List<String> findSkusConMovimientosDespuesDe(@Param("movimientoId") Long movimientoId);
+
+    // Checkpoints: SKUs con al menos :minimo movimientos posteriores a su último checkpoint, en orden de SKU
+    @Query("SELECT m.sku FROM MovimientoStock m " +
+            "WHERE m.id > COALESCE((SELECT MAX(c.movimientoId) FROM CheckpointStock c WHERE c.sku = m.sku), 0) " +
+            "GROUP BY m.sku HAVING COUNT(m) >= :minimo ORDER BY m.sku")
+    List<String> findSkusParaCheckpoint(@Param("minimo") long minimo);
+
 }
\ No newline at end of file
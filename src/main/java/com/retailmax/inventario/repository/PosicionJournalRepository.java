@@ -0,0 +1,9 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.PosicionJournal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PosicionJournalRepository extends JpaRepository<PosicionJournal, String> {
+}
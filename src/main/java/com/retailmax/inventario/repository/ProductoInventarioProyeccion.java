@@ -0,0 +1,15 @@
+package com.retailmax.inventario.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Lecturas parciales de productos para fields= (ver ProductoInventarioProyeccionImpl)
+public interface ProductoInventarioProyeccion {
+
+    /**
+     * Todos los productos en orden de ID, con solo los campos de ProductoInventarioDTO pedidos. Un campo fuera de
+     * la lista blanca es un IllegalArgumentException.
+     */
+    List<Map<String, Object>> findCampos(Collection<String> campos);
+}
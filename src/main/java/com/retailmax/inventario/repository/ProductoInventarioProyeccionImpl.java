@@ -0,0 +1,40 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.ProductoInventario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SELECT de solo las columnas de los campos pedidos. Los nombres son los de ProductoInventarioDTO; cantidadTotal se
+ * calcula en la consulta como en ProductoInventarioService.mapToDTO.
+ */
+public class ProductoInventarioProyeccionImpl implements ProductoInventarioProyeccion {
+
+    private static final CamposProyeccion<ProductoInventario> CAMPOS = new CamposProyeccion<>(ProductoInventario.class)
+            .atributo("id")
+            .atributo("sku")
+            .atributo("cantidadDisponible")
+            .atributo("cantidadReservada")
+            .campo("cantidadTotal", (cb, root) ->
+                    cb.sum(root.<Integer>get("cantidadDisponible"), root.<Integer>get("cantidadReservada")))
+            .atributo("ubicacionAlmacen")
+            .atributo("cantidadMinimaStock")
+            .atributo("fechaCreacion")
+            .atributo("fechaUltimaActualizacion")
+            .atributo("productoBaseSku")
+            .atributo("talla")
+            .atributo("color")
+            .atributo("estado");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCampos(Collection<String> campos) {
+        return CAMPOS.consultar(entityManager, campos, null, (cb, root) -> List.of(cb.asc(root.get("id"))));
+    }
+}
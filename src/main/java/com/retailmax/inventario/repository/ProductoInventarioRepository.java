@@ -2,14 +2,21 @@ package com.retailmax.inventario.repository;
 
 import com.retailmax.inventario.model.ProductoInventario;
 import com.retailmax.inventario.model.enums.EstadoStock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductoInventarioRepository extends JpaRepository<ProductoInventario, Long> {
+public interface ProductoInventarioRepository extends JpaRepository<ProductoInventario, Long>, ProductoInventarioProyeccion {
 
     Optional<ProductoInventario> findBySku(String sku);
     boolean existsBySku(String sku);
@@ -21,4 +28,35 @@ public interface ProductoInventarioRepository extends JpaRepository<ProductoInve
     List<ProductoInventario> findByEstado(EstadoStock estado);
     Optional<ProductoInventario> findBySkuIgnoreCase(String sku);
 
+    // Solo los SKUs, ordenados, para procesos por lotes que no necesitan la entidad completa
+    @Query("SELECT p.sku FROM ProductoInventario p ORDER BY p.sku")
+    List<String> findAllSkus();
+
+    // Atributos que comparan las reglas de umbral por defecto (sku, productoBaseSku, talla, color, ubicacionAlmacen)
+    @Query("SELECT p.sku, p.productoBaseSku, p.talla, p.color, p.ubicacionAlmacen FROM ProductoInventario p")
+    List<Object[]> findAtributosReglaUmbral();
+
+    // Disponibilidad de una ubicación (sku, cantidadDisponible, estado), para la carga inicial de una terminal POS
+    @Query("SELECT p.sku, p.cantidadDisponible, p.estado FROM ProductoInventario p " +
+            "WHERE p.ubicacionAlmacen = :ubicacion ORDER BY p.sku")
+    List<Object[]> findDisponibilidadPorUbicacion(@Param("ubicacion") String ubicacion);
+
+    List<ProductoInventario> findBySkuBetween(String desde, String hasta);
+
+    List<ProductoInventario> findBySkuIn(Collection<String> skus);
+
+    List<ProductoInventario> findByFechaUltimaActualizacionAfter(LocalDateTime fecha);
+
+    // Recorrido por páginas en orden de ID (keyset), sin el costo creciente de OFFSET
+    List<ProductoInventario> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Bloquea la fila del producto (SELECT ... FOR UPDATE) para correcciones que deben releer el saldo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductoInventario p WHERE p.sku = :sku")
+    Optional<ProductoInventario> findBySkuParaActualizar(@Param("sku") String sku);
+
+    // Hora de la base de datos; dentro de una transacción SERIALIZABLE, la primera consulta fija la foto de lectura
+    @Query("SELECT LOCAL DATETIME")
+    LocalDateTime obtenerFechaBaseDatos();
+
 }
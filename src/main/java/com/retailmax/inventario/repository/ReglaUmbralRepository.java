@@ -0,0 +1,22 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.ReglaUmbral;
+import com.retailmax.inventario.model.enums.CriterioRegla;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReglaUmbralRepository extends JpaRepository<ReglaUmbral, Long> {
+
+    List<ReglaUmbral> findByActivoTrue();
+
+    Optional<ReglaUmbral> findByCriterioAndValor(CriterioRegla criterio, String valor);
+
+    /** Total de reglas, última actualización y suma de ids: cambia con cualquier alta, edición o baja. */
+    @Query("SELECT COUNT(r), MAX(r.fechaUltimaActualizacion), COALESCE(SUM(r.id), 0) FROM ReglaUmbral r")
+    List<Object[]> findHuella();
+}
@@ -0,0 +1,43 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.ResumenMovimientoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenMovimientoDiarioRepository extends JpaRepository<ResumenMovimientoDiario, Long> {
+
+    List<ResumenMovimientoDiario> findBySkuAndFechaBetweenOrderByFechaAscTipoMovimientoAsc(String sku, LocalDate desde, LocalDate hasta);
+
+    // Suma un movimiento al resumen del día. MERGE evita la carrera entre dos transacciones que crean la misma fila.
+    @Modifying
+    @Query(value = "MERGE INTO resumen_movimientos_diarios r " +
+            "USING (SELECT CAST(:sku AS VARCHAR(100)) AS sku, CAST(:fecha AS DATE) AS fecha, " +
+            "              CAST(:tipo AS VARCHAR(255)) AS tipo_movimiento FROM dual) s " +
+            "ON (r.sku = s.sku AND r.fecha = s.fecha AND r.tipo_movimiento = s.tipo_movimiento) " +
+            "WHEN MATCHED THEN UPDATE SET r.cantidad_total = r.cantidad_total + :cantidad, " +
+            "                             r.numero_movimientos = r.numero_movimientos + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (sku, fecha, tipo_movimiento, cantidad_total, numero_movimientos) " +
+            "VALUES (s.sku, s.fecha, s.tipo_movimiento, :cantidad, 1)", nativeQuery = true)
+    int acumular(@Param("sku") String sku, @Param("fecha") LocalDate fecha,
+                 @Param("tipo") String tipoMovimiento, @Param("cantidad") long cantidad);
+
+    @Modifying
+    @Query("DELETE FROM ResumenMovimientoDiario r WHERE r.sku = :sku")
+    int deleteBySku(@Param("sku") String sku);
+
+    // Totales por tipo de movimiento en un rango de días. Cada fila es [tipoMovimiento, cantidadTotal (Long), numeroMovimientos (Long)].
+    @Query("SELECT r.tipoMovimiento, SUM(r.cantidadTotal), SUM(r.numeroMovimientos) FROM ResumenMovimientoDiario r " +
+            "WHERE r.fecha BETWEEN :desde AND :hasta GROUP BY r.tipoMovimiento ORDER BY r.tipoMovimiento")
+    List<Object[]> sumarPorTipo(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Último día con movimientos de cada SKU, incluidos los ya archivados. Cada fila es [sku (String), fecha (LocalDate)].
+    @Query("SELECT r.sku, MAX(r.fecha) FROM ResumenMovimientoDiario r GROUP BY r.sku")
+    List<Object[]> findUltimoDiaPorSku();
+}
@@ -0,0 +1,9 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.SesionConteo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SesionConteoRepository extends JpaRepository<SesionConteo, Long> {
+}
@@ -0,0 +1,12 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.UmbralAlerta;
+
+import java.util.List;
+
+// Escrituras masivas de umbrales_alerta fuera de JPA (ver UmbralAlertaCargaMasivaImpl)
+public interface UmbralAlertaCargaMasiva {
+
+    /** Inserta o actualiza por SKU cada umbral, en lotes JDBC. No publica UmbralAlertaActualizadoEvent. */
+    void mergePorSku(List<UmbralAlerta> umbrales);
+}
@@ -0,0 +1,48 @@
+package com.retailmax.inventario.repository;
+
+import com.retailmax.inventario.model.UmbralAlerta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * MERGE por SKU en lotes JDBC: una sola ida a la base de datos por lote, inserte o actualice, y sin la lectura
+ * previa por fila de save(). Con IDENTITY, Hibernate además no agrupa los INSERT, así que saveAll no sirve aquí.
+ * Los parámetros van con CAST para que el origen del MERGE tenga tipos (Oracle y H2).
+ */
+@RequiredArgsConstructor
+public class UmbralAlertaCargaMasivaImpl implements UmbralAlertaCargaMasiva {
+
+    private static final String MERGE = """
+            MERGE INTO umbrales_alerta u
+            USING (SELECT CAST(? AS VARCHAR(255)) AS sku, CAST(? AS VARCHAR(255)) AS tipo_alerta,
+                          CAST(? AS INTEGER) AS umbral_cantidad, CAST(? AS NUMBER(1)) AS activo,
+                          CAST(? AS INTEGER) AS histeresis, CAST(? AS TIMESTAMP) AS fecha FROM dual) s
+            ON (u.sku = s.sku)
+            WHEN MATCHED THEN UPDATE SET u.tipo_alerta = s.tipo_alerta, u.umbral_cantidad = s.umbral_cantidad,
+                u.activo = s.activo, u.histeresis = s.histeresis, u.fecha_ultima_actualizacion = s.fecha
+            WHEN NOT MATCHED THEN INSERT (sku, tipo_alerta, umbral_cantidad, activo, histeresis, fecha_creacion, fecha_ultima_actualizacion)
+                VALUES (s.sku, s.tipo_alerta, s.umbral_cantidad, s.activo, s.histeresis, s.fecha, s.fecha)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void mergePorSku(List<UmbralAlerta> umbrales) {
+        jdbcTemplate.batchUpdate(MERGE, umbrales, umbrales.size(), (ps, umbral) -> {
+            ps.setString(1, umbral.getSku());
+            ps.setString(2, umbral.getTipoAlerta().name());
+            ps.setInt(3, umbral.getUmbralCantidad());
+            ps.setBoolean(4, umbral.getActivo());
+            if (umbral.getHisteresis() != null) {
+                ps.setInt(5, umbral.getHisteresis());
+            } else {
+                ps.setNull(5, Types.INTEGER);
+            }
+            ps.setTimestamp(6, Timestamp.valueOf(umbral.getFechaUltimaActualizacion()));
+        });
+    }
+}
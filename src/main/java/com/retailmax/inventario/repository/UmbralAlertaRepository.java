@@ -1,16 +1,45 @@
 package com.retailmax.inventario.repository;
 
 import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional; // Importa Optional si vas a usarlo para métodos de búsqueda
 
 @Repository // Anotación opcional, pero buena práctica para indicar que es un componente de repositorio
-public interface UmbralAlertaRepository extends JpaRepository<UmbralAlerta, Long> {
+public interface UmbralAlertaRepository extends JpaRepository<UmbralAlerta, Long>, UmbralAlertaCargaMasiva {
 
     // Método para encontrar un UmbralAlerta por su SKU
     // Spring Data JPA generará automáticamente la implementación de este método.
     // Usamos Optional<UmbralAlerta> para manejar casos donde el SKU no exista.
     Optional<UmbralAlerta> findBySku(String sku);
+
+    // Umbrales activos, para cargar el motor de alertas al arrancar
+    List<UmbralAlerta> findByActivoTrue();
+
+    // Umbrales activos de un tipo, por SKU y desde un SKU, por el índice (tipo_alerta, activo, sku)
+    List<UmbralAlerta> findByTipoAlertaAndActivoTrueAndSkuGreaterThanOrderBySkuAsc(TipoAlerta tipoAlerta, String sku, Pageable pageable);
+
+    // Primera página de la anterior: no hay SKU desde el que seguir ('' es NULL en Oracle y sku > NULL no devuelve filas)
+    List<UmbralAlerta> findByTipoAlertaAndActivoTrueOrderBySkuAsc(TipoAlerta tipoAlerta, Pageable pageable);
+
+    // Página de umbrales activos de un tipo directo de la base de datos, sin la vista en memoria
+    Page<UmbralAlerta> findByTipoAlertaAndActivoTrue(TipoAlerta tipoAlerta, Pageable pageable);
+
+    // Copias sin gestionar (constructor en la consulta) de los umbrales de un lote de SKUs, para la carga masiva:
+    // modificarlas no genera UPDATE al hacer flush ni llena el contexto de persistencia
+    @Query("SELECT new com.retailmax.inventario.model.UmbralAlerta(u.id, u.sku, u.tipoAlerta, u.umbralCantidad, u.activo, " +
+            "u.histeresis, u.fechaCreacion, u.fechaUltimaActualizacion) FROM UmbralAlerta u WHERE u.sku IN :skus")
+    List<UmbralAlerta> findCopiasBySkuIn(@Param("skus") Collection<String> skus);
+
+    // SKU e ID de un lote de SKUs (IDs de los umbrales que insertó un MERGE)
+    @Query("SELECT u.sku, u.id FROM UmbralAlerta u WHERE u.sku IN :skus")
+    List<Object[]> findIdsBySkuIn(@Param("skus") Collection<String> skus);
 }
\ No newline at end of file
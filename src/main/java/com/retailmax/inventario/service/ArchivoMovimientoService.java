@@ -0,0 +1,197 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Archivado del historial frío de movimientos_stock.
+ * Los movimientos de meses anteriores a la ventana caliente se copian a segmentos gzip por columnas,
+ * de solo agregado, en {directorio-datos}/archivo-movimientos, y luego se borran de la tabla.
+ * Antes de borrar se asegura un checkpoint por SKU en el último movimiento archivado, así la conciliación
+ * y el stock actual parten de él. El stock en una fecha anterior a ese checkpoint sí necesita los movimientos
+ * archivados: CheckpointStockService los lee de los segmentos hasta ultimoIdArchivado().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchivoMovimientoService {
+
+    private static final String PREFIJO = "movimientos-";
+    private static final String EXTENSION = ".seg.gz";
+    private static final int MAXIMO_IDS_POR_BORRADO = 1000;
+
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final CheckpointStockService checkpointStockService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventario.directorio-datos:./data}")
+    private String directorioDatos = "./data";
+
+    // Meses completos que permanecen en la tabla, además del mes en curso
+    @Value("${inventario.archivo.meses-en-caliente:6}")
+    private int mesesEnCaliente = 6;
+
+    // Movimientos por segmento
+    @Value("${inventario.archivo.tamano-segmento:10000}")
+    private int tamanoSegmento = 10000;
+
+    // Meses con al menos un segmento archivado
+    private final NavigableSet<YearMonth> mesesArchivados = new ConcurrentSkipListSet<>();
+
+    // Mayor ID escrito en un segmento; los movimientos con ID mayor nunca se archivaron
+    private final AtomicLong ultimoIdArchivado = new AtomicLong();
+
+    @PostConstruct
+    void cargarMesesArchivados() throws IOException {
+        Path directorio = directorioArchivo();
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        try (DirectoryStream<Path> segmentos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path segmento : segmentos) {
+                mesesArchivados.add(mesDelSegmento(segmento));
+                ultimoIdArchivado.accumulateAndGet(ultimoIdDelSegmento(segmento), Math::max);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${inventario.archivo.cron:-}")
+    public void archivarMovimientosAntiguos() {
+        LocalDateTime limite = YearMonth.now().minusMonths(mesesEnCaliente).atDay(1).atStartOfDay();
+        int archivados = archivarAnterioresA(limite);
+        log.info("Movimientos archivados anteriores a {}: {}", limite, archivados);
+    }
+
+    /**
+     * Archiva por páginas en orden de ID todos los movimientos con fecha anterior al límite.
+     * Cada página se escribe y sincroniza a disco antes de borrar sus filas; si el proceso se interrumpe entre ambos pasos,
+     * el siguiente intento vuelve a archivar las mismas filas y la lectura descarta los duplicados por ID.
+     */
+    public int archivarAnterioresA(LocalDateTime limite) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        int total = 0;
+        while (true) {
+            List<MovimientoStock> pagina = lectura.execute(status ->
+                    movimientoStockRepository.findByFechaMovimientoLessThanOrderByIdAsc(limite, PageRequest.of(0, tamanoSegmento)));
+            if (pagina == null || pagina.isEmpty()) {
+                return total;
+            }
+
+            Map<YearMonth, List<MovimientoStock>> porMes = pagina.stream()
+                    .collect(Collectors.groupingBy(m -> YearMonth.from(m.getFechaMovimiento()), TreeMap::new, Collectors.toList()));
+            porMes.forEach(this::escribirSegmento);
+
+            Map<String, Long> ultimoIdPorSku = new HashMap<>();
+            for (MovimientoStock m : pagina) {
+                ultimoIdPorSku.merge(m.getSku(), m.getId(), Math::max);
+            }
+            transaccion.executeWithoutResult(status -> {
+                ultimoIdPorSku.forEach(checkpointStockService::asegurarCheckpointHasta);
+                // El borrado va con IN: a lo sumo 1000 IDs por sentencia (límite de Oracle)
+                List<Long> ids = pagina.stream().map(MovimientoStock::getId).toList();
+                for (int desde = 0; desde < ids.size(); desde += MAXIMO_IDS_POR_BORRADO) {
+                    movimientoStockRepository.deleteAllByIdInBatch(
+                            ids.subList(desde, Math.min(desde + MAXIMO_IDS_POR_BORRADO, ids.size())));
+                }
+            });
+            total += pagina.size();
+        }
+    }
+
+    /**
+     * Movimientos archivados del SKU cuya fecha cae en el rango (límites null = sin límite).
+     * Solo se abren los segmentos de los meses que el rango alcanza.
+     */
+    public List<MovimientoStock> leerArchivados(String sku, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (mesesArchivados.isEmpty()) {
+            return List.of();
+        }
+        YearMonth desde = fechaInicio != null ? YearMonth.from(fechaInicio) : mesesArchivados.first();
+        YearMonth hasta = fechaFin != null ? YearMonth.from(fechaFin) : mesesArchivados.last();
+        if (desde.isAfter(hasta) || mesesArchivados.subSet(desde, true, hasta, true).isEmpty()) {
+            return List.of();
+        }
+
+        List<MovimientoStock> movimientos = new ArrayList<>();
+        try (DirectoryStream<Path> segmentos = Files.newDirectoryStream(directorioArchivo(), PREFIJO + "*" + EXTENSION)) {
+            for (Path segmento : segmentos) {
+                YearMonth mes = mesDelSegmento(segmento);
+                if (mes.isBefore(desde) || mes.isAfter(hasta)) {
+                    continue;
+                }
+                for (MovimientoStock m : SegmentoMovimientos.leer(segmento, sku)) {
+                    if ((fechaInicio == null || !m.getFechaMovimiento().isBefore(fechaInicio))
+                            && (fechaFin == null || !m.getFechaMovimiento().isAfter(fechaFin))) {
+                        movimientos.add(m);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de movimientos", e);
+        }
+        return movimientos;
+    }
+
+    public long ultimoIdArchivado() {
+        return ultimoIdArchivado.get();
+    }
+
+    private void escribirSegmento(YearMonth mes, List<MovimientoStock> movimientos) {
+        // El nombre incluye el rango de IDs: reintentar la misma página reescribe el mismo segmento
+        String nombre = PREFIJO + mes + "-" + movimientos.get(0).getId() + "-"
+                + movimientos.get(movimientos.size() - 1).getId() + EXTENSION;
+        try {
+            Files.createDirectories(directorioArchivo());
+            SegmentoMovimientos.escribir(directorioArchivo().resolve(nombre), movimientos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el segmento " + nombre, e);
+        }
+        mesesArchivados.add(mes);
+        ultimoIdArchivado.accumulateAndGet(movimientos.get(movimientos.size() - 1).getId(), Math::max);
+    }
+
+    private Path directorioArchivo() {
+        return Paths.get(directorioDatos, "archivo-movimientos");
+    }
+
+    // movimientos-2025-01-<primerId>-<ultimoId>.seg.gz
+    private static YearMonth mesDelSegmento(Path segmento) {
+        return YearMonth.parse(segmento.getFileName().toString().substring(PREFIJO.length(), PREFIJO.length() + 7));
+    }
+
+    private static long ultimoIdDelSegmento(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        nombre = nombre.substring(0, nombre.length() - EXTENSION.length());
+        return Long.parseLong(nombre.substring(nombre.lastIndexOf('-') + 1));
+    }
+}
@@ -1,11 +1,15 @@
 package com.retailmax.inventario.service;
 
 import com.retailmax.inventario.dto.DiscrepanciaStockDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
 import com.retailmax.inventario.model.ProductoInventario;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -16,7 +20,17 @@ public class AuditoriaInventarioService {
 
     private final ProductoInventarioRepository productoInventarioRepository;
 
-    public List<DiscrepanciaStockDTO> compararConStockFisico(Map<String, Integer> stockFisico) {
+    /**
+     * Compara el conteo físico contra el sistema leyendo desde una foto consistente del inventario.
+     * La transacción de solo lectura en SERIALIZABLE hace que Oracle fije el SCN al inicio y resuelva
+     * todas las lecturas por MVCC (undo), sin tomar locks: la auditoría no bloquea ni es bloqueada por
+     * actualizarStock y no ve estados intermedios aunque haya ventas en curso.
+     * La fecha del resultado se lee de la base de datos como primera consulta de la transacción, que es la que
+     * fija la foto; así el resultado la informa aunque no haya discrepancias.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    public ResultadoAuditoriaDTO compararConStockFisico(Map<String, Integer> stockFisico) {
+        LocalDateTime fechaSnapshot = productoInventarioRepository.obtenerFechaBaseDatos();
         List<DiscrepanciaStockDTO> discrepancias = new ArrayList<>();
 
         for (Map.Entry<String, Integer> entrada : stockFisico.entrySet()) {
@@ -49,7 +63,10 @@ public class AuditoriaInventarioService {
             }
         }
 
-        return discrepancias;
+        return ResultadoAuditoriaDTO.builder()
+                .fechaSnapshot(fechaSnapshot)
+                .discrepancias(discrepancias)
+                .build();
     }
 
     private boolean stockSistemaEquals(Integer sistema, Integer fisico) {
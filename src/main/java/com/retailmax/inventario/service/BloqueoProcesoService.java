@@ -0,0 +1,96 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.BloqueoProceso;
+import com.retailmax.inventario.repository.BloqueoProcesoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bloqueos en la tabla bloqueos_proceso para procesos que no deben correr en dos instancias a la vez
+ * (reconstrucciones, conciliación, checkpoints). Cada bloqueo vence: si la instancia que lo tomó se cae, otra lo puede
+ * tomar al vencer, y un proceso largo lo renueva con adquirir mientras avanza. La fila guarda además el avance y si el
+ * proceso terminó, para retomarlo donde quedó.
+ */
+@Service
+@RequiredArgsConstructor
+public class BloqueoProcesoService {
+
+    private final BloqueoProcesoRepository bloqueoProcesoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final String instancia = UUID.randomUUID().toString();
+
+    /**
+     * Toma o renueva el bloqueo por la duración indicada, en una transacción propia.
+     * Devuelve false si otra instancia lo tiene tomado y no venció.
+     */
+    public boolean adquirir(String nombre, Duration duracion) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return Boolean.TRUE.equals(transaccion.execute(status -> {
+                LocalDateTime ahora = LocalDateTime.now();
+                Optional<BloqueoProceso> existente = bloqueoProcesoRepository.findParaActualizar(nombre);
+                if (existente.isEmpty()) {
+                    bloqueoProcesoRepository.saveAndFlush(
+                            new BloqueoProceso(nombre, instancia, ahora.plus(duracion), null, false, ahora));
+                    return true;
+                }
+                BloqueoProceso bloqueo = existente.get();
+                boolean libre = bloqueo.getPropietario() == null || instancia.equals(bloqueo.getPropietario())
+                        || bloqueo.getVence() == null || bloqueo.getVence().isBefore(ahora);
+                if (!libre) {
+                    return false;
+                }
+                bloqueo.setPropietario(instancia);
+                bloqueo.setVence(ahora.plus(duracion));
+                bloqueo.setFechaActualizacion(ahora);
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó la fila al mismo tiempo y se quedó con el bloqueo
+            return false;
+        }
+    }
+
+    /** Suelta el bloqueo si lo tiene esta instancia; el avance y el estado completado se conservan. */
+    public void liberar(String nombre) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaccion.executeWithoutResult(status -> bloqueoProcesoRepository.findParaActualizar(nombre)
+                .filter(bloqueo -> instancia.equals(bloqueo.getPropietario()))
+                .ifPresent(bloqueo -> {
+                    bloqueo.setPropietario(null);
+                    bloqueo.setVence(null);
+                    bloqueo.setFechaActualizacion(LocalDateTime.now());
+                }));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<BloqueoProceso> consultar(String nombre) {
+        return bloqueoProcesoRepository.findById(nombre);
+    }
+
+    /**
+     * Registra el avance en la transacción en curso: se confirma junto con el trabajo que representa.
+     * completado indica que el proceso terminó; avance null con completado=false lo reinicia desde el principio.
+     */
+    @Transactional
+    public void registrarAvance(String nombre, String avance, boolean completado) {
+        bloqueoProcesoRepository.findById(nombre).ifPresent(bloqueo -> {
+            bloqueo.setAvance(avance);
+            bloqueo.setCompletado(completado);
+            bloqueo.setFechaActualizacion(LocalDateTime.now());
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.MovimientoStock;
+
+import java.util.List;
+
+/**
+ * Reglas para reproducir el historial de MovimientoStock sobre el stock disponible.
+ * La cantidad se toma en valor absoluto porque hay datos que registran las SALIDAS en negativo (DataLoader)
+ * y otros en positivo (registrarMovimiento); el signo lo define el tipo de movimiento.
+ * AJUSTE fija el stock, por lo que se toma el stock final registrado en el propio movimiento.
+ */
+final class CalculoStock {
+
+    private CalculoStock() {
+    }
+
+    static int aplicar(int stockPrevio, MovimientoStock movimiento) {
+        int cantidad = Math.abs(movimiento.getCantidadMovida());
+        switch (movimiento.getTipoMovimiento()) {
+            case ENTRADA:
+            case DEVOLUCION_CLIENTE:
+                return stockPrevio + cantidad;
+            case SALIDA:
+            case DEVOLUCION_PROVEEDOR:
+            case AJUSTE_NEGATIVO:
+                return stockPrevio - cantidad;
+            case AJUSTE:
+                return movimiento.getStockFinalDespuesMovimiento();
+            default:
+                // RESERVA y LIBERACION no cambian el stock físico
+                return stockPrevio;
+        }
+    }
+
+    static int reproducir(int stockInicial, List<MovimientoStock> movimientosOrdenados) {
+        int stock = stockInicial;
+        for (MovimientoStock movimiento : movimientosOrdenados) {
+            stock = aplicar(stock, movimiento);
+        }
+        return stock;
+    }
+}
@@ -0,0 +1,179 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.StockEnFechaDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.CheckpointStock;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.repository.CheckpointStockRepository;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Checkpoints periódicos de stock por SKU y consulta de stock en una fecha.
+ * La consulta parte del checkpoint más cercano anterior a la fecha y reproduce solo los movimientos
+ * posteriores, así el costo depende del intervalo entre checkpoints y no del largo del historial.
+ * <p>
+ * Los checkpoints siguen el orden de ID, pero la fecha de un movimiento puede venir del cliente y ser anterior a la de
+ * otros ya registrados. Por eso la fecha de un checkpoint es la más tardía entre todos los movimientos que incluye:
+ * solo se parte de él para fechas en las que todos ya habían ocurrido, y la cola se reproduce por fecha.
+ * Si la cola alcanza movimientos ya archivados, se leen de los segmentos de ArchivoMovimientoService.
+ * <p>
+ * La generación periódica corre en una sola instancia a la vez (bloqueo "checkpoints-stock" en bloqueos_proceso)
+ * y solo visita los SKUs que la base de datos indica con minMovimientos pendientes, cada uno en su transacción.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckpointStockService {
+
+    private final CheckpointStockRepository checkpointStockRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    // Diferido: el archivado depende a su vez de este servicio para asegurar checkpoints
+    private final ObjectProvider<ArchivoMovimientoService> archivoMovimientoService;
+    private final BloqueoProcesoService bloqueoProcesoService;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final String GENERACION = "checkpoints-stock";
+    private static final Duration DURACION_BLOQUEO = Duration.ofMinutes(5);
+
+    // Movimientos nuevos que debe acumular un SKU antes de generarle otro checkpoint
+    @Value("${inventario.checkpoints.min-movimientos:50}")
+    private int minMovimientos = 50;
+
+    @Scheduled(fixedDelayString = "${inventario.checkpoints.intervalo-ms:3600000}",
+            initialDelayString = "${inventario.checkpoints.intervalo-ms:3600000}")
+    public void generarCheckpoints() {
+        if (!bloqueoProcesoService.adquirir(GENERACION, DURACION_BLOQUEO)) {
+            log.debug("Checkpoints de stock: otra instancia los está generando");
+            return;
+        }
+        int generados = 0;
+        try {
+            // generarCheckpoint se llama sobre this: la transacción de cada SKU la abre la plantilla
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            for (String sku : movimientoStockRepository.findSkusParaCheckpoint(minMovimientos)) {
+                if (transaccion.execute(status -> generarCheckpoint(sku)).isPresent()) {
+                    generados++;
+                }
+                if (!bloqueoProcesoService.adquirir(GENERACION, DURACION_BLOQUEO)) {
+                    log.warn("Se perdió el bloqueo de los checkpoints de stock después del SKU {}", sku);
+                    break;
+                }
+            }
+        } finally {
+            bloqueoProcesoService.liberar(GENERACION);
+        }
+        log.info("Checkpoints de stock generados: {}", generados);
+    }
+
+    /**
+     * Genera un checkpoint para el SKU si acumuló al menos minMovimientos desde el anterior.
+     * Cada checkpoint se calcula sobre el anterior, de modo que el historial completo se recorre una sola vez.
+     */
+    @Transactional
+    public Optional<CheckpointStock> generarCheckpoint(String sku) {
+        Optional<CheckpointStock> anterior = checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc(sku);
+        long desdeMovimientoId = anterior.map(CheckpointStock::getMovimientoId).orElse(0L);
+
+        List<MovimientoStock> movimientos = movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc(sku, desdeMovimientoId);
+        if (movimientos.isEmpty() || movimientos.size() < minMovimientos) {
+            return Optional.empty();
+        }
+
+        return Optional.of(checkpointStockRepository.save(nuevoCheckpoint(sku, anterior, movimientos)));
+    }
+
+    /**
+     * Garantiza que exista un checkpoint que cubra el historial del SKU hasta movimientoId, sin importar minMovimientos.
+     * El archivado lo llama antes de borrar movimientos de la tabla, para que la reproducción nunca los necesite.
+     */
+    @Transactional
+    public void asegurarCheckpointHasta(String sku, long movimientoId) {
+        Optional<CheckpointStock> anterior = checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc(sku);
+        long desdeMovimientoId = anterior.map(CheckpointStock::getMovimientoId).orElse(0L);
+        if (desdeMovimientoId >= movimientoId) {
+            return;
+        }
+
+        List<MovimientoStock> movimientos = movimientoStockRepository
+                .findBySkuAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(sku, desdeMovimientoId, movimientoId);
+        if (movimientos.isEmpty()) {
+            return;
+        }
+
+        checkpointStockRepository.save(nuevoCheckpoint(sku, anterior, movimientos));
+    }
+
+    @Transactional(readOnly = true)
+    public StockEnFechaDTO consultarStockEnFecha(String sku, LocalDateTime fecha) {
+        if (!productoInventarioRepository.existsBySku(sku)) {
+            throw new RecursoNoEncontradoException("Producto con SKU " + sku + " no encontrado.");
+        }
+
+        // Ningún movimiento incluido en el checkpoint es posterior a la fecha; los que faltan tienen ID mayor
+        Optional<CheckpointStock> checkpoint = checkpointStockRepository
+                .findFirstBySkuAndFechaMovimientoLessThanEqualOrderByMovimientoIdDesc(sku, fecha);
+        long desdeMovimientoId = checkpoint.map(CheckpointStock::getMovimientoId).orElse(0L);
+        int stockInicial = checkpoint.map(CheckpointStock::getCantidadDisponible).orElse(0);
+
+        List<MovimientoStock> movimientos = movimientoStockRepository
+                .findBySkuAndIdGreaterThanAndFechaMovimientoLessThanEqualOrderByIdAsc(sku, desdeMovimientoId, fecha);
+        ArchivoMovimientoService archivo = archivoMovimientoService.getObject();
+        if (archivo.ultimoIdArchivado() > desdeMovimientoId) {
+            // Parte de la cola ya no está en la tabla; un movimiento en ambos lados (archivado sin borrar) cuenta una vez
+            Map<Long, MovimientoStock> porId = new TreeMap<>();
+            for (MovimientoStock archivado : archivo.leerArchivados(sku, null, fecha)) {
+                if (archivado.getId() > desdeMovimientoId) {
+                    porId.put(archivado.getId(), archivado);
+                }
+            }
+            movimientos.forEach(m -> porId.put(m.getId(), m));
+            movimientos = new ArrayList<>(porId.values());
+        }
+
+        return StockEnFechaDTO.builder()
+                .sku(sku)
+                .fecha(fecha)
+                .cantidadDisponible(CalculoStock.reproducir(stockInicial, movimientos))
+                .movimientoIdCheckpoint(checkpoint.map(CheckpointStock::getMovimientoId).orElse(null))
+                .movimientosReproducidos(movimientos.size())
+                .build();
+    }
+
+    private CheckpointStock nuevoCheckpoint(String sku, Optional<CheckpointStock> anterior,
+                                            List<MovimientoStock> movimientosOrdenados) {
+        int stockInicial = anterior.map(CheckpointStock::getCantidadDisponible).orElse(0);
+        LocalDateTime fechaMaxima = anterior.map(CheckpointStock::getFechaMovimiento).orElse(null);
+        for (MovimientoStock movimiento : movimientosOrdenados) {
+            if (fechaMaxima == null || movimiento.getFechaMovimiento().isAfter(fechaMaxima)) {
+                fechaMaxima = movimiento.getFechaMovimiento();
+            }
+        }
+        MovimientoStock ultimo = movimientosOrdenados.get(movimientosOrdenados.size() - 1);
+        CheckpointStock checkpoint = new CheckpointStock();
+        checkpoint.setSku(sku);
+        checkpoint.setCantidadDisponible(CalculoStock.reproducir(stockInicial, movimientosOrdenados));
+        checkpoint.setMovimientoId(ultimo.getId());
+        checkpoint.setFechaMovimiento(fechaMaxima);
+        checkpoint.setFechaCreacion(LocalDateTime.now());
+        return checkpoint;
+    }
+}
@@ -0,0 +1,234 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.DesviacionStockDTO;
+import com.retailmax.inventario.dto.ResultadoConciliacionDTO;
+import com.retailmax.inventario.exception.ConciliacionEnCursoException;
+import com.retailmax.inventario.model.CheckpointStock;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.CheckpointStockRepository;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conciliación entre el saldo de ProductoInventario (cantidadDisponible) y su historial de MovimientoStock.
+ * Los SKUs se reparten en rangos; por cada rango la base de datos agrega los movimientos por SKU (GROUP BY)
+ * y la comparación contra los saldos corre en un ForkJoinPool de paralelismo acotado, con una pausa tras cada lote
+ * para no competir con el tráfico normal. El saldo esperado parte del último AJUSTE o checkpoint del SKU,
+ * el que sea más reciente, y suma la variación posterior con las reglas de CalculoStock.
+ * <p>
+ * Corre en una sola instancia a la vez: toma el bloqueo "conciliacion-stock" de bloqueos_proceso y lo renueva en
+ * cada lote. Una conciliación pedida mientras otra está en curso se rechaza con ConciliacionEnCursoException (409).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConciliacionStockService {
+
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final CheckpointStockRepository checkpointStockRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final BloqueoProcesoService bloqueoProcesoService;
+
+    private static final String CONCILIACION = "conciliacion-stock";
+    private static final Duration DURACION_BLOQUEO = Duration.ofMinutes(5);
+
+    // SKUs por rango
+    @Value("${inventario.conciliacion.tamano-lote:500}")
+    private int tamanoLote = 500;
+
+    // Lotes que se procesan en paralelo
+    @Value("${inventario.conciliacion.paralelismo:2}")
+    private int paralelismo = 2;
+
+    // Pausa de cada hilo después de procesar un lote
+    @Value("${inventario.conciliacion.pausa-entre-lotes-ms:100}")
+    private long pausaEntreLotesMs = 100;
+
+    // Si la ejecución programada corrige las desviaciones o solo las informa
+    @Value("${inventario.conciliacion.reparar-automaticamente:false}")
+    private boolean repararAutomaticamente;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${inventario.conciliacion.cron:-}")
+    public void conciliacionProgramada() {
+        ResultadoConciliacionDTO resultado;
+        try {
+            resultado = conciliar(repararAutomaticamente);
+        } catch (ConciliacionEnCursoException e) {
+            log.info("Conciliación programada omitida: {}", e.getMessage());
+            return;
+        }
+        log.info("Conciliación programada: {} SKUs revisados, {} desviaciones",
+                resultado.getSkusRevisados(), resultado.getDesviaciones().size());
+    }
+
+    /**
+     * Recorre todos los SKUs y devuelve las desviaciones encontradas.
+     * Con reparar=true, cada desviación se vuelve a calcular con la fila del producto bloqueada
+     * y se corrige el saldo al valor que indica el historial.
+     */
+    public ResultadoConciliacionDTO conciliar(boolean reparar) {
+        // El flag evita ir a la base de datos por una segunda petición en la misma instancia
+        if (!enEjecucion.compareAndSet(false, true)) {
+            throw new ConciliacionEnCursoException("Ya hay una conciliación de stock en ejecución.");
+        }
+        boolean bloqueada = false;
+        try {
+            if (!bloqueoProcesoService.adquirir(CONCILIACION, DURACION_BLOQUEO)) {
+                throw new ConciliacionEnCursoException("Ya hay una conciliación de stock en ejecución en otra instancia.");
+            }
+            bloqueada = true;
+            LocalDateTime fechaInicio = LocalDateTime.now();
+            List<String> skus = productoInventarioRepository.findAllSkus();
+            List<List<String>> lotes = new ArrayList<>();
+            for (int i = 0; i < skus.size(); i += tamanoLote) {
+                lotes.add(skus.subList(i, Math.min(i + tamanoLote, skus.size())));
+            }
+
+            List<DesviacionStockDTO> desviaciones = new ArrayList<>();
+            ForkJoinPool pool = new ForkJoinPool(paralelismo);
+            try {
+                List<ForkJoinTask<List<DesviacionStockDTO>>> tareas = new ArrayList<>();
+                for (List<String> lote : lotes) {
+                    tareas.add(pool.submit(() -> conciliarLote(lote.get(0), lote.get(lote.size() - 1), reparar)));
+                }
+                for (ForkJoinTask<List<DesviacionStockDTO>> tarea : tareas) {
+                    desviaciones.addAll(tarea.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+            desviaciones.sort(Comparator.comparing(DesviacionStockDTO::getSku));
+
+            return ResultadoConciliacionDTO.builder()
+                    .fechaInicio(fechaInicio)
+                    .fechaFin(LocalDateTime.now())
+                    .modoReparacion(reparar)
+                    .skusRevisados(skus.size())
+                    .lotesProcesados(lotes.size())
+                    .desviaciones(desviaciones)
+                    .build();
+        } finally {
+            if (bloqueada) {
+                bloqueoProcesoService.liberar(CONCILIACION);
+            }
+            enEjecucion.set(false);
+        }
+    }
+
+    private List<DesviacionStockDTO> conciliarLote(String desde, String hasta, boolean reparar) {
+        // Si el bloqueo venció y lo tomó otra instancia, esta deja de procesar lotes
+        if (!bloqueoProcesoService.adquirir(CONCILIACION, DURACION_BLOQUEO)) {
+            throw new ConciliacionEnCursoException("Se perdió el bloqueo de la conciliación antes del rango " + desde + ".." + hasta + ".");
+        }
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        List<DesviacionStockDTO> desviaciones = lectura.execute(status -> {
+            Map<String, Integer> esperados = calcularSaldosEsperados(desde, hasta);
+            List<DesviacionStockDTO> encontradas = new ArrayList<>();
+            for (ProductoInventario producto : productoInventarioRepository.findBySkuBetween(desde, hasta)) {
+                int esperado = esperados.getOrDefault(producto.getSku(), 0);
+                if (producto.getCantidadDisponible() != esperado) {
+                    encontradas.add(DesviacionStockDTO.builder()
+                            .sku(producto.getSku())
+                            .saldoRegistrado(producto.getCantidadDisponible())
+                            .saldoSegunMovimientos(esperado)
+                            .diferencia(producto.getCantidadDisponible() - esperado)
+                            .reparado(false)
+                            .build());
+                }
+            }
+            return encontradas;
+        });
+
+        if (reparar) {
+            desviaciones.forEach(this::reparar);
+        }
+        pausar();
+        return desviaciones;
+    }
+
+    // Corrige un SKU con la fila bloqueada: un movimiento confirmado después de la lectura del lote se incluye en el nuevo cálculo
+    private void reparar(DesviacionStockDTO desviacion) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productoInventarioRepository.findBySkuParaActualizar(desviacion.getSku()).ifPresent(producto -> {
+                    int esperado = calcularSaldosEsperados(producto.getSku(), producto.getSku())
+                            .getOrDefault(producto.getSku(), 0);
+                    desviacion.setSaldoRegistrado(producto.getCantidadDisponible());
+                    desviacion.setSaldoSegunMovimientos(esperado);
+                    desviacion.setDiferencia(producto.getCantidadDisponible() - esperado);
+                    if (producto.getCantidadDisponible() != esperado) {
+                        producto.setCantidadDisponible(esperado);
+                        producto.setStock(esperado);
+                        producto.setFechaUltimaActualizacion(LocalDateTime.now());
+                        productoInventarioRepository.save(producto);
+                        log.warn("Saldo del SKU {} corregido a {} (diferencia {})",
+                                producto.getSku(), esperado, desviacion.getDiferencia());
+                    }
+                    desviacion.setReparado(true);
+                }));
+    }
+
+    private Map<String, Integer> calcularSaldosEsperados(String desde, String hasta) {
+        Map<String, Long> ultimoAjustePorSku = new HashMap<>();
+        for (Object[] fila : movimientoStockRepository.findUltimoAjustePorSku(desde, hasta)) {
+            ultimoAjustePorSku.put((String) fila[0], ((Number) fila[1]).longValue());
+        }
+        Map<Long, MovimientoStock> ajustes = new HashMap<>();
+        for (MovimientoStock ajuste : movimientoStockRepository.findAllById(ultimoAjustePorSku.values())) {
+            ajustes.put(ajuste.getId(), ajuste);
+        }
+        Map<String, CheckpointStock> checkpoints = new HashMap<>();
+        for (CheckpointStock checkpoint : checkpointStockRepository.findUltimosPorRangoSku(desde, hasta)) {
+            checkpoints.put(checkpoint.getSku(), checkpoint);
+        }
+
+        Map<String, Integer> esperados = new HashMap<>();
+        ultimoAjustePorSku.keySet().forEach(sku -> esperados.put(sku, 0));
+        checkpoints.keySet().forEach(sku -> esperados.put(sku, 0));
+        esperados.replaceAll((sku, cero) -> {
+            MovimientoStock ajuste = ajustes.get(ultimoAjustePorSku.get(sku));
+            CheckpointStock checkpoint = checkpoints.get(sku);
+            if (ajuste != null && (checkpoint == null || ajuste.getId() > checkpoint.getMovimientoId())) {
+                return CalculoStock.aplicar(0, ajuste);
+            }
+            return checkpoint != null ? checkpoint.getCantidadDisponible() : 0;
+        });
+        for (Object[] fila : movimientoStockRepository.sumarVariacionPorSku(desde, hasta)) {
+            esperados.merge((String) fila[0], Math.toIntExact(((Number) fila[1]).longValue()), Integer::sum);
+        }
+        return esperados;
+    }
+
+    private void pausar() {
+        if (pausaEntreLotesMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.retailmax.inventario.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de IDs de DiccionarioSku como mapa de bits: un bit por SKU en bloques que se crean al agregar el primer ID
+ * que cae en ellos. Reemplaza a un Set&lt;String&gt; de SKUs sin un nodo ni una referencia por elemento.
+ * Agregar y quitar son seguros entre hilos (CAS sobre la palabra del ID); recorrer no bloquea y ve cada bit
+ * con su valor en el momento de leerlo.
+ */
+final class ConjuntoIdsSku {
+
+    private static final int BITS_POR_BLOQUE = 1 << 16;
+    private static final int PALABRAS_POR_BLOQUE = BITS_POR_BLOQUE / Long.SIZE;
+
+    private volatile AtomicLongArray[] bloques = new AtomicLongArray[0];
+
+    void agregar(int id) {
+        long mascara = 1L << (id % Long.SIZE);
+        bloqueParaEscribir(id / BITS_POR_BLOQUE).accumulateAndGet(palabra(id), mascara, (actual, bit) -> actual | bit);
+    }
+
+    void quitar(int id) {
+        AtomicLongArray[] actuales = bloques;
+        int indiceBloque = id / BITS_POR_BLOQUE;
+        if (indiceBloque >= actuales.length || actuales[indiceBloque] == null) {
+            return;
+        }
+        long mascara = ~(1L << (id % Long.SIZE));
+        actuales[indiceBloque].accumulateAndGet(palabra(id), mascara, (actual, bits) -> actual & bits);
+    }
+
+    /** Recorre los IDs en orden ascendente. */
+    void forEach(IntConsumer accion) {
+        AtomicLongArray[] actuales = bloques;
+        for (int b = 0; b < actuales.length; b++) {
+            AtomicLongArray bloque = actuales[b];
+            if (bloque == null) {
+                continue;
+            }
+            for (int p = 0; p < PALABRAS_POR_BLOQUE; p++) {
+                long bits = bloque.get(p);
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    accion.accept(b * BITS_POR_BLOQUE + p * Long.SIZE + bit);
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    synchronized void limpiar() {
+        bloques = new AtomicLongArray[0];
+    }
+
+    private static int palabra(int id) {
+        return (id % BITS_POR_BLOQUE) / Long.SIZE;
+    }
+
+    private AtomicLongArray bloqueParaEscribir(int indiceBloque) {
+        AtomicLongArray[] actuales = bloques;
+        if (indiceBloque < actuales.length && actuales[indiceBloque] != null) {
+            return actuales[indiceBloque];
+        }
+        synchronized (this) {
+            actuales = bloques;
+            if (indiceBloque >= actuales.length) {
+                AtomicLongArray[] nuevos = new AtomicLongArray[Math.max(indiceBloque + 1, actuales.length * 2)];
+                System.arraycopy(actuales, 0, nuevos, 0, actuales.length);
+                actuales = nuevos;
+            }
+            if (actuales[indiceBloque] == null) {
+                actuales[indiceBloque] = new AtomicLongArray(PALABRAS_POR_BLOQUE);
+            }
+            // Se publica el arreglo completo: un lector nunca ve un bloque a medio crear
+            bloques = actuales;
+            return actuales[indiceBloque];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.EventoOutbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destino al que el relay del outbox publica los eventos (inventario.outbox.destino). Un lote que falla se vuelve
+ * a publicar completo en el próximo intento, así que la entrega es al menos una vez: el consumidor descarta
+ * repetidos por el ID del evento.
+ */
+public interface DestinoOutbox {
+
+    void publicar(List<EventoOutbox> lote) throws IOException;
+}
@@ -0,0 +1,61 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.retailmax.inventario.model.EventoOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Agrega cada lote como JSON por línea a {directorio-datos}/outbox/eventos.ndjson y lo sincroniza a disco antes de
+ * devolver, así el relay solo borra del outbox lo que ya quedó escrito. Pensado para pruebas e integraciones locales.
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.outbox.destino", havingValue = "archivo")
+@RequiredArgsConstructor
+public class DestinoOutboxArchivo implements DestinoOutbox {
+
+    static final String ARCHIVO = "eventos.ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${inventario.directorio-datos:./data}")
+    private String directorioDatos = "./data";
+
+    @Override
+    public synchronized void publicar(List<EventoOutbox> lote) throws IOException {
+        ByteArrayOutputStream lineas = new ByteArrayOutputStream(lote.size() * 256);
+        for (EventoOutbox evento : lote) {
+            ObjectNode linea = objectMapper.createObjectNode();
+            linea.put("id", evento.getId());
+            linea.put("tipoEvento", evento.getTipoEvento());
+            linea.put("clave", evento.getClave());
+            linea.put("fechaCreacion", evento.getFechaCreacion().toString());
+            linea.set("payload", objectMapper.readTree(evento.getPayload()));
+            lineas.write(objectMapper.writeValueAsBytes(linea));
+            lineas.write('\n');
+        }
+        Path directorio = Paths.get(directorioDatos, "outbox");
+        Files.createDirectories(directorio);
+        try (FileChannel canal = FileChannel.open(directorio.resolve(ARCHIVO),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer datos = ByteBuffer.wrap(lineas.toByteArray());
+            while (datos.hasRemaining()) {
+                canal.write(datos);
+            }
+            canal.force(false);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.EventosOutboxPublicadosEvent;
+import com.retailmax.inventario.model.EventoOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Publica cada lote como EventosOutboxPublicadosEvent dentro de la aplicación (integraciones locales y pruebas)
+@Component
+@ConditionalOnProperty(name = "inventario.outbox.destino", havingValue = "en-proceso", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DestinoOutboxEnProceso implements DestinoOutbox {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publicar(List<EventoOutbox> lote) {
+        eventPublisher.publishEvent(new EventosOutboxPublicadosEvent(List.copyOf(lote)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Diccionario de SKUs: asigna a cada SKU un ID entero denso (0, 1, 2, ...) que no cambia mientras el proceso vive.
+ * Las estructuras en memoria indexan por ese ID (arreglos, registros fuera del heap) en lugar de usar el SKU como
+ * clave de un HashMap, y el diccionario guarda una sola instancia de cada SKU.
+ * <p>
+ * Tabla de direccionamiento abierto con sondeo lineal: las búsquedas no toman locks; las altas se serializan.
+ * Al crecer se construye una tabla nueva y se publica completa.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DiccionarioSku {
+
+    public static final int SIN_ID = -1;
+
+    private static final VarHandle RANURA = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final ProductoInventarioRepository productoInventarioRepository;
+
+    // Ranuras: ID + 1 (0 = libre), con a lo sumo la mitad ocupada. skus y hashes se indexan por ID.
+    private record Tabla(int[] ranuras, String[] skus, int[] hashes) {
+    }
+
+    private volatile Tabla tabla = new Tabla(new int[CAPACIDAD_INICIAL * 2], new String[CAPACIDAD_INICIAL], new int[CAPACIDAD_INICIAL]);
+    private volatile int tamano;
+    private volatile boolean cargado;
+
+    /** ID del SKU, o SIN_ID si todavía no está registrado. */
+    public int id(String sku) {
+        Tabla actual = tabla;
+        int hash = mezclar(sku.hashCode());
+        int mascara = actual.ranuras().length - 1;
+        for (int i = hash & mascara; ; i = (i + 1) & mascara) {
+            int valor = (int) RANURA.getAcquire(actual.ranuras(), i);
+            if (valor == 0) {
+                return SIN_ID;
+            }
+            int id = valor - 1;
+            if (actual.hashes()[id] == hash && actual.skus()[id].equals(sku)) {
+                return id;
+            }
+        }
+    }
+
+    /** SKU del ID; los IDs solo se obtienen de este diccionario, así que siempre existe. */
+    public String sku(int id) {
+        return tabla.skus()[id];
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    /** Devuelve el ID del SKU, asignándole el siguiente si es nuevo. */
+    public int registrar(String sku) {
+        int id = id(sku);
+        if (id != SIN_ID) {
+            return id;
+        }
+        synchronized (this) {
+            id = id(sku);
+            if (id != SIN_ID) {
+                return id;
+            }
+            id = tamano;
+            Tabla actual = tabla;
+            if (id == actual.skus().length) {
+                actual = crecer(actual, id);
+                tabla = actual;
+            }
+            int hash = mezclar(sku.hashCode());
+            actual.skus()[id] = sku;
+            actual.hashes()[id] = hash;
+            insertar(actual.ranuras(), hash, id);
+            tamano = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * Registra todos los SKUs de inventarios, en orden de SKU, la primera vez que se llama.
+     * Lo invocan al arrancar las estructuras que indexan por ID; las altas posteriores llegan por alAgregarProducto.
+     */
+    public void cargar() {
+        if (cargado) {
+            return;
+        }
+        synchronized (this) {
+            if (cargado) {
+                return;
+            }
+            long inicio = System.currentTimeMillis();
+            for (String sku : productoInventarioRepository.findAllSkus()) {
+                registrar(sku);
+            }
+            cargado = true;
+            log.info("Diccionario de SKUs cargado: {} SKUs en {} ms", tamano, System.currentTimeMillis() - inicio);
+        }
+    }
+
+    // Un producto nuevo recibe su ID al insertarse; si la transacción se revierte, el ID queda sin uso
+    @EventListener
+    public void alAgregarProducto(ProductoInventarioActualizadoEvent event) {
+        if (cargado && !event.isEliminado()) {
+            registrar(event.getProducto().getSku());
+        }
+    }
+
+    private static Tabla crecer(Tabla actual, int cantidad) {
+        int capacidad = actual.skus().length * 2;
+        Tabla nueva = new Tabla(new int[capacidad * 2], new String[capacidad], new int[capacidad]);
+        System.arraycopy(actual.skus(), 0, nueva.skus(), 0, cantidad);
+        System.arraycopy(actual.hashes(), 0, nueva.hashes(), 0, cantidad);
+        for (int id = 0; id < cantidad; id++) {
+            insertar(nueva.ranuras(), nueva.hashes()[id], id);
+        }
+        return nueva;
+    }
+
+    // La escritura con release publica el SKU y el hash del ID junto con la ranura
+    private static void insertar(int[] ranuras, int hash, int id) {
+        int mascara = ranuras.length - 1;
+        int i = hash & mascara;
+        while (ranuras[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        RANURA.setRelease(ranuras, i, id + 1);
+    }
+
+    private static int mezclar(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
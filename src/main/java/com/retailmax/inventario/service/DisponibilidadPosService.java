@@ -0,0 +1,248 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.exception.VersionNoDisponibleException;
+import com.retailmax.inventario.model.CambioDisponibilidad;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.CambioDisponibilidadRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.service.FormatoDisponibilidad.Contenido;
+import com.retailmax.inventario.service.FormatoDisponibilidad.Tupla;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sincronización de disponibilidad para terminales POS (inventario.disponibilidad.habilitado=true). Cada cambio de
+ * un ProductoInventario deja una fila en cambios_disponibilidad, en la misma transacción, con una versión global
+ * creciente. La terminal pide los cambios de su ubicación posteriores a la última versión que aplicó y recibe solo
+ * tuplas (sku, disponible, estado) en FormatoDisponibilidad: con desde=0 recibe la carga completa de la ubicación.
+ * <p>
+ * Un SKU borrado o que cambia de ubicación deja además una baja en la ubicación que tenía, así la terminal lo quita.
+ * Como en el feed de movimientos, las versiones se asignan al insertar y no al confirmar: un cambio se entrega recién
+ * cuando pasó ventana-confirmacion-ms desde su fecha (con varias instancias, la ventana debe cubrir la transacción
+ * más larga más la diferencia de reloj entre ellas), y nunca por encima de la menor versión todavía en curso en esta
+ * instancia. El historial se poda a retencion-dias; una terminal que pide una versión ya podada recibe 410 y vuelve a
+ * cargar desde cero.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.disponibilidad.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class DisponibilidadPosService {
+
+    private final CambioDisponibilidadRepository cambioDisponibilidadRepository;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventario.disponibilidad.limite-maximo:20000}")
+    private int limiteMaximo = 20_000;
+
+    @Value("${inventario.disponibilidad.retencion-dias:7}")
+    private int retencionDias = 7;
+
+    @Value("${inventario.disponibilidad.margen-en-curso-ms:60000}")
+    private long margenEnCursoMs = 60_000;
+
+    @Value("${inventario.disponibilidad.ventana-confirmacion-ms:10000}")
+    private long ventanaConfirmacionMs = 10_000;
+
+    private final Set<EnCurso> enCurso = ConcurrentHashMap.newKeySet();
+    private final AtomicLong ultimaVersion = new AtomicLong();
+    private SimpleJdbcInsert insercion;
+
+    // Cota inferior de la versión de una fila desde antes de insertarla hasta que termina su transacción
+    private static final class EnCurso {
+        private volatile long cota;
+        private final long desde = System.currentTimeMillis();
+
+        private EnCurso(long cota) {
+            this.cota = cota;
+        }
+    }
+
+    @PostConstruct
+    void prepararInsercion() {
+        // JDBC y no el EntityManager: la fila se escribe durante el flush que disparó el callback de la entidad
+        insercion = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("cambios_disponibilidad")
+                .usingColumns("sku", "ubicacion", "disponible", "estado", "eliminado", "fecha")
+                .usingGeneratedKeyColumns("version");
+    }
+
+    // Síncrono a propósito: el cambio y su versión se confirman o revierten juntos
+    @EventListener
+    public void alActualizarProducto(ProductoInventarioActualizadoEvent event) {
+        ProductoInventario producto = event.getProducto();
+        String anterior = producto.getUbicacionAlmacenGuardada();
+        String actual = producto.getUbicacionAlmacen();
+        if (event.isEliminado()) {
+            registrar(producto.getSku(), anterior != null ? anterior : actual, null, null);
+            return;
+        }
+        if (anterior != null && !anterior.equals(actual)) {
+            registrar(producto.getSku(), anterior, null, null);
+        }
+        registrar(producto.getSku(), actual, producto.getCantidadDisponible(), producto.getEstado());
+    }
+
+    /** Cambios de la ubicación posteriores a la versión desde (0: carga completa), en FormatoDisponibilidad. */
+    public byte[] consultarCambios(String ubicacion, long desde, int limite) {
+        if (ubicacion == null || ubicacion.isBlank()) {
+            throw new IllegalArgumentException("La ubicación es obligatoria para sincronizar la disponibilidad");
+        }
+        if (desde < 0) {
+            throw new IllegalArgumentException("La versión no puede ser negativa: " + desde);
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero: " + limite);
+        }
+        long hasta = limiteVisible();
+        Contenido contenido = desde == 0
+                ? cargaCompleta(ubicacion.trim(), hasta)
+                : cambiosDesde(ubicacion.trim(), desde, hasta, Math.min(limite, limiteMaximo));
+        try {
+            return FormatoDisponibilidad.escribir(contenido);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(cron = "${inventario.disponibilidad.cron-poda:0 15 4 * * *}")
+    public void podar() {
+        Integer borrados = new TransactionTemplate(transactionManager).execute(status ->
+                cambioDisponibilidadRepository.deleteAnterioresA(LocalDateTime.now().minusDays(retencionDias)));
+        log.info("Poda de cambios de disponibilidad: {} filas anteriores a {} días", borrados, retencionDias);
+    }
+
+    private Contenido cargaCompleta(String ubicacion, long hasta) {
+        // La versión se toma antes de leer: un cambio posterior puede venir en la carga y repetirse en el próximo delta
+        long version = Math.min(cambioDisponibilidadRepository.findUltimaVersionHasta(hasta), versionConfirmada());
+        List<Tupla> tuplas = new ArrayList<>();
+        for (Object[] fila : productoInventarioRepository.findDisponibilidadPorUbicacion(ubicacion)) {
+            tuplas.add(new Tupla((String) fila[0], (Integer) fila[1], (EstadoStock) fila[2]));
+        }
+        return new Contenido(version, false, tuplas);
+    }
+
+    private Contenido cambiosDesde(String ubicacion, long desde, long hasta, int tamano) {
+        // La poda conserva siempre el último cambio; si el siguiente a desde ya no está, falta historial
+        long primera = cambioDisponibilidadRepository.findPrimeraVersion();
+        if (primera > desde + 1) {
+            throw new VersionNoDisponibleException("La versión " + desde + " ya no está en el historial de cambios "
+                    + "(la más antigua es " + primera + "); sincronice desde 0");
+        }
+        // Una fila de más indica si hay otra página sin contarlas
+        List<CambioDisponibilidad> cambios = cambioDisponibilidadRepository.findCambios(ubicacion, desde, hasta,
+                PageRequest.of(0, tamano + 1));
+        // Corta en el primer cambio dentro de la ventana: una versión menor de otra transacción puede confirmarse todavía
+        LocalDateTime corte = corte();
+        for (int i = 0; i < cambios.size(); i++) {
+            if (cambios.get(i).getFecha().isAfter(corte)) {
+                cambios = cambios.subList(0, Math.min(i, tamano + 1));
+                break;
+            }
+        }
+        boolean hayMas = cambios.size() > tamano;
+        if (hayMas) {
+            cambios = cambios.subList(0, tamano);
+        }
+        // A la terminal le basta el último estado de cada SKU de la página
+        Map<String, Tupla> porSku = new LinkedHashMap<>();
+        for (CambioDisponibilidad cambio : cambios) {
+            porSku.remove(cambio.getSku());
+            porSku.put(cambio.getSku(), Boolean.TRUE.equals(cambio.getEliminado())
+                    ? new Tupla(cambio.getSku(), 0, null)
+                    : new Tupla(cambio.getSku(), cambio.getDisponible(), cambio.getEstado()));
+        }
+        long version = cambios.isEmpty() ? desde : cambios.get(cambios.size() - 1).getVersion();
+        return new Contenido(version, hayMas, new ArrayList<>(porSku.values()));
+    }
+
+    // Versión del último cambio registrado fuera de la ventana; sin ninguno, la anterior al primero conservado
+    private long versionConfirmada() {
+        List<Long> ultima = cambioDisponibilidadRepository.findVersionesRegistradasHasta(corte(), PageRequest.of(0, 1));
+        if (!ultima.isEmpty()) {
+            return ultima.get(0);
+        }
+        return Math.max(cambioDisponibilidadRepository.findPrimeraVersion() - 1, 0);
+    }
+
+    private LocalDateTime corte() {
+        return LocalDateTime.now().minus(Duration.ofMillis(ventanaConfirmacionMs));
+    }
+
+    private void registrar(String sku, String ubicacion, Integer disponible, EstadoStock estado) {
+        if (ubicacion == null) {
+            return;
+        }
+        EnCurso marca = new EnCurso(ultimaVersion.get() + 1);
+        enCurso.add(marca);
+        try {
+            Number version = insercion.executeAndReturnKey(new MapSqlParameterSource()
+                    .addValue("sku", sku)
+                    .addValue("ubicacion", ubicacion)
+                    .addValue("disponible", disponible)
+                    .addValue("estado", estado != null ? estado.name() : null)
+                    .addValue("eliminado", estado == null)
+                    .addValue("fecha", LocalDateTime.now()));
+            marca.cota = version.longValue();
+            ultimaVersion.accumulateAndGet(version.longValue(), Math::max);
+        } catch (RuntimeException e) {
+            enCurso.remove(marca);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    enCurso.remove(marca);
+                }
+            });
+        } else {
+            enCurso.remove(marca);
+        }
+    }
+
+    private long limiteVisible() {
+        long ahora = System.currentTimeMillis();
+        long limite = Long.MAX_VALUE;
+        for (EnCurso marca : enCurso) {
+            if (ahora - marca.desde > margenEnCursoMs) {
+                log.warn("Un cambio de disponibilidad sigue en curso después de {} ms; la sincronización deja de esperarlo",
+                        margenEnCursoMs);
+                enCurso.remove(marca);
+                continue;
+            }
+            limite = Math.min(limite, marca.cota - 1);
+        }
+        return limite;
+    }
+}
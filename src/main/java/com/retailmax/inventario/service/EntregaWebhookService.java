@@ -0,0 +1,295 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.dto.EventoWebhookDTO;
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.EventoWebhookFallido;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.repository.EventoWebhookFallidoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega de alertas y movimientos de stock a webhooks HTTP (inventario.webhooks.habilitado=true).
+ * Los listeners solo encolan el evento después del commit: ningún receptor lento o caído demora actualizarStock
+ * ni registrarMovimiento. Cada destino tiene su cola acotada y su hilo, que envía lotes de hasta tamano-lote eventos
+ * (o lo que llegó en espera-lote-ms) como un arreglo JSON en un POST.
+ * <p>
+ * Un lote que falla por error de red, timeout, 408, 429 o 5xx se reintenta con espera exponencial (con variación
+ * aleatoria, hasta espera-reintento-maxima-ms); mientras tanto la cola sigue recibiendo. Otro 4xx no se reintenta.
+ * Lo que no se pudo entregar, y lo que llega con la cola llena, queda en webhooks_fallidos con su payload.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.webhooks.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class EntregaWebhookService {
+
+    private final EventoWebhookFallidoRepository eventoWebhookFallidoRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${inventario.webhooks.destinos:}")
+    private String[] destinos = {};
+
+    @Value("${inventario.webhooks.enviar-movimientos:true}")
+    private boolean enviarMovimientos = true;
+
+    @Value("${inventario.webhooks.tamano-lote:100}")
+    private int tamanoLote = 100;
+
+    @Value("${inventario.webhooks.espera-lote-ms:500}")
+    private long esperaLoteMs = 500;
+
+    @Value("${inventario.webhooks.capacidad-cola:10000}")
+    private int capacidadCola = 10_000;
+
+    @Value("${inventario.webhooks.reintentos-maximos:5}")
+    private int reintentosMaximos = 5;
+
+    @Value("${inventario.webhooks.espera-reintento-inicial-ms:500}")
+    private long esperaReintentoInicialMs = 500;
+
+    @Value("${inventario.webhooks.espera-reintento-maxima-ms:30000}")
+    private long esperaReintentoMaximaMs = 30_000;
+
+    @Value("${inventario.webhooks.timeout-ms:5000}")
+    private int timeoutMs = 5000;
+
+    private RestClient restClient;
+    private final List<Destino> activos = new ArrayList<>();
+    private final Object monitor = new Object();
+    private volatile boolean activo;
+
+    private static final class Destino {
+        private final String url;
+        private final BlockingQueue<EventoWebhookDTO> cola;
+        // Eventos que llegaron con la cola llena; el hilo del destino los pasa a webhooks_fallidos
+        private final BlockingQueue<EventoWebhookDTO> desbordados;
+        private final AtomicLong perdidos = new AtomicLong();
+        private Thread hilo;
+
+        private Destino(String url, int capacidad) {
+            this.url = url;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+            this.desbordados = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        activo = true;
+        Arrays.stream(destinos).map(String::trim).filter(url -> !url.isEmpty()).distinct().forEach(url -> {
+            Destino destino = new Destino(url, capacidadCola);
+            destino.hilo = new Thread(() -> entregar(destino), "webhook-" + activos.size());
+            destino.hilo.setDaemon(true);
+            activos.add(destino);
+            destino.hilo.start();
+        });
+        if (activos.isEmpty()) {
+            log.warn("Webhooks habilitados sin destinos (inventario.webhooks.destinos): no se enviará ningún evento");
+        }
+    }
+
+    // Al cerrar se vacían las colas sin reintentos: lo que falla queda en webhooks_fallidos
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activo = false;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        for (Destino destino : activos) {
+            destino.hilo.join(timeoutMs + esperaLoteMs + 5000);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alPublicarAlerta(AlertaInventarioEvent event) {
+        encolar(EventoWebhookDTO.builder()
+                .tipoEvento("ALERTA")
+                .sku(event.getSku())
+                .fecha(event.getFecha())
+                .tipoAlerta(event.getTipoAlerta().name())
+                .umbralCantidad(event.getUmbralCantidad())
+                .cantidadDisponible(event.getCantidadDisponible())
+                .activa(event.isActiva())
+                .build());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alRegistrarMovimiento(MovimientoStockRegistradoEvent event) {
+        if (!enviarMovimientos) {
+            return;
+        }
+        MovimientoStock movimiento = event.getMovimiento();
+        encolar(EventoWebhookDTO.builder()
+                .tipoEvento("MOVIMIENTO")
+                .sku(movimiento.getSku())
+                .fecha(movimiento.getFechaMovimiento())
+                .movimientoId(movimiento.getId())
+                .tipoMovimiento(movimiento.getTipoMovimiento() != null ? movimiento.getTipoMovimiento().name() : null)
+                .cantidadMovida(movimiento.getCantidadMovida())
+                .stockFinalDespuesMovimiento(movimiento.getStockFinalDespuesMovimiento())
+                .build());
+    }
+
+    // Nunca bloquea al que publica: con la cola llena el evento va a desbordados y, si tampoco entra, se pierde
+    private void encolar(EventoWebhookDTO evento) {
+        for (Destino destino : activos) {
+            if (destino.cola.offer(evento) || destino.desbordados.offer(evento)) {
+                continue;
+            }
+            long perdidos = destino.perdidos.incrementAndGet();
+            if (perdidos == 1 || perdidos % 1000 == 0) {
+                log.warn("Webhook {}: cola y desborde llenos, {} eventos descartados sin registrar", destino.url, perdidos);
+            }
+        }
+    }
+
+    // Hilo webhook-N: arma lotes de su cola y los envía en orden
+    private void entregar(Destino destino) {
+        List<EventoWebhookDTO> lote = new ArrayList<>(tamanoLote);
+        while (activo || !destino.cola.isEmpty() || !destino.desbordados.isEmpty()) {
+            try {
+                guardarDesbordados(destino);
+                EventoWebhookDTO primero = destino.cola.poll(esperaLoteMs, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaLoteMs);
+                while (lote.size() < tamanoLote) {
+                    if (destino.cola.drainTo(lote, tamanoLote - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0 || !activo) {
+                        break;
+                    }
+                    EventoWebhookDTO siguiente = destino.cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                enviarConReintentos(destino, lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error entregando eventos al webhook {}", destino.url, e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void enviarConReintentos(Destino destino, List<EventoWebhookDTO> lote) throws InterruptedException {
+        String cuerpo;
+        try {
+            cuerpo = objectMapper.writeValueAsString(lote);
+        } catch (JsonProcessingException e) {
+            guardarFallidos(destino, lote, 0, "No se pudo serializar el lote: " + e.getOriginalMessage());
+            return;
+        }
+        int intento = 0;
+        while (true) {
+            intento++;
+            String error;
+            boolean reintentable = true;
+            try {
+                restClient.post()
+                        .uri(destino.url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(cuerpo)
+                        .retrieve()
+                        .toBodilessEntity();
+                return;
+            } catch (HttpClientErrorException e) {
+                error = e.getStatusCode() + " " + e.getStatusText();
+                reintentable = e.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                        || e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+            } catch (RestClientException e) {
+                error = e.getMessage();
+            }
+            if (!reintentable || intento > reintentosMaximos || !activo) {
+                guardarFallidos(destino, lote, intento, error);
+                return;
+            }
+            long espera = esperaReintento(intento);
+            log.warn("Webhook {}: falló el envío de {} eventos (intento {}): {}. Reintento en {} ms",
+                    destino.url, lote.size(), intento, error, espera);
+            synchronized (monitor) {
+                if (activo) {
+                    monitor.wait(espera);
+                }
+            }
+        }
+    }
+
+    // Exponencial desde espera-reintento-inicial-ms, con tope, entre la mitad y el total para no sincronizar reintentos
+    private long esperaReintento(int intento) {
+        long base = Math.min(esperaReintentoMaximaMs, esperaReintentoInicialMs << Math.min(intento - 1, 20));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void guardarDesbordados(Destino destino) {
+        if (destino.desbordados.isEmpty()) {
+            return;
+        }
+        List<EventoWebhookDTO> desbordados = new ArrayList<>();
+        destino.desbordados.drainTo(desbordados);
+        guardarFallidos(destino, desbordados, 0, "Cola de envío llena");
+    }
+
+    private void guardarFallidos(Destino destino, List<EventoWebhookDTO> eventos, int intentos, String error) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EventoWebhookFallido> fallidos = new ArrayList<>(eventos.size());
+        for (EventoWebhookDTO evento : eventos) {
+            String payload;
+            try {
+                payload = objectMapper.writeValueAsString(evento);
+            } catch (JsonProcessingException e) {
+                payload = String.valueOf(evento);
+            }
+            fallidos.add(new EventoWebhookFallido(null, destino.url, evento.getTipoEvento(), evento.getSku(), payload, intentos,
+                    error != null && error.length() > 1000 ? error.substring(0, 1000) : error,
+                    evento.getFecha() != null ? evento.getFecha() : ahora, ahora));
+        }
+        try {
+            eventoWebhookFallidoRepository.saveAll(fallidos);
+            log.warn("Webhook {}: {} eventos guardados en webhooks_fallidos ({})", destino.url, fallidos.size(), error);
+        } catch (RuntimeException e) {
+            log.error("Webhook {}: no se pudieron guardar {} eventos fallidos", destino.url, fallidos.size(), e);
+        }
+    }
+}
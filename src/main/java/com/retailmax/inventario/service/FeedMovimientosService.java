@@ -0,0 +1,258 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.FeedMovimientosDTO;
+import com.retailmax.inventario.dto.MovimientoFeedDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed global de movimientos de stock para integraciones (analítica, ERP): el ID de movimientos_stock es la
+ * secuencia y el cursor es el último ID recibido, así cada consulta es un rango sobre la PK y cuesta solo las
+ * filas nuevas. Con esperaMs el consumidor queda esperando (long-poll) hasta que se confirme un movimiento.
+ * <p>
+ * Los IDs se asignan al insertar y no al confirmar: un movimiento con ID menor puede confirmarse después que
+ * uno mayor, insertado por esta instancia o por otra. Para que el cursor no lo saltee, el feed:
+ * <ul>
+ * <li>no entrega un movimiento hasta que pasaron ventana-confirmacion-ms desde su fechaRegistro, y corta la página
+ * en el primero que todavía está dentro de la ventana: lo confirmado con un ID menor ya es visible para entonces.
+ * La ventana debe cubrir la transacción más larga que registra movimientos más la diferencia de reloj entre
+ * instancias; es también la demora mínima con que el feed entrega un movimiento.</li>
+ * <li>no entrega nada por encima del menor ID todavía en curso en esta instancia (registrado y sin confirmar ni
+ * revertir), para las transacciones locales que duran más que la ventana. Un ID en curso por más de
+ * margen-en-curso-ms se deja de considerar, para que una transacción perdida no detenga el feed.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedMovimientosService {
+
+    private final MovimientoStockRepository movimientoStockRepository;
+
+    @Value("${inventario.feed.limite-maximo:1000}")
+    private int limiteMaximo = 1000;
+
+    @Value("${inventario.feed.espera-maxima-ms:30000}")
+    private long esperaMaximaMs = 30_000;
+
+    @Value("${inventario.feed.margen-en-curso-ms:60000}")
+    private long margenEnCursoMs = 60_000;
+
+    @Value("${inventario.feed.ventana-confirmacion-ms:10000}")
+    private long ventanaConfirmacionMs = 10_000;
+
+    // ID del movimiento -> momento en que se registró, hasta que su transacción termina
+    private final ConcurrentNavigableMap<Long, Long> enCurso = new ConcurrentSkipListMap<>();
+    private final Queue<Espera> esperas = new ConcurrentLinkedQueue<>();
+    private final AtomicLong terminados = new AtomicLong();
+    private final AtomicBoolean atendiendo = new AtomicBoolean();
+    private final AtomicBoolean hayCambios = new AtomicBoolean();
+    private final AtomicBoolean revisionProgramada = new AtomicBoolean();
+    private final ExecutorService consultas = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feed-", 0).factory());
+
+    private record Espera(long cursor, int limite, DeferredResult<FeedMovimientosDTO> resultado) {
+    }
+
+    private record Consulta(long cursor, int limite) {
+    }
+
+    public FeedMovimientosDTO consultar(long cursor, int limite) {
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor del feed no puede ser negativo: " + cursor);
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite del feed debe ser mayor que cero: " + limite);
+        }
+        int tamano = Math.min(limite, limiteMaximo);
+        // Una fila de más indica si hay otra página sin contarlas
+        List<MovimientoFeedDTO> movimientos = movimientoStockRepository.findFeed(cursor, limiteVisible(),
+                PageRequest.of(0, tamano + 1));
+        LocalDateTime corte = corte();
+        for (int i = 0; i < movimientos.size(); i++) {
+            LocalDateTime registro = movimientos.get(i).getRegistro();
+            if (registro != null && registro.isAfter(corte)) {
+                // Vuelve a atender las esperas cuando este movimiento salga de la ventana
+                programarRevision(Duration.between(corte, registro).toMillis() + 1);
+                movimientos = movimientos.subList(0, Math.min(i, tamano + 1));
+                break;
+            }
+        }
+        boolean hayMas = movimientos.size() > tamano;
+        if (hayMas) {
+            movimientos = movimientos.subList(0, tamano);
+        }
+        return FeedMovimientosDTO.builder()
+                .movimientos(movimientos)
+                .cursor(movimientos.isEmpty() ? cursor : movimientos.get(movimientos.size() - 1).getId())
+                .hayMas(hayMas)
+                .build();
+    }
+
+    /** Página del feed; si está vacía y esperaMs > 0, se completa con el primer movimiento confirmado o al vencer. */
+    public DeferredResult<FeedMovimientosDTO> esperar(long cursor, int limite, long esperaMs) {
+        long terminadosAntes = terminados.get();
+        FeedMovimientosDTO pagina = consultar(cursor, limite);
+        long espera = Math.min(esperaMs, esperaMaximaMs);
+        if (!pagina.getMovimientos().isEmpty() || espera <= 0) {
+            DeferredResult<FeedMovimientosDTO> resultado = new DeferredResult<>();
+            resultado.setResult(pagina);
+            return resultado;
+        }
+        DeferredResult<FeedMovimientosDTO> resultado = new DeferredResult<>(espera, pagina);
+        Espera registrada = new Espera(cursor, limite, resultado);
+        resultado.onCompletion(() -> esperas.remove(registrada));
+        esperas.add(registrada);
+        // Un movimiento confirmado entre la consulta y el registro de la espera no debe perderse hasta el vencimiento
+        if (terminados.get() != terminadosAntes) {
+            despertar();
+        }
+        return resultado;
+    }
+
+    // Antes que cualquier otro listener: sin transacción, el listener de fin se ejecuta enseguida
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void alRegistrarMovimiento(MovimientoStockRegistradoEvent event) {
+        Long id = event.getMovimiento().getId();
+        if (id != null) {
+            enCurso.put(id, System.currentTimeMillis());
+        }
+    }
+
+    // Confirmado o revertido, el ID deja de limitar el feed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void alTerminarMovimiento(MovimientoStockRegistradoEvent event) {
+        Long id = event.getMovimiento().getId();
+        if (id != null) {
+            enCurso.remove(id);
+        }
+        terminados.incrementAndGet();
+        despertar();
+    }
+
+    public int esperasActivas() {
+        return esperas.size();
+    }
+
+    @PreDestroy
+    void detener() {
+        consultas.shutdownNow();
+    }
+
+    /**
+     * Mayor ID hasta el que todos los movimientos están confirmados, para la versión del snapshot de inventario: el
+     * registrado más recientemente fuera de la ventana, sin pasar el límite de los IDs en curso en esta instancia.
+     */
+    long limiteConfirmado() {
+        long limite = limiteVisible();
+        List<Long> ultimo = movimientoStockRepository.findIdsRegistradosHasta(corte(), PageRequest.of(0, 1));
+        if (!ultimo.isEmpty()) {
+            return Math.min(limite, ultimo.get(0));
+        }
+        // Todo lo registrado está en la ventana: alcanza con las filas anteriores a la columna fechaRegistro
+        List<Long> primero = movimientoStockRepository.findIdsPorRegistro(PageRequest.of(0, 1));
+        return primero.isEmpty() ? limite : Math.min(limite, primero.get(0) - 1);
+    }
+
+    // Mayor ID que el feed consulta hoy según los movimientos en curso en esta instancia
+    long limiteVisible() {
+        long ahora = System.currentTimeMillis();
+        while (true) {
+            Map.Entry<Long, Long> primero = enCurso.firstEntry();
+            if (primero == null) {
+                return Long.MAX_VALUE;
+            }
+            if (ahora - primero.getValue() <= margenEnCursoMs) {
+                return primero.getKey() - 1;
+            }
+            log.warn("El movimiento {} sigue en curso después de {} ms; el feed deja de esperarlo",
+                    primero.getKey(), margenEnCursoMs);
+            enCurso.remove(primero.getKey(), primero.getValue());
+        }
+    }
+
+    private LocalDateTime corte() {
+        return LocalDateTime.now().minus(Duration.ofMillis(ventanaConfirmacionMs));
+    }
+
+    private void programarRevision(long demoraMs) {
+        if (!revisionProgramada.compareAndSet(false, true)) {
+            return;
+        }
+        consultas.execute(() -> {
+            try {
+                Thread.sleep(demoraMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                revisionProgramada.set(false);
+            }
+            despertar();
+        });
+    }
+
+    // Las esperas se atienden fuera del hilo que confirmó el movimiento, en una sola tarea a la vez
+    private void despertar() {
+        if (esperas.isEmpty()) {
+            return;
+        }
+        hayCambios.set(true);
+        if (atendiendo.compareAndSet(false, true)) {
+            consultas.execute(this::atenderEsperas);
+        }
+    }
+
+    private void atenderEsperas() {
+        try {
+            while (hayCambios.getAndSet(false)) {
+                // Consumidores al día suelen compartir cursor: una consulta por cursor y límite en cada pasada
+                Map<Consulta, FeedMovimientosDTO> porCursor = new HashMap<>();
+                for (Espera espera : esperas) {
+                    if (espera.resultado().isSetOrExpired()) {
+                        esperas.remove(espera);
+                        continue;
+                    }
+                    FeedMovimientosDTO pagina = porCursor.computeIfAbsent(new Consulta(espera.cursor(), espera.limite()),
+                            consulta -> consultar(consulta.cursor(), consulta.limite()));
+                    if (!pagina.getMovimientos().isEmpty() && espera.resultado().setResult(pagina)) {
+                        esperas.remove(espera);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron atender las esperas del feed de movimientos", e);
+        } finally {
+            atendiendo.set(false);
+        }
+        if (hayCambios.get()) {
+            despertar();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.enums.EstadoStock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato de las respuestas de disponibilidad para terminales POS, comprimido con gzip.
+ * Cabecera [mágico][versión][hay más][tuplas], luego por tupla [sku UTF][disponible int][estado byte]. El estado es
+ * el ordinal de EstadoStock, como en los snapshots del modelo de lectura, y -1 indica que la terminal debe quitar
+ * el SKU (se borró o ya no está en su ubicación).
+ */
+final class FormatoDisponibilidad {
+
+    static final int MAGICO = 0x44535031; // "DSP1"
+
+    record Tupla(String sku, int disponible, EstadoStock estado) {
+    }
+
+    record Contenido(long version, boolean hayMas, List<Tupla> tuplas) {
+    }
+
+    private FormatoDisponibilidad() {
+    }
+
+    static byte[] escribir(Contenido contenido) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + contenido.tuplas().size() * 12);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 8 * 1024))) {
+            out.writeInt(MAGICO);
+            out.writeLong(contenido.version());
+            out.writeBoolean(contenido.hayMas());
+            out.writeInt(contenido.tuplas().size());
+            for (Tupla tupla : contenido.tuplas()) {
+                out.writeUTF(tupla.sku());
+                out.writeInt(tupla.disponible());
+                out.writeByte(tupla.estado() != null ? tupla.estado().ordinal() : -1);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static Contenido leer(byte[] datos) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(datos)))) {
+            if (in.readInt() != MAGICO) {
+                throw new IOException("La respuesta no tiene el formato de disponibilidad esperado");
+            }
+            long version = in.readLong();
+            boolean hayMas = in.readBoolean();
+            int cantidad = in.readInt();
+            List<Tupla> tuplas = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                String sku = in.readUTF();
+                int disponible = in.readInt();
+                byte estado = in.readByte();
+                tuplas.add(new Tupla(sku, disponible, estado >= 0 ? EstadoStock.values()[estado] : null));
+            }
+            return new Contenido(version, hayMas, tuplas);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.retailmax.inventario.service;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Último movimiento por SKU (epoch ms, indexado por el ID de DiccionarioSku) e índice de vencimientos de las reglas
+ * SIN_MOVIMIENTO, ordenado por instante.
+ * <p>
+ * Registrar un movimiento solo actualiza el instante del SKU: los vencimientos no se reprograman en cada escritura.
+ * Cuando un vencimiento llega, quien lo procesa compara con el último movimiento y, si hubo actividad, lo vuelve
+ * a programar. Así el costo de la revisión depende de los SKUs que vencen, no del total ni del volumen de movimientos.
+ */
+final class InactividadSku {
+
+    private static final int REGISTROS_POR_BLOQUE = 1 << 16;
+
+    /** Orden por instante y luego por ID; dos vencimientos iguales del mismo SKU son una sola entrada. */
+    record Vencimiento(long instante, int id) implements Comparable<Vencimiento> {
+        @Override
+        public int compareTo(Vencimiento otro) {
+            int porInstante = Long.compare(instante, otro.instante);
+            return porInstante != 0 ? porInstante : Integer.compare(id, otro.id);
+        }
+    }
+
+    private final AtomicReferenceArray<AtomicLongArray> ultimos;
+    private final ConcurrentSkipListSet<Vencimiento> vencimientos = new ConcurrentSkipListSet<>();
+
+    InactividadSku(int capacidadMaxima) {
+        ultimos = new AtomicReferenceArray<>((capacidadMaxima + REGISTROS_POR_BLOQUE - 1) / REGISTROS_POR_BLOQUE);
+    }
+
+    /** Guarda el instante si es posterior al registrado (los commits pueden llegar fuera de orden). */
+    void registrarMovimiento(int id, long instante) {
+        if (id == DiccionarioSku.SIN_ID || id / REGISTROS_POR_BLOQUE >= ultimos.length()) {
+            return;
+        }
+        bloqueParaEscribir(id).accumulateAndGet(id % REGISTROS_POR_BLOQUE, instante, Math::max);
+    }
+
+    /** Instante del último movimiento conocido, o 0 si el SKU no tiene. */
+    long ultimoMovimiento(int id) {
+        if (id == DiccionarioSku.SIN_ID || id / REGISTROS_POR_BLOQUE >= ultimos.length()) {
+            return 0L;
+        }
+        AtomicLongArray bloque = ultimos.get(id / REGISTROS_POR_BLOQUE);
+        return bloque != null ? bloque.get(id % REGISTROS_POR_BLOQUE) : 0L;
+    }
+
+    void programar(int id, long instante) {
+        vencimientos.add(new Vencimiento(instante, id));
+    }
+
+    /** Retira del índice los vencimientos hasta ahora inclusive y los entrega en orden. */
+    int procesarVencidos(long ahora, Consumer<Vencimiento> procesar) {
+        int procesados = 0;
+        Vencimiento primero;
+        while ((primero = vencimientos.pollFirst()) != null) {
+            if (primero.instante() > ahora) {
+                vencimientos.add(primero); // Todavía no vence; ningún otro lo hace antes
+                break;
+            }
+            procesar.accept(primero);
+            procesados++;
+        }
+        return procesados;
+    }
+
+    int programados() {
+        return vencimientos.size();
+    }
+
+    private AtomicLongArray bloqueParaEscribir(int id) {
+        int indiceBloque = id / REGISTROS_POR_BLOQUE;
+        AtomicLongArray bloque = ultimos.get(indiceBloque);
+        if (bloque == null) {
+            AtomicLongArray nuevo = new AtomicLongArray(REGISTROS_POR_BLOQUE);
+            bloque = ultimos.compareAndSet(indiceBloque, null, nuevo) ? nuevo : ultimos.get(indiceBloque);
+        }
+        return bloque;
+    }
+}
@@ -0,0 +1,369 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.EstadoJournalDTO;
+import com.retailmax.inventario.dto.EstadoMovimientoJournalDTO;
+import com.retailmax.inventario.dto.MovimientoAceptadoDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.exception.StockInsuficienteException;
+import com.retailmax.inventario.model.MovimientoJournalRechazado;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.PosicionJournal;
+import com.retailmax.inventario.model.enums.EstadoMovimientoJournal;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoJournalRechazadoRepository;
+import com.retailmax.inventario.repository.PosicionJournalRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modo journal para movimientos de stock (inventario.journal.habilitado=true).
+ * Un movimiento se acepta cuando queda sincronizado en el journal mapeado en memoria; la respuesta no espera el commit
+ * en la base de datos. Las sincronizaciones se agrupan: un hilo fuerza a disco todo lo agregado desde la anterior
+ * y libera juntas a todas las solicitudes que cubre. Otro hilo drena el journal en orden hacia registrarMovimiento,
+ * guardando la secuencia aplicada en la misma transacción que el movimiento; al arrancar, el drenado retoma desde ahí.
+ * <p>
+ * Cada instancia tiene su propio journal en directorio-datos, con un identificador generado la primera vez; la posición
+ * aplicada se guarda por identificador, así varias instancias no se pisan. Un movimiento aceptado que falla al aplicarse
+ * (p. ej. stock insuficiente) queda en movimientos_journal_rechazados y se consulta por journal y secuencia.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.journal.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class JournalMovimientoService {
+
+    private static final String ARCHIVO_ID = "journal.id";
+
+    private final MovimientoStockService movimientoStockService;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final PosicionJournalRepository posicionJournalRepository;
+    private final MovimientoJournalRechazadoRepository movimientoJournalRechazadoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventario.directorio-datos:./data}")
+    private String directorioDatos = "./data";
+
+    @Value("${inventario.journal.tamano-segmento-mb:64}")
+    private int tamanoSegmentoMb = 64;
+
+    // Espera del hilo de sincronización antes de forzar, para juntar más solicitudes en un mismo fsync
+    @Value("${inventario.journal.espera-fsync-ms:1}")
+    private long esperaFsyncMs = 1;
+
+    @Value("${inventario.journal.lote-drenado:500}")
+    private int loteDrenado = 500;
+
+    private JournalMovimientos journal;
+    private String idJournal;
+    private final Object monitor = new Object();
+    private boolean sincronizacionPendiente;
+    private volatile long secuenciaDurable;
+    private volatile long secuenciaAplicada;
+    private volatile boolean activo;
+    private final AtomicLong rechazados = new AtomicLong();
+    private Thread hiloSincronizacion;
+    private Thread hiloDrenado;
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        Path directorio = Paths.get(directorioDatos, "journal");
+        idJournal = leerOCrearId(directorio);
+        secuenciaAplicada = posicionJournalRepository.findById(idJournal)
+                .map(PosicionJournal::getSecuencia)
+                .orElse(0L);
+        journal = new JournalMovimientos(directorio, tamanoSegmentoMb * 1024 * 1024, secuenciaAplicada);
+        // Lo recuperado del disco ya es durable; el drenado aplica lo que quedó pendiente antes de la caída
+        secuenciaDurable = journal.ultimaSecuencia();
+        if (secuenciaDurable > secuenciaAplicada) {
+            log.info("Journal de movimientos: {} movimientos pendientes de aplicar desde la secuencia {}",
+                    secuenciaDurable - secuenciaAplicada, secuenciaAplicada + 1);
+        }
+
+        activo = true;
+        hiloSincronizacion = new Thread(this::sincronizar, "journal-fsync");
+        hiloDrenado = new Thread(this::drenar, "journal-drenado");
+        hiloSincronizacion.setDaemon(true);
+        hiloDrenado.setDaemon(true);
+        hiloSincronizacion.start();
+        hiloDrenado.start();
+    }
+
+    @PreDestroy
+    void detener() throws IOException, InterruptedException {
+        activo = false;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        hiloSincronizacion.join(5000);
+        hiloDrenado.join(5000);
+        journal.close();
+    }
+
+    /**
+     * Valida la solicitud, la agrega al journal y espera a que esté en disco.
+     * Las reglas que dependen del stock (p. ej. stock insuficiente) se evalúan al aplicar el movimiento;
+     * si fallan, el movimiento no se aplica y queda registrado como rechazado (ver consultarMovimiento).
+     */
+    public MovimientoAceptadoDTO aceptarMovimiento(MovimientoStock movimiento) {
+        movimientoStockService.validarSolicitud(movimiento);
+        if (movimiento.getTipoMovimiento() != TipoMovimiento.ENTRADA && movimiento.getTipoMovimiento() != TipoMovimiento.SALIDA) {
+            throw new IllegalArgumentException("Tipo de movimiento '" + movimiento.getTipoMovimiento() + "' no soportado directamente por esta operación.");
+        }
+        if (!productoInventarioRepository.existsBySku(movimiento.getSku())) {
+            throw new RecursoNoEncontradoException("Producto con SKU " + movimiento.getSku() + " no encontrado.");
+        }
+        if (movimiento.getFechaMovimiento() == null) {
+            movimiento.setFechaMovimiento(LocalDateTime.now());
+        }
+
+        long secuencia;
+        try {
+            secuencia = journal.agregar(codificar(movimiento));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el movimiento en el journal", e);
+        }
+        esperarDurable(secuencia);
+
+        return MovimientoAceptadoDTO.builder()
+                .journal(idJournal)
+                .secuencia(secuencia)
+                .sku(movimiento.getSku())
+                .tipoMovimiento(movimiento.getTipoMovimiento().name())
+                .cantidadMovida(movimiento.getCantidadMovida())
+                .fechaMovimiento(movimiento.getFechaMovimiento())
+                .build();
+    }
+
+    public EstadoJournalDTO consultarEstado() {
+        long durable = secuenciaDurable;
+        long aplicada = secuenciaAplicada;
+        return EstadoJournalDTO.builder()
+                .journal(idJournal)
+                .secuenciaEscrita(journal.ultimaSecuencia())
+                .secuenciaDurable(durable)
+                .secuenciaAplicada(aplicada)
+                .pendientes(Math.max(0, durable - aplicada))
+                .rechazados(rechazados.get())
+                .build();
+    }
+
+    /**
+     * Estado de un movimiento aceptado por cualquier instancia: rechazado, aplicado (hasta la posición de su journal)
+     * o pendiente. Los pendientes de otra instancia solo se conocen por su posición en la base de datos.
+     */
+    public EstadoMovimientoJournalDTO consultarMovimiento(String journalId, long secuencia) {
+        Optional<MovimientoJournalRechazado> rechazado = movimientoJournalRechazadoRepository
+                .findByJournalAndSecuencia(journalId, secuencia);
+        if (rechazado.isPresent()) {
+            return estadoMovimiento(journalId, secuencia, EstadoMovimientoJournal.RECHAZADO, rechazado.get().getMotivoRechazo());
+        }
+        Optional<PosicionJournal> posicion = posicionJournalRepository.findById(journalId);
+        boolean propio = idJournal.equals(journalId);
+        if (secuencia < 1 || (propio && secuencia > journal.ultimaSecuencia()) || (!propio && posicion.isEmpty())) {
+            throw new RecursoNoEncontradoException("Movimiento " + secuencia + " del journal " + journalId + " no encontrado.");
+        }
+        boolean aplicado = posicion.map(p -> secuencia <= p.getSecuencia()).orElse(false);
+        return estadoMovimiento(journalId, secuencia,
+                aplicado ? EstadoMovimientoJournal.APLICADO : EstadoMovimientoJournal.PENDIENTE, null);
+    }
+
+    private void esperarDurable(long secuencia) {
+        synchronized (monitor) {
+            sincronizacionPendiente = true;
+            monitor.notifyAll();
+            while (secuenciaDurable < secuencia) {
+                if (!activo) {
+                    throw new IllegalStateException("El journal de movimientos se está cerrando.");
+                }
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrumpido esperando la sincronización del journal.", e);
+                }
+            }
+        }
+    }
+
+    // Hilo journal-fsync: un force por lote de solicitudes pendientes
+    private void sincronizar() {
+        while (activo) {
+            try {
+                synchronized (monitor) {
+                    while (!sincronizacionPendiente && activo) {
+                        monitor.wait();
+                    }
+                    sincronizacionPendiente = false;
+                }
+                if (esperaFsyncMs > 0) {
+                    Thread.sleep(esperaFsyncMs);
+                }
+                long durable = journal.sincronizar();
+                synchronized (monitor) {
+                    secuenciaDurable = durable;
+                    monitor.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error sincronizando el journal de movimientos", e);
+            }
+        }
+    }
+
+    // Hilo journal-drenado: aplica en orden lo durable que aún no está en la base de datos
+    private void drenar() {
+        while (activo) {
+            try {
+                long durable = secuenciaDurable;
+                if (secuenciaAplicada >= durable) {
+                    synchronized (monitor) {
+                        if (secuenciaAplicada >= secuenciaDurable && activo) {
+                            monitor.wait(100);
+                        }
+                    }
+                    continue;
+                }
+                List<JournalMovimientos.Registro> registros = journal.leer(secuenciaAplicada + 1, durable, loteDrenado);
+                for (JournalMovimientos.Registro registro : registros) {
+                    aplicar(registro);
+                }
+                journal.eliminarSegmentosHasta(secuenciaAplicada);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Base de datos no disponible u otro error transitorio: se reintenta el mismo registro
+                log.error("Error aplicando el journal de movimientos desde la secuencia {}", secuenciaAplicada + 1, e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void aplicar(JournalMovimientos.Registro registro) throws IOException {
+        MovimientoStock movimiento = decodificar(registro.datos());
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        try {
+            transaccion.executeWithoutResult(status -> {
+                movimientoStockService.registrarMovimiento(movimiento);
+                guardarPosicion(registro.secuencia());
+            });
+        } catch (StockInsuficienteException | IllegalArgumentException | RecursoNoEncontradoException e) {
+            log.error("Movimiento {} del journal rechazado ({} {} de {}): {}", registro.secuencia(),
+                    movimiento.getTipoMovimiento(), movimiento.getCantidadMovida(), movimiento.getSku(), e.getMessage());
+            transaccion.executeWithoutResult(status -> {
+                movimientoJournalRechazadoRepository.save(rechazo(registro.secuencia(), movimiento, e.getMessage()));
+                guardarPosicion(registro.secuencia());
+            });
+            rechazados.incrementAndGet();
+        }
+        secuenciaAplicada = registro.secuencia();
+    }
+
+    private void guardarPosicion(long secuencia) {
+        posicionJournalRepository.save(new PosicionJournal(idJournal, secuencia, LocalDateTime.now()));
+    }
+
+    private MovimientoJournalRechazado rechazo(long secuencia, MovimientoStock movimiento, String motivo) {
+        MovimientoJournalRechazado rechazo = new MovimientoJournalRechazado();
+        rechazo.setJournal(idJournal);
+        rechazo.setSecuencia(secuencia);
+        rechazo.setSku(movimiento.getSku());
+        rechazo.setTipoMovimiento(movimiento.getTipoMovimiento());
+        rechazo.setCantidadMovida(movimiento.getCantidadMovida());
+        rechazo.setFechaMovimiento(movimiento.getFechaMovimiento());
+        rechazo.setReferenciaExterna(movimiento.getReferenciaExterna());
+        rechazo.setMotivoRechazo(motivo != null && motivo.length() > 1000 ? motivo.substring(0, 1000) : motivo);
+        rechazo.setFechaRechazo(LocalDateTime.now());
+        return rechazo;
+    }
+
+    private static EstadoMovimientoJournalDTO estadoMovimiento(String journalId, long secuencia,
+                                                               EstadoMovimientoJournal estado, String motivoRechazo) {
+        return EstadoMovimientoJournalDTO.builder()
+                .journal(journalId)
+                .secuencia(secuencia)
+                .estado(estado)
+                .motivoRechazo(motivoRechazo)
+                .build();
+    }
+
+    // El identificador vive con los segmentos: un directorio nuevo es un journal nuevo, con su propia posición
+    private static String leerOCrearId(Path directorio) throws IOException {
+        Path archivo = directorio.resolve(ARCHIVO_ID);
+        if (Files.exists(archivo)) {
+            return Files.readString(archivo).trim();
+        }
+        Files.createDirectories(directorio);
+        String id = UUID.randomUUID().toString();
+        Path temporal = directorio.resolve(ARCHIVO_ID + ".tmp");
+        Files.writeString(temporal, id);
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+
+    static byte[] codificar(MovimientoStock movimiento) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(movimiento.getSku());
+        out.writeUTF(movimiento.getTipoMovimiento().name());
+        out.writeInt(movimiento.getCantidadMovida());
+        out.writeUTF(movimiento.getFechaMovimiento().toString());
+        escribirTexto(out, movimiento.getReferenciaExterna());
+        escribirTexto(out, movimiento.getMotivo());
+        return bytes.toByteArray();
+    }
+
+    static MovimientoStock decodificar(byte[] datos) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos));
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setSku(in.readUTF());
+        movimiento.setTipoMovimiento(TipoMovimiento.valueOf(in.readUTF()));
+        movimiento.setCantidadMovida(in.readInt());
+        movimiento.setFechaMovimiento(LocalDateTime.parse(in.readUTF()));
+        movimiento.setReferenciaExterna(leerTexto(in));
+        movimiento.setMotivo(leerTexto(in));
+        return movimiento;
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,315 @@
+package com.retailmax.inventario.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora de solo agregado en segmentos de tamaño fijo mapeados en memoria (journal-<primera secuencia>.log).
+ * Cada registro es [largo int][crc32 int][secuencia long][datos]; el CRC cubre secuencia y datos.
+ * Al abrir se recorren los segmentos y se descarta la cola a partir del primer registro incompleto,
+ * con CRC inválido o fuera de secuencia (escritura interrumpida por una caída).
+ * Escribir no fuerza el disco: sincronizar() lo hace para todo lo escrito desde la llamada anterior.
+ */
+final class JournalMovimientos implements Closeable {
+
+    private static final int CABECERA = 16;
+    private static final String PREFIJO = "journal-";
+    private static final String EXTENSION = ".log";
+
+    record Registro(long secuencia, byte[] datos) {
+    }
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    // Primera secuencia de cada segmento -> archivo
+    private final TreeMap<Long, Path> segmentos = new TreeMap<>();
+
+    private FileChannel canalActual;
+    private MappedByteBuffer actual;
+    private int posicionEscritura;
+    private int posicionSincronizada;
+    private long ultimaSecuencia;
+
+    // Posición del lector: segmento, próxima secuencia y su offset dentro del segmento
+    private long cursorSegmento = -1;
+    private long cursorSecuencia;
+    private int cursorPosicion;
+
+    /**
+     * @param secuenciaMinima última secuencia que se sabe aplicada; si los segmentos ya se borraron,
+     *                        la numeración continúa desde ahí
+     */
+    JournalMovimientos(Path directorio, int tamanoSegmento, long secuenciaMinima) throws IOException {
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                segmentos.put(Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length())), archivo);
+            }
+        }
+
+        ultimaSecuencia = secuenciaMinima;
+        if (segmentos.isEmpty()) {
+            abrirSegmento(secuenciaMinima + 1);
+            return;
+        }
+        long esperada = segmentos.firstKey();
+        Map.Entry<Long, Path> ultimoValido = null;
+        int posicionValida = 0;
+        for (Map.Entry<Long, Path> segmento : segmentos.entrySet()) {
+            if (segmento.getKey() != esperada) {
+                break; // Hueco: el segmento anterior quedó cortado
+            }
+            try (FileChannel canal = FileChannel.open(segmento.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                int posicion = 0;
+                Registro registro;
+                while ((registro = leerRegistro(buffer, posicion, esperada)) != null) {
+                    posicion += CABECERA + registro.datos().length;
+                    esperada++;
+                }
+                ultimoValido = segmento;
+                posicionValida = posicion;
+            }
+        }
+        // Los segmentos posteriores a un corte no se pueden aplicar en orden; se apartan sin borrarlos
+        for (Path descartado : new ArrayList<>(segmentos.tailMap(ultimoValido.getKey(), false).values())) {
+            Files.move(descartado, descartado.resolveSibling(descartado.getFileName() + ".descartado"));
+        }
+        segmentos.tailMap(ultimoValido.getKey(), false).clear();
+
+        reabrirUltimo(ultimoValido.getValue(), posicionValida);
+        if (esperada - 1 < secuenciaMinima) {
+            // Todo lo que queda en disco ya está aplicado: la numeración sigue desde la posición aplicada
+            canalActual.close();
+            abrirSegmento(secuenciaMinima + 1);
+        } else {
+            ultimaSecuencia = esperada - 1;
+        }
+    }
+
+    long agregar(byte[] datos) throws IOException {
+        escritura.lock();
+        try {
+            if (posicionEscritura + CABECERA + datos.length > tamanoSegmento) {
+                if (CABECERA + datos.length > tamanoSegmento) {
+                    throw new IllegalArgumentException("El registro no cabe en un segmento del journal.");
+                }
+                actual.force(posicionSincronizada, posicionEscritura - posicionSincronizada);
+                canalActual.close();
+                abrirSegmento(ultimaSecuencia + 1);
+            }
+            long secuencia = ultimaSecuencia + 1;
+            CRC32 crc = new CRC32();
+            crc.update(longABytes(secuencia));
+            crc.update(datos);
+            actual.putLong(posicionEscritura + 8, secuencia);
+            actual.put(posicionEscritura + CABECERA, datos);
+            actual.putInt(posicionEscritura + 4, (int) crc.getValue());
+            actual.putInt(posicionEscritura, datos.length); // Último: un largo distinto de 0 marca el registro como escrito
+            posicionEscritura += CABECERA + datos.length;
+            ultimaSecuencia = secuencia;
+            return secuencia;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Fuerza a disco lo escrito desde la sincronización anterior y devuelve la última secuencia durable.
+     * Un solo force cubre todos los registros agregados mientras tanto (fsync por lotes).
+     */
+    long sincronizar() {
+        int desde;
+        int hasta;
+        long secuencia;
+        MappedByteBuffer buffer;
+        escritura.lock();
+        try {
+            desde = posicionSincronizada;
+            hasta = posicionEscritura;
+            secuencia = ultimaSecuencia;
+            buffer = actual;
+            posicionSincronizada = hasta;
+        } finally {
+            escritura.unlock();
+        }
+        if (hasta > desde) {
+            buffer.force(desde, hasta - desde);
+        }
+        return secuencia;
+    }
+
+    long ultimaSecuencia() {
+        escritura.lock();
+        try {
+            return ultimaSecuencia;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Lee hasta max registros con secuencia entre desde y hasta, ambas incluidas.
+     * Lo usa un único lector que avanza en orden: si desde continúa la lectura anterior, se retoma desde esa posición
+     * en lugar de recorrer el segmento desde el inicio.
+     */
+    List<Registro> leer(long desde, long hasta, int max) throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        Map.Entry<Long, Path> segmento;
+        escritura.lock();
+        try {
+            segmento = segmentos.floorEntry(desde);
+        } finally {
+            escritura.unlock();
+        }
+        while (segmento != null && registros.size() < max) {
+            long esperada = segmento.getKey();
+            int posicion = 0;
+            if (cursorSegmento == segmento.getKey() && cursorSecuencia <= desde) {
+                esperada = cursorSecuencia;
+                posicion = cursorPosicion;
+            }
+            try (FileChannel canal = FileChannel.open(segmento.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                Registro registro;
+                while (esperada <= hasta && registros.size() < max
+                        && (registro = leerRegistro(buffer, posicion, esperada)) != null) {
+                    if (esperada >= desde) {
+                        registros.add(registro);
+                    }
+                    posicion += CABECERA + registro.datos().length;
+                    esperada++;
+                }
+            }
+            cursorSegmento = segmento.getKey();
+            cursorSecuencia = esperada;
+            cursorPosicion = posicion;
+            if (esperada > hasta) {
+                break;
+            }
+            escritura.lock();
+            try {
+                segmento = segmentos.higherEntry(segmento.getKey());
+            } finally {
+                escritura.unlock();
+            }
+        }
+        return registros;
+    }
+
+    /** Borra los segmentos cuyos registros ya están todos aplicados; el segmento en escritura se conserva. */
+    void eliminarSegmentosHasta(long secuenciaAplicada) throws IOException {
+        escritura.lock();
+        try {
+            while (segmentos.size() > 1) {
+                Map.Entry<Long, Path> primero = segmentos.firstEntry();
+                Long siguiente = segmentos.higherKey(primero.getKey());
+                if (siguiente - 1 > secuenciaAplicada) {
+                    return;
+                }
+                Files.deleteIfExists(primero.getValue());
+                segmentos.remove(primero.getKey());
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizar();
+        escritura.lock();
+        try {
+            canalActual.close();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void abrirSegmento(long primeraSecuencia) throws IOException {
+        Path archivo = directorio.resolve(String.format("%s%020d%s", PREFIJO, primeraSecuencia, EXTENSION));
+        canalActual = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        actual = canalActual.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento);
+        posicionEscritura = 0;
+        posicionSincronizada = 0;
+        segmentos.put(primeraSecuencia, archivo);
+        sincronizarDirectorio();
+    }
+
+    // El nuevo archivo debe sobrevivir a una caída junto con sus registros
+    private void sincronizarDirectorio() {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Algunos sistemas de archivos no permiten abrir un directorio; el archivo se sincroniza igual con force
+        }
+    }
+
+    // Reabre el último segmento para seguir agregando y limpia la cola inválida, si la hubo
+    private void reabrirUltimo(Path archivo, int posicionValida) throws IOException {
+        canalActual = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        actual = canalActual.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento);
+        int limpiarHasta = posicionValida;
+        while (limpiarHasta + 4 <= tamanoSegmento && actual.getInt(limpiarHasta) != 0) {
+            int largo = actual.getInt(limpiarHasta);
+            limpiarHasta = largo > 0 && largo <= tamanoSegmento ? Math.min(tamanoSegmento, limpiarHasta + CABECERA + largo) : tamanoSegmento;
+        }
+        for (int i = posicionValida; i < limpiarHasta; i++) {
+            actual.put(i, (byte) 0);
+        }
+        if (limpiarHasta > posicionValida) {
+            actual.force(posicionValida, limpiarHasta - posicionValida);
+        }
+        posicionEscritura = posicionValida;
+        posicionSincronizada = posicionValida;
+    }
+
+    private static Registro leerRegistro(MappedByteBuffer buffer, int posicion, long secuenciaEsperada) {
+        if (posicion + CABECERA > buffer.limit()) {
+            return null;
+        }
+        int largo = buffer.getInt(posicion);
+        if (largo <= 0 || posicion + CABECERA + largo > buffer.limit()) {
+            return null;
+        }
+        long secuencia = buffer.getLong(posicion + 8);
+        if (secuencia != secuenciaEsperada) {
+            return null;
+        }
+        byte[] datos = new byte[largo];
+        buffer.get(posicion + CABECERA, datos);
+        CRC32 crc = new CRC32();
+        crc.update(longABytes(secuencia));
+        crc.update(datos);
+        if ((int) crc.getValue() != buffer.getInt(posicion + 4)) {
+            return null;
+        }
+        return new Registro(secuencia, datos);
+    }
+
+    private static byte[] longABytes(long valor) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) valor;
+            valor >>>= 8;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,439 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Modelo de lectura en memoria de inventarios (inventario.modelo-lectura.habilitado=true).
+ * Guarda una vista inmutable por SKU más índices por estado y por cantidad disponible; las consultas
+ * de ProductoInventarioService los leen sin tocar la base de datos ni tomar locks. Las vistas y los índices se
+ * indexan por el ID de DiccionarioSku: las vistas en bloques de arreglos, los estados como mapas de bits
+ * (ConjuntoIdsSku) y el índice por disponible con entradas (cantidad, ID), sin un mapa con el SKU como clave.
+ * Se mantiene al día con ProductoInventarioActualizadoEvent una vez confirmada cada transacción.
+ * Esos eventos solo llegan desde los commits de esta instancia: con varias instancias, los cambios hechos en otra
+ * no se ven hasta el próximo arranque, así que solo debe habilitarse donde una instancia concentra las escrituras
+ * o donde las consultas toleran esa demora.
+ * Periódicamente se guarda un snapshot; al arrancar se carga el último y solo se releen de la base los SKUs
+ * modificados o con movimientos posteriores a él.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ModeloLecturaInventario {
+
+    private static final String PREFIJO = "modelo-lectura-";
+    private static final String EXTENSION = ".snap";
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    private static final int TAMANO_LOTE_IN = 1000; // Oracle admite hasta 1000 valores en un IN
+    private static final int REGISTROS_POR_BLOQUE = 1 << 16;
+    private static final int CERROJOS = 64;
+
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DiccionarioSku diccionarioSku;
+
+    @Value("${inventario.modelo-lectura.habilitado:false}")
+    private boolean habilitado = false;
+
+    @Value("${inventario.directorio-datos:./data}")
+    private String directorioDatos = "./data";
+
+    // Al reproducir la cola se releen también los productos modificados en este margen previo a la captura,
+    // para cubrir transacciones que empezaron antes del snapshot y confirmaron después
+    @Value("${inventario.modelo-lectura.margen-cola-minutos:5}")
+    private long margenColaMinutos = 5;
+
+    @Value("${inventario.modelo-lectura.snapshots-a-conservar:2}")
+    private int snapshotsAConservar = 2;
+
+    /** Estado compacto de un SKU; nunca se modifica, cada cambio reemplaza la vista completa. */
+    record VistaProducto(long id, String sku, int cantidadDisponible, int cantidadReservada, int cantidadMinimaStock,
+                         String ubicacionAlmacen, LocalDateTime fechaCreacion, LocalDateTime fechaUltimaActualizacion,
+                         String productoBaseSku, String talla, String color, EstadoStock estado) {
+
+        static VistaProducto de(ProductoInventario producto) {
+            return new VistaProducto(producto.getId(), producto.getSku(), producto.getCantidadDisponible(),
+                    producto.getCantidadReservada(), producto.getCantidadMinimaStock(), producto.getUbicacionAlmacen(),
+                    producto.getFechaCreacion(), producto.getFechaUltimaActualizacion(), producto.getProductoBaseSku(),
+                    producto.getTalla(), producto.getColor(), producto.getEstado());
+        }
+
+        ProductoInventarioDTO aDTO() {
+            return ProductoInventarioDTO.builder()
+                    .id(id)
+                    .sku(sku)
+                    .cantidadDisponible(cantidadDisponible)
+                    .cantidadReservada(cantidadReservada)
+                    .cantidadTotal(cantidadDisponible + cantidadReservada)
+                    .cantidadMinimaStock(cantidadMinimaStock)
+                    .ubicacionAlmacen(ubicacionAlmacen)
+                    .fechaCreacion(fechaCreacion)
+                    .fechaUltimaActualizacion(fechaUltimaActualizacion)
+                    .productoBaseSku(productoBaseSku)
+                    .talla(talla)
+                    .color(color)
+                    .estado(estado)
+                    .build();
+        }
+    }
+
+    // Entrada del índice por cantidad disponible, ordenada por (cantidad, ID del SKU)
+    private record PorDisponible(int cantidad, int id) {
+    }
+
+    private static final Comparator<PorDisponible> ORDEN_DISPONIBLE =
+            Comparator.comparingInt(PorDisponible::cantidad).thenComparingInt(PorDisponible::id);
+
+    // Vista vigente por ID; el arreglo de bloques crece bajo el lock del modelo y los bloques no se reemplazan
+    @SuppressWarnings("unchecked")
+    private volatile AtomicReferenceArray<VistaProducto>[] bloques = new AtomicReferenceArray[0];
+    private final ConcurrentSkipListSet<PorDisponible> porDisponible = new ConcurrentSkipListSet<>(ORDEN_DISPONIBLE);
+    private final Map<EstadoStock, ConjuntoIdsSku> porEstado = crearIndicePorEstado();
+    // Cada SKU se escribe bajo uno de CERROJOS locks, elegido por el ID, como en ReglasAlertaSku
+    private final Object[] cerrojos = crearCerrojos();
+    private final AtomicInteger total = new AtomicInteger();
+    private volatile boolean listo;
+
+    /** true si el modelo está habilitado y ya terminó la carga inicial. */
+    public boolean estaListo() {
+        return habilitado && listo;
+    }
+
+    public Optional<ProductoInventarioDTO> buscarPorSku(String sku) {
+        VistaProducto vista = vista(diccionarioSku.id(sku));
+        return vista != null ? Optional.of(vista.aDTO()) : Optional.empty();
+    }
+
+    // Los índices se actualizan antes que la vista; cada resultado se vuelve a comprobar contra la vista vigente
+    public List<ProductoInventarioDTO> buscarPorEstado(EstadoStock estado) {
+        List<ProductoInventarioDTO> resultado = new ArrayList<>();
+        porEstado.get(estado).forEach(id -> {
+            VistaProducto vista = vista(id);
+            if (vista != null && vista.estado() == estado) {
+                resultado.add(vista.aDTO());
+            }
+        });
+        return resultado;
+    }
+
+    public List<ProductoInventarioDTO> buscarConDisponibleMenorQue(int umbral) {
+        List<ProductoInventarioDTO> resultado = new ArrayList<>();
+        for (PorDisponible entrada : porDisponible.headSet(new PorDisponible(umbral, DiccionarioSku.SIN_ID))) {
+            VistaProducto vista = vista(entrada.id());
+            if (vista != null && vista.cantidadDisponible() < umbral) {
+                resultado.add(vista.aDTO());
+            }
+        }
+        return resultado;
+    }
+
+    public List<ProductoInventarioDTO> buscarConDisponibleMayorQue(int umbral) {
+        List<ProductoInventarioDTO> resultado = new ArrayList<>();
+        if (umbral == Integer.MAX_VALUE) {
+            return resultado;
+        }
+        for (PorDisponible entrada : porDisponible.tailSet(new PorDisponible(umbral + 1, DiccionarioSku.SIN_ID))) {
+            VistaProducto vista = vista(entrada.id());
+            if (vista != null && vista.cantidadDisponible() > umbral) {
+                resultado.add(vista.aDTO());
+            }
+        }
+        return resultado;
+    }
+
+    // Se aplica también antes de terminar la carga inicial: un cambio confirmado durante la carga no se pierde
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarProducto(ProductoInventarioActualizadoEvent event) {
+        if (!habilitado) {
+            return;
+        }
+        if (event.isEliminado()) {
+            quitar(event.getProducto().getSku(), event.getProducto().getId());
+        } else {
+            aplicar(VistaProducto.de(event.getProducto()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        diccionarioSku.cargar();
+        Optional<Path> snapshot = ultimoSnapshot();
+        boolean desdeSnapshot = false;
+        if (snapshot.isPresent()) {
+            try {
+                SnapshotModeloLectura.Contenido contenido = SnapshotModeloLectura.leer(snapshot.get());
+                contenido.vistas().forEach(this::aplicar);
+                reproducirCola(contenido.capturadoEn(), contenido.ultimoMovimientoId());
+                desdeSnapshot = true;
+            } catch (IOException e) {
+                log.warn("No se pudo cargar el snapshot {}; se carga el modelo de lectura completo", snapshot.get(), e);
+                limpiar();
+            }
+        }
+        if (!desdeSnapshot) {
+            cargarCompleto();
+        }
+        listo = true;
+        log.info("Modelo de lectura cargado {}: {} SKUs en {} ms", desdeSnapshot ? "desde " + snapshot.get().getFileName() : "desde la base de datos",
+                total.get(), System.currentTimeMillis() - inicio);
+        if (!desdeSnapshot) {
+            guardarSnapshot();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.modelo-lectura.intervalo-snapshot-ms:600000}",
+            initialDelayString = "${inventario.modelo-lectura.intervalo-snapshot-ms:600000}")
+    public void guardarSnapshotPeriodico() {
+        if (estaListo()) {
+            guardarSnapshot();
+        }
+    }
+
+    /**
+     * Escribe el contenido actual del modelo en un snapshot nuevo y borra los más antiguos.
+     * La captura y el último ID de movimiento se toman antes de recorrer el mapa: lo que cambie durante
+     * el recorrido queda dentro de la cola que se reproduce al cargarlo.
+     */
+    public void guardarSnapshot() {
+        LocalDateTime capturadoEn = LocalDateTime.now();
+        long ultimoMovimientoId = movimientoStockRepository.findUltimoId();
+        List<VistaProducto> vistas = vistasActuales();
+        Path directorio = directorioSnapshots();
+        try {
+            Files.createDirectories(directorio);
+            Path destino = directorio.resolve(PREFIJO + capturadoEn.format(FORMATO_NOMBRE) + EXTENSION);
+            SnapshotModeloLectura.escribir(destino, capturadoEn, ultimoMovimientoId, vistas);
+            List<Path> snapshots = listarSnapshots();
+            for (int i = 0; i < snapshots.size() - Math.max(1, snapshotsAConservar); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            log.debug("Snapshot del modelo de lectura guardado: {} ({} SKUs)", destino.getFileName(), vistas.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el snapshot del modelo de lectura", e);
+        }
+    }
+
+    private void cargarCompleto() {
+        TransactionTemplate lectura = lectura();
+        lectura.executeWithoutResult(status -> productoInventarioRepository.findAll().stream()
+                .map(VistaProducto::de)
+                .forEach(this::aplicar));
+    }
+
+    // Relee de la base los SKUs que pudieron cambiar después del snapshot y quita los que ya no existen
+    private void reproducirCola(LocalDateTime capturadoEn, long ultimoMovimientoId) {
+        lectura().executeWithoutResult(status -> {
+            Set<String> releidos = new HashSet<>();
+            for (ProductoInventario producto : productoInventarioRepository.findByFechaUltimaActualizacionAfter(
+                    capturadoEn.minusMinutes(margenColaMinutos))) {
+                aplicar(VistaProducto.de(producto));
+                releidos.add(producto.getSku());
+            }
+
+            Set<String> pendientes = new HashSet<>(movimientoStockRepository.findSkusConMovimientosDespuesDe(ultimoMovimientoId));
+            Set<String> existentes = new HashSet<>(productoInventarioRepository.findAllSkus());
+            for (String sku : existentes) {
+                if (vista(diccionarioSku.id(sku)) == null) {
+                    pendientes.add(sku);
+                }
+            }
+            pendientes.removeAll(releidos);
+            pendientes.retainAll(existentes);
+            List<String> lote = new ArrayList<>(pendientes);
+            for (int i = 0; i < lote.size(); i += TAMANO_LOTE_IN) {
+                productoInventarioRepository.findBySkuIn(lote.subList(i, Math.min(lote.size(), i + TAMANO_LOTE_IN))).stream()
+                        .map(VistaProducto::de)
+                        .forEach(this::aplicar);
+            }
+
+            for (VistaProducto vista : vistasActuales()) {
+                if (!existentes.contains(vista.sku())) {
+                    quitar(vista.sku(), vista.id());
+                }
+            }
+        });
+    }
+
+    // Una vista más antigua que la vigente (eventos confirmados fuera de orden) no la reemplaza
+    private void aplicar(VistaProducto nueva) {
+        int id = diccionarioSku.registrar(nueva.sku());
+        synchronized (cerrojo(id)) {
+            AtomicReferenceArray<VistaProducto> bloque = bloqueParaEscribir(id);
+            VistaProducto actual = bloque.get(id % REGISTROS_POR_BLOQUE);
+            if (actual != null && actual.fechaUltimaActualizacion() != null && nueva.fechaUltimaActualizacion() != null
+                    && actual.fechaUltimaActualizacion().isAfter(nueva.fechaUltimaActualizacion())) {
+                return;
+            }
+            if (actual != null) {
+                quitarDeIndices(id, actual);
+            } else {
+                total.incrementAndGet();
+            }
+            porEstado.get(nueva.estado() != null ? nueva.estado() : EstadoStock.DISPONIBLE).agregar(id);
+            porDisponible.add(new PorDisponible(nueva.cantidadDisponible(), id));
+            bloque.set(id % REGISTROS_POR_BLOQUE, nueva);
+        }
+    }
+
+    // Solo se quita si la vista sigue siendo de la misma fila: el SKU pudo volver a crearse con otro ID
+    private void quitar(String sku, Long productoId) {
+        int id = diccionarioSku.id(sku);
+        if (id == DiccionarioSku.SIN_ID) {
+            return;
+        }
+        synchronized (cerrojo(id)) {
+            VistaProducto actual = vista(id);
+            if (actual == null || (productoId != null && actual.id() != productoId)) {
+                return;
+            }
+            quitarDeIndices(id, actual);
+            bloques[id / REGISTROS_POR_BLOQUE].set(id % REGISTROS_POR_BLOQUE, null);
+            total.decrementAndGet();
+        }
+    }
+
+    private void quitarDeIndices(int id, VistaProducto vista) {
+        porEstado.get(vista.estado() != null ? vista.estado() : EstadoStock.DISPONIBLE).quitar(id);
+        porDisponible.remove(new PorDisponible(vista.cantidadDisponible(), id));
+    }
+
+    private VistaProducto vista(int id) {
+        AtomicReferenceArray<VistaProducto>[] actuales = bloques;
+        if (id == DiccionarioSku.SIN_ID || id / REGISTROS_POR_BLOQUE >= actuales.length) {
+            return null;
+        }
+        AtomicReferenceArray<VistaProducto> bloque = actuales[id / REGISTROS_POR_BLOQUE];
+        return bloque != null ? bloque.get(id % REGISTROS_POR_BLOQUE) : null;
+    }
+
+    private List<VistaProducto> vistasActuales() {
+        List<VistaProducto> resultado = new ArrayList<>(total.get());
+        for (AtomicReferenceArray<VistaProducto> bloque : bloques) {
+            if (bloque == null) {
+                continue;
+            }
+            for (int i = 0; i < REGISTROS_POR_BLOQUE; i++) {
+                VistaProducto vista = bloque.get(i);
+                if (vista != null) {
+                    resultado.add(vista);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized AtomicReferenceArray<VistaProducto> bloqueParaEscribir(int id) {
+        int indiceBloque = id / REGISTROS_POR_BLOQUE;
+        AtomicReferenceArray<VistaProducto>[] actuales = bloques;
+        if (indiceBloque >= actuales.length) {
+            AtomicReferenceArray<VistaProducto>[] nuevos = new AtomicReferenceArray[Math.max(indiceBloque + 1, actuales.length * 2)];
+            System.arraycopy(actuales, 0, nuevos, 0, actuales.length);
+            actuales = nuevos;
+        }
+        if (actuales[indiceBloque] == null) {
+            actuales[indiceBloque] = new AtomicReferenceArray<>(REGISTROS_POR_BLOQUE);
+        }
+        bloques = actuales;
+        return actuales[indiceBloque];
+    }
+
+    private Object cerrojo(int id) {
+        return cerrojos[id & (CERROJOS - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void limpiar() {
+        bloques = new AtomicReferenceArray[0];
+        porDisponible.clear();
+        porEstado.values().forEach(ConjuntoIdsSku::limpiar);
+        total.set(0);
+    }
+
+    private Optional<Path> ultimoSnapshot() {
+        List<Path> snapshots = listarSnapshots();
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    // Del más antiguo al más reciente; el nombre lleva la fecha de captura
+    private List<Path> listarSnapshots() {
+        Path directorio = directorioSnapshots();
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            archivos.forEach(snapshots::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar los snapshots del modelo de lectura", e);
+        }
+        snapshots.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        return snapshots;
+    }
+
+    private TransactionTemplate lectura() {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        return lectura;
+    }
+
+    private Path directorioSnapshots() {
+        return Paths.get(directorioDatos, "modelo-lectura");
+    }
+
+    private static Map<EstadoStock, ConjuntoIdsSku> crearIndicePorEstado() {
+        Map<EstadoStock, ConjuntoIdsSku> indice = new EnumMap<>(EstadoStock.class);
+        for (EstadoStock estado : EstadoStock.values()) {
+            indice.put(estado, new ConjuntoIdsSku());
+        }
+        return indice;
+    }
+
+    private static Object[] crearCerrojos() {
+        Object[] cerrojos = new Object[CERROJOS];
+        for (int i = 0; i < CERROJOS; i++) {
+            cerrojos[i] = new Object();
+        }
+        return cerrojos;
+    }
+}
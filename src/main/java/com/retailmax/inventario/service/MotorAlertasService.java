@@ -0,0 +1,364 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.event.UmbralAlertaActualizadoEvent;
+import com.retailmax.inventario.event.UmbralesAlertaCargadosEvent;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.ReglaUmbral;
+import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ResumenMovimientoDiarioRepository;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de alertas de umbral (inventario.alertas.habilitado=true): mantiene en memoria el umbral de cada SKU
+ * y, después de cada commit que cambia un producto (actualizarStock, registrarMovimiento, reservas, conciliación),
+ * evalúa solo la regla de ese SKU. Publica AlertaInventarioEvent cuando la alerta se activa o se resuelve.
+ * <p>
+ * Las reglas BAJO_STOCK se activan con disponible &lt; umbral y las EXCESO_STOCK con disponible &gt; umbral,
+ * igual que las consultas /bajo-stock y /exceso-stock. Al arrancar ninguna alerta está disparada: la primera
+ * evaluación de un SKU que ya está fuera de umbral la publica.
+ * <p>
+ * En las reglas SIN_MOVIMIENTO umbralCantidad son días. La alerta se activa en la revisión periódica, que solo
+ * recorre los vencimientos alcanzados (InactividadSku), y se resuelve con el siguiente movimiento del SKU.
+ * <p>
+ * Los SKUs sin fila propia en umbrales_alerta heredan la ReglaUmbral que cumple su producto: se resuelve en cada
+ * cambio del producto y, cuando cambian las reglas, en un recorrido de todos los productos en el siguiente ciclo.
+ * <p>
+ * Para que un stock que oscila alrededor del umbral no genere una ráfaga de alertas:
+ * <ul>
+ *   <li>una alerta activa se resuelve recién cuando el stock sale de la banda de histéresis del umbral;</li>
+ *   <li>los cambios se agrupan por SKU durante inventario.alertas.ventana-agrupacion-ms y se publica solo el estado
+ *       final, si difiere del último publicado;</li>
+ *   <li>una nueva activación del mismo SKU espera hasta cumplir inventario.alertas.intervalo-minimo-realerta-ms
+ *       desde la anterior.</li>
+ * </ul>
+ * <p>
+ * El estado de cada alerta (disparada, último estado publicado) vive en la memoria de la instancia y solo se
+ * actualiza con los commits hechos en ella: una alerta activada en una instancia no se resuelve por un cambio
+ * confirmado en otra. Por eso el motor debe habilitarse en una sola instancia, y los cambios de stock de las
+ * demás solo se reflejan cuando esa instancia vuelve a evaluar el SKU.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MotorAlertasService {
+
+    private static final long MILIS_POR_DIA = TimeUnit.DAYS.toMillis(1);
+
+    private final UmbralAlertaRepository umbralAlertaRepository;
+    private final ResumenMovimientoDiarioRepository resumenMovimientoDiarioRepository;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final ReglaUmbralService reglaUmbralService;
+    private final DiccionarioSku diccionarioSku;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventario.alertas.habilitado:false}")
+    private boolean habilitado = false;
+
+    @Value("${inventario.alertas.capacidad-maxima:8000000}")
+    private int capacidadMaxima = 8_000_000;
+
+    @Value("${inventario.alertas.histeresis-por-defecto:0}")
+    private int histeresisPorDefecto = 0;
+
+    @Value("${inventario.alertas.intervalo-minimo-realerta-ms:300000}")
+    private long intervaloMinimoRealerta = 300_000;
+
+    private volatile ReglasAlertaSku reglas;
+    private volatile InactividadSku inactividad;
+
+    // Último cambio de cada SKU dentro de la ventana de agrupación, por ID
+    private final Map<Integer, Pendiente> pendientes = new ConcurrentHashMap<>();
+
+    // Versión de las reglas de umbral ya aplicada a todos los productos
+    private volatile long versionReglasAplicada = -1;
+
+    private record Pendiente(String sku, ReglasAlertaSku.Cambio cambio, Integer disponible, LocalDateTime fecha) {
+    }
+
+    public boolean estaListo() {
+        return habilitado && reglas != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarProducto(ProductoInventarioActualizadoEvent event) {
+        ReglasAlertaSku actuales = reglas;
+        if (!habilitado || actuales == null) {
+            return;
+        }
+        ProductoInventario producto = event.getProducto();
+        // registrar y no id: el producto pudo crearse en otra instancia, sin pasar por DiccionarioSku.alAgregarProducto
+        int id = diccionarioSku.registrar(producto.getSku());
+        long marca = marca(producto.getFechaUltimaActualizacion());
+        if (event.isEliminado()) {
+            actuales.reiniciar(id, marca);
+            return;
+        }
+        heredarRegla(actuales, id, producto.getSku(), producto.getProductoBaseSku(), producto.getTalla(),
+                producto.getColor(), producto.getUbicacionAlmacen());
+        int disponible = producto.getCantidadDisponible() != null ? producto.getCantidadDisponible() : 0;
+        ReglasAlertaSku.Cambio cambio = actuales.evaluar(id, marca, disponible);
+        if (cambio != null) {
+            encolar(id, producto.getSku(), cambio, disponible);
+        }
+    }
+
+    // Costo por movimiento: actualizar el instante del SKU y, solo si tenía la alerta SIN_MOVIMIENTO activa, resolverla
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alRegistrarMovimiento(MovimientoStockRegistradoEvent event) {
+        ReglasAlertaSku actuales = reglas;
+        InactividadSku actual = inactividad;
+        if (!habilitado || actuales == null || actual == null) {
+            return;
+        }
+        MovimientoStock movimiento = event.getMovimiento();
+        int id = diccionarioSku.registrar(movimiento.getSku());
+        long instante = instante(movimiento.getFechaMovimiento());
+        actual.registrarMovimiento(id, instante);
+        ReglasAlertaSku.Cambio cambio = actuales.evaluarInactividad(id, false);
+        if (cambio != null) {
+            actual.programar(id, instante + cambio.umbral() * MILIS_POR_DIA);
+            encolar(id, movimiento.getSku(), cambio, null);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarUmbral(UmbralAlertaActualizadoEvent event) {
+        ReglasAlertaSku actuales = reglas;
+        if (!habilitado || actuales == null) {
+            return;
+        }
+        aplicarUmbral(actuales, event.getUmbral(), event.isEliminado());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCargarUmbrales(UmbralesAlertaCargadosEvent event) {
+        ReglasAlertaSku actuales = reglas;
+        if (!habilitado || actuales == null) {
+            return;
+        }
+        event.getUmbrales().forEach(umbral -> aplicarUmbral(actuales, umbral, false));
+    }
+
+    private void aplicarUmbral(ReglasAlertaSku actuales, UmbralAlerta umbral, boolean eliminado) {
+        int id = diccionarioSku.registrar(umbral.getSku());
+        long marca = marca(umbral.getFechaUltimaActualizacion());
+        if (eliminado || !Boolean.TRUE.equals(umbral.getActivo())) {
+            actuales.quitar(id, marca);
+        } else {
+            actuales.definir(id, umbral.getTipoAlerta(), umbral.getUmbralCantidad(), histeresis(umbral.getHisteresis()), marca, false);
+            programarInactividad(id, umbral.getTipoAlerta(), umbral.getUmbralCantidad());
+        }
+    }
+
+    // Un SKU cuya fila propia se quita vuelve a la regla heredada con el próximo cambio de su producto
+    @Scheduled(fixedDelayString = "${inventario.alertas.ventana-agrupacion-ms:1000}")
+    public void reaplicarReglas() {
+        long version = reglaUmbralService.version();
+        if (estaListo() && version != versionReglasAplicada) {
+            reaplicarReglas(version);
+        }
+    }
+
+    /**
+     * Resuelve de nuevo la regla heredada de todos los productos. Varios cambios de reglas dentro de un ciclo
+     * cuestan un solo recorrido. Devuelve cuántos SKUs cambiaron de regla.
+     */
+    int reaplicarReglas(long version) {
+        ReglasAlertaSku actuales = reglas;
+        long inicio = System.currentTimeMillis();
+        int cambiados = 0;
+        for (Object[] fila : productoInventarioRepository.findAtributosReglaUmbral()) {
+            String sku = (String) fila[0];
+            if (heredarRegla(actuales, diccionarioSku.registrar(sku), sku, (String) fila[1], (String) fila[2],
+                    (String) fila[3], (String) fila[4])) {
+                cambiados++;
+            }
+        }
+        versionReglasAplicada = version;
+        log.info("Reglas de umbral aplicadas a los productos: {} SKUs cambiaron de regla en {} ms",
+                cambiados, System.currentTimeMillis() - inicio);
+        return cambiados;
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.alertas.intervalo-inactividad-ms:60000}",
+            initialDelayString = "${inventario.alertas.intervalo-inactividad-ms:60000}")
+    public void revisarInactividad() {
+        if (estaListo()) {
+            revisarInactividad(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Procesa los vencimientos alcanzados: si el SKU se movió desde que se programó, se reprograma desde su último
+     * movimiento; si no, se activa la alerta. El SKU queda fuera del índice hasta que un movimiento la resuelva.
+     */
+    int revisarInactividad(long ahora) {
+        ReglasAlertaSku actuales = reglas;
+        InactividadSku actual = inactividad;
+        return actual.procesarVencidos(ahora, vencimiento -> {
+            int id = vencimiento.id();
+            int dias = actuales.diasSinMovimiento(id);
+            if (dias < 0) {
+                return; // La regla cambió de tipo o se quitó
+            }
+            long ultimo = actual.ultimoMovimiento(id);
+            long vence = ultimo != 0 ? ultimo + dias * MILIS_POR_DIA : vencimiento.instante();
+            if (vence > ahora) {
+                actual.programar(id, vence);
+                return;
+            }
+            ReglasAlertaSku.Cambio cambio = actuales.evaluarInactividad(id, true);
+            if (cambio != null) {
+                encolar(id, diccionarioSku.sku(id), cambio, null);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.alertas.ventana-agrupacion-ms:1000}")
+    public void publicarPendientes() {
+        if (estaListo()) {
+            publicarPendientes(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Publica el último cambio de cada SKU de la ventana. Los que volvieron al estado ya publicado se descartan
+     * y las activaciones dentro del intervalo mínimo quedan para una ventana siguiente (o se reemplazan si el
+     * SKU cambia otra vez). Devuelve cuántas alertas publicó.
+     */
+    int publicarPendientes(long ahora) {
+        ReglasAlertaSku actuales = reglas;
+        int publicadas = 0;
+        for (Map.Entry<Integer, Pendiente> entrada : pendientes.entrySet()) {
+            Pendiente pendiente = entrada.getValue();
+            ReglasAlertaSku.Decision decision = actuales.notificar(entrada.getKey(), pendiente.cambio(), ahora, intervaloMinimoRealerta);
+            if (decision == ReglasAlertaSku.Decision.ESPERAR) {
+                continue;
+            }
+            // Si llegó un cambio más nuevo del SKU, queda para la próxima ventana
+            pendientes.remove(entrada.getKey(), pendiente);
+            if (decision == ReglasAlertaSku.Decision.NOTIFICAR) {
+                publicar(pendiente);
+                publicadas++;
+            }
+        }
+        return publicadas;
+    }
+
+    /**
+     * Las reglas se publican antes de cargar, así los umbrales que cambian durante la carga no se pierden.
+     * El último movimiento de cada SKU sale de los resúmenes diarios, que también cubren el historial archivado;
+     * se toma el final de ese día, así después de un reinicio una alerta SIN_MOVIMIENTO puede llegar hasta un día
+     * tarde, nunca antes de tiempo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        diccionarioSku.cargar();
+        InactividadSku nuevaInactividad = new InactividadSku(capacidadMaxima);
+        inactividad = nuevaInactividad;
+        for (Object[] fila : resumenMovimientoDiarioRepository.findUltimoDiaPorSku()) {
+            LocalDate dia = (LocalDate) fila[1];
+            nuevaInactividad.registrarMovimiento(diccionarioSku.id((String) fila[0]), instante(dia.plusDays(1).atStartOfDay()));
+        }
+        ReglasAlertaSku nuevas = new ReglasAlertaSku(capacidadMaxima);
+        reglas = nuevas;
+        int total = 0;
+        for (UmbralAlerta umbral : umbralAlertaRepository.findByActivoTrue()) {
+            int id = diccionarioSku.registrar(umbral.getSku());
+            nuevas.definir(id, umbral.getTipoAlerta(), umbral.getUmbralCantidad(), histeresis(umbral.getHisteresis()),
+                    marca(umbral.getFechaUltimaActualizacion()), true);
+            programarInactividad(id, umbral.getTipoAlerta(), umbral.getUmbralCantidad());
+            total++;
+        }
+        long versionReglas = reglaUmbralService.version();
+        int heredadas = 0;
+        if (reglaUmbralService.reglasActivas() > 0) {
+            heredadas = reaplicarReglas(versionReglas);
+        } else {
+            versionReglasAplicada = versionReglas; // Sin reglas no hay nada que heredar: se evita recorrer los productos
+        }
+        log.info("Motor de alertas cargado: {} umbrales activos, {} SKUs con regla heredada ({} SIN_MOVIMIENTO programados) en {} ms",
+                total, heredadas, nuevaInactividad.programados(), System.currentTimeMillis() - inicio);
+    }
+
+    // Devuelve si la regla heredada del SKU cambió. Con regla propia no resuelve nada.
+    private boolean heredarRegla(ReglasAlertaSku actuales, int id, String sku, String productoBaseSku, String talla,
+                                 String color, String ubicacionAlmacen) {
+        if (id == DiccionarioSku.SIN_ID || actuales.tieneReglaPropia(id)) {
+            return false;
+        }
+        ReglaUmbral regla = reglaUmbralService.resolver(sku, productoBaseSku, talla, color, ubicacionAlmacen);
+        if (regla == null) {
+            return actuales.heredar(id, null, 0, 0);
+        }
+        if (!actuales.heredar(id, regla.getTipoAlerta(), regla.getUmbralCantidad(), histeresis(regla.getHisteresis()))) {
+            return false;
+        }
+        programarInactividad(id, regla.getTipoAlerta(), regla.getUmbralCantidad());
+        return true;
+    }
+
+    // Un SKU sin movimientos conocidos cuenta el plazo desde que la regla entra en vigor
+    private void programarInactividad(int id, TipoAlerta tipo, int dias) {
+        InactividadSku actual = inactividad;
+        if (actual == null || tipo != TipoAlerta.SIN_MOVIMIENTO) {
+            return;
+        }
+        long ultimo = actual.ultimoMovimiento(id);
+        long desde = ultimo != 0 ? ultimo : System.currentTimeMillis();
+        actual.programar(id, desde + dias * MILIS_POR_DIA);
+    }
+
+    private int histeresis(Integer histeresis) {
+        return histeresis != null ? histeresis : histeresisPorDefecto;
+    }
+
+    private void encolar(int id, String sku, ReglasAlertaSku.Cambio cambio, Integer disponible) {
+        pendientes.put(id, new Pendiente(sku, cambio, disponible, LocalDateTime.now()));
+    }
+
+    private void publicar(Pendiente pendiente) {
+        ReglasAlertaSku.Cambio cambio = pendiente.cambio();
+        log.debug("Alerta {} {} para SKU {} (disponible {}, umbral {})", cambio.tipo(),
+                cambio.activa() ? "activada" : "resuelta", pendiente.sku(), pendiente.disponible(), cambio.umbral());
+        eventPublisher.publishEvent(new AlertaInventarioEvent(pendiente.sku(), cambio.tipo(), cambio.umbral(),
+                pendiente.disponible(), cambio.activa(), pendiente.fecha()));
+    }
+
+    // Microsegundos desde la época, como en la tabla de estado por SKU
+    private static long marca(LocalDateTime fecha) {
+        return fecha != null ? fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1000 : 0L;
+    }
+
+    private static long instante(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
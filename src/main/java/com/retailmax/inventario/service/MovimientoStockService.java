@@ -1,13 +1,23 @@
 package com.retailmax.inventario.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.retailmax.inventario.dto.MovimientoStockDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
 import com.retailmax.inventario.exception.RecursoNoEncontradoException;
 import com.retailmax.inventario.exception.StockInsuficienteException;
 import com.retailmax.inventario.model.MovimientoStock;
@@ -25,6 +35,8 @@ public class MovimientoStockService {
 
     private final MovimientoStockRepository movimientoStockRepository;
     private final ProductoInventarioRepository productoInventarioRepository; // Añadido
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivoMovimientoService archivoMovimientoService;
 
     @Transactional(readOnly = true)
     public List<MovimientoStock> buscarPorSku(String sku) {
@@ -46,11 +58,63 @@ public class MovimientoStockService {
             movimientos = movimientoStockRepository.findByProductoInventarioIdOrderByFechaMovimientoDesc(productoInventario.getId());
         }
 
+        // Si el rango alcanza meses archivados, se completan con los segmentos; ante un duplicado manda la fila de la tabla
+        boolean conRango = fechaInicio != null && fechaFin != null;
+        List<MovimientoStock> archivados = archivoMovimientoService.leerArchivados(
+                productoInventario.getSku(), conRango ? fechaInicio : null, conRango ? fechaFin : null);
+        if (!archivados.isEmpty()) {
+            Map<Long, MovimientoStock> porId = new LinkedHashMap<>();
+            archivados.forEach(m -> porId.put(m.getId(), m));
+            movimientos.forEach(m -> porId.put(m.getId(), m));
+            movimientos = new ArrayList<>(porId.values());
+            movimientos.sort(Comparator.comparing(MovimientoStock::getFechaMovimiento).reversed());
+        }
+
         return movimientos.stream()
                 .map(this::mapToMovimientoStockDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Historial con fields=: solo las columnas pedidas de movimientos_stock. Los movimientos archivados se leen
+     * completos de sus segmentos y se recortan a los mismos campos; para combinarlos con los de la tabla la consulta
+     * trae también id y fechaMovimiento, que se quitan al final si no se pidieron.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerHistorialMovimientos(String sku, List<String> campos) {
+        String cleanedSku = sku.trim();
+        ProductoInventario productoInventario = productoInventarioRepository.findBySkuIgnoreCase(cleanedSku)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Producto con SKU " + cleanedSku + " no encontrado para obtener su historial de movimientos."));
+
+        Set<String> pedidos = new LinkedHashSet<>();
+        campos.stream().map(String::trim).filter(campo -> !campo.isEmpty()).forEach(pedidos::add);
+        List<MovimientoStock> archivados = archivoMovimientoService.leerArchivados(productoInventario.getSku(), null, null);
+        // Sin campos pedidos la consulta rechaza el pedido
+        if (archivados.isEmpty() || pedidos.isEmpty()) {
+            return movimientoStockRepository.findCamposPorProducto(productoInventario.getId(), campos);
+        }
+        Set<String> consultados = new LinkedHashSet<>(pedidos);
+        consultados.add("id");
+        consultados.add("fechaMovimiento");
+        // La consulta valida los campos contra la lista blanca antes de leerlos de los DTOs archivados
+        List<Map<String, Object>> enTabla = movimientoStockRepository.findCamposPorProducto(productoInventario.getId(), consultados);
+
+        // Ante un duplicado manda la fila de la tabla, como en el historial completo
+        Map<Object, Map<String, Object>> porId = new LinkedHashMap<>();
+        for (MovimientoStock archivado : archivados) {
+            BeanWrapper dto = new BeanWrapperImpl(mapToMovimientoStockDTO(archivado));
+            Map<String, Object> valores = new LinkedHashMap<>();
+            consultados.forEach(campo -> valores.put(campo, dto.getPropertyValue(campo)));
+            porId.put(valores.get("id"), valores);
+        }
+        enTabla.forEach(fila -> porId.put(fila.get("id"), fila));
+
+        List<Map<String, Object>> historial = new ArrayList<>(porId.values());
+        historial.sort(Comparator.comparing((Map<String, Object> fila) -> (LocalDateTime) fila.get("fechaMovimiento")).reversed());
+        historial.forEach(fila -> fila.keySet().retainAll(pedidos));
+        return historial;
+    }
+
     @Transactional(readOnly = true)
     public MovimientoStockDTO consultarMovimientoPorId(Long id) {
         MovimientoStock movimientoStock = movimientoStockRepository.findById(id)
@@ -60,15 +124,7 @@ public class MovimientoStockService {
 
     @Transactional
     public MovimientoStockDTO registrarMovimiento(MovimientoStock movimientoInput) {
-        if (movimientoInput.getSku() == null || movimientoInput.getSku().isBlank()) {
-            throw new IllegalArgumentException("El SKU es obligatorio para registrar un movimiento.");
-        }
-        if (movimientoInput.getCantidadMovida() == null || movimientoInput.getCantidadMovida() <= 0) {
-            throw new IllegalArgumentException("La cantidad movida debe ser un entero positivo.");
-        }
-        if (movimientoInput.getTipoMovimiento() == null) {
-            throw new IllegalArgumentException("El tipo de movimiento es obligatorio.");
-        }
+        validarSolicitud(movimientoInput);
 
        ProductoInventario producto = productoInventarioRepository.findBySku(movimientoInput.getSku())
         .orElseThrow(() -> new IllegalArgumentException("Producto con SKU " + movimientoInput.getSku() + " no existe."));
@@ -107,9 +163,23 @@ public class MovimientoStockService {
         nuevoRegistroMovimiento.setFechaMovimiento(movimientoInput.getFechaMovimiento() != null ? movimientoInput.getFechaMovimiento() : LocalDateTime.now());
 
         MovimientoStock savedMovimiento = movimientoStockRepository.save(nuevoRegistroMovimiento);
+        eventPublisher.publishEvent(new MovimientoStockRegistradoEvent(savedMovimiento));
         return mapToMovimientoStockDTO(savedMovimiento);
     }
 
+    // Validaciones de la solicitud que no requieren leer el producto; también las usa el journal antes de aceptar un movimiento
+    void validarSolicitud(MovimientoStock movimientoInput) {
+        if (movimientoInput.getSku() == null || movimientoInput.getSku().isBlank()) {
+            throw new IllegalArgumentException("El SKU es obligatorio para registrar un movimiento.");
+        }
+        if (movimientoInput.getCantidadMovida() == null || movimientoInput.getCantidadMovida() <= 0) {
+            throw new IllegalArgumentException("La cantidad movida debe ser un entero positivo.");
+        }
+        if (movimientoInput.getTipoMovimiento() == null) {
+            throw new IllegalArgumentException("El tipo de movimiento es obligatorio.");
+        }
+    }
+
     public MovimientoStockDTO mapToMovimientoStockDTO(MovimientoStock movimientoStock) {
         return MovimientoStockDTO.builder()
                 .id(movimientoStock.getId())
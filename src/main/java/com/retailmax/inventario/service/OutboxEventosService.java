@@ -0,0 +1,162 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.EventoOutbox;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outbox transaccional de eventos de inventario (inventario.outbox.habilitado=true). Cada MovimientoStock deja su
+ * evento en outbox_eventos dentro de la misma transacción que lo inserta: o quedan los dos o ninguno, sin la doble
+ * escritura base de datos + broker.
+ * <p>
+ * El relay reclama lotes con FOR UPDATE SKIP LOCKED, los publica en el DestinoOutbox configurado y los borra en la
+ * misma transacción. Varias instancias pueden relevar en paralelo sin repartirse el trabajo: cada una saltea lo que
+ * otra tiene bloqueado. Por eso el orden entre lotes de distintas instancias no está garantizado; dentro de un lote
+ * los eventos van en orden de ID. Un lote que falla se libera al revertir y se reintenta en el próximo ciclo.
+ * <p>
+ * Métricas: inventario.outbox.pendientes y inventario.outbox.retraso (segundos del evento pendiente más antiguo),
+ * actualizadas en cada ciclo; inventario.outbox.publicados, inventario.outbox.errores e inventario.outbox.latencia
+ * (de la escritura en el outbox a la publicación).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.outbox.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxEventosService {
+
+    static final String TIPO_MOVIMIENTO = "MOVIMIENTO_STOCK";
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final DestinoOutbox destinoOutbox;
+    private final ProductoInventarioService productoInventarioService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    // Eventos por transacción de relay; a lo sumo 1000 por el borrado con IN
+    @Value("${inventario.outbox.tamano-lote:200}")
+    private int tamanoLote = 200;
+
+    // Lotes por ciclo, para que un atraso grande no retenga el hilo de @Scheduled indefinidamente
+    @Value("${inventario.outbox.lotes-por-ciclo:50}")
+    private int lotesPorCiclo = 50;
+
+    private volatile long pendientes;
+    private volatile double retrasoSegundos;
+    private Counter publicados;
+    private Counter errores;
+    private Timer latencia;
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("inventario.outbox.pendientes", this, outbox -> outbox.pendientes)
+                .description("Eventos en outbox_eventos sin publicar")
+                .register(meterRegistry);
+        Gauge.builder("inventario.outbox.retraso", this, outbox -> outbox.retrasoSegundos)
+                .description("Antigüedad del evento pendiente más antiguo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        publicados = Counter.builder("inventario.outbox.publicados").register(meterRegistry);
+        errores = Counter.builder("inventario.outbox.errores").register(meterRegistry);
+        latencia = Timer.builder("inventario.outbox.latencia")
+                .description("Tiempo desde la escritura en el outbox hasta la publicación")
+                .register(meterRegistry);
+    }
+
+    // Síncrono a propósito: participa de la transacción que registra el movimiento
+    @EventListener
+    public void alRegistrarMovimiento(MovimientoStockRegistradoEvent event) {
+        MovimientoStock movimiento = event.getMovimiento();
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(productoInventarioService.mapMovimientoToDTO(movimiento));
+        } catch (JsonProcessingException e) {
+            // Sin su evento el movimiento no debe confirmarse
+            throw new IllegalStateException("No se pudo serializar el evento del movimiento " + movimiento.getId(), e);
+        }
+        eventoOutboxRepository.save(new EventoOutbox(null, TIPO_MOVIMIENTO, movimiento.getSku(), movimiento.getId(),
+                payload, LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.outbox.intervalo-ms:1000}")
+    public void relevar() {
+        for (int lotes = 0; lotes < lotesPorCiclo; lotes++) {
+            // Un lote incompleto indica que no queda nada sin reclamar
+            if (relevarLote() < tamanoLote()) {
+                break;
+            }
+        }
+        actualizarPendientes();
+    }
+
+    int relevarLote() {
+        List<EventoOutbox> relevados;
+        try {
+            relevados = new TransactionTemplate(transactionManager).execute(status -> {
+                List<EventoOutbox> lote = eventoOutboxRepository.reclamarLote(tamanoLote());
+                if (lote.isEmpty()) {
+                    return lote;
+                }
+                try {
+                    destinoOutbox.publicar(lote);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                eventoOutboxRepository.deleteAllByIdInBatch(lote.stream().map(EventoOutbox::getId).toList());
+                return lote;
+            });
+        } catch (RuntimeException e) {
+            errores.increment();
+            log.warn("No se pudo relevar un lote del outbox; se reintenta en el próximo ciclo: {}", e.getMessage());
+            return 0;
+        }
+        if (relevados == null || relevados.isEmpty()) {
+            return 0;
+        }
+        registrarPublicados(relevados);
+        return relevados.size();
+    }
+
+    void actualizarPendientes() {
+        Object[] fila = eventoOutboxRepository.findPendientesYMasAntiguo().get(0);
+        pendientes = ((Number) fila[0]).longValue();
+        LocalDateTime masAntiguo = (LocalDateTime) fila[1];
+        retrasoSegundos = masAntiguo == null ? 0 : Math.max(0, Duration.between(masAntiguo, LocalDateTime.now()).toMillis() / 1000.0);
+    }
+
+    private int tamanoLote() {
+        return Math.min(tamanoLote, 1000);
+    }
+
+    // Se registra después del commit: un lote revertido no cuenta como publicado
+    private void registrarPublicados(List<EventoOutbox> lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        publicados.increment(lote.size());
+        for (EventoOutbox evento : lote) {
+            latencia.record(Duration.between(evento.getFechaCreacion(), ahora));
+        }
+    }
+}
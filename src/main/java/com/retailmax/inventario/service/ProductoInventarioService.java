@@ -4,6 +4,7 @@ import com.retailmax.inventario.dto.ActualizarStockRequestDTO;
 import com.retailmax.inventario.dto.AgregarProductoInventarioRequestDTO;
 import com.retailmax.inventario.dto.MovimientoStockDTO;
 import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
 import com.retailmax.inventario.exception.ProductoExistenteException;
 import com.retailmax.inventario.exception.RecursoNoEncontradoException;
 import com.retailmax.inventario.exception.StockInsuficienteException;
@@ -14,11 +15,16 @@ import com.retailmax.inventario.model.enums.TipoMovimiento;
 import com.retailmax.inventario.repository.MovimientoStockRepository;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +33,9 @@ public class ProductoInventarioService {
 
     private final ProductoInventarioRepository productoInventarioRepository;
     private final MovimientoStockRepository movimientoStockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ModeloLecturaInventario modeloLectura;
+    private final TablaEstadoSkuService tablaEstadoSku;
 
     @Transactional
     public ProductoInventarioDTO agregarProductoInventario(AgregarProductoInventarioRequestDTO requestDTO) {
@@ -67,6 +76,7 @@ public class ProductoInventarioService {
         movimientoInicial.setReferenciaExterna("Initial Load");
         movimientoInicial.setMotivo("New product creation in inventory.");
         movimientoStockRepository.save(movimientoInicial);
+        eventPublisher.publishEvent(new MovimientoStockRegistradoEvent(movimientoInicial));
 
         return mapToDTO(savedProducto);
     }
@@ -114,12 +124,21 @@ public class ProductoInventarioService {
         movimiento.setReferenciaExterna(requestDTO.getReferenciaExterna());
         movimiento.setMotivo(requestDTO.getMotivo());
         movimientoStockRepository.save(movimiento);
+        eventPublisher.publishEvent(new MovimientoStockRegistradoEvent(movimiento));
 
         return mapToDTO(updatedProducto);
     }
 
+    // Con el modelo de lectura cargado las consultas por SKU, estado y umbral no tocan la base de datos; es una vista
+    // por instancia y no refleja de inmediato los commits hechos en otras (ver inventario.modelo-lectura.habilitado)
     @Transactional(readOnly = true)
     public ProductoInventarioDTO consultarProductoPorSku(String sku) {
+        if (modeloLectura.estaListo()) {
+            Optional<ProductoInventarioDTO> vista = modeloLectura.buscarPorSku(sku);
+            if (vista.isPresent()) {
+                return vista.get();
+            }
+        }
         ProductoInventario producto = productoInventarioRepository.findBySku(sku)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Product with SKU " + sku + " not found."));
         return mapToDTO(producto);
@@ -132,13 +151,20 @@ public class ProductoInventarioService {
         productoInventarioRepository.delete(producto);
     }
 
-    @Transactional(readOnly = true)
+    // Listado completo (exportaciones/reportes): misma lectura consistente sin locks que la auditoría
+    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
     public List<ProductoInventarioDTO> consultarTodosLosProductos() {
         return productoInventarioRepository.findAll().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    // Listado con fields=: la consulta trae solo las columnas de los campos pedidos, sin cargar entidades
+    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    public List<Map<String, Object>> consultarTodosLosProductos(List<String> campos) {
+        return productoInventarioRepository.findCampos(campos);
+    }
+
     @Transactional
     public ProductoInventarioDTO actualizarProducto(String sku, AgregarProductoInventarioRequestDTO requestDTO) {
         ProductoInventario producto = productoInventarioRepository.findBySku(sku)
@@ -157,6 +183,12 @@ public class ProductoInventarioService {
 
     @Transactional(readOnly = true)
     public List<ProductoInventarioDTO> verificarYNotificarStockBajo(Integer umbralCantidadMinima) {
+        if (modeloLectura.estaListo()) {
+            return modeloLectura.buscarConDisponibleMenorQue(umbralCantidadMinima);
+        }
+        if (tablaEstadoSku.estaLista()) {
+            return buscarPorSkus(tablaEstadoSku.skusConDisponibleMenorQue(umbralCantidadMinima));
+        }
         return productoInventarioRepository.findByCantidadDisponibleLessThan(umbralCantidadMinima).stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
@@ -164,6 +196,12 @@ public class ProductoInventarioService {
 
     @Transactional(readOnly = true)
     public List<ProductoInventarioDTO> verificarYNotificarStockExcesivo(Integer umbralCantidadExcesiva) {
+        if (modeloLectura.estaListo()) {
+            return modeloLectura.buscarConDisponibleMayorQue(umbralCantidadExcesiva);
+        }
+        if (tablaEstadoSku.estaLista()) {
+            return buscarPorSkus(tablaEstadoSku.skusConDisponibleMayorQue(umbralCantidadExcesiva));
+        }
         return productoInventarioRepository.findByCantidadDisponibleGreaterThan(umbralCantidadExcesiva).stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
@@ -205,11 +243,25 @@ public class ProductoInventarioService {
 
     @Transactional(readOnly = true)
     public List<ProductoInventarioDTO> buscarPorEstado(EstadoStock estado) {
+        if (modeloLectura.estaListo()) {
+            return modeloLectura.buscarPorEstado(estado);
+        }
         return productoInventarioRepository.findByEstado(estado).stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    // Solo se leen las filas que la tabla de estado ya filtró, en lotes que respetan el límite de IN de Oracle
+    private List<ProductoInventarioDTO> buscarPorSkus(List<String> skus) {
+        List<ProductoInventarioDTO> productos = new ArrayList<>(skus.size());
+        for (int i = 0; i < skus.size(); i += 1000) {
+            productoInventarioRepository.findBySkuIn(skus.subList(i, Math.min(skus.size(), i + 1000))).stream()
+                    .map(this::mapToDTO)
+                    .forEach(productos::add);
+        }
+        return productos;
+    }
+
     public ProductoInventarioDTO mapToDTO(ProductoInventario producto) {
         if (producto == null) return null;
 
@@ -247,8 +299,16 @@ public class ProductoInventarioService {
     }
     //  RF10 - Reserva de Stock
 
+    // Con la tabla de estado cargada no se consulta la base de datos; la tabla es por instancia y puede no reflejar
+    // todavía un commit hecho en otra (ver inventario.tabla-estado.habilitado)
     @Transactional(readOnly = true)
     public boolean validarDisponibilidad(String sku, Integer cantidadSolicitada) {
+        if (tablaEstadoSku.estaLista()) {
+            Optional<Boolean> disponible = tablaEstadoSku.hayDisponible(sku, cantidadSolicitada);
+            if (disponible.isPresent()) {
+                return disponible.get();
+            }
+        }
         ProductoInventario producto = productoInventarioRepository.findBySku(sku)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Producto con SKU " + sku + " no encontrado."));
         
@@ -281,6 +341,7 @@ public class ProductoInventarioService {
             movimiento.setReferenciaExterna("Liberación");
             movimiento.setMotivo(motivo != null ? motivo : "Liberación de stock reservado");
             movimientoStockRepository.save(movimiento);
+            eventPublisher.publishEvent(new MovimientoStockRegistradoEvent(movimiento));
     }
 
 }
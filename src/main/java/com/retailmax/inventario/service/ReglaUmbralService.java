@@ -0,0 +1,252 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ReglaUmbralDTO;
+import com.retailmax.inventario.dto.UmbralEfectivoDTO;
+import com.retailmax.inventario.event.ReglaUmbralActualizadaEvent;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.ReglaUmbral;
+import com.retailmax.inventario.model.enums.CriterioRegla;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ReglaUmbralRepository;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reglas de umbral por defecto: en lugar de una fila de umbrales_alerta por SKU, una regla cubre todos los productos
+ * con un prefijo de productoBaseSku, una talla, un color o una ubicación. La fila del SKU, si existe y está activa,
+ * reemplaza a la regla. Las reglas activas se compilan (ReglasUmbralCompiladas) en la primera resolución después
+ * de un cambio, así una carga de muchas reglas cuesta una sola compilación. Los cambios confirmados en esta instancia
+ * llegan por evento; los de otras instancias se detectan comparando periódicamente una huella de la tabla
+ * (total, última actualización y suma de ids) con la que se leyó al compilar.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReglaUmbralService {
+
+    private final ReglaUmbralRepository reglaUmbralRepository;
+    private final UmbralAlertaRepository umbralAlertaRepository;
+    private final ProductoInventarioRepository productoInventarioRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Compilacion compilacion;
+    private volatile Huella ultimaHuella;
+
+    private record Compilacion(long version, ReglasUmbralCompiladas reglas) {
+    }
+
+    private record Huella(long total, LocalDateTime ultimaActualizacion, long sumaIds) {
+    }
+
+    @Transactional
+    public ReglaUmbralDTO crearRegla(ReglaUmbralDTO requestDTO) {
+        if (requestDTO.getCriterio() == null || requestDTO.getCriterio().isBlank()) {
+            throw new IllegalArgumentException("El criterio es obligatorio para crear una regla de umbral.");
+        }
+        if (requestDTO.getValor() == null || requestDTO.getValor().isBlank()) {
+            throw new IllegalArgumentException("El valor es obligatorio para crear una regla de umbral.");
+        }
+        if (requestDTO.getTipoAlerta() == null || requestDTO.getTipoAlerta().isBlank()) {
+            throw new IllegalArgumentException("El tipo de alerta es obligatorio para crear una regla de umbral.");
+        }
+        if (requestDTO.getUmbralCantidad() == null) {
+            throw new IllegalArgumentException("La cantidad del umbral es obligatoria para crear una regla de umbral.");
+        }
+        if (requestDTO.getActivo() == null) {
+            throw new IllegalArgumentException("El estado activo es obligatorio para crear una regla de umbral.");
+        }
+        CriterioRegla criterio = CriterioRegla.fromName(requestDTO.getCriterio());
+        String valor = requestDTO.getValor().trim();
+        if (reglaUmbralRepository.findByCriterioAndValor(criterio, valor).isPresent()) {
+            throw new IllegalArgumentException("Ya existe una regla de umbral " + criterio + " para el valor: " + valor);
+        }
+
+        ReglaUmbral regla = new ReglaUmbral();
+        regla.setCriterio(criterio);
+        regla.setValor(valor);
+        regla.setTipoAlerta(TipoAlerta.fromName(requestDTO.getTipoAlerta()));
+        regla.setUmbralCantidad(requestDTO.getUmbralCantidad());
+        regla.setHisteresis(requestDTO.getHisteresis());
+        regla.setPrioridad(requestDTO.getPrioridad() != null ? requestDTO.getPrioridad() : 0);
+        regla.setActivo(requestDTO.getActivo());
+        regla.setFechaCreacion(LocalDateTime.now());
+        regla.setFechaUltimaActualizacion(LocalDateTime.now());
+        return mapToDTO(reglaUmbralRepository.save(regla));
+    }
+
+    // El criterio y el valor identifican la regla y no se modifican: para cambiarlos se crea otra
+    @Transactional
+    public ReglaUmbralDTO actualizarRegla(Long id, ReglaUmbralDTO requestDTO) {
+        ReglaUmbral regla = reglaUmbralRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Regla de umbral con ID " + id + " no encontrada."));
+        if (requestDTO.getTipoAlerta() != null && !requestDTO.getTipoAlerta().isBlank()) {
+            regla.setTipoAlerta(TipoAlerta.fromName(requestDTO.getTipoAlerta()));
+        }
+        if (requestDTO.getUmbralCantidad() != null) {
+            regla.setUmbralCantidad(requestDTO.getUmbralCantidad());
+        }
+        if (requestDTO.getHisteresis() != null) {
+            regla.setHisteresis(requestDTO.getHisteresis());
+        }
+        if (requestDTO.getPrioridad() != null) {
+            regla.setPrioridad(requestDTO.getPrioridad());
+        }
+        if (requestDTO.getActivo() != null) {
+            regla.setActivo(requestDTO.getActivo());
+        }
+        regla.setFechaUltimaActualizacion(LocalDateTime.now());
+        return mapToDTO(reglaUmbralRepository.save(regla));
+    }
+
+    @Transactional
+    public void eliminarRegla(Long id) {
+        ReglaUmbral regla = reglaUmbralRepository.findById(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Regla de umbral con ID " + id + " no encontrada para eliminar."));
+        reglaUmbralRepository.delete(regla);
+    }
+
+    @Transactional(readOnly = true)
+    public ReglaUmbralDTO consultarRegla(Long id) {
+        return reglaUmbralRepository.findById(id)
+                .map(this::mapToDTO)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Regla de umbral con ID " + id + " no encontrada."));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReglaUmbralDTO> consultarReglas() {
+        return reglaUmbralRepository.findAll().stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /** Umbral que se aplica al SKU: su fila activa en umbrales_alerta o, si no tiene, la regla que cumple su producto. */
+    @Transactional(readOnly = true)
+    public UmbralEfectivoDTO consultarUmbralEfectivo(String sku) {
+        return umbralAlertaRepository.findBySku(sku)
+                .filter(umbral -> Boolean.TRUE.equals(umbral.getActivo()))
+                .map(umbral -> UmbralEfectivoDTO.builder()
+                        .sku(sku)
+                        .tipoAlerta(umbral.getTipoAlerta().name())
+                        .umbralCantidad(umbral.getUmbralCantidad())
+                        .histeresis(umbral.getHisteresis())
+                        .origen("SKU")
+                        .build())
+                .orElseGet(() -> {
+                    ProductoInventario producto = productoInventarioRepository.findBySku(sku)
+                            .orElseThrow(() -> new RecursoNoEncontradoException("Producto con SKU " + sku + " no encontrado."));
+                    ReglaUmbral regla = resolver(sku, producto.getProductoBaseSku(), producto.getTalla(),
+                            producto.getColor(), producto.getUbicacionAlmacen());
+                    if (regla == null) {
+                        throw new RecursoNoEncontradoException("Ningún umbral de alerta se aplica al SKU " + sku + ".");
+                    }
+                    return UmbralEfectivoDTO.builder()
+                            .sku(sku)
+                            .tipoAlerta(regla.getTipoAlerta().name())
+                            .umbralCantidad(regla.getUmbralCantidad())
+                            .histeresis(regla.getHisteresis())
+                            .origen("REGLA")
+                            .reglaId(regla.getId())
+                            .criterio(regla.getCriterio().name())
+                            .valor(regla.getValor())
+                            .build();
+                });
+    }
+
+    /** Regla activa que se aplica a un producto con esos atributos, sin considerar su fila de umbrales_alerta. */
+    public ReglaUmbral resolver(String sku, String productoBaseSku, String talla, String color, String ubicacionAlmacen) {
+        return compiladas().resolver(sku, productoBaseSku, talla, color, ubicacionAlmacen);
+    }
+
+    public int reglasActivas() {
+        return compiladas().total();
+    }
+
+    /** Cambia con cada escritura confirmada de reglas_umbral, de esta instancia o de otra. */
+    public long version() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarRegla(ReglaUmbralActualizadaEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Detecta escrituras de reglas hechas por otras instancias; MotorAlertasService.reaplicarReglas reevalúa los
+     * productos en su siguiente ciclo, en cuanto ve la versión nueva.
+     */
+    @Scheduled(fixedDelayString = "${inventario.reglas-umbral.intervalo-verificacion-ms:5000}")
+    public void verificarCambiosExternos() {
+        Huella actual = leerHuella();
+        Huella anterior = ultimaHuella;
+        ultimaHuella = actual;
+        if (anterior != null && !anterior.equals(actual)) {
+            log.info("Reglas de umbral modificadas fuera de esta instancia: {} reglas, última actualización {}",
+                    actual.total(), actual.ultimaActualizacion());
+            version.incrementAndGet();
+        }
+    }
+
+    private Huella leerHuella() {
+        List<Object[]> filas = reglaUmbralRepository.findHuella();
+        if (filas == null || filas.isEmpty() || filas.get(0) == null) {
+            return new Huella(0, null, 0);
+        }
+        Object[] fila = filas.get(0);
+        return new Huella(
+                fila[0] != null ? ((Number) fila[0]).longValue() : 0,
+                (LocalDateTime) fila[1],
+                fila[2] != null ? ((Number) fila[2]).longValue() : 0);
+    }
+
+    private ReglasUmbralCompiladas compiladas() {
+        Compilacion actual = compilacion;
+        if (actual != null && actual.version() == version.get()) {
+            return actual.reglas();
+        }
+        synchronized (this) {
+            actual = compilacion;
+            long vigente = version.get();
+            if (actual == null || actual.version() != vigente) {
+                // Si cambia mientras se compila, la versión guardada queda vieja y la próxima resolución recompila
+                long inicio = System.currentTimeMillis();
+                // La huella se lee antes que las reglas: un cambio entre ambas lecturas provoca, a lo sumo,
+                // una recompilación de más en la próxima verificación
+                ultimaHuella = leerHuella();
+                actual = new Compilacion(vigente, new ReglasUmbralCompiladas(reglaUmbralRepository.findByActivoTrue()));
+                compilacion = actual;
+                log.info("Reglas de umbral compiladas: {} reglas activas en {} ms", actual.reglas().total(),
+                        System.currentTimeMillis() - inicio);
+            }
+            return actual.reglas();
+        }
+    }
+
+    private ReglaUmbralDTO mapToDTO(ReglaUmbral regla) {
+        return ReglaUmbralDTO.builder()
+                .id(regla.getId())
+                .criterio(regla.getCriterio().name())
+                .valor(regla.getValor())
+                .tipoAlerta(regla.getTipoAlerta().name())
+                .umbralCantidad(regla.getUmbralCantidad())
+                .histeresis(regla.getHisteresis())
+                .prioridad(regla.getPrioridad())
+                .activo(regla.getActivo())
+                .fechaCreacion(regla.getFechaCreacion())
+                .fechaUltimaActualizacion(regla.getFechaUltimaActualizacion())
+                .build();
+    }
+}
@@ -0,0 +1,268 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.enums.TipoAlerta;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Umbral de alerta vigente y estado de la alerta por SKU, indexados por el ID de DiccionarioSku.
+ * Cuatro longs por SKU en bloques que se crean al definir la primera regla que cae en ellos:
+ * [regla: umbral (bits 0-31) | tipo + 1 (bits 32-33, 0 = sin regla) | disparada (bit 34) | notificada (bit 35)
+ * | histéresis (bits 36-62) | heredada (bit 63)] [marca de la regla] [marca del último stock evaluado]
+ * [última activación notificada, ms].
+ * <p>
+ * "Disparada" es el estado de la condición; "notificada" es el último estado que se publicó. Pueden diferir
+ * mientras un cambio espera en la ventana de agrupación o por el intervalo mínimo entre alertas.
+ * <p>
+ * Una regla heredada sale de una ReglaUmbral y no de una fila propia del SKU: la fila propia la reemplaza,
+ * y una heredada nunca pisa a una propia.
+ * <p>
+ * Las marcas descartan lo que llega fuera de orden (commits concurrentes, carga inicial contra eventos).
+ * Cada SKU se lee y escribe bajo uno de CERROJOS locks, elegido por el ID: evaluar un cambio de stock es O(1)
+ * y no compite con los demás SKUs salvo por colisión de lock.
+ */
+final class ReglasAlertaSku {
+
+    private static final int REGISTROS_POR_BLOQUE = 1 << 16;
+    private static final int CAMPOS = 4;
+    private static final int REGLA = 0;
+    private static final int MARCA_REGLA = 1;
+    private static final int MARCA_STOCK = 2;
+    private static final int ULTIMA_ACTIVACION = 3;
+    private static final int CERROJOS = 64;
+
+    private static final long MASCARA_UMBRAL = 0xFFFF_FFFFL;
+    private static final int BITS_TIPO = 32;
+    private static final long DISPARADA = 1L << 34;
+    private static final long NOTIFICADA = 1L << 35;
+    private static final int BITS_HISTERESIS = 36;
+    static final int HISTERESIS_MAXIMA = (1 << 27) - 1;
+    private static final long HEREDADA = 1L << 63;
+    private static final TipoAlerta[] TIPOS = TipoAlerta.values();
+
+    /** La alerta del SKU se activó o se resolvió con el stock evaluado. */
+    record Cambio(TipoAlerta tipo, int umbral, boolean activa) {
+    }
+
+    /** Qué hacer con un cambio pendiente de notificar. */
+    enum Decision { NOTIFICAR, DESCARTAR, ESPERAR }
+
+    private final AtomicReferenceArray<long[]> bloques;
+    private final Object[] cerrojos = new Object[CERROJOS];
+
+    ReglasAlertaSku(int capacidadMaxima) {
+        bloques = new AtomicReferenceArray<>((capacidadMaxima + REGISTROS_POR_BLOQUE - 1) / REGISTROS_POR_BLOQUE);
+        for (int i = 0; i < CERROJOS; i++) {
+            cerrojos[i] = new Object();
+        }
+    }
+
+    /**
+     * Define la regla propia del SKU (su fila de umbrales_alerta). Si el tipo no cambia, la alerta conserva su estado y el próximo cambio de stock
+     * la evalúa con el umbral nuevo; si cambia, la alerta del tipo anterior se descarta sin notificar.
+     * Con soloSiMasNueva (carga inicial) una regla con la misma marca que la guardada no se aplica,
+     * así una fila leída antes de un borrado no revive la regla.
+     */
+    void definir(int id, TipoAlerta tipo, int umbral, int histeresis, long marca, boolean soloSiMasNueva) {
+        long[] bloque = bloqueParaEscribir(id);
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            long guardada = bloque[base + MARCA_REGLA];
+            if (marca < guardada || (soloSiMasNueva && marca == guardada && guardada != 0)) {
+                return;
+            }
+            bloque[base + REGLA] = regla(bloque[base + REGLA], tipo, umbral, histeresis);
+            bloque[base + MARCA_REGLA] = marca;
+        }
+    }
+
+    /**
+     * Aplica la regla heredada del SKU (tipo null: ninguna ReglaUmbral lo cubre), salvo que tenga regla propia.
+     * Devuelve si la regla del SKU cambió.
+     */
+    boolean heredar(int id, TipoAlerta tipo, int umbral, int histeresis) {
+        long[] bloque = tipo != null ? bloqueParaEscribir(id) : bloque(id);
+        if (bloque == null) {
+            return false;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            long anterior = bloque[base + REGLA];
+            if (anterior != 0 && (anterior & HEREDADA) == 0) {
+                return false;
+            }
+            long nueva = tipo != null ? regla(anterior, tipo, umbral, histeresis) | HEREDADA : 0L;
+            bloque[base + REGLA] = nueva;
+            return nueva != anterior;
+        }
+    }
+
+    /** Si el SKU tiene una regla definida por su propia fila de umbrales_alerta. */
+    boolean tieneReglaPropia(int id) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return false;
+        }
+        synchronized (cerrojo(id)) {
+            long regla = bloque[(id % REGISTROS_POR_BLOQUE) * CAMPOS + REGLA];
+            return regla != 0 && (regla & HEREDADA) == 0;
+        }
+    }
+
+    void quitar(int id, long marca) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            if (marca >= bloque[base + MARCA_REGLA]) {
+                bloque[base + REGLA] = 0;
+                bloque[base + MARCA_REGLA] = marca;
+            }
+        }
+    }
+
+    /**
+     * Evalúa la regla del SKU contra su stock disponible. Devuelve el cambio si la alerta se activó o se resolvió,
+     * o null si el SKU no tiene regla, el estado no cambió o el stock es anterior al último evaluado.
+     * Una alerta activa solo se resuelve cuando el stock sale de la banda de histéresis.
+     */
+    Cambio evaluar(int id, long marca, int disponible) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return null;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            long regla = bloque[base + REGLA];
+            if (regla == 0 || marca < bloque[base + MARCA_STOCK]) {
+                return null;
+            }
+            bloque[base + MARCA_STOCK] = marca;
+            TipoAlerta tipo = tipo(regla);
+            if (tipo == TipoAlerta.SIN_MOVIMIENTO) {
+                return null; // No depende del stock: la evalúa evaluarInactividad
+            }
+            int umbral = (int) (regla & MASCARA_UMBRAL);
+            boolean disparada = (regla & DISPARADA) != 0;
+            long banda = disparada ? regla >>> BITS_HISTERESIS & HISTERESIS_MAXIMA : 0L;
+            boolean activa = tipo == TipoAlerta.BAJO_STOCK ? disponible < umbral + banda : disponible > umbral - banda;
+            if (activa == disparada) {
+                return null;
+            }
+            bloque[base + REGLA] = activa ? regla | DISPARADA : regla & ~DISPARADA;
+            return new Cambio(tipo, umbral, activa);
+        }
+    }
+
+    /** Días sin movimiento de la regla SIN_MOVIMIENTO del SKU, o -1 si su regla es de otro tipo o no tiene. */
+    int diasSinMovimiento(int id) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return -1;
+        }
+        synchronized (cerrojo(id)) {
+            long regla = bloque[(id % REGISTROS_POR_BLOQUE) * CAMPOS + REGLA];
+            return regla != 0 && tipo(regla) == TipoAlerta.SIN_MOVIMIENTO ? (int) (regla & MASCARA_UMBRAL) : -1;
+        }
+    }
+
+    /**
+     * Activa (inactivo = true) o resuelve la alerta SIN_MOVIMIENTO del SKU. Devuelve el cambio, o null si
+     * la regla del SKU no es SIN_MOVIMIENTO o la alerta ya estaba en ese estado.
+     */
+    Cambio evaluarInactividad(int id, boolean inactivo) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return null;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            long regla = bloque[base + REGLA];
+            if (regla == 0 || tipo(regla) != TipoAlerta.SIN_MOVIMIENTO || inactivo == ((regla & DISPARADA) != 0)) {
+                return null;
+            }
+            bloque[base + REGLA] = inactivo ? regla | DISPARADA : regla & ~DISPARADA;
+            return new Cambio(TipoAlerta.SIN_MOVIMIENTO, (int) (regla & MASCARA_UMBRAL), inactivo);
+        }
+    }
+
+    /**
+     * Decide si un cambio que esperaba en la ventana de agrupación se notifica, y si es así lo registra:
+     * se descarta si la regla ya no es de ese tipo o si su estado coincide con el último notificado
+     * (se activó y se resolvió dentro de la ventana); una activación espera si la anterior se notificó
+     * hace menos de intervaloMinimo ms.
+     */
+    Decision notificar(int id, Cambio cambio, long ahora, long intervaloMinimo) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return Decision.DESCARTAR;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            long regla = bloque[base + REGLA];
+            if (regla == 0 || tipo(regla) != cambio.tipo() || cambio.activa() == ((regla & NOTIFICADA) != 0)) {
+                return Decision.DESCARTAR;
+            }
+            if (cambio.activa() && ahora - bloque[base + ULTIMA_ACTIVACION] < intervaloMinimo) {
+                return Decision.ESPERAR;
+            }
+            bloque[base + REGLA] = cambio.activa() ? regla | NOTIFICADA : regla & ~NOTIFICADA;
+            if (cambio.activa()) {
+                bloque[base + ULTIMA_ACTIVACION] = ahora;
+            }
+            return Decision.NOTIFICAR;
+        }
+    }
+
+    /** El producto se borró: la alerta queda sin disparar, sin notificar la resolución. */
+    void reiniciar(int id, long marca) {
+        long[] bloque = bloque(id);
+        if (bloque == null) {
+            return;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * CAMPOS;
+        synchronized (cerrojo(id)) {
+            if (marca >= bloque[base + MARCA_STOCK]) {
+                bloque[base + REGLA] &= ~(DISPARADA | NOTIFICADA);
+                bloque[base + MARCA_STOCK] = marca;
+            }
+        }
+    }
+
+    // Si el tipo no cambia, conserva el estado de la alerta
+    private static long regla(long anterior, TipoAlerta tipo, int umbral, int histeresis) {
+        long estado = anterior != 0 && tipo(anterior) == tipo ? anterior & (DISPARADA | NOTIFICADA) : 0L;
+        return (long) Math.min(Math.max(histeresis, 0), HISTERESIS_MAXIMA) << BITS_HISTERESIS
+                | estado | (long) (tipo.ordinal() + 1) << BITS_TIPO | (umbral & MASCARA_UMBRAL);
+    }
+
+    private static TipoAlerta tipo(long regla) {
+        return TIPOS[(int) (regla >>> BITS_TIPO & 0b11) - 1];
+    }
+
+    private Object cerrojo(int id) {
+        return cerrojos[id & (CERROJOS - 1)];
+    }
+
+    private long[] bloque(int id) {
+        if (id == DiccionarioSku.SIN_ID || id / REGISTROS_POR_BLOQUE >= bloques.length()) {
+            return null;
+        }
+        return bloques.get(id / REGISTROS_POR_BLOQUE);
+    }
+
+    private long[] bloqueParaEscribir(int id) {
+        int indiceBloque = id / REGISTROS_POR_BLOQUE;
+        if (indiceBloque >= bloques.length()) {
+            throw new IllegalStateException("Las reglas de alerta por SKU alcanzaron su capacidad máxima (" + bloques.length() * REGISTROS_POR_BLOQUE + ").");
+        }
+        long[] bloque = bloques.get(indiceBloque);
+        if (bloque == null) {
+            long[] nuevo = new long[REGISTROS_POR_BLOQUE * CAMPOS];
+            bloque = bloques.compareAndSet(indiceBloque, null, nuevo) ? nuevo : bloques.get(indiceBloque);
+        }
+        return bloque;
+    }
+}
@@ -0,0 +1,98 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.ReglaUmbral;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reglas de umbral activas compiladas para resolver la de un producto sin recorrerlas: un trie de los prefijos de
+ * productoBaseSku y un mapa por cada atributo exacto. Cada nodo del trie guarda ya la mejor regla de su camino,
+ * así resolver cuesta recorrer el productoBaseSku (acotado a 100 caracteres) más tres búsquedas en mapas,
+ * sin importar cuántas reglas o SKUs haya. Inmutable: un cambio de reglas arma otra.
+ */
+final class ReglasUmbralCompiladas {
+
+    // Mayor prioridad; con igual prioridad, criterio más específico (orden del enum); entre prefijos, el más largo
+    static final Comparator<ReglaUmbral> PRECEDENCIA = Comparator
+            .comparingInt((ReglaUmbral regla) -> regla.getPrioridad() != null ? regla.getPrioridad() : 0)
+            .thenComparing(ReglaUmbral::getCriterio, Comparator.reverseOrder())
+            .thenComparingInt(regla -> regla.getValor().length())
+            .thenComparing(ReglaUmbral::getId, Comparator.nullsFirst(Comparator.reverseOrder()));
+
+    private static final class Nodo {
+        private final Map<Character, Nodo> hijos = new HashMap<>(4);
+        private ReglaUmbral mejor;
+    }
+
+    private final Nodo raiz = new Nodo();
+    private final Map<String, ReglaUmbral> porUbicacion = new HashMap<>();
+    private final Map<String, ReglaUmbral> porColor = new HashMap<>();
+    private final Map<String, ReglaUmbral> porTalla = new HashMap<>();
+    private final int total;
+
+    ReglasUmbralCompiladas(List<ReglaUmbral> reglas) {
+        for (ReglaUmbral regla : reglas) {
+            switch (regla.getCriterio()) {
+                case PREFIJO_PRODUCTO_BASE -> {
+                    Nodo nodo = raiz;
+                    for (int i = 0; i < regla.getValor().length(); i++) {
+                        nodo = nodo.hijos.computeIfAbsent(regla.getValor().charAt(i), c -> new Nodo());
+                    }
+                    nodo.mejor = mejor(nodo.mejor, regla);
+                }
+                case UBICACION_ALMACEN -> porUbicacion.merge(regla.getValor(), regla, ReglasUmbralCompiladas::mejor);
+                case COLOR -> porColor.merge(regla.getValor(), regla, ReglasUmbralCompiladas::mejor);
+                case TALLA -> porTalla.merge(regla.getValor(), regla, ReglasUmbralCompiladas::mejor);
+            }
+        }
+        // Propaga hacia abajo la mejor regla de cada camino (sin recursión: los prefijos pueden ser largos)
+        Deque<Nodo> porVisitar = new ArrayDeque<>();
+        porVisitar.push(raiz);
+        while (!porVisitar.isEmpty()) {
+            Nodo nodo = porVisitar.pop();
+            for (Nodo hijo : nodo.hijos.values()) {
+                hijo.mejor = mejor(nodo.mejor, hijo.mejor);
+                porVisitar.push(hijo);
+            }
+        }
+        total = reglas.size();
+    }
+
+    int total() {
+        return total;
+    }
+
+    /** Regla que se aplica a un producto con esos atributos, o null si ninguna lo cumple. */
+    ReglaUmbral resolver(String sku, String productoBaseSku, String talla, String color, String ubicacionAlmacen) {
+        String base = productoBaseSku != null ? productoBaseSku : sku;
+        Nodo nodo = raiz;
+        if (base != null) {
+            for (int i = 0; i < base.length(); i++) {
+                Nodo hijo = nodo.hijos.get(base.charAt(i));
+                if (hijo == null) {
+                    break;
+                }
+                nodo = hijo;
+            }
+        }
+        ReglaUmbral regla = nodo.mejor;
+        regla = mejor(regla, ubicacionAlmacen != null ? porUbicacion.get(ubicacionAlmacen) : null);
+        regla = mejor(regla, color != null ? porColor.get(color) : null);
+        return mejor(regla, talla != null ? porTalla.get(talla) : null);
+    }
+
+    private static ReglaUmbral mejor(ReglaUmbral a, ReglaUmbral b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return PRECEDENCIA.compare(a, b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,174 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ResumenMovimientoDiarioDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.BloqueoProceso;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ResumenMovimientoDiario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ResumenMovimientoDiarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Resúmenes diarios de movimientos por (sku, día, tipo).
+ * Cada movimiento se acumula en la misma transacción que lo registra, así los reportes leen
+ * una fila por día en lugar de recorrer movimientos_stock.
+ * <p>
+ * La reconstrucción corre en una sola instancia (bloqueo "reconstruccion-resumenes" en bloqueos_proceso) y en una
+ * transacción por SKU, que guarda el último SKU terminado: si se interrumpe, el próximo arranque la retoma desde ahí.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResumenMovimientoService {
+
+    private final ResumenMovimientoDiarioRepository resumenMovimientoDiarioRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final ArchivoMovimientoService archivoMovimientoService;
+    private final BloqueoProcesoService bloqueoProcesoService;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final String RECONSTRUCCION = "reconstruccion-resumenes";
+    private static final Duration DURACION_BLOQUEO = Duration.ofMinutes(5);
+
+    @EventListener
+    @Transactional
+    public void alRegistrarMovimiento(MovimientoStockRegistradoEvent event) {
+        MovimientoStock movimiento = event.getMovimiento();
+        resumenMovimientoDiarioRepository.acumular(
+                movimiento.getSku(),
+                movimiento.getFechaMovimiento().toLocalDate(),
+                movimiento.getTipoMovimiento().name(),
+                Math.abs((long) movimiento.getCantidadMovida()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumenMovimientoDiarioDTO> consultarResumenDiario(String sku, LocalDate desde, LocalDate hasta) {
+        return resumenMovimientoDiarioRepository.findBySkuAndFechaBetweenOrderByFechaAscTipoMovimientoAsc(sku, desde, hasta).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumenMovimientoDiarioDTO> consultarTotalesPorTipo(LocalDate desde, LocalDate hasta) {
+        return resumenMovimientoDiarioRepository.sumarPorTipo(desde, hasta).stream()
+                .map(fila -> ResumenMovimientoDiarioDTO.builder()
+                        .tipoMovimiento(((TipoMovimiento) fila[0]).name())
+                        .cantidadTotal(((Number) fila[1]).longValue())
+                        .numeroMovimientos(((Number) fila[2]).longValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Primer despliegue con historial sin resumir, o una reconstrucción que quedó a medias: se completa al arrancar.
+     * Sin marca de reconstrucción, una tabla con resúmenes ya se mantiene al registrar cada movimiento.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarResumenesAlIniciar() {
+        Optional<BloqueoProceso> marca = bloqueoProcesoService.consultar(RECONSTRUCCION);
+        boolean pendiente = marca.isPresent()
+                ? !Boolean.TRUE.equals(marca.get().getCompletado())
+                : resumenMovimientoDiarioRepository.count() == 0 && movimientoStockRepository.count() > 0;
+        if (pendiente) {
+            reconstruir(false);
+        }
+    }
+
+    /**
+     * Recalcula todos los resúmenes desde movimientos_stock y los segmentos archivados, un SKU por transacción.
+     * Pensado para cargas que escriben movimientos sin pasar por los servicios (DataLoader) y para el primer despliegue.
+     */
+    public void reconstruirResumenes() {
+        reconstruir(true);
+    }
+
+    private void reconstruir(boolean desdeCero) {
+        if (!bloqueoProcesoService.adquirir(RECONSTRUCCION, DURACION_BLOQUEO)) {
+            log.info("Otra instancia está reconstruyendo los resúmenes diarios de movimientos");
+            return;
+        }
+        try {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            String ultimoSku = null;
+            if (desdeCero) {
+                transaccion.executeWithoutResult(status -> bloqueoProcesoService.registrarAvance(RECONSTRUCCION, null, false));
+            } else {
+                ultimoSku = bloqueoProcesoService.consultar(RECONSTRUCCION).map(BloqueoProceso::getAvance).orElse(null);
+            }
+            // Orden propio y no el de la base de datos: el avance se compara con el mismo criterio al retomar
+            List<String> skus = new ArrayList<>(productoInventarioRepository.findAllSkus());
+            Collections.sort(skus);
+            int filas = 0;
+            for (String sku : skus) {
+                if (ultimoSku != null && sku.compareTo(ultimoSku) <= 0) {
+                    continue;
+                }
+                Integer escritas = transaccion.execute(status -> reconstruirSku(sku));
+                filas += escritas != null ? escritas : 0;
+                if (!bloqueoProcesoService.adquirir(RECONSTRUCCION, DURACION_BLOQUEO)) {
+                    log.warn("Se perdió el bloqueo de la reconstrucción de resúmenes después del SKU {}; la retoma otra instancia", sku);
+                    return;
+                }
+            }
+            transaccion.executeWithoutResult(status -> bloqueoProcesoService.registrarAvance(RECONSTRUCCION, null, true));
+            log.info("Resúmenes diarios de movimientos reconstruidos: {} filas", filas);
+        } finally {
+            bloqueoProcesoService.liberar(RECONSTRUCCION);
+        }
+    }
+
+    private int reconstruirSku(String sku) {
+        // Registrar un movimiento actualiza la fila del producto antes de acumular su resumen: tomarla primero
+        // ordena esta reescritura con los movimientos en curso del SKU, que ni se pierden ni se cuentan dos veces
+        productoInventarioRepository.findBySkuParaActualizar(sku);
+        resumenMovimientoDiarioRepository.deleteBySku(sku);
+
+        // Los meses archivados ya no están en la tabla; ante un duplicado manda la fila de la tabla
+        Map<Long, MovimientoStock> porId = new LinkedHashMap<>();
+        archivoMovimientoService.leerArchivados(sku, null, null).forEach(m -> porId.put(m.getId(), m));
+        movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc(sku, 0L).forEach(m -> porId.put(m.getId(), m));
+
+        Map<String, ResumenMovimientoDiario> resumenes = new LinkedHashMap<>();
+        for (MovimientoStock movimiento : porId.values()) {
+            LocalDate fecha = movimiento.getFechaMovimiento().toLocalDate();
+            ResumenMovimientoDiario resumen = resumenes.computeIfAbsent(fecha + "|" + movimiento.getTipoMovimiento(),
+                    k -> new ResumenMovimientoDiario(null, sku, fecha, movimiento.getTipoMovimiento(), 0L, 0L));
+            resumen.setCantidadTotal(resumen.getCantidadTotal() + Math.abs(movimiento.getCantidadMovida()));
+            resumen.setNumeroMovimientos(resumen.getNumeroMovimientos() + 1);
+        }
+        resumenMovimientoDiarioRepository.saveAll(new ArrayList<>(resumenes.values()));
+        bloqueoProcesoService.registrarAvance(RECONSTRUCCION, sku, false);
+        return resumenes.size();
+    }
+
+    private ResumenMovimientoDiarioDTO mapToDTO(ResumenMovimientoDiario resumen) {
+        return ResumenMovimientoDiarioDTO.builder()
+                .sku(resumen.getSku())
+                .fecha(resumen.getFecha())
+                .tipoMovimiento(resumen.getTipoMovimiento().name())
+                .cantidadTotal(resumen.getCantidadTotal())
+                .numeroMovimientos(resumen.getNumeroMovimientos())
+                .build();
+    }
+}
@@ -0,0 +1,207 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato de los segmentos de movimientos archivados: un archivo gzip inmutable con los movimientos guardados por columnas.
+ * Los SKUs y tipos van en un diccionario al inicio, así una búsqueda por SKU descarta el segmento sin decodificar las filas
+ * si el SKU no aparece. IDs y fechas se guardan como diferencias respecto de la fila anterior.
+ */
+final class SegmentoMovimientos {
+
+    private static final int MAGICO = 0x4D4F5631; // "MOV1"
+
+    private SegmentoMovimientos() {
+    }
+
+    /**
+     * Escribe el segmento en un archivo temporal, lo sincroniza a disco y lo renombra de forma atómica.
+     * Los movimientos deben venir ordenados por ID.
+     */
+    static void escribir(Path destino, List<MovimientoStock> movimientos) throws IOException {
+        Map<String, Integer> skus = new LinkedHashMap<>();
+        Map<TipoMovimiento, Integer> tipos = new LinkedHashMap<>();
+        for (MovimientoStock m : movimientos) {
+            skus.putIfAbsent(m.getSku(), skus.size());
+            tipos.putIfAbsent(m.getTipoMovimiento(), tipos.size());
+        }
+
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(archivo, 64 * 1024);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+            out.writeInt(MAGICO);
+            out.writeInt(movimientos.size());
+
+            out.writeInt(skus.size());
+            for (String sku : skus.keySet()) {
+                out.writeUTF(sku);
+            }
+            out.writeInt(tipos.size());
+            for (TipoMovimiento tipo : tipos.keySet()) {
+                out.writeUTF(tipo.name());
+            }
+
+            for (MovimientoStock m : movimientos) {
+                out.writeInt(skus.get(m.getSku()));
+            }
+            for (MovimientoStock m : movimientos) {
+                out.writeByte(tipos.get(m.getTipoMovimiento()));
+            }
+            long idAnterior = 0;
+            for (MovimientoStock m : movimientos) {
+                out.writeLong(m.getId() - idAnterior);
+                idAnterior = m.getId();
+            }
+            for (MovimientoStock m : movimientos) {
+                out.writeLong(m.getProductoInventario() != null ? m.getProductoInventario().getId() : -1L);
+            }
+            for (MovimientoStock m : movimientos) {
+                out.writeInt(m.getCantidadMovida());
+            }
+            for (MovimientoStock m : movimientos) {
+                out.writeInt(m.getStockFinalDespuesMovimiento());
+            }
+            long segundoAnterior = 0;
+            for (MovimientoStock m : movimientos) {
+                long segundo = m.getFechaMovimiento().toEpochSecond(ZoneOffset.UTC);
+                out.writeLong(segundo - segundoAnterior);
+                segundoAnterior = segundo;
+            }
+            for (MovimientoStock m : movimientos) {
+                out.writeInt(m.getFechaMovimiento().getNano());
+            }
+            for (MovimientoStock m : movimientos) {
+                escribirTexto(out, m.getReferenciaExterna());
+            }
+            for (MovimientoStock m : movimientos) {
+                escribirTexto(out, m.getMotivo());
+            }
+
+            out.flush();
+            gzip.finish();
+            archivo.getFD().sync();
+        }
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lee los movimientos del segmento. Con sku != null solo devuelve los de ese SKU
+     * y, si no figura en el diccionario, no decodifica las columnas.
+     */
+    static List<MovimientoStock> leer(Path origen, String sku) throws IOException {
+        try (InputStream archivo = Files.newInputStream(origen);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(archivo, 64 * 1024), 64 * 1024))) {
+            if (in.readInt() != MAGICO) {
+                throw new IOException("Segmento de movimientos inválido: " + origen);
+            }
+            int filas = in.readInt();
+
+            String[] skus = new String[in.readInt()];
+            int skuBuscado = -1;
+            for (int i = 0; i < skus.length; i++) {
+                skus[i] = in.readUTF();
+                if (skus[i].equals(sku)) {
+                    skuBuscado = i;
+                }
+            }
+            if (sku != null && skuBuscado < 0) {
+                return List.of();
+            }
+            TipoMovimiento[] tipos = new TipoMovimiento[in.readInt()];
+            for (int i = 0; i < tipos.length; i++) {
+                tipos[i] = TipoMovimiento.valueOf(in.readUTF());
+            }
+
+            int[] indiceSku = new int[filas];
+            for (int i = 0; i < filas; i++) {
+                indiceSku[i] = in.readInt();
+            }
+            List<MovimientoStock> movimientos = new ArrayList<>(filas);
+            for (int i = 0; i < filas; i++) {
+                MovimientoStock m = new MovimientoStock();
+                m.setSku(skus[indiceSku[i]]);
+                m.setTipoMovimiento(tipos[in.readByte()]);
+                movimientos.add(m);
+            }
+            long id = 0;
+            for (MovimientoStock m : movimientos) {
+                id += in.readLong();
+                m.setId(id);
+            }
+            for (MovimientoStock m : movimientos) {
+                long productoId = in.readLong();
+                if (productoId >= 0) {
+                    ProductoInventario producto = new ProductoInventario();
+                    producto.setId(productoId);
+                    producto.setSku(m.getSku());
+                    m.setProductoInventario(producto);
+                }
+            }
+            for (MovimientoStock m : movimientos) {
+                m.setCantidadMovida(in.readInt());
+            }
+            for (MovimientoStock m : movimientos) {
+                m.setStockFinalDespuesMovimiento(in.readInt());
+            }
+            long[] segundos = new long[filas];
+            long segundo = 0;
+            for (int i = 0; i < filas; i++) {
+                segundo += in.readLong();
+                segundos[i] = segundo;
+            }
+            for (int i = 0; i < filas; i++) {
+                movimientos.get(i).setFechaMovimiento(LocalDateTime.ofEpochSecond(segundos[i], in.readInt(), ZoneOffset.UTC));
+            }
+            for (MovimientoStock m : movimientos) {
+                m.setReferenciaExterna(leerTexto(in));
+            }
+            for (MovimientoStock m : movimientos) {
+                m.setMotivo(leerTexto(in));
+            }
+
+            if (sku == null) {
+                return movimientos;
+            }
+            List<MovimientoStock> delSku = new ArrayList<>();
+            for (int i = 0; i < filas; i++) {
+                if (indiceSku[i] == skuBuscado) {
+                    delSku.add(movimientos.get(i));
+                }
+            }
+            return delSku;
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
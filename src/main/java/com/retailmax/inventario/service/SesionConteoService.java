@@ -0,0 +1,190 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.LecturaConteoDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
+import com.retailmax.inventario.dto.SesionConteoDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.LecturaConteo;
+import com.retailmax.inventario.model.SesionConteo;
+import com.retailmax.inventario.model.enums.EstadoSesionConteo;
+import com.retailmax.inventario.repository.LecturaConteoRepository;
+import com.retailmax.inventario.repository.SesionConteoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sesiones de conteo físico con escáner de mano.
+ * Los escáneres envían lotes pequeños de lecturas; se agregan en memoria por sesión (un LongAdder por SKU)
+ * y se guardan en una bitácora compacta (lecturas_conteo) para poder reconstruir la sesión tras un reinicio.
+ * Solo al cerrar la sesión se compara contra ProductoInventario, reutilizando la auditoría con lectura consistente.
+ * <p>
+ * La agregación de una sesión abierta vive en la memoria de la instancia que la atiende. Con varias instancias,
+ * todas las peticiones de una sesión deben llegar a la misma (afinidad por ID de sesión): otra instancia reconstruye
+ * su propia copia desde la bitácora, no ve las lecturas que se registren después en la primera y no se entera de
+ * que la sesión se cerró allí.
+ */
+@Service
+@RequiredArgsConstructor
+public class SesionConteoService {
+
+    private final SesionConteoRepository sesionConteoRepository;
+    private final LecturaConteoRepository lecturaConteoRepository;
+    private final AuditoriaInventarioService auditoriaInventarioService;
+
+    // Sesiones abiertas con su agregación en memoria, por ID de sesión
+    private final Map<Long, SesionEnCurso> sesionesAbiertas = new ConcurrentHashMap<>();
+
+    public SesionConteoDTO abrirSesion(String zona) {
+        SesionConteo sesion = new SesionConteo();
+        sesion.setZona(zona);
+        sesion.setEstado(EstadoSesionConteo.ABIERTA);
+        sesion.setFechaApertura(LocalDateTime.now());
+        SesionConteo savedSesion = sesionConteoRepository.save(sesion);
+
+        SesionEnCurso enCurso = new SesionEnCurso(savedSesion);
+        sesionesAbiertas.put(savedSesion.getId(), enCurso);
+        return mapToDTO(savedSesion, enCurso, false);
+    }
+
+    /**
+     * Registra un lote de lecturas. El lote se agrega por (sku, zona) antes de escribir la bitácora,
+     * de modo que un escáner que envía 50 lecturas del mismo SKU genera una sola fila.
+     * La bitácora se confirma antes de actualizar la memoria: si la escritura falla, el lote no se cuenta.
+     */
+    public void registrarLecturas(Long sesionId, List<LecturaConteoDTO> lecturas) {
+        SesionEnCurso enCurso = obtenerSesionAbierta(sesionId);
+
+        Map<String, LecturaConteo> agregadas = new LinkedHashMap<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (LecturaConteoDTO lectura : lecturas) {
+            String zona = lectura.getZona() != null ? lectura.getZona() : enCurso.sesion.getZona();
+            LecturaConteo agregada = agregadas.computeIfAbsent(lectura.getSku() + '|' + zona,
+                    k -> new LecturaConteo(null, sesionId, lectura.getSku(), zona, 0, ahora));
+            agregada.setCantidad(agregada.getCantidad() + lectura.getCantidad());
+        }
+
+        enCurso.lock.readLock().lock();
+        try {
+            if (enCurso.cerrada) {
+                throw new IllegalArgumentException("La sesión de conteo " + sesionId + " ya está cerrada.");
+            }
+            lecturaConteoRepository.saveAll(agregadas.values());
+            for (LecturaConteo lectura : agregadas.values()) {
+                enCurso.conteos.computeIfAbsent(lectura.getSku(), k -> new LongAdder()).add(lectura.getCantidad());
+            }
+        } finally {
+            enCurso.lock.readLock().unlock();
+        }
+    }
+
+    public SesionConteoDTO consultarSesion(Long sesionId) {
+        SesionEnCurso enCurso = sesionesAbiertas.get(sesionId);
+        if (enCurso != null) {
+            return mapToDTO(enCurso.sesion, enCurso, true);
+        }
+        SesionConteo sesion = sesionConteoRepository.findById(sesionId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Sesión de conteo con ID " + sesionId + " no encontrada."));
+        if (sesion.getEstado() == EstadoSesionConteo.ABIERTA) {
+            enCurso = obtenerSesionAbierta(sesionId);
+            return mapToDTO(enCurso.sesion, enCurso, true);
+        }
+        return mapToDTO(sesion, reconstruir(sesion), true);
+    }
+
+    /**
+     * Cierra la sesión y compara los totales contados contra el stock del sistema.
+     * El write lock espera a que terminen los lotes en curso y rechaza los posteriores mientras se guarda el cierre;
+     * la sesión se marca cerrada en memoria solo si el guardado se confirma, así un fallo la deja abierta.
+     */
+    public ResultadoAuditoriaDTO cerrarSesion(Long sesionId) {
+        SesionEnCurso enCurso = obtenerSesionAbierta(sesionId);
+
+        Map<String, Integer> stockFisico = new HashMap<>();
+        enCurso.lock.writeLock().lock();
+        try {
+            if (enCurso.cerrada) {
+                throw new IllegalArgumentException("La sesión de conteo " + sesionId + " ya está cerrada.");
+            }
+            enCurso.conteos.forEach((sku, cantidad) -> stockFisico.put(sku, Math.toIntExact(cantidad.sum())));
+
+            SesionConteo sesion = enCurso.sesion;
+            sesion.setEstado(EstadoSesionConteo.CERRADA);
+            sesion.setFechaCierre(LocalDateTime.now());
+            try {
+                sesionConteoRepository.save(sesion);
+            } catch (RuntimeException e) {
+                sesion.setEstado(EstadoSesionConteo.ABIERTA);
+                sesion.setFechaCierre(null);
+                throw e;
+            }
+            enCurso.cerrada = true;
+        } finally {
+            enCurso.lock.writeLock().unlock();
+        }
+        sesionesAbiertas.remove(sesionId);
+
+        return auditoriaInventarioService.compararConStockFisico(stockFisico);
+    }
+
+    // Devuelve la sesión abierta en memoria; si el servicio se reinició, la reconstruye desde la bitácora
+    private SesionEnCurso obtenerSesionAbierta(Long sesionId) {
+        SesionEnCurso enCurso = sesionesAbiertas.get(sesionId);
+        if (enCurso != null) {
+            return enCurso;
+        }
+        SesionConteo sesion = sesionConteoRepository.findById(sesionId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Sesión de conteo con ID " + sesionId + " no encontrada."));
+        if (sesion.getEstado() != EstadoSesionConteo.ABIERTA) {
+            throw new IllegalArgumentException("La sesión de conteo " + sesionId + " ya está cerrada.");
+        }
+        return sesionesAbiertas.computeIfAbsent(sesionId, id -> reconstruir(sesion));
+    }
+
+    private SesionEnCurso reconstruir(SesionConteo sesion) {
+        SesionEnCurso enCurso = new SesionEnCurso(sesion);
+        for (Object[] fila : lecturaConteoRepository.sumarCantidadesPorSku(sesion.getId())) {
+            LongAdder total = new LongAdder();
+            total.add(((Number) fila[1]).longValue());
+            enCurso.conteos.put((String) fila[0], total);
+        }
+        return enCurso;
+    }
+
+    private SesionConteoDTO mapToDTO(SesionConteo sesion, SesionEnCurso enCurso, boolean incluirConteos) {
+        Map<String, Long> conteoPorSku = new TreeMap<>();
+        enCurso.conteos.forEach((sku, cantidad) -> conteoPorSku.put(sku, cantidad.sum()));
+
+        return SesionConteoDTO.builder()
+                .id(sesion.getId())
+                .zona(sesion.getZona())
+                .estado(sesion.getEstado().name())
+                .fechaApertura(sesion.getFechaApertura())
+                .fechaCierre(sesion.getFechaCierre())
+                .skusContados(conteoPorSku.size())
+                .unidadesContadas(conteoPorSku.values().stream().mapToLong(Long::longValue).sum())
+                .conteoPorSku(incluirConteos ? conteoPorSku : null)
+                .build();
+    }
+
+    // Estado en memoria de una sesión abierta
+    private static final class SesionEnCurso {
+        private final SesionConteo sesion;
+        private final Map<String, LongAdder> conteos = new ConcurrentHashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean cerrada;
+
+        private SesionEnCurso(SesionConteo sesion) {
+            this.sesion = sesion;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot completo de inventarios para que un consumidor nuevo arranque sin recorrer la API
+ * (inventario.snapshot.habilitado=true). Cada intervalo-ms se escribe {directorio-datos}/snapshot/inventario-*.ndjson.gz:
+ * un ProductoInventarioDTO por línea, comprimido una sola vez. La descarga sirve ese archivo tal cual, sin
+ * serializar ni comprimir por pedido.
+ * <p>
+ * La versión es el cursor del feed de movimientos desde el que seguir después de cargar el snapshot: se toma antes
+ * de leer los productos, así lo confirmado durante la lectura puede repetirse en el feed pero no perderse. El ETag
+ * es un resumen del contenido sin comprimir; si no cambió, se conserva el snapshot anterior con su versión y ETag.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.snapshot.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class SnapshotInventarioService {
+
+    private static final String PREFIJO = "inventario-";
+    private static final String EXTENSION = ".ndjson.gz";
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final ProductoInventarioService productoInventarioService;
+    private final FeedMovimientosService feedMovimientosService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventario.directorio-datos:./data}")
+    private String directorioDatos = "./data";
+
+    @Value("${inventario.snapshot.tamano-pagina:1000}")
+    private int tamanoPagina = 1000;
+
+    // El anterior se conserva para las descargas que empezaron antes del reemplazo
+    @Value("${inventario.snapshot.snapshots-a-conservar:2}")
+    private int snapshotsAConservar = 2;
+
+    private volatile SnapshotInventario actual;
+
+    /** Snapshot vigente; el nombre del archivo lleva la fecha de generación, la versión y el ETag. */
+    public record SnapshotInventario(Path archivo, long version, String etag, long tamano, long generado) {
+
+        static SnapshotInventario de(Path archivo) throws IOException {
+            String nombre = archivo.getFileName().toString();
+            String[] partes = nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()).split("-");
+            if (partes.length != 3) {
+                throw new IOException("Nombre de snapshot inesperado: " + nombre);
+            }
+            return new SnapshotInventario(archivo, Long.parseLong(partes[1]), partes[2], Files.size(archivo),
+                    Files.getLastModifiedTime(archivo).toMillis());
+        }
+    }
+
+    // Al arrancar se sirve el último snapshot en disco hasta que se genere uno nuevo
+    @PostConstruct
+    void recuperar() {
+        List<Path> snapshots = listarSnapshots();
+        for (int i = snapshots.size() - 1; i >= 0 && actual == null; i--) {
+            try {
+                actual = SnapshotInventario.de(snapshots.get(i));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Se ignora el snapshot de inventario {}: {}", snapshots.get(i).getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    public SnapshotInventario actual() {
+        SnapshotInventario snapshot = actual;
+        if (snapshot == null) {
+            throw new RecursoNoEncontradoException("Todavía no se generó el snapshot de inventario.");
+        }
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.snapshot.intervalo-ms:300000}",
+            initialDelayString = "${inventario.snapshot.demora-inicial-ms:10000}")
+    public void generarPeriodico() {
+        try {
+            generar();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo generar el snapshot de inventario; se sigue sirviendo el anterior", e);
+        }
+    }
+
+    public SnapshotInventario generar() {
+        long version = Math.min(movimientoStockRepository.findUltimoId(), feedMovimientosService.limiteConfirmado());
+        String generadoEn = LocalDateTime.now().format(FORMATO_NOMBRE);
+        Path directorio = directorioSnapshots();
+        Path temporal = directorio.resolve(PREFIJO + generadoEn + EXTENSION + ".tmp");
+        try {
+            Files.createDirectories(directorio);
+            MessageDigest resumen = MessageDigest.getInstance("SHA-256");
+            int productos;
+            try (OutputStream salida = new DigestOutputStream(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024), 64 * 1024), resumen)) {
+                productos = escribirProductos(salida);
+            }
+            String etag = HexFormat.of().formatHex(resumen.digest(), 0, 16);
+            SnapshotInventario vigente = actual;
+            if (vigente != null && vigente.etag().equals(etag)) {
+                log.debug("Inventario sin cambios; se conserva el snapshot {}", vigente.archivo().getFileName());
+                return vigente;
+            }
+            Path destino = directorio.resolve(PREFIJO + generadoEn + "-" + version + "-" + etag + EXTENSION);
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            actual = SnapshotInventario.de(destino);
+            borrarAntiguos();
+            log.info("Snapshot de inventario generado: {} ({} productos, {} bytes)", destino.getFileName(), productos,
+                    actual.tamano());
+            return actual;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo generar el snapshot de inventario", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException e) {
+                log.debug("No se pudo borrar el temporal {}: {}", temporal, e.getMessage());
+            }
+        }
+    }
+
+    // Por páginas en orden de ID, cada una en su transacción: el contexto de persistencia no crece con el inventario
+    private int escribirProductos(OutputStream salida) throws IOException {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        long ultimoId = 0;
+        int productos = 0;
+        while (true) {
+            long desde = ultimoId;
+            List<ProductoInventario> pagina = lectura.execute(status ->
+                    productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(desde, PageRequest.of(0, tamanoPagina)));
+            if (pagina == null || pagina.isEmpty()) {
+                return productos;
+            }
+            for (ProductoInventario producto : pagina) {
+                ProductoInventarioDTO dto = productoInventarioService.mapToDTO(producto);
+                salida.write(objectMapper.writeValueAsBytes(dto));
+                salida.write('\n');
+            }
+            productos += pagina.size();
+            ultimoId = pagina.get(pagina.size() - 1).getId();
+        }
+    }
+
+    private void borrarAntiguos() throws IOException {
+        List<Path> snapshots = listarSnapshots();
+        for (int i = 0; i < snapshots.size() - Math.max(1, snapshotsAConservar); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    // Del más antiguo al más reciente; el nombre empieza con la fecha de generación
+    private List<Path> listarSnapshots() {
+        Path directorio = directorioSnapshots();
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            archivos.forEach(snapshots::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar los snapshots de inventario", e);
+        }
+        snapshots.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        return snapshots;
+    }
+
+    private Path directorioSnapshots() {
+        return Paths.get(directorioDatos, "snapshot");
+    }
+}
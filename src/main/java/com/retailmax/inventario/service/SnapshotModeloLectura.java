@@ -0,0 +1,142 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.enums.EstadoStock;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato de los snapshots del modelo de lectura: un archivo sin comprimir, pensado para leerse mapeado en memoria.
+ * Cabecera [mágico][instante de captura][último ID de movimiento][filas], luego una fila por SKU y al final el CRC32
+ * de todo lo anterior. Los textos van como [largo short][UTF-8], con largo -1 para null.
+ */
+final class SnapshotModeloLectura {
+
+    private static final int MAGICO = 0x4D4C4931; // "MLI1"
+
+    record Contenido(LocalDateTime capturadoEn, long ultimoMovimientoId, List<ModeloLecturaInventario.VistaProducto> vistas) {
+    }
+
+    private SnapshotModeloLectura() {
+    }
+
+    /** Escribe en un archivo temporal, lo sincroniza a disco y lo renombra de forma atómica. */
+    static void escribir(Path destino, LocalDateTime capturadoEn, long ultimoMovimientoId,
+                         Collection<ModeloLecturaInventario.VistaProducto> vistas) throws IOException {
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile())) {
+            CheckedOutputStream conCrc = new CheckedOutputStream(new BufferedOutputStream(archivo, 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(conCrc);
+            out.writeInt(MAGICO);
+            escribirFecha(out, capturadoEn);
+            out.writeLong(ultimoMovimientoId);
+            out.writeInt(vistas.size());
+            for (ModeloLecturaInventario.VistaProducto v : vistas) {
+                out.writeLong(v.id());
+                escribirTexto(out, v.sku());
+                out.writeInt(v.cantidadDisponible());
+                out.writeInt(v.cantidadReservada());
+                out.writeInt(v.cantidadMinimaStock());
+                escribirTexto(out, v.ubicacionAlmacen());
+                escribirFecha(out, v.fechaCreacion());
+                escribirFecha(out, v.fechaUltimaActualizacion());
+                escribirTexto(out, v.productoBaseSku());
+                escribirTexto(out, v.talla());
+                escribirTexto(out, v.color());
+                out.writeByte(v.estado() != null ? v.estado().ordinal() : -1);
+            }
+            out.flush();
+            int crc = (int) conCrc.getChecksum().getValue();
+            out.writeInt(crc);
+            out.flush();
+            archivo.getFD().sync();
+        }
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static Contenido leer(Path origen) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.limit() < 32 || buffer.getInt(0) != MAGICO) {
+                throw new IOException("Snapshot del modelo de lectura inválido: " + origen);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                throw new IOException("Snapshot del modelo de lectura corrupto (CRC): " + origen);
+            }
+
+            buffer.position(4);
+            LocalDateTime capturadoEn = leerFecha(buffer);
+            long ultimoMovimientoId = buffer.getLong();
+            int filas = buffer.getInt();
+            EstadoStock[] estados = EstadoStock.values();
+            List<ModeloLecturaInventario.VistaProducto> vistas = new ArrayList<>(filas);
+            for (int i = 0; i < filas; i++) {
+                long id = buffer.getLong();
+                String sku = leerTexto(buffer);
+                int disponible = buffer.getInt();
+                int reservada = buffer.getInt();
+                int minima = buffer.getInt();
+                String ubicacion = leerTexto(buffer);
+                LocalDateTime fechaCreacion = leerFecha(buffer);
+                LocalDateTime fechaUltimaActualizacion = leerFecha(buffer);
+                String productoBaseSku = leerTexto(buffer);
+                String talla = leerTexto(buffer);
+                String color = leerTexto(buffer);
+                byte estado = buffer.get();
+                vistas.add(new ModeloLecturaInventario.VistaProducto(id, sku, disponible, reservada, minima, ubicacion,
+                        fechaCreacion, fechaUltimaActualizacion, productoBaseSku, talla, color,
+                        estado >= 0 ? estados[estado] : null));
+            }
+            return new Contenido(capturadoEn, ultimoMovimientoId, vistas);
+        }
+    }
+
+    private static void escribirFecha(DataOutputStream out, LocalDateTime fecha) throws IOException {
+        out.writeLong(fecha != null ? fecha.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        out.writeInt(fecha != null ? fecha.getNano() : 0);
+    }
+
+    private static LocalDateTime leerFecha(MappedByteBuffer buffer) {
+        long segundo = buffer.getLong();
+        int nano = buffer.getInt();
+        return segundo != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(segundo, nano, ZoneOffset.UTC) : null;
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(MappedByteBuffer buffer) {
+        short largo = buffer.getShort();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
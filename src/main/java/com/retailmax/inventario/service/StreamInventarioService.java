@@ -0,0 +1,249 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.dto.AlertaInventarioDTO;
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Stream SSE de cambios de inventario para dashboards y la web (inventario.stream.habilitado=true): cada cambio
+ * confirmado de un producto se envía como ProductoInventarioDTO (evento "producto" o "producto-eliminado") y cada
+ * alerta como AlertaInventarioDTO (evento "alerta"), solo a los suscriptores cuyo filtro de SKUs y ubicaciones lo
+ * acepta. El JSON de cada evento se arma una vez, no una por suscriptor.
+ * <p>
+ * Los listeners solo dejan el evento en el buffer de cada suscriptor; el envío lo hace un hilo virtual por
+ * suscriptor, así una conexión lenta no demora el commit ni a las demás. El buffer es acotado (capacidad-buffer):
+ * lleno, se descarta el evento más antiguo y el suscriptor recibe un evento "descartados" con la cantidad, para que
+ * vuelva a leer el estado con los endpoints de consulta.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventario.stream.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+public class StreamInventarioService {
+
+    private final ProductoInventarioService productoInventarioService;
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${inventario.stream.capacidad-buffer:256}")
+    private int capacidadBuffer = 256;
+
+    @Value("${inventario.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envio = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-", 0).factory());
+    private final AtomicLong secuencia = new AtomicLong();
+
+    /** SKUs y ubicaciones que acepta un suscriptor; un conjunto vacío acepta cualquiera. */
+    public record FiltroStream(Set<String> skus, Set<String> ubicaciones) {
+
+        public static FiltroStream de(Collection<String> skus, Collection<String> ubicaciones) {
+            return new FiltroStream(normalizar(skus), normalizar(ubicaciones));
+        }
+
+        private static Set<String> normalizar(Collection<String> valores) {
+            return valores == null ? Set.of() : valores.stream()
+                    .map(String::trim)
+                    .filter(valor -> !valor.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        boolean acepta(String sku, String ubicacion) {
+            return (skus.isEmpty() || skus.contains(sku))
+                    && (ubicaciones.isEmpty() || (ubicacion != null && ubicaciones.contains(ubicacion)));
+        }
+    }
+
+    private record Evento(long id, String nombre, String datos) {
+    }
+
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        private final FiltroStream filtro;
+        private final ArrayDeque<Evento> buffer = new ArrayDeque<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private long descartados;
+        private volatile boolean cerrado;
+
+        private Suscriptor(SseEmitter emitter, FiltroStream filtro) {
+            this.emitter = emitter;
+            this.filtro = filtro;
+        }
+
+        private void encolar(Evento evento) {
+            synchronized (buffer) {
+                if (buffer.size() >= capacidadBuffer) {
+                    buffer.pollFirst();
+                    descartados++;
+                }
+                buffer.addLast(evento);
+            }
+            programarEnvio();
+        }
+
+        private void programarEnvio() {
+            if (!cerrado && enviando.compareAndSet(false, true)) {
+                envio.execute(this::enviar);
+            }
+        }
+
+        // Un solo envío a la vez por suscriptor: SseEmitter no admite escrituras concurrentes
+        private void enviar() {
+            try {
+                while (!cerrado) {
+                    Evento evento;
+                    long perdidos;
+                    synchronized (buffer) {
+                        evento = buffer.pollFirst();
+                        perdidos = descartados;
+                        descartados = 0;
+                    }
+                    if (evento == null) {
+                        break;
+                    }
+                    if (perdidos > 0) {
+                        emitter.send(SseEmitter.event().name("descartados").data(perdidos));
+                    }
+                    emitter.send(evento.nombre() == null ? SseEmitter.event().comment(evento.datos())
+                            : SseEmitter.event().id(Long.toString(evento.id())).name(evento.nombre()).data(evento.datos()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Suscriptor SSE desconectado: {}", e.getMessage());
+                cerrar();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                enviando.set(false);
+            }
+            // Lo encolado entre el último poll y liberar el envío no debe quedar esperando al próximo evento
+            boolean pendiente;
+            synchronized (buffer) {
+                pendiente = !buffer.isEmpty();
+            }
+            if (pendiente) {
+                programarEnvio();
+            }
+        }
+
+        private void cerrar() {
+            cerrado = true;
+            suscriptores.remove(this);
+        }
+    }
+
+    public SseEmitter suscribir(FiltroStream filtro) {
+        return suscribir(new SseEmitter(timeoutMs), filtro);
+    }
+
+    SseEmitter suscribir(SseEmitter emitter, FiltroStream filtro) {
+        Suscriptor suscriptor = new Suscriptor(emitter, filtro);
+        emitter.onCompletion(suscriptor::cerrar);
+        emitter.onTimeout(suscriptor::cerrar);
+        emitter.onError(e -> suscriptor.cerrar());
+        suscriptores.add(suscriptor);
+        log.debug("Suscriptor SSE agregado (skus={}, ubicaciones={}); {} activos",
+                filtro.skus(), filtro.ubicaciones(), suscriptores.size());
+        return emitter;
+    }
+
+    public int suscriptoresActivos() {
+        return suscriptores.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarProducto(ProductoInventarioActualizadoEvent event) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        ProductoInventario producto = event.getProducto();
+        publicar(event.isEliminado() ? "producto-eliminado" : "producto", producto.getSku(),
+                producto.getUbicacionAlmacen(), productoInventarioService.mapToDTO(producto));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alPublicarAlerta(AlertaInventarioEvent event) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        // La alerta no trae la ubicación: se lee solo si algún suscriptor filtra por ubicación
+        String ubicacion = null;
+        if (suscriptores.stream().anyMatch(suscriptor -> !suscriptor.filtro.ubicaciones().isEmpty())) {
+            ubicacion = productoInventarioRepository.findBySku(event.getSku())
+                    .map(ProductoInventario::getUbicacionAlmacen)
+                    .orElse(null);
+        }
+        publicar("alerta", event.getSku(), ubicacion, AlertaInventarioDTO.builder()
+                .sku(event.getSku())
+                .tipoAlerta(event.getTipoAlerta().name())
+                .umbralCantidad(event.getUmbralCantidad())
+                .cantidadDisponible(event.getCantidadDisponible())
+                .activa(event.isActiva())
+                .fecha(event.getFecha())
+                .build());
+    }
+
+    // Comentario SSE periódico: mantiene abiertas las conexiones inactivas y detecta las que se cortaron
+    @Scheduled(fixedDelayString = "${inventario.stream.intervalo-latido-ms:30000}")
+    public void enviarLatido() {
+        for (Suscriptor suscriptor : suscriptores) {
+            boolean vacio;
+            synchronized (suscriptor.buffer) {
+                vacio = suscriptor.buffer.isEmpty();
+            }
+            if (vacio) {
+                suscriptor.encolar(new Evento(0, null, "latido"));
+            }
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.cerrar();
+            suscriptor.emitter.complete();
+        }
+        envio.shutdownNow();
+    }
+
+    private void publicar(String nombre, String sku, String ubicacion, Object datos) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el evento SSE {} del SKU {}", nombre, sku, e);
+            return;
+        }
+        Evento evento = new Evento(secuencia.incrementAndGet(), nombre, json);
+        for (Suscriptor suscriptor : suscriptores) {
+            if (suscriptor.filtro.acepta(sku, ubicacion)) {
+                suscriptor.encolar(evento);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.enums.EstadoStock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Tabla de estado por SKU fuera del heap: un registro de ancho fijo por SKU en bloques de ByteBuffer directos,
+ * así millones de SKUs no agregan objetos que el GC tenga que recorrer. La posición del registro es el ID del SKU
+ * en DiccionarioSku; quien ya tiene el ID consulta sin calcular el hash del SKU.
+ * <p>
+ * Registro (40 bytes): [versión long][marca long][disponible int][reservada int][en tránsito int][mínima int]
+ * [estado int][relleno int]. La versión es un seqlock: par = estable, impar = en escritura. Un escritor toma el
+ * registro con un CAS de par a impar y lo libera con la versión siguiente; un lector lee sin bloquear y repite
+ * si la versión cambió mientras leía. Versión 0 = registro sin datos, estado -1 = SKU eliminado.
+ */
+final class TablaEstadoSku {
+
+    static final int TAMANO_REGISTRO = 40;
+    private static final int REGISTROS_POR_BLOQUE = 1 << 16;
+
+    private static final int VERSION = 0;
+    private static final int MARCA = 8;
+    private static final int DISPONIBLE = 16;
+    private static final int RESERVADA = 20;
+    private static final int EN_TRANSITO = 24;
+    private static final int MINIMA = 28;
+    private static final int ESTADO = 32;
+    private static final int ELIMINADO = -1;
+
+    private static final VarHandle LARGO = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle ENTERO = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final EstadoStock[] ESTADOS = EstadoStock.values();
+
+    record Registro(int disponible, int reservada, int enTransito, int minima, EstadoStock estado, long version) {
+    }
+
+    private final DiccionarioSku diccionario;
+    private final AtomicReferenceArray<ByteBuffer> bloques;
+
+    TablaEstadoSku(DiccionarioSku diccionario, int capacidadMaxima) {
+        this.diccionario = diccionario;
+        bloques = new AtomicReferenceArray<>((capacidadMaxima + REGISTROS_POR_BLOQUE - 1) / REGISTROS_POR_BLOQUE);
+    }
+
+    // Registros con datos, incluidos los eliminados
+    int tamano() {
+        int total = 0;
+        for (int id = 0; id < limite(); id++) {
+            ByteBuffer bloque = bloques.get(id / REGISTROS_POR_BLOQUE);
+            if (bloque != null && (long) LARGO.getAcquire(bloque, (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO + VERSION) != 0) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Escribe el estado del SKU, registrándolo en el diccionario si es nuevo.
+     * Un estado con marca anterior a la guardada (cambios confirmados fuera de orden) se ignora.
+     */
+    void escribir(String sku, long marca, int disponible, int reservada, int enTransito, int minima, EstadoStock estado) {
+        int id = diccionario.registrar(sku);
+        ByteBuffer bloque = bloqueParaEscribir(id);
+        int base = (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO;
+        long version = bloquear(bloque, base);
+        if (version != 0 && (long) LARGO.getOpaque(bloque, base + MARCA) > marca) {
+            LARGO.setRelease(bloque, base + VERSION, version); // sin cambios: se restituye la misma versión
+            return;
+        }
+        LARGO.setOpaque(bloque, base + MARCA, marca);
+        ENTERO.setOpaque(bloque, base + DISPONIBLE, disponible);
+        ENTERO.setOpaque(bloque, base + RESERVADA, reservada);
+        ENTERO.setOpaque(bloque, base + EN_TRANSITO, enTransito);
+        ENTERO.setOpaque(bloque, base + MINIMA, minima);
+        ENTERO.setOpaque(bloque, base + ESTADO, estado != null ? estado.ordinal() : EstadoStock.DISPONIBLE.ordinal());
+        LARGO.setRelease(bloque, base + VERSION, version + 2);
+    }
+
+    /** Marca el SKU como eliminado; el registro se conserva y se reutiliza si el SKU vuelve a crearse. */
+    void eliminar(String sku, long marca) {
+        int id = diccionario.id(sku);
+        ByteBuffer bloque = bloque(id);
+        if (bloque == null) {
+            return;
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO;
+        long version = bloquear(bloque, base);
+        if ((long) LARGO.getOpaque(bloque, base + MARCA) > marca) {
+            LARGO.setRelease(bloque, base + VERSION, version);
+            return;
+        }
+        LARGO.setOpaque(bloque, base + MARCA, marca);
+        ENTERO.setOpaque(bloque, base + ESTADO, ELIMINADO);
+        LARGO.setRelease(bloque, base + VERSION, version + 2);
+    }
+
+    Optional<Registro> leer(String sku) {
+        return leer(diccionario.id(sku));
+    }
+
+    Optional<Registro> leer(int id) {
+        ByteBuffer bloque = bloque(id);
+        if (bloque == null) {
+            return Optional.empty();
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO;
+        while (true) {
+            long version = (long) LARGO.getAcquire(bloque, base + VERSION);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (version == 0) {
+                return Optional.empty();
+            }
+            int disponible = (int) ENTERO.getOpaque(bloque, base + DISPONIBLE);
+            int reservada = (int) ENTERO.getOpaque(bloque, base + RESERVADA);
+            int enTransito = (int) ENTERO.getOpaque(bloque, base + EN_TRANSITO);
+            int minima = (int) ENTERO.getOpaque(bloque, base + MINIMA);
+            int estado = (int) ENTERO.getOpaque(bloque, base + ESTADO);
+            VarHandle.loadLoadFence();
+            if ((long) LARGO.getOpaque(bloque, base + VERSION) == version) {
+                return estado == ELIMINADO ? Optional.empty()
+                        : Optional.of(new Registro(disponible, reservada, enTransito, minima, ESTADOS[estado], version));
+            }
+        }
+    }
+
+    // Un solo campo de 4 bytes no puede leerse a medias: no hace falta validar la versión
+    OptionalInt disponible(String sku) {
+        return disponible(diccionario.id(sku));
+    }
+
+    OptionalInt disponible(int id) {
+        ByteBuffer bloque = bloque(id);
+        if (bloque == null) {
+            return OptionalInt.empty();
+        }
+        int base = (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO;
+        if ((long) LARGO.getAcquire(bloque, base + VERSION) == 0 || (int) ENTERO.getOpaque(bloque, base + ESTADO) == ELIMINADO) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) ENTERO.getOpaque(bloque, base + DISPONIBLE));
+    }
+
+    List<String> skusConDisponibleMenorQue(int umbral) {
+        return recorrer(disponible -> disponible < umbral);
+    }
+
+    List<String> skusConDisponibleMayorQue(int umbral) {
+        return recorrer(disponible -> disponible > umbral);
+    }
+
+    // Recorrido secuencial de los bloques; solo se resuelve el SKU de los registros que cumplen la condición
+    private List<String> recorrer(IntPredicate condicion) {
+        List<String> resultado = new ArrayList<>();
+        int total = limite();
+        for (int id = 0; id < total; id++) {
+            ByteBuffer bloque = bloques.get(id / REGISTROS_POR_BLOQUE);
+            if (bloque == null) {
+                id += REGISTROS_POR_BLOQUE - 1 - id % REGISTROS_POR_BLOQUE; // Bloque sin escrituras todavía
+                continue;
+            }
+            int base = (id % REGISTROS_POR_BLOQUE) * TAMANO_REGISTRO;
+            if ((long) LARGO.getAcquire(bloque, base + VERSION) == 0) {
+                continue;
+            }
+            if ((int) ENTERO.getOpaque(bloque, base + ESTADO) != ELIMINADO
+                    && condicion.test((int) ENTERO.getOpaque(bloque, base + DISPONIBLE))) {
+                resultado.add(diccionario.sku(id));
+            }
+        }
+        return resultado;
+    }
+
+    private long bloquear(ByteBuffer bloque, int base) {
+        while (true) {
+            long version = (long) LARGO.getVolatile(bloque, base + VERSION);
+            if ((version & 1) == 0 && LARGO.compareAndSet(bloque, base + VERSION, version, version + 1)) {
+                return version;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private int limite() {
+        return Math.min(diccionario.tamano(), bloques.length() * REGISTROS_POR_BLOQUE);
+    }
+
+    private ByteBuffer bloque(int id) {
+        if (id == DiccionarioSku.SIN_ID || id / REGISTROS_POR_BLOQUE >= bloques.length()) {
+            return null;
+        }
+        return bloques.get(id / REGISTROS_POR_BLOQUE);
+    }
+
+    // Los bloques se crean al escribir el primer registro que cae en ellos
+    private ByteBuffer bloqueParaEscribir(int id) {
+        int indiceBloque = id / REGISTROS_POR_BLOQUE;
+        if (indiceBloque >= bloques.length()) {
+            throw new IllegalStateException("La tabla de estado por SKU alcanzó su capacidad máxima (" + bloques.length() * REGISTROS_POR_BLOQUE + ").");
+        }
+        ByteBuffer bloque = bloques.get(indiceBloque);
+        if (bloque == null) {
+            // alignedSlice: los accesos atómicos de VarHandle exigen direcciones alineadas
+            ByteBuffer nuevo = ByteBuffer.allocateDirect(REGISTROS_POR_BLOQUE * TAMANO_REGISTRO + 8)
+                    .alignedSlice(8)
+                    .order(ByteOrder.nativeOrder());
+            bloque = bloques.compareAndSet(indiceBloque, null, nuevo) ? nuevo : bloques.get(indiceBloque);
+        }
+        return bloque;
+    }
+}
@@ -0,0 +1,120 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Saldos por SKU fuera del heap (inventario.tabla-estado.habilitado=true), para verificar disponibilidad
+ * y filtrar por umbral de stock sin consultar la base de datos ni retener millones de objetos en el heap.
+ * Se carga al arrancar y se mantiene con ProductoInventarioActualizadoEvent después de cada commit.
+ * Solo recibe los commits de esta instancia: con varias instancias, las respuestas de validarDisponibilidad y de
+ * los filtros por umbral no ven los cambios hechos en las demás hasta el próximo arranque.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TablaEstadoSkuService {
+
+    private final ProductoInventarioRepository productoInventarioRepository;
+    private final DiccionarioSku diccionarioSku;
+
+    @Value("${inventario.tabla-estado.habilitado:false}")
+    private boolean habilitado = false;
+
+    @Value("${inventario.tabla-estado.capacidad-maxima:8000000}")
+    private int capacidadMaxima = 8_000_000;
+
+    @Value("${inventario.tabla-estado.tamano-pagina-carga:5000}")
+    private int tamanoPaginaCarga = 5000;
+
+    private volatile TablaEstadoSku tabla;
+    private volatile boolean lista;
+
+    public boolean estaLista() {
+        return habilitado && lista;
+    }
+
+    /** Vacío si el SKU no está en la tabla; quien consulta decide si recurre a la base de datos. */
+    public Optional<Boolean> hayDisponible(String sku, int cantidad) {
+        OptionalInt disponible = tabla.disponible(sku);
+        return disponible.isPresent() ? Optional.of(disponible.getAsInt() >= cantidad) : Optional.empty();
+    }
+
+    public List<String> skusConDisponibleMenorQue(int umbral) {
+        return tabla.skusConDisponibleMenorQue(umbral);
+    }
+
+    public List<String> skusConDisponibleMayorQue(int umbral) {
+        return tabla.skusConDisponibleMayorQue(umbral);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarProducto(ProductoInventarioActualizadoEvent event) {
+        TablaEstadoSku actual = tabla;
+        if (!habilitado || actual == null) {
+            return;
+        }
+        ProductoInventario producto = event.getProducto();
+        if (event.isEliminado()) {
+            actual.eliminar(producto.getSku(), marca(producto));
+        } else {
+            escribir(actual, producto);
+        }
+    }
+
+    // La tabla se crea antes de cargar: los cambios confirmados durante la carga se aplican y la marca evita que la carga los pise
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        diccionarioSku.cargar();
+        TablaEstadoSku nueva = new TablaEstadoSku(diccionarioSku, capacidadMaxima);
+        tabla = nueva;
+        long ultimoId = 0;
+        List<ProductoInventario> pagina;
+        do {
+            pagina = productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, tamanoPaginaCarga));
+            for (ProductoInventario producto : pagina) {
+                escribir(nueva, producto);
+                ultimoId = producto.getId();
+            }
+        } while (pagina.size() == tamanoPaginaCarga);
+        lista = true;
+        log.info("Tabla de estado por SKU cargada: {} SKUs en {} ms ({} bytes fuera del heap por SKU)",
+                nueva.tamano(), System.currentTimeMillis() - inicio, TablaEstadoSku.TAMANO_REGISTRO);
+    }
+
+    private static void escribir(TablaEstadoSku tabla, ProductoInventario producto) {
+        tabla.escribir(producto.getSku(), marca(producto),
+                valor(producto.getCantidadDisponible()), valor(producto.getCantidadReservada()),
+                valor(producto.getCantidadEnTransito()), valor(producto.getCantidadMinimaStock()), producto.getEstado());
+    }
+
+    // Microsegundos de la última actualización, para descartar cambios que llegan fuera de orden
+    private static long marca(ProductoInventario producto) {
+        LocalDateTime fecha = producto.getFechaUltimaActualizacion();
+        return fecha != null ? fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + fecha.getNano() / 1000 : 0L;
+    }
+
+    private static int valor(Integer cantidad) {
+        return cantidad != null ? cantidad : 0;
+    }
+}
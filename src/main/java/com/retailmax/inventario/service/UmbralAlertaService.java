@@ -1,17 +1,32 @@
 package com.retailmax.inventario.service;
 
+import com.retailmax.inventario.dto.ResultadoCargaUmbralesDTO;
 import com.retailmax.inventario.dto.UmbralAlertaDTO; // Ahora usamos solo este DTO
+import com.retailmax.inventario.event.UmbralesAlertaCargadosEvent;
 import com.retailmax.inventario.exception.RecursoNoEncontradoException;
 import com.retailmax.inventario.model.UmbralAlerta;
 import com.retailmax.inventario.model.enums.TipoAlerta;
 import com.retailmax.inventario.repository.UmbralAlertaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +34,14 @@ import java.util.stream.Collectors;
 public class UmbralAlertaService {
 
     private final UmbralAlertaRepository umbralAlertaRepository;
+    private final VistaUmbralesActivos vistaUmbralesActivos;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int ERRORES_MAXIMOS = 100;
+
+    // Hasta 1000: la búsqueda del lote es un IN por SKU y Oracle no admite listas más largas
+    @Value("${inventario.umbrales.tamano-lote-carga:1000}")
+    private int tamanoLoteCarga = 1000;
 
     @Transactional
     public UmbralAlertaDTO crearUmbralAlerta(UmbralAlertaDTO requestDTO) { // Usamos el DTO unificado
@@ -48,6 +71,7 @@ public class UmbralAlertaService {
         nuevoUmbral.setTipoAlerta(TipoAlerta.fromName(requestDTO.getTipoAlerta()));
         nuevoUmbral.setUmbralCantidad(requestDTO.getUmbralCantidad());
         nuevoUmbral.setActivo(requestDTO.getActivo());
+        nuevoUmbral.setHisteresis(requestDTO.getHisteresis());
 
         nuevoUmbral.setFechaCreacion(LocalDateTime.now());
         nuevoUmbral.setFechaUltimaActualizacion(LocalDateTime.now());
@@ -71,6 +95,9 @@ public class UmbralAlertaService {
         if (requestDTO.getActivo() != null) {
             umbralExistente.setActivo(requestDTO.getActivo());
         }
+        if (requestDTO.getHisteresis() != null) {
+            umbralExistente.setHisteresis(requestDTO.getHisteresis());
+        }
 
         umbralExistente.setFechaUltimaActualizacion(LocalDateTime.now());
 
@@ -92,19 +119,16 @@ public class UmbralAlertaService {
                 .collect(Collectors.toList());
     }
 
+    // Con la vista habilitada sale de memoria; si no, del índice (tipo_alerta, activo, sku). En ambos casos por SKU
     @Transactional(readOnly = true)
-    public List<UmbralAlertaDTO> consultarUmbralesActivosPorTipo(TipoAlerta tipoAlerta) {
-        // Asumiendo que TipoAlerta ya es el Enum correcto
-        // Si necesitas un método en el repo, lo podrías añadir:
-        // return umbralAlertaRepository.findByTipoAlertaAndActivoTrue(tipoAlerta).stream()
-        //        .map(this::mapToDTO)
-        //        .collect(Collectors.toList());
-
-        // O, si no tienes el método en el repo y solo filtras en memoria (menos eficiente para grandes datasets):
-        return umbralAlertaRepository.findAll().stream()
-                .filter(u -> u.getActivo() && u.getTipoAlerta().equals(tipoAlerta))
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public Page<UmbralAlertaDTO> consultarUmbralesActivosPorTipo(TipoAlerta tipoAlerta, Pageable pageable) {
+        if (vistaUmbralesActivos.estaHabilitada()) {
+            return vistaUmbralesActivos.consultar(tipoAlerta, pageable).map(this::mapToDTO);
+        }
+        Pageable porSku = pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("sku"))
+                : Pageable.unpaged(Sort.by("sku"));
+        return umbralAlertaRepository.findByTipoAlertaAndActivoTrue(tipoAlerta, porSku).map(this::mapToDTO);
     }
 
 
@@ -115,6 +139,204 @@ public class UmbralAlertaService {
         umbralAlertaRepository.delete(umbral);
     }
 
+    /**
+     * Carga masiva: crea o actualiza (como el PUT, solo los campos presentes) el umbral de cada SKU de la lista.
+     * Por cada lote de tamano-lote-carga filas hace una búsqueda por SKU y un MERGE en lotes JDBC, en lugar de una
+     * búsqueda y un save por fila. Las filas inválidas se informan y no detienen la carga. Los umbrales en memoria
+     * (vista por tipo, motor de alertas) se actualizan una sola vez, después del commit.
+     */
+    @Transactional
+    public ResultadoCargaUmbralesDTO cargarUmbrales(List<UmbralAlertaDTO> umbrales) {
+        CargaUmbrales carga = new CargaUmbrales();
+        for (int i = 0; i < umbrales.size(); i++) {
+            carga.agregar(i + 1, umbrales.get(i));
+        }
+        return carga.terminar();
+    }
+
+    /**
+     * Igual que cargarUmbrales, leyendo un CSV sin cargarlo entero: sku,tipoAlerta,umbralCantidad,activo[,histeresis].
+     * La primera línea puede ser el encabezado. Un campo vacío no se modifica (o falta, si el SKU es nuevo).
+     * Los valores no van entre comillas.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ResultadoCargaUmbralesDTO cargarUmbralesCsv(Reader csv) throws IOException {
+        BufferedReader lector = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+        CargaUmbrales carga = new CargaUmbrales();
+        String linea;
+        int numero = 0;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank() || (numero == 1 && linea.trim().toLowerCase().startsWith("sku"))) {
+                continue;
+            }
+            try {
+                carga.agregar(numero, leerLineaCsv(linea));
+            } catch (IllegalArgumentException e) {
+                carga.invalida(numero, e.getMessage());
+            }
+        }
+        return carga.terminar();
+    }
+
+    private static UmbralAlertaDTO leerLineaCsv(String linea) {
+        String[] campos = linea.split(",", -1);
+        if (campos.length < 4 || campos.length > 5) {
+            throw new IllegalArgumentException("Se esperaban 4 o 5 campos (sku,tipoAlerta,umbralCantidad,activo[,histeresis]) y hay " + campos.length + ".");
+        }
+        return UmbralAlertaDTO.builder()
+                .sku(campoCsv(campos, 0, Function.identity()))
+                .tipoAlerta(campoCsv(campos, 1, Function.identity()))
+                .umbralCantidad(campoCsv(campos, 2, Integer::valueOf))
+                .activo(campoCsv(campos, 3, valor -> {
+                    if (!valor.equalsIgnoreCase("true") && !valor.equalsIgnoreCase("false")) {
+                        throw new IllegalArgumentException("El campo activo debe ser true o false: " + valor);
+                    }
+                    return Boolean.valueOf(valor);
+                }))
+                .histeresis(campoCsv(campos, 4, Integer::valueOf))
+                .build();
+    }
+
+    private static <T> T campoCsv(String[] campos, int indice, Function<String, T> conversion) {
+        if (indice >= campos.length || campos[indice].isBlank()) {
+            return null;
+        }
+        return conversion.apply(campos[indice].trim());
+    }
+
+    // Acumula filas por lote; cada lote se busca y se escribe junto
+    private class CargaUmbrales {
+
+        private final LocalDateTime ahora = LocalDateTime.now();
+        private final Map<String, UmbralAlertaDTO> lote = new LinkedHashMap<>();
+        private final Map<String, Integer> filas = new LinkedHashMap<>(); // SKU -> fila, para los mensajes de error
+        private final List<UmbralAlerta> aplicados = new ArrayList<>();
+        private final List<String> errores = new ArrayList<>();
+        private int recibidos;
+        private int creados;
+        private int actualizados;
+        private int rechazados;
+
+        private void agregar(int fila, UmbralAlertaDTO dto) {
+            recibidos++;
+            if (dto == null || dto.getSku() == null || dto.getSku().isBlank()) {
+                rechazar(fila, "El SKU es obligatorio.");
+                return;
+            }
+            String sku = dto.getSku().trim();
+            // Si el SKU se repite dentro del lote, vale la última fila
+            lote.put(sku, dto);
+            filas.put(sku, fila);
+            if (lote.size() >= Math.min(tamanoLoteCarga, 1000)) {
+                procesarLote();
+            }
+        }
+
+        // Línea de CSV que no se pudo leer
+        private void invalida(int fila, String motivo) {
+            recibidos++;
+            rechazar(fila, motivo);
+        }
+
+        private void rechazar(int fila, String motivo) {
+            rechazados++;
+            if (errores.size() < ERRORES_MAXIMOS) {
+                errores.add("Fila " + fila + ": " + motivo);
+            }
+        }
+
+        private void procesarLote() {
+            Map<String, UmbralAlerta> existentes = new LinkedHashMap<>();
+            umbralAlertaRepository.findCopiasBySkuIn(lote.keySet()).forEach(umbral -> existentes.put(umbral.getSku(), umbral));
+            List<UmbralAlerta> escritos = new ArrayList<>(lote.size());
+            List<String> nuevos = new ArrayList<>();
+            for (Map.Entry<String, UmbralAlertaDTO> entrada : lote.entrySet()) {
+                UmbralAlerta umbral = existentes.get(entrada.getKey());
+                try {
+                    if (umbral == null) {
+                        umbral = nuevoUmbral(entrada.getKey(), entrada.getValue());
+                        nuevos.add(umbral.getSku());
+                    } else {
+                        aplicarCambios(umbral, entrada.getValue());
+                    }
+                } catch (IllegalArgumentException e) {
+                    rechazar(filas.get(entrada.getKey()), "SKU " + entrada.getKey() + ": " + e.getMessage());
+                    continue;
+                }
+                escritos.add(umbral);
+            }
+            if (!escritos.isEmpty()) {
+                umbralAlertaRepository.mergePorSku(escritos);
+            }
+            if (!nuevos.isEmpty()) {
+                Map<String, UmbralAlerta> porSku = new LinkedHashMap<>();
+                escritos.forEach(umbral -> porSku.put(umbral.getSku(), umbral));
+                for (Object[] fila : umbralAlertaRepository.findIdsBySkuIn(nuevos)) {
+                    porSku.get((String) fila[0]).setId((Long) fila[1]);
+                }
+            }
+            creados += nuevos.size();
+            actualizados += escritos.size() - nuevos.size();
+            aplicados.addAll(escritos);
+            lote.clear();
+            filas.clear();
+        }
+
+        private UmbralAlerta nuevoUmbral(String sku, UmbralAlertaDTO dto) {
+            if (dto.getTipoAlerta() == null || dto.getTipoAlerta().isBlank()) {
+                throw new IllegalArgumentException("El tipo de alerta es obligatorio para crear un umbral de alerta.");
+            }
+            if (dto.getUmbralCantidad() == null) {
+                throw new IllegalArgumentException("La cantidad del umbral es obligatoria para crear un umbral de alerta.");
+            }
+            if (dto.getActivo() == null) {
+                throw new IllegalArgumentException("El estado activo es obligatorio para crear un umbral de alerta.");
+            }
+            UmbralAlerta umbral = new UmbralAlerta(null, sku, null, null, null, null, ahora, ahora);
+            aplicarCambios(umbral, dto);
+            return umbral;
+        }
+
+        private void aplicarCambios(UmbralAlerta umbral, UmbralAlertaDTO dto) {
+            if (dto.getUmbralCantidad() != null && dto.getUmbralCantidad() < 0) {
+                throw new IllegalArgumentException("La cantidad del umbral no puede ser negativa");
+            }
+            if (dto.getHisteresis() != null && dto.getHisteresis() < 0) {
+                throw new IllegalArgumentException("La histéresis no puede ser negativa");
+            }
+            if (dto.getTipoAlerta() != null && !dto.getTipoAlerta().isBlank()) {
+                umbral.setTipoAlerta(TipoAlerta.fromName(dto.getTipoAlerta()));
+            }
+            if (dto.getUmbralCantidad() != null) {
+                umbral.setUmbralCantidad(dto.getUmbralCantidad());
+            }
+            if (dto.getActivo() != null) {
+                umbral.setActivo(dto.getActivo());
+            }
+            if (dto.getHisteresis() != null) {
+                umbral.setHisteresis(dto.getHisteresis());
+            }
+            umbral.setFechaUltimaActualizacion(ahora);
+        }
+
+        private ResultadoCargaUmbralesDTO terminar() {
+            if (!lote.isEmpty()) {
+                procesarLote();
+            }
+            if (!aplicados.isEmpty()) {
+                eventPublisher.publishEvent(new UmbralesAlertaCargadosEvent(aplicados));
+            }
+            return ResultadoCargaUmbralesDTO.builder()
+                    .recibidos(recibidos)
+                    .creados(creados)
+                    .actualizados(actualizados)
+                    .rechazados(rechazados)
+                    .errores(errores)
+                    .build();
+        }
+    }
+
     // Método de mapeo de entidad a DTO (ahora siempre usa el mismo DTO)
     private UmbralAlertaDTO mapToDTO(UmbralAlerta umbralAlerta) {
         return UmbralAlertaDTO.builder()
@@ -123,6 +345,7 @@ public class UmbralAlertaService {
                 .tipoAlerta(umbralAlerta.getTipoAlerta().name()) // Convertir Enum a String para el DTO
                 .umbralCantidad(umbralAlerta.getUmbralCantidad())
                 .activo(umbralAlerta.getActivo())
+                .histeresis(umbralAlerta.getHisteresis())
                 .fechaCreacion(umbralAlerta.getFechaCreacion())
                 .fechaUltimaActualizacion(umbralAlerta.getFechaUltimaActualizacion())
                 .build();
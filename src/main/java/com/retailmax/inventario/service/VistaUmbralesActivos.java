@@ -0,0 +1,191 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.UmbralAlertaActualizadoEvent;
+import com.retailmax.inventario.event.UmbralesAlertaCargadosEvent;
+import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Umbrales activos por tipo de alerta, ordenados por SKU, para paginar sin consultar la base de datos
+ * (inventario.umbrales.vista.habilitado=true; deshabilitada, UmbralAlertaService pagina en la base de datos).
+ * Cada tipo se carga la primera vez que se consulta (consulta por índice, por SKU) y desde ahí se mantiene con
+ * UmbralAlertaActualizadoEvent, que cubre altas, cambios y bajas hechos por cualquier camino, y con
+ * UmbralesAlertaCargadosEvent para las cargas masivas.
+ * <p>
+ * Las páginas salen de un arreglo ordenado que se rearma en la primera lectura después de un cambio:
+ * una carga masiva de umbrales cuesta un solo rearmado, y leer una página cuesta lo mismo sea cual sea.
+ * <p>
+ * La vista es de esta instancia: solo ve los cambios confirmados aquí. Con varias instancias escribiendo umbrales,
+ * cada una muestra los suyos más lo que leyó al cargar, así que conviene habilitarla solo donde los umbrales se
+ * escriben desde una única instancia.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VistaUmbralesActivos {
+
+    private final UmbralAlertaRepository umbralAlertaRepository;
+
+    @Value("${inventario.umbrales.vista.habilitado:false}")
+    private boolean habilitada = false;
+
+    @Value("${inventario.umbrales.tamano-pagina-carga:2000}")
+    private int tamanoPaginaCarga = 2000;
+
+    private final Map<TipoAlerta, Vista> vistas = new EnumMap<>(TipoAlerta.class);
+
+    {
+        for (TipoAlerta tipo : TipoAlerta.values()) {
+            vistas.put(tipo, new Vista(tipo));
+        }
+    }
+
+    // Arreglo ordenado y la versión de la vista con la que se armó
+    private record Orden(long version, UmbralAlerta[] umbrales) {
+    }
+
+    private static final class Vista {
+        private final TipoAlerta tipo;
+        private final Object carga = new Object();
+        private final ConcurrentSkipListMap<String, UmbralAlerta> porSku = new ConcurrentSkipListMap<>();
+        private List<UmbralAlertaActualizadoEvent> pendientes; // Cambios que llegan mientras se carga
+        private volatile boolean cargada;
+        private volatile long version;
+        private volatile Orden orden;
+
+        private Vista(TipoAlerta tipo) {
+            this.tipo = tipo;
+        }
+    }
+
+    public boolean estaHabilitada() {
+        return habilitada;
+    }
+
+    /** Página de los umbrales activos del tipo, por SKU; el orden pedido en el Pageable no se aplica. */
+    public Page<UmbralAlerta> consultar(TipoAlerta tipo, Pageable pageable) {
+        List<UmbralAlerta> umbrales = Arrays.asList(ordenados(tipo));
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(umbrales, pageable, umbrales.size());
+        }
+        int desde = (int) Math.min(pageable.getOffset(), umbrales.size());
+        int hasta = Math.min(umbrales.size(), desde + pageable.getPageSize());
+        return new PageImpl<>(umbrales.subList(desde, hasta), pageable, umbrales.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alActualizarUmbral(UmbralAlertaActualizadoEvent event) {
+        aplicarATodas(List.of(event));
+    }
+
+    // Toda la carga entra con un solo cambio de versión por vista: un solo rearmado del orden
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCargarUmbrales(UmbralesAlertaCargadosEvent event) {
+        aplicarATodas(event.getUmbrales().stream().map(umbral -> new UmbralAlertaActualizadoEvent(umbral, false)).toList());
+    }
+
+    private void aplicarATodas(List<UmbralAlertaActualizadoEvent> cambios) {
+        // Un cambio de tipo saca el SKU de la vista anterior, por eso se aplica a todas las vistas.
+        // Una vista sin cargar lo ignora: la carga leerá el estado confirmado.
+        for (Vista vista : vistas.values()) {
+            synchronized (vista) {
+                if (vista.pendientes != null) {
+                    vista.pendientes.addAll(cambios);
+                } else if (vista.cargada) {
+                    boolean cambio = false;
+                    for (UmbralAlertaActualizadoEvent event : cambios) {
+                        cambio |= aplicar(vista, event);
+                    }
+                    if (cambio) {
+                        vista.version++;
+                    }
+                }
+            }
+        }
+    }
+
+    private UmbralAlerta[] ordenados(TipoAlerta tipo) {
+        Vista vista = vistas.get(tipo);
+        if (!vista.cargada) {
+            cargar(vista);
+        }
+        long version = vista.version;
+        Orden orden = vista.orden;
+        if (orden == null || orden.version() != version) {
+            // Si cambia mientras se arma, la versión guardada queda vieja y la próxima lectura lo rearma
+            orden = new Orden(version, vista.porSku.values().toArray(new UmbralAlerta[0]));
+            vista.orden = orden;
+        }
+        return orden.umbrales();
+    }
+
+    private void cargar(Vista vista) {
+        synchronized (vista.carga) {
+            if (vista.cargada) {
+                return;
+            }
+            synchronized (vista) {
+                vista.pendientes = new ArrayList<>();
+            }
+            long inicio = System.currentTimeMillis();
+            String ultimoSku = null;
+            List<UmbralAlerta> pagina;
+            try {
+                do {
+                    pagina = ultimoSku == null
+                            ? umbralAlertaRepository.findByTipoAlertaAndActivoTrueOrderBySkuAsc(
+                                    vista.tipo, PageRequest.of(0, tamanoPaginaCarga))
+                            : umbralAlertaRepository.findByTipoAlertaAndActivoTrueAndSkuGreaterThanOrderBySkuAsc(
+                                    vista.tipo, ultimoSku, PageRequest.of(0, tamanoPaginaCarga));
+                    for (UmbralAlerta umbral : pagina) {
+                        vista.porSku.put(umbral.getSku(), umbral);
+                        ultimoSku = umbral.getSku();
+                    }
+                } while (pagina.size() == tamanoPaginaCarga);
+            } catch (RuntimeException e) {
+                synchronized (vista) {
+                    vista.pendientes = null;
+                    vista.porSku.clear();
+                }
+                throw e;
+            }
+            synchronized (vista) {
+                // Los cambios confirmados durante la carga se aplican encima de lo leído
+                vista.pendientes.forEach(pendiente -> aplicar(vista, pendiente));
+                vista.pendientes = null;
+                vista.version++;
+                vista.cargada = true;
+            }
+            log.info("Vista de umbrales activos {} cargada: {} umbrales en {} ms", vista.tipo, vista.porSku.size(),
+                    System.currentTimeMillis() - inicio);
+        }
+    }
+
+    // Devuelve si la vista cambió
+    private static boolean aplicar(Vista vista, UmbralAlertaActualizadoEvent event) {
+        UmbralAlerta umbral = event.getUmbral();
+        if (!event.isEliminado() && Boolean.TRUE.equals(umbral.getActivo()) && umbral.getTipoAlerta() == vista.tipo) {
+            vista.porSku.put(umbral.getSku(), umbral);
+            return true;
+        }
+        return vista.porSku.remove(umbral.getSku()) != null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.retailmax.inventario.assemblers;
+
+import com.retailmax.inventario.controller.MovimientoStockController;
+import com.retailmax.inventario.controller.ProductoInventarioController;
+import com.retailmax.inventario.dto.MovimientoStockDTO;
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Enlaces HATEOAS de una colección con linkTo(methodOn(...)) por elemento frente a los assemblers con PlantillaEnlace.
+ * Cada operación arma la colección completa dentro de un pedido nuevo, como un GET de lista. No corre con los
+ * tests; se ejecuta con el perfil benchmark:
+ * mvn -Pbenchmark test -Djmh.args="EnlacesHateoas -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EnlacesHateoasBenchmark {
+
+    @Param({"10000"})
+    public int cantidad;
+
+    private List<ProductoInventarioDTO> productos;
+    private List<MovimientoStockDTO> movimientos;
+    private ProductoInventarioModelAssembler productoAssembler;
+    private MovimientoStockModelAssembler movimientoAssembler;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        productos = new ArrayList<>(cantidad);
+        movimientos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            String sku = String.format("SKU-%08d", i);
+            productos.add(ProductoInventarioDTO.builder().id((long) i).sku(sku).cantidadDisponible(i % 500).build());
+            movimientos.add(MovimientoStockDTO.builder().id((long) i).sku(sku).cantidadMovida(1).build());
+        }
+        productoAssembler = new ProductoInventarioModelAssembler();
+        movimientoAssembler = new MovimientoStockModelAssembler();
+    }
+
+    // Un pedido nuevo por operación: la base cacheada no pasa de una colección a la siguiente
+    @Setup(Level.Invocation)
+    public void nuevoPedido() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/inventario/productos");
+        request.setServerName("inventario.retailmax.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void terminarPedido() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<EntityModel<ProductoInventarioDTO>> productosLinkTo() {
+        List<EntityModel<ProductoInventarioDTO>> modelos = new ArrayList<>(productos.size());
+        for (ProductoInventarioDTO producto : productos) {
+            modelos.add(EntityModel.of(producto,
+                    linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(producto.getSku())).withSelfRel(),
+                    linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()).withRel("productos")));
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public List<EntityModel<ProductoInventarioDTO>> productosPlantilla() {
+        List<EntityModel<ProductoInventarioDTO>> modelos = new ArrayList<>(productos.size());
+        for (ProductoInventarioDTO producto : productos) {
+            modelos.add(productoAssembler.toModel(producto));
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public List<EntityModel<MovimientoStockDTO>> movimientosLinkTo() {
+        List<EntityModel<MovimientoStockDTO>> modelos = new ArrayList<>(movimientos.size());
+        for (MovimientoStockDTO movimiento : movimientos) {
+            modelos.add(EntityModel.of(movimiento,
+                    linkTo(methodOn(MovimientoStockController.class).getMovimientoById(movimiento.getId())).withSelfRel(),
+                    linkTo(methodOn(MovimientoStockController.class).obtenerHistorialMovimientos(movimiento.getSku())).withRel("movimientos-del-sku"),
+                    linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(movimiento.getSku())).withRel("producto-asociado")));
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public List<EntityModel<MovimientoStockDTO>> movimientosPlantilla() {
+        List<EntityModel<MovimientoStockDTO>> modelos = new ArrayList<>(movimientos.size());
+        for (MovimientoStockDTO movimiento : movimientos) {
+            modelos.add(movimientoAssembler.toModel(movimiento));
+        }
+        return modelos;
+    }
+}
@@ -0,0 +1,93 @@
+package com.retailmax.inventario.assemblers;
+
+import com.retailmax.inventario.controller.MovimientoStockController;
+import com.retailmax.inventario.controller.ProductoInventarioController;
+import com.retailmax.inventario.controller.UmbralAlertaController;
+import com.retailmax.inventario.dto.MovimientoStockDTO;
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.dto.UmbralAlertaDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class PlantillaEnlaceTest {
+
+    // SKUs con caracteres que la ruta debe codificar
+    private static final List<String> SKUS = List.of("SKU001", "SKU 002", "CAM/ROJA-M", "ÑANDÚ-01", "A+B;C", "100%");
+
+    private final ProductoInventarioModelAssembler productos = new ProductoInventarioModelAssembler();
+    private final MovimientoStockModelAssembler movimientos = new MovimientoStockModelAssembler();
+    private final UmbralAlertaModelAssembler umbrales = new UmbralAlertaModelAssembler();
+
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/inventario/api/inventario/productos");
+        request.setScheme("https");
+        request.setServerName("tienda.retailmax.com");
+        request.setServerPort(8443);
+        request.setContextPath("/inventario");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void toModel_GeneraLosMismosEnlacesQueLinkToMethodOn() {
+        for (String sku : SKUS) {
+            EntityModel<ProductoInventarioDTO> producto = productos.toModel(ProductoInventarioDTO.builder().sku(sku).build());
+            assertEquals(enlaces(List.of(
+                    linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(sku)).withSelfRel(),
+                    linkTo(methodOn(ProductoInventarioController.class).consultarTodosLosProductos()).withRel("productos"))),
+                    enlaces(producto.getLinks().toList()), sku);
+
+            MovimientoStockDTO dto = MovimientoStockDTO.builder().id(42L).sku(sku).build();
+            assertEquals(enlaces(List.of(
+                    linkTo(methodOn(MovimientoStockController.class).getMovimientoById(42L)).withSelfRel(),
+                    linkTo(methodOn(MovimientoStockController.class).obtenerHistorialMovimientos(sku)).withRel("movimientos-del-sku"),
+                    linkTo(methodOn(ProductoInventarioController.class).consultarProductoPorSku(sku)).withRel("producto-asociado"))),
+                    enlaces(movimientos.toModel(dto).getLinks().toList()), sku);
+
+            UmbralAlertaDTO umbral = new UmbralAlertaDTO();
+            umbral.setSku(sku);
+            assertEquals(enlaces(List.of(
+                    linkTo(methodOn(UmbralAlertaController.class).getUmbralBySku(sku)).withSelfRel(),
+                    linkTo(methodOn(UmbralAlertaController.class).getAllUmbrales()).withRel("umbrales"))),
+                    enlaces(umbrales.toModel(umbral).getLinks().toList()), sku);
+        }
+    }
+
+    @Test
+    void base_SeResuelveUnaVezPorPedido() {
+        assertEquals("https://tienda.retailmax.com:8443/inventario", PlantillaEnlace.base());
+
+        MockHttpServletRequest otro = new MockHttpServletRequest("GET", "/api/inventario/productos");
+        otro.setServerName("pos.local");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(otro));
+        Link self = productos.toModel(ProductoInventarioDTO.builder().sku("SKU001").build()).getRequiredLink("self");
+        assertEquals("http://pos.local/api/inventario/productos/SKU001", self.getHref());
+
+        // Fuera de un pedido los enlaces quedan relativos a la raíz
+        RequestContextHolder.resetRequestAttributes();
+        assertEquals("/api/inventario/productos/SKU001",
+                productos.toModel(ProductoInventarioDTO.builder().sku("SKU001").build()).getRequiredLink("self").getHref());
+    }
+
+    // Relación y href, lo que llega al JSON HAL
+    private static List<String> enlaces(List<Link> links) {
+        return links.stream().map(link -> link.getRel().value() + " " + link.getHref()).toList();
+    }
+}
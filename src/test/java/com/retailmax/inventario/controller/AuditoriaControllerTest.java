@@ -1,7 +1,10 @@
 package com.retailmax.inventario.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.model.MovimientoStock;
 import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,8 +35,12 @@ public class AuditoriaControllerTest {
     @Autowired
     private ProductoInventarioRepository productoInventarioRepository;
 
+    @Autowired
+    private MovimientoStockRepository movimientoStockRepository;
+
     @BeforeEach
     void setup() {
+        movimientoStockRepository.deleteAll();
         productoInventarioRepository.deleteAll();
     }
 
@@ -60,7 +67,8 @@ public class AuditoriaControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(stockFisico)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$.discrepancias", hasSize(0)))
+                .andExpect(jsonPath("$.fechaSnapshot", notNullValue()));
     }
 
     @Test
@@ -86,12 +94,12 @@ public class AuditoriaControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(stockFisico)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].sku", is("SKU-DESC")))
-                .andExpect(jsonPath("$[0].stockSistema", is(10)))
-                .andExpect(jsonPath("$[0].stockFisico", is(7)))
-                .andExpect(jsonPath("$[0].diferencia", is(-3)))
-                .andExpect(jsonPath("$[0].motivo", containsString("Diferencia")));
+                .andExpect(jsonPath("$.discrepancias", hasSize(1)))
+                .andExpect(jsonPath("$.discrepancias[0].sku", is("SKU-DESC")))
+                .andExpect(jsonPath("$.discrepancias[0].stockSistema", is(10)))
+                .andExpect(jsonPath("$.discrepancias[0].stockFisico", is(7)))
+                .andExpect(jsonPath("$.discrepancias[0].diferencia", is(-3)))
+                .andExpect(jsonPath("$.discrepancias[0].motivo", containsString("Diferencia")));
     }
 
     @Test
@@ -104,12 +112,12 @@ public class AuditoriaControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(stockFisico)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].sku", is("SKU-NOEXISTE")))
-                .andExpect(jsonPath("$[0].stockSistema", is(0)))
-                .andExpect(jsonPath("$[0].stockFisico", is(5)))
-                .andExpect(jsonPath("$[0].diferencia", is(5)))
-                .andExpect(jsonPath("$[0].motivo", containsString("no registrado")));
+                .andExpect(jsonPath("$.discrepancias", hasSize(1)))
+                .andExpect(jsonPath("$.discrepancias[0].sku", is("SKU-NOEXISTE")))
+                .andExpect(jsonPath("$.discrepancias[0].stockSistema", is(0)))
+                .andExpect(jsonPath("$.discrepancias[0].stockFisico", is(5)))
+                .andExpect(jsonPath("$.discrepancias[0].diferencia", is(5)))
+                .andExpect(jsonPath("$.discrepancias[0].motivo", containsString("no registrado")));
     }
 
     @Test
@@ -119,6 +127,54 @@ public class AuditoriaControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(stockFisico)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$.discrepancias", hasSize(0)));
+    }
+
+    @Test
+    void testConciliacion_DetectaYReparaDesviacion() throws Exception {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setSku("SKU-CONC");
+        producto.setCantidadDisponible(10);
+        producto.setCantidadMinimaStock(1);
+        producto.setCantidadReservada(0);
+        producto.setCantidadEnTransito(0);
+        producto.setStock(10);
+        producto.setUbicacionAlmacen("A1");
+        producto.setActivo(true);
+        producto.setFechaCreacion(LocalDateTime.now());
+        producto.setFechaUltimaActualizacion(LocalDateTime.now());
+        producto = productoInventarioRepository.save(producto);
+
+        // El historial solo justifica 6 unidades: entrada de 8 y salida registrada en negativo de 2
+        movimientoStockRepository.save(movimiento(producto, TipoMovimiento.ENTRADA, 8, 8));
+        movimientoStockRepository.save(movimiento(producto, TipoMovimiento.SALIDA, -2, 6));
+
+        mockMvc.perform(post("/api/auditoria/conciliacion"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modoReparacion", is(false)))
+                .andExpect(jsonPath("$.desviaciones", hasSize(1)))
+                .andExpect(jsonPath("$.desviaciones[0].sku", is("SKU-CONC")))
+                .andExpect(jsonPath("$.desviaciones[0].saldoSegunMovimientos", is(6)))
+                .andExpect(jsonPath("$.desviaciones[0].diferencia", is(4)));
+
+        mockMvc.perform(post("/api/auditoria/conciliacion").param("reparar", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.desviaciones[0].reparado", is(true)));
+
+        mockMvc.perform(post("/api/auditoria/conciliacion"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.desviaciones", hasSize(0)));
+    }
+
+    private MovimientoStock movimiento(ProductoInventario producto, TipoMovimiento tipo, int cantidad, int stockFinal) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setProductoInventario(producto);
+        movimiento.setSku(producto.getSku());
+        movimiento.setTipoMovimiento(tipo);
+        movimiento.setCantidadMovida(cantidad);
+        movimiento.setStockFinalDespuesMovimiento(stockFinal);
+        movimiento.setMotivo(tipo.getDescripcion());
+        movimiento.setFechaMovimiento(LocalDateTime.now());
+        return movimiento;
     }
 }
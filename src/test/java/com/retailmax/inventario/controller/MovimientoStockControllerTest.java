@@ -5,6 +5,7 @@ import com.retailmax.inventario.model.ProductoInventario;
 import com.retailmax.inventario.model.enums.TipoMovimiento;
 import com.retailmax.inventario.repository.MovimientoStockRepository;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ResumenMovimientoDiarioRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,18 +13,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.MediaType;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Sin ventana de confirmación el feed entrega enseguida los movimientos que registra el test
+@SpringBootTest(properties = "inventario.feed.ventana-confirmacion-ms=0")
 @AutoConfigureMockMvc
 public class MovimientoStockControllerTest {
 
@@ -36,6 +44,9 @@ public class MovimientoStockControllerTest {
     @Autowired
     private ProductoInventarioRepository productoInventarioRepository;
 
+    @Autowired
+    private ResumenMovimientoDiarioRepository resumenMovimientoDiarioRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -48,6 +59,7 @@ public class MovimientoStockControllerTest {
     void setup() {
         movimientoStockRepository.deleteAll();
         productoInventarioRepository.deleteAll();
+        resumenMovimientoDiarioRepository.deleteAll();
 
         // Create products to associate movements with
         producto1 = new ProductoInventario();
@@ -139,6 +151,56 @@ public class MovimientoStockControllerTest {
                 .andExpect(jsonPath("$._embedded.movimientoStockDTOList[1].sku", is(producto1.getSku())));
     }
 
+    @Test
+    void testObtenerHistorialMovimientos_RepresentacionLigera() throws Exception {
+        createAndSaveMovimiento(producto1, TipoMovimiento.ENTRADA, 20);
+        createAndSaveMovimiento(producto1, TipoMovimiento.SALIDA, -5);
+
+        mockMvc.perform(get(BASE_URL + "/" + producto1.getSku())
+                        .accept(RepresentacionLigera.TIPO))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(RepresentacionLigera.TIPO))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].sku", is(producto1.getSku())))
+                .andExpect(jsonPath("$[0]._links").doesNotExist());
+    }
+
+    @Test
+    void testGetMovimientoById_RepresentacionLigera() throws Exception {
+        MovimientoStock movimiento = createAndSaveMovimiento(producto1, TipoMovimiento.AJUSTE, 2);
+
+        mockMvc.perform(get(BASE_URL + "/id/" + movimiento.getId())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id", is(movimiento.getId().intValue())))
+                .andExpect(jsonPath("$._links").doesNotExist());
+    }
+
+    @Test
+    void testObtenerHistorialMovimientos_ConFields() throws Exception {
+        createAndSaveMovimiento(producto1, TipoMovimiento.ENTRADA, 20);
+        createAndSaveMovimiento(producto2, TipoMovimiento.ENTRADA, 30);
+
+        mockMvc.perform(get(BASE_URL + "/" + producto1.getSku())
+                        .param("fields", "tipoMovimiento,cantidadMovida,productoInventarioId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].length()", is(3)))
+                .andExpect(jsonPath("$[0].tipoMovimiento", is("ENTRADA")))
+                .andExpect(jsonPath("$[0].cantidadMovida", is(20)))
+                .andExpect(jsonPath("$[0].productoInventarioId", is(producto1.getId().intValue())));
+
+        mockMvc.perform(get(BASE_URL + "/" + producto1.getSku())
+                        .param("fields", "sku,productoInventario"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get(BASE_URL + "/" + producto1.getSku())
+                        .accept(MediaTypes.HAL_JSON)
+                        .param("fields", "tipoMovimiento"))
+                .andExpect(status().isNotAcceptable());
+    }
+
     // --- Test para registrarMovimiento para aumentar cobertura de JaCoCo ---
 
     @Test
@@ -167,4 +229,76 @@ public class MovimientoStockControllerTest {
                 .andExpect(jsonPath("$._links.self").exists())
                 .andExpect(jsonPath("$._links.producto-asociado").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testResumenDiario_AcumulaMovimientosRegistrados() throws Exception {
+        for (int cantidad : new int[]{25, 5}) {
+            MovimientoStock movimientoRequest = new MovimientoStock();
+            movimientoRequest.setSku(producto1.getSku());
+            movimientoRequest.setCantidadMovida(cantidad);
+            movimientoRequest.setTipoMovimiento(TipoMovimiento.ENTRADA);
+            mockMvc.perform(post(BASE_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(movimientoRequest)))
+                    .andExpect(status().isCreated());
+        }
+        MovimientoStock salida = new MovimientoStock();
+        salida.setSku(producto1.getSku());
+        salida.setCantidadMovida(10);
+        salida.setTipoMovimiento(TipoMovimiento.SALIDA);
+        mockMvc.perform(post(BASE_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(salida)))
+                .andExpect(status().isCreated());
+
+        String hoy = LocalDate.now().toString();
+        mockMvc.perform(get(BASE_URL + "/" + producto1.getSku() + "/resumen-diario")
+                        .param("desde", hoy)
+                        .param("hasta", hoy))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].tipoMovimiento", is("ENTRADA")))
+                .andExpect(jsonPath("$[0].cantidadTotal", is(30)))
+                .andExpect(jsonPath("$[0].numeroMovimientos", is(2)))
+                .andExpect(jsonPath("$[1].tipoMovimiento", is("SALIDA")))
+                .andExpect(jsonPath("$[1].cantidadTotal", is(10)));
+
+        mockMvc.perform(get(BASE_URL + "/resumen/totales")
+                        .param("desde", hoy)
+                        .param("hasta", hoy))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].tipoMovimiento", is("SALIDA")))
+                .andExpect(jsonPath("$[1].numeroMovimientos", is(1)));
+    }
+
+    @Test
+    void testFeedMovimientos_PaginaPorCursor() throws Exception {
+        MovimientoStock primero = createAndSaveMovimiento(producto1, TipoMovimiento.ENTRADA, 10);
+        MovimientoStock segundo = createAndSaveMovimiento(producto2, TipoMovimiento.SALIDA, -5);
+        MovimientoStock tercero = createAndSaveMovimiento(producto1, TipoMovimiento.AJUSTE, 3);
+
+        MvcResult pagina = mockMvc.perform(get(BASE_URL + "/feed")
+                        .param("cursor", String.valueOf(primero.getId() - 1))
+                        .param("limite", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pagina))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movimientos", hasSize(2)))
+                .andExpect(jsonPath("$.movimientos[0].sku", is("PROD-1")))
+                .andExpect(jsonPath("$.movimientos[1].tipo", is("SALIDA")))
+                .andExpect(jsonPath("$.movimientos[1].ref").doesNotExist())
+                .andExpect(jsonPath("$.cursor", is(segundo.getId().intValue())))
+                .andExpect(jsonPath("$.hayMas", is(true)));
+
+        MvcResult siguiente = mockMvc.perform(get(BASE_URL + "/feed")
+                        .param("cursor", String.valueOf(segundo.getId()))
+                        .param("limite", "2"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(siguiente))
+                .andExpect(jsonPath("$.movimientos", hasSize(1)))
+                .andExpect(jsonPath("$.cursor", is(tercero.getId().intValue())))
+                .andExpect(jsonPath("$.hayMas", is(false)));
+    }
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -200,6 +201,91 @@ class ProductoInventarioControllerTest {
                 .andExpect(jsonPath("$._embedded.productoInventarioDTOList[1].sku", is("PROD-002")));
     }
 
+    @Test
+    void testConsultarTodosLosProductos_RepresentacionLigera() throws Exception {
+        ProductoInventario p1 = new ProductoInventario();
+        p1.setSku("PROD-001");
+        p1.setCantidadDisponible(100);
+        p1.setCantidadEnTransito(0);
+        p1.setStock(100);
+        p1.setCantidadReservada(0);
+        p1.setCantidadMinimaStock(10);
+        p1.setUbicacionAlmacen("A1");
+        p1.setActivo(true);
+        p1.setFechaCreacion(LocalDateTime.now());
+        p1.setFechaUltimaActualizacion(LocalDateTime.now());
+        p1.setEstado(EstadoStock.DISPONIBLE);
+        productoInventarioRepository.save(p1);
+
+        // application/json explícito: arreglo de DTOs sin _embedded ni _links
+        mockMvc.perform(get(PRODUCTOS_BASE_URL)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].sku", is("PROD-001")))
+                .andExpect(jsonPath("$[0]._links").doesNotExist());
+
+        mockMvc.perform(get(PRODUCTOS_BASE_URL + "/PROD-001")
+                        .accept(RepresentacionLigera.TIPO))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(RepresentacionLigera.TIPO))
+                .andExpect(jsonPath("$.sku", is("PROD-001")))
+                .andExpect(jsonPath("$._links").doesNotExist());
+
+        // Con comodines o hal+json preferido sigue siendo HAL
+        mockMvc.perform(get(PRODUCTOS_BASE_URL + "/PROD-001")
+                        .header("Accept", "application/hal+json, application/json;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href").exists());
+
+        mockMvc.perform(get(PRODUCTOS_BASE_URL + "/PROD-001")
+                        .header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href").exists());
+    }
+
+    @Test
+    void testConsultarCamposDeProductos() throws Exception {
+        ProductoInventario p1 = new ProductoInventario();
+        p1.setSku("PROD-001");
+        p1.setCantidadDisponible(100);
+        p1.setCantidadEnTransito(0);
+        p1.setStock(120);
+        p1.setCantidadReservada(20);
+        p1.setCantidadMinimaStock(10);
+        p1.setUbicacionAlmacen("A1");
+        p1.setActivo(true);
+        p1.setFechaCreacion(LocalDateTime.now());
+        p1.setFechaUltimaActualizacion(LocalDateTime.now());
+        p1.setEstado(EstadoStock.DISPONIBLE);
+        productoInventarioRepository.save(p1);
+
+        mockMvc.perform(get(PRODUCTOS_BASE_URL)
+                        .param("fields", "sku,cantidadDisponible,cantidadTotal,estado"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].length()", is(4)))
+                .andExpect(jsonPath("$[0].sku", is("PROD-001")))
+                .andExpect(jsonPath("$[0].cantidadDisponible", is(100)))
+                .andExpect(jsonPath("$[0].cantidadTotal", is(120)))
+                .andExpect(jsonPath("$[0].estado", is("DISPONIBLE")))
+                .andExpect(jsonPath("$[0].ubicacionAlmacen").doesNotExist())
+                .andExpect(jsonPath("$[0]._links").doesNotExist());
+
+        // Solo campos de la lista blanca
+        mockMvc.perform(get(PRODUCTOS_BASE_URL)
+                        .param("fields", "sku,activo"))
+                .andExpect(status().isBadRequest());
+
+        // fields no tiene representación HAL: no se ignora en silencio
+        mockMvc.perform(get(PRODUCTOS_BASE_URL)
+                        .accept(MediaTypes.HAL_JSON)
+                        .param("fields", "sku,cantidadDisponible"))
+                .andExpect(status().isNotAcceptable());
+    }
+
     @Test
     void testVerificarYNotificarStockBajo_Success() throws Exception {
         // Setup: Create products, one with low stock
@@ -0,0 +1,101 @@
+package com.retailmax.inventario.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailmax.inventario.dto.LecturaConteoDTO;
+import com.retailmax.inventario.dto.SesionConteoDTO;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SesionConteoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Autowired
+    private MovimientoStockRepository movimientoStockRepository;
+
+    private static final String BASE_URL = "/api/auditoria/sesiones";
+
+    @BeforeEach
+    void setup() {
+        movimientoStockRepository.deleteAll();
+        productoInventarioRepository.deleteAll();
+
+        ProductoInventario producto = new ProductoInventario();
+        producto.setSku("SKU-CONTEO");
+        producto.setCantidadDisponible(10);
+        producto.setCantidadMinimaStock(1);
+        producto.setCantidadReservada(0);
+        producto.setCantidadEnTransito(0);
+        producto.setStock(10);
+        producto.setUbicacionAlmacen("A1");
+        producto.setActivo(true);
+        producto.setFechaCreacion(LocalDateTime.now());
+        producto.setFechaUltimaActualizacion(LocalDateTime.now());
+        productoInventarioRepository.save(producto);
+    }
+
+    @Test
+    void testSesionCompleta_LotesYCierreConDiscrepancia() throws Exception {
+        String respuesta = mockMvc.perform(post(BASE_URL).param("zona", "A1"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.estado", is("ABIERTA")))
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(respuesta, SesionConteoDTO.class).getId();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(BASE_URL + "/" + id + "/lecturas")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(
+                                    new LecturaConteoDTO("SKU-CONTEO", 2, null),
+                                    new LecturaConteoDTO("SKU-CONTEO", 2, null)))))
+                    .andExpect(status().isAccepted());
+        }
+
+        mockMvc.perform(get(BASE_URL + "/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.conteoPorSku.SKU-CONTEO", is(8)));
+
+        mockMvc.perform(post(BASE_URL + "/" + id + "/cerrar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.discrepancias", hasSize(1)))
+                .andExpect(jsonPath("$.discrepancias[0].sku", is("SKU-CONTEO")))
+                .andExpect(jsonPath("$.discrepancias[0].diferencia", is(-2)))
+                .andExpect(jsonPath("$.fechaSnapshot", notNullValue()));
+
+        mockMvc.perform(post(BASE_URL + "/" + id + "/lecturas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new LecturaConteoDTO("SKU-CONTEO", 1, null)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testConsultarSesion_NoExiste() throws Exception {
+        mockMvc.perform(get(BASE_URL + "/999999"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -206,4 +206,59 @@ public class UmbralAlertaControllerTest {
                 .andExpect(jsonPath("$._embedded.umbralAlertaDTOList", hasSize(1)))
                 .andExpect(jsonPath("$._embedded.umbralAlertaDTOList[0].sku", is("ACTIVE-LOW")));
     }
+
+    @Test
+    void testGetUmbralesActivosPorTipo_Paginado() throws Exception {
+        for (String sku : new String[]{"PAGE-C", "PAGE-A", "PAGE-B"}) {
+            UmbralAlerta umbral = new UmbralAlerta();
+            umbral.setSku(sku);
+            umbral.setTipoAlerta(TipoAlerta.EXCESO_STOCK);
+            umbral.setUmbralCantidad(100);
+            umbral.setActivo(true);
+            umbral.setFechaCreacion(LocalDateTime.now());
+            umbral.setFechaUltimaActualizacion(LocalDateTime.now());
+            umbralAlertaRepository.save(umbral);
+        }
+
+        // Segunda página de tamaño 2: el orden es por SKU
+        mockMvc.perform(get(BASE_URL + "/tipo/EXCESO_STOCK").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList", hasSize(1)))
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList[0].sku", is("PAGE-C")))
+                .andExpect(jsonPath("$.page.totalElements", is(3)))
+                .andExpect(jsonPath("$._links.prev.href").exists());
+    }
+
+    @Test
+    void testCargaMasivaCsv_CreaYActualizaPorSku() throws Exception {
+        UmbralAlerta existente = new UmbralAlerta();
+        existente.setSku("CARGA-A");
+        existente.setTipoAlerta(TipoAlerta.BAJO_STOCK);
+        existente.setUmbralCantidad(5);
+        existente.setActivo(true);
+        existente.setFechaCreacion(LocalDateTime.now());
+        existente.setFechaUltimaActualizacion(LocalDateTime.now());
+        umbralAlertaRepository.save(existente);
+        // Carga la vista de activos antes de la carga masiva para comprobar que se refresca
+        mockMvc.perform(get(BASE_URL + "/tipo/BAJO_STOCK"))
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList", hasSize(1)));
+
+        String csv = """
+                sku,tipoAlerta,umbralCantidad,activo
+                CARGA-A,BAJO_STOCK,25,true
+                CARGA-B,BAJO_STOCK,8,true
+                CARGA-C,,8,true
+                """;
+        mockMvc.perform(post(BASE_URL + "/carga-masiva").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recibidos", is(3)))
+                .andExpect(jsonPath("$.creados", is(1)))
+                .andExpect(jsonPath("$.actualizados", is(1)))
+                .andExpect(jsonPath("$.rechazados", is(1)));
+
+        mockMvc.perform(get(BASE_URL + "/tipo/BAJO_STOCK"))
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList", hasSize(2)))
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList[0].umbralCantidad", is(25)))
+                .andExpect(jsonPath("$._embedded.umbralAlertaDTOList[1].sku", is("CARGA-B")));
+    }
 }
@@ -0,0 +1,141 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchivoMovimientoServiceTest {
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private CheckpointStockService checkpointStockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ArchivoMovimientoService archivoMovimientoService;
+
+    @TempDir
+    Path directorio;
+
+    private final LocalDateTime limite = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archivoMovimientoService, "directorioDatos", directorio.toString());
+    }
+
+    @Test
+    void archivarAnterioresA_EscribeSegmentoPorMesCheckpointYBorra() throws Exception {
+        List<MovimientoStock> pagina = List.of(
+                movimiento(1L, "SKU001", TipoMovimiento.ENTRADA, 10, LocalDateTime.of(2025, 1, 5, 8, 0), "OC-1"),
+                movimiento(2L, "SKU002", TipoMovimiento.SALIDA, -3, LocalDateTime.of(2025, 1, 20, 9, 15), null),
+                movimiento(3L, "SKU001", TipoMovimiento.SALIDA, 4, LocalDateTime.of(2025, 2, 2, 10, 30, 0, 123_000_000), "OV-9"));
+        when(movimientoStockRepository.findByFechaMovimientoLessThanOrderByIdAsc(eq(limite), any(Pageable.class)))
+                .thenReturn(pagina, List.of());
+
+        int archivados = archivoMovimientoService.archivarAnterioresA(limite);
+
+        assertEquals(3, archivados);
+        try (Stream<Path> archivos = Files.list(directorio.resolve("archivo-movimientos"))) {
+            assertEquals(List.of("movimientos-2025-01-1-2.seg.gz", "movimientos-2025-02-3-3.seg.gz"),
+                    archivos.map(p -> p.getFileName().toString()).sorted().toList());
+        }
+        InOrder orden = inOrder(checkpointStockService, movimientoStockRepository);
+        orden.verify(checkpointStockService).asegurarCheckpointHasta("SKU001", 3L);
+        orden.verify(movimientoStockRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(checkpointStockService).asegurarCheckpointHasta("SKU002", 2L);
+    }
+
+    @Test
+    void archivarAnterioresA_BorraEnSentenciasDeAMil() {
+        List<MovimientoStock> pagina = LongStream.rangeClosed(1, 2500)
+                .mapToObj(id -> movimiento(id, "SKU001", TipoMovimiento.ENTRADA, 1, LocalDateTime.of(2025, 1, 5, 8, 0), null))
+                .toList();
+        when(movimientoStockRepository.findByFechaMovimientoLessThanOrderByIdAsc(eq(limite), any(Pageable.class)))
+                .thenReturn(pagina, List.of());
+
+        archivoMovimientoService.archivarAnterioresA(limite);
+
+        verify(movimientoStockRepository).deleteAllByIdInBatch(LongStream.rangeClosed(1, 1000).boxed().toList());
+        verify(movimientoStockRepository).deleteAllByIdInBatch(LongStream.rangeClosed(1001, 2000).boxed().toList());
+        verify(movimientoStockRepository).deleteAllByIdInBatch(LongStream.rangeClosed(2001, 2500).boxed().toList());
+    }
+
+    @Test
+    void leerArchivados_FiltraPorSkuYRangoYConservaColumnas() throws Exception {
+        LocalDateTime fecha = LocalDateTime.of(2025, 2, 2, 10, 30, 0, 123_000_000);
+        when(movimientoStockRepository.findByFechaMovimientoLessThanOrderByIdAsc(eq(limite), any(Pageable.class)))
+                .thenReturn(List.of(
+                        movimiento(1L, "SKU001", TipoMovimiento.ENTRADA, 10, LocalDateTime.of(2025, 1, 5, 8, 0), "OC-1"),
+                        movimiento(2L, "SKU002", TipoMovimiento.SALIDA, -3, LocalDateTime.of(2025, 1, 20, 9, 15), null),
+                        movimiento(3L, "SKU001", TipoMovimiento.SALIDA, 4, fecha, null)), List.of());
+        archivoMovimientoService.archivarAnterioresA(limite);
+
+        List<MovimientoStock> todos = archivoMovimientoService.leerArchivados("SKU001", null, null);
+        assertEquals(2, todos.size());
+
+        List<MovimientoStock> febrero = archivoMovimientoService.leerArchivados("SKU001", LocalDateTime.of(2025, 2, 1, 0, 0), null);
+        assertEquals(1, febrero.size());
+        MovimientoStock m = febrero.get(0);
+        assertEquals(3L, m.getId());
+        assertEquals(TipoMovimiento.SALIDA, m.getTipoMovimiento());
+        assertEquals(4, m.getCantidadMovida());
+        assertEquals(fecha, m.getFechaMovimiento());
+        assertEquals(99L, m.getProductoInventario().getId());
+        assertNull(m.getReferenciaExterna());
+
+        assertTrue(archivoMovimientoService.leerArchivados("SKU404", null, null).isEmpty());
+        assertTrue(archivoMovimientoService.leerArchivados("SKU001", LocalDateTime.of(2025, 6, 1, 0, 0), null).isEmpty());
+    }
+
+    @Test
+    void leerArchivados_SinArchivo_NoTocaDisco() {
+        assertTrue(archivoMovimientoService.leerArchivados("SKU001", null, null).isEmpty());
+        assertFalse(Files.exists(directorio.resolve("archivo-movimientos")));
+    }
+
+    private MovimientoStock movimiento(Long id, String sku, TipoMovimiento tipo, int cantidad, LocalDateTime fecha, String referencia) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setId(99L);
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(id);
+        movimiento.setProductoInventario(producto);
+        movimiento.setSku(sku);
+        movimiento.setTipoMovimiento(tipo);
+        movimiento.setCantidadMovida(cantidad);
+        movimiento.setStockFinalDespuesMovimiento(20);
+        movimiento.setReferenciaExterna(referencia);
+        movimiento.setMotivo(tipo.getDescripcion());
+        movimiento.setFechaMovimiento(fecha);
+        return movimiento;
+    }
+}
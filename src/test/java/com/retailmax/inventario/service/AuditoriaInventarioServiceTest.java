@@ -1,15 +1,18 @@
 package com.retailmax.inventario.service;
 
 import com.retailmax.inventario.dto.DiscrepanciaStockDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
 import com.retailmax.inventario.model.ProductoInventario;
 import com.retailmax.inventario.repository.ProductoInventarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -42,7 +45,7 @@ public class AuditoriaInventarioServiceTest {
     void compararConStockFisico_EmptyMap_ReturnsEmptyList() {
         Map<String, Integer> stockFisico = Collections.emptyMap();
 
-        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico).getDiscrepancias();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -56,7 +59,7 @@ public class AuditoriaInventarioServiceTest {
 
         when(productoInventarioRepository.findBySku("SKU001")).thenReturn(Optional.of(testProducto));
 
-        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico).getDiscrepancias();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -70,7 +73,7 @@ public class AuditoriaInventarioServiceTest {
 
         when(productoInventarioRepository.findBySku("SKU001")).thenReturn(Optional.of(testProducto));
 
-        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico).getDiscrepancias();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -83,6 +86,22 @@ public class AuditoriaInventarioServiceTest {
         verify(productoInventarioRepository, times(1)).findBySku("SKU001");
     }
 
+    @Test
+    void compararConStockFisico_SinDiscrepancias_InformaLaFechaDeLaBaseDeDatos() {
+        LocalDateTime fechaBaseDatos = LocalDateTime.of(2024, 3, 1, 10, 30);
+        when(productoInventarioRepository.obtenerFechaBaseDatos()).thenReturn(fechaBaseDatos);
+        when(productoInventarioRepository.findBySku("SKU001")).thenReturn(Optional.of(testProducto));
+
+        ResultadoAuditoriaDTO result = auditoriaInventarioService.compararConStockFisico(Map.of("SKU001", 100));
+
+        assertEquals(fechaBaseDatos, result.getFechaSnapshot());
+        assertTrue(result.getDiscrepancias().isEmpty());
+        // La fecha se lee antes que los productos: es la consulta que fija la foto de la transacción
+        InOrder orden = inOrder(productoInventarioRepository);
+        orden.verify(productoInventarioRepository).obtenerFechaBaseDatos();
+        orden.verify(productoInventarioRepository).findBySku("SKU001");
+    }
+
     @Test
     void compararConStockFisico_ProductNotFound_ReturnsDiscrepancy() {
         Map<String, Integer> stockFisico = new HashMap<>();
@@ -90,7 +109,7 @@ public class AuditoriaInventarioServiceTest {
 
         when(productoInventarioRepository.findBySku("SKU404")).thenReturn(Optional.empty());
 
-        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico).getDiscrepancias();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -127,7 +146,7 @@ public class AuditoriaInventarioServiceTest {
 
         when(productoInventarioRepository.findBySku("SKU001")).thenReturn(Optional.of(productoWithNullStock));
 
-        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico);
+        List<DiscrepanciaStockDTO> result = auditoriaInventarioService.compararConStockFisico(stockFisico).getDiscrepancias();
 
         assertNotNull(result);
         assertEquals(1, result.size());
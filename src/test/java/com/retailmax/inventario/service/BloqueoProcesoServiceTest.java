@@ -0,0 +1,67 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.BloqueoProceso;
+import com.retailmax.inventario.repository.BloqueoProcesoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BloqueoProcesoServiceTest {
+
+    @Mock
+    private BloqueoProcesoRepository bloqueoProcesoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BloqueoProcesoService bloqueoProcesoService;
+
+    @Test
+    void adquirir_SinFila_LaCreaATomada() {
+        when(bloqueoProcesoRepository.findParaActualizar("conciliacion")).thenReturn(Optional.empty());
+
+        assertTrue(bloqueoProcesoService.adquirir("conciliacion", Duration.ofMinutes(5)));
+        verify(bloqueoProcesoRepository).saveAndFlush(argThat(b -> b.getPropietario() != null && !b.getCompletado()));
+    }
+
+    @Test
+    void adquirir_TomadoPorOtraInstancia_SoloSiVencio() {
+        BloqueoProceso vigente = new BloqueoProceso("conciliacion", "otra", LocalDateTime.now().plusMinutes(1), null, false,
+                LocalDateTime.now());
+        when(bloqueoProcesoRepository.findParaActualizar("conciliacion")).thenReturn(Optional.of(vigente));
+        assertFalse(bloqueoProcesoService.adquirir("conciliacion", Duration.ofMinutes(5)));
+        assertEquals("otra", vigente.getPropietario());
+
+        vigente.setVence(LocalDateTime.now().minusSeconds(1));
+        assertTrue(bloqueoProcesoService.adquirir("conciliacion", Duration.ofMinutes(5)));
+        assertNotEquals("otra", vigente.getPropietario());
+
+        // Tomado por esta instancia: liberar lo deja libre y conserva el avance
+        vigente.setAvance("SKU010");
+        bloqueoProcesoService.liberar("conciliacion");
+        assertNull(vigente.getPropietario());
+        assertEquals("SKU010", vigente.getAvance());
+    }
+
+    @Test
+    void adquirir_FilaCreadaAlMismoTiempoPorOtra_DevuelveFalse() {
+        when(bloqueoProcesoRepository.findParaActualizar("conciliacion")).thenReturn(Optional.empty());
+        when(bloqueoProcesoRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("pk"));
+
+        assertFalse(bloqueoProcesoService.adquirir("conciliacion", Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,256 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.StockEnFechaDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.CheckpointStock;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.CheckpointStockRepository;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckpointStockServiceTest {
+
+    @Mock
+    private CheckpointStockRepository checkpointStockRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private ObjectProvider<ArchivoMovimientoService> archivoMovimientoService;
+
+    @Mock
+    private ArchivoMovimientoService archivo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BloqueoProcesoService bloqueoProcesoService;
+
+    @TempDir
+    Path directorio;
+
+    @InjectMocks
+    private CheckpointStockService checkpointStockService;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(checkpointStockService, "minMovimientos", 2);
+    }
+
+    @Test
+    void generarCheckpoint_SinCheckpointPrevio_ReproduceDesdeCero() {
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU001", 0L)).thenReturn(List.of(
+                movimiento(1L, TipoMovimiento.ENTRADA, 100, 100, base),
+                movimiento(2L, TipoMovimiento.SALIDA, -30, 70, base.plusHours(1)), // SALIDA en negativo, como DataLoader
+                movimiento(3L, TipoMovimiento.SALIDA, 10, 60, base.plusHours(2)),
+                movimiento(4L, TipoMovimiento.RESERVA, 0, 60, base.plusHours(3))));
+        when(checkpointStockRepository.save(any(CheckpointStock.class))).thenAnswer(i -> i.getArgument(0));
+
+        Optional<CheckpointStock> result = checkpointStockService.generarCheckpoint("SKU001");
+
+        assertTrue(result.isPresent());
+        assertEquals(60, result.get().getCantidadDisponible());
+        assertEquals(4L, result.get().getMovimientoId());
+        assertEquals(base.plusHours(3), result.get().getFechaMovimiento());
+    }
+
+    @Test
+    void generarCheckpoint_PartesDelCheckpointAnterior() {
+        CheckpointStock anterior = new CheckpointStock(1L, "SKU001", 60, 4L, base, base);
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.of(anterior));
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU001", 4L)).thenReturn(List.of(
+                movimiento(5L, TipoMovimiento.AJUSTE, 5, 25, base.plusDays(1)), // AJUSTE fija el stock
+                movimiento(6L, TipoMovimiento.DEVOLUCION_CLIENTE, 3, 28, base.plusDays(2))));
+        ArgumentCaptor<CheckpointStock> captor = ArgumentCaptor.forClass(CheckpointStock.class);
+        when(checkpointStockRepository.save(captor.capture())).thenAnswer(i -> i.getArgument(0));
+
+        checkpointStockService.generarCheckpoint("SKU001");
+
+        assertEquals(28, captor.getValue().getCantidadDisponible());
+        assertEquals(6L, captor.getValue().getMovimientoId());
+    }
+
+    @Test
+    void generarCheckpoint_ConMovimientoRetroactivo_GuardaLaFechaMasTardia() {
+        CheckpointStock anterior = new CheckpointStock(1L, "SKU001", 60, 4L, base.plusDays(5), base);
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.of(anterior));
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU001", 4L)).thenReturn(List.of(
+                movimiento(5L, TipoMovimiento.ENTRADA, 5, 65, base.plusDays(7)),
+                movimiento(6L, TipoMovimiento.SALIDA, 3, 62, base.plusDays(1)))); // Registrado con fecha del cliente
+        when(checkpointStockRepository.save(any(CheckpointStock.class))).thenAnswer(i -> i.getArgument(0));
+
+        Optional<CheckpointStock> result = checkpointStockService.generarCheckpoint("SKU001");
+
+        // Una consulta al día 2 no puede partir de este checkpoint: incluye la entrada del día 7
+        assertEquals(base.plusDays(7), result.orElseThrow().getFechaMovimiento());
+        assertEquals(6L, result.get().getMovimientoId());
+    }
+
+    @Test
+    void generarCheckpoint_PocosMovimientosNuevos_NoGeneraCheckpoint() {
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU001", 0L))
+                .thenReturn(List.of(movimiento(1L, TipoMovimiento.ENTRADA, 10, 10, base)));
+
+        assertTrue(checkpointStockService.generarCheckpoint("SKU001").isEmpty());
+        verify(checkpointStockRepository, never()).save(any());
+    }
+
+    @Test
+    void generarCheckpoints_SoloVisitaLosSkusConMovimientosSuficientes() {
+        when(bloqueoProcesoService.adquirir(eq("checkpoints-stock"), any())).thenReturn(true);
+        // La base de datos ya descartó los SKUs con menos de minMovimientos pendientes
+        when(movimientoStockRepository.findSkusParaCheckpoint(2L)).thenReturn(List.of("B"));
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("B")).thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("B", 0L)).thenReturn(List.of(
+                movimiento(1L, TipoMovimiento.ENTRADA, 10, 10, base),
+                movimiento(2L, TipoMovimiento.SALIDA, 4, 6, base.plusHours(1))));
+        when(checkpointStockRepository.save(any(CheckpointStock.class))).thenAnswer(i -> i.getArgument(0));
+
+        checkpointStockService.generarCheckpoints();
+
+        verify(checkpointStockRepository).save(any(CheckpointStock.class));
+        // Una transacción por SKU
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+        verify(productoInventarioRepository, never()).findAllSkus();
+        verify(bloqueoProcesoService).liberar("checkpoints-stock");
+    }
+
+    @Test
+    void generarCheckpoints_ConElBloqueoEnOtraInstancia_NoHaceNada() {
+        when(bloqueoProcesoService.adquirir(eq("checkpoints-stock"), any())).thenReturn(false);
+
+        checkpointStockService.generarCheckpoints();
+
+        verifyNoInteractions(movimientoStockRepository, checkpointStockRepository, transactionManager);
+        verify(bloqueoProcesoService, never()).liberar(any());
+    }
+
+    @Test
+    void asegurarCheckpointHasta_IgnoraMinimoYNoPasaDelMovimientoPedido() {
+        ReflectionTestUtils.setField(checkpointStockService, "minMovimientos", 100);
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc("SKU001", 0L, 2L)).thenReturn(List.of(
+                movimiento(1L, TipoMovimiento.ENTRADA, 10, 10, base),
+                movimiento(2L, TipoMovimiento.SALIDA, 4, 6, base.plusHours(1))));
+        ArgumentCaptor<CheckpointStock> captor = ArgumentCaptor.forClass(CheckpointStock.class);
+        when(checkpointStockRepository.save(captor.capture())).thenAnswer(i -> i.getArgument(0));
+
+        checkpointStockService.asegurarCheckpointHasta("SKU001", 2L);
+
+        assertEquals(6, captor.getValue().getCantidadDisponible());
+        assertEquals(2L, captor.getValue().getMovimientoId());
+    }
+
+    @Test
+    void asegurarCheckpointHasta_YaCubierto_NoGenera() {
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001"))
+                .thenReturn(Optional.of(new CheckpointStock(1L, "SKU001", 60, 10L, base, base)));
+
+        checkpointStockService.asegurarCheckpointHasta("SKU001", 8L);
+
+        verify(checkpointStockRepository, never()).save(any());
+    }
+
+    @Test
+    void consultarStockEnFecha_ReproduceSoloLaCola() {
+        LocalDateTime fecha = base.plusDays(10);
+        CheckpointStock checkpoint = new CheckpointStock(1L, "SKU001", 40, 500L, base.plusDays(9), base);
+        when(productoInventarioRepository.existsBySku("SKU001")).thenReturn(true);
+        when(archivoMovimientoService.getObject()).thenReturn(archivo);
+        when(checkpointStockRepository.findFirstBySkuAndFechaMovimientoLessThanEqualOrderByMovimientoIdDesc("SKU001", fecha))
+                .thenReturn(Optional.of(checkpoint));
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanAndFechaMovimientoLessThanEqualOrderByIdAsc("SKU001", 500L, fecha))
+                .thenReturn(List.of(movimiento(501L, TipoMovimiento.ENTRADA, 5, 45, base.plusDays(9).plusHours(1))));
+
+        StockEnFechaDTO result = checkpointStockService.consultarStockEnFecha("SKU001", fecha);
+
+        assertEquals(45, result.getCantidadDisponible());
+        assertEquals(500L, result.getMovimientoIdCheckpoint());
+        assertEquals(1, result.getMovimientosReproducidos());
+    }
+
+    @Test
+    void consultarStockEnFecha_DentroDelRangoArchivado_ReproduceLosSegmentos() {
+        ArchivoMovimientoService archivoReal = new ArchivoMovimientoService(movimientoStockRepository, checkpointStockService,
+                transactionManager);
+        ReflectionTestUtils.setField(archivoReal, "directorioDatos", directorio.toString());
+        List<MovimientoStock> antiguos = List.of(
+                movimiento(1L, TipoMovimiento.ENTRADA, 100, 100, base.plusDays(4)),
+                movimiento(2L, TipoMovimiento.SALIDA, 30, 70, base.plusDays(19)),
+                movimiento(3L, TipoMovimiento.SALIDA, 20, 50, base.plusDays(40)));
+        LocalDateTime limite = LocalDateTime.of(2025, 3, 1, 0, 0);
+        when(movimientoStockRepository.findByFechaMovimientoLessThanOrderByIdAsc(eq(limite), any(Pageable.class)))
+                .thenReturn(antiguos, List.of());
+        when(checkpointStockRepository.findFirstBySkuOrderByMovimientoIdDesc("SKU001")).thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc("SKU001", 0L, 3L))
+                .thenReturn(antiguos);
+        archivoReal.archivarAnterioresA(limite);
+
+        // El único checkpoint (movimiento 3, febrero) es posterior a la fecha y los movimientos ya no están en la tabla
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 31, 0, 0);
+        when(productoInventarioRepository.existsBySku("SKU001")).thenReturn(true);
+        when(archivoMovimientoService.getObject()).thenReturn(archivoReal);
+        when(checkpointStockRepository.findFirstBySkuAndFechaMovimientoLessThanEqualOrderByMovimientoIdDesc("SKU001", fecha))
+                .thenReturn(Optional.empty());
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanAndFechaMovimientoLessThanEqualOrderByIdAsc("SKU001", 0L, fecha))
+                .thenReturn(List.of());
+
+        StockEnFechaDTO result = checkpointStockService.consultarStockEnFecha("SKU001", fecha);
+
+        assertEquals(70, result.getCantidadDisponible());
+        assertEquals(2, result.getMovimientosReproducidos());
+        assertNull(result.getMovimientoIdCheckpoint());
+    }
+
+    @Test
+    void consultarStockEnFecha_ProductoNoExiste_LanzaExcepcion() {
+        when(productoInventarioRepository.existsBySku("SKU404")).thenReturn(false);
+
+        assertThrows(RecursoNoEncontradoException.class, () ->
+                checkpointStockService.consultarStockEnFecha("SKU404", base));
+    }
+
+    private MovimientoStock movimiento(Long id, TipoMovimiento tipo, int cantidad, int stockFinal, LocalDateTime fecha) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(id);
+        movimiento.setSku("SKU001");
+        movimiento.setTipoMovimiento(tipo);
+        movimiento.setCantidadMovida(cantidad);
+        movimiento.setStockFinalDespuesMovimiento(stockFinal);
+        movimiento.setFechaMovimiento(fecha);
+        return movimiento;
+    }
+}
@@ -0,0 +1,154 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.DesviacionStockDTO;
+import com.retailmax.inventario.dto.ResultadoConciliacionDTO;
+import com.retailmax.inventario.exception.ConciliacionEnCursoException;
+import com.retailmax.inventario.model.CheckpointStock;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.CheckpointStockRepository;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConciliacionStockServiceTest {
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private CheckpointStockRepository checkpointStockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BloqueoProcesoService bloqueoProcesoService;
+
+    @InjectMocks
+    private ConciliacionStockService conciliacionStockService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(conciliacionStockService, "tamanoLote", 2);
+        ReflectionTestUtils.setField(conciliacionStockService, "pausaEntreLotesMs", 0L);
+        lenient().when(bloqueoProcesoService.adquirir(eq("conciliacion-stock"), any())).thenReturn(true);
+    }
+
+    @Test
+    void conciliar_ParticionaEnRangosYDetectaDesviaciones() {
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("A", "B", "C"));
+        // Rango A..B: A coincide con su historial, B tiene 5 unidades de más
+        when(movimientoStockRepository.findUltimoAjustePorSku("A", "B")).thenReturn(List.of());
+        when(checkpointStockRepository.findUltimosPorRangoSku("A", "B")).thenReturn(List.of());
+        when(movimientoStockRepository.sumarVariacionPorSku("A", "B")).thenReturn(List.of(
+                new Object[]{"A", 10L, 2L},
+                new Object[]{"B", 3L, 1L}));
+        when(productoInventarioRepository.findBySkuBetween("A", "B")).thenReturn(List.of(producto("A", 10), producto("B", 8)));
+        // Rango C..C: sin movimientos, el saldo esperado es 0
+        when(movimientoStockRepository.findUltimoAjustePorSku("C", "C")).thenReturn(List.of());
+        when(checkpointStockRepository.findUltimosPorRangoSku("C", "C")).thenReturn(List.of());
+        when(movimientoStockRepository.sumarVariacionPorSku("C", "C")).thenReturn(List.of());
+        when(productoInventarioRepository.findBySkuBetween("C", "C")).thenReturn(List.of(producto("C", 0)));
+
+        ResultadoConciliacionDTO resultado = conciliacionStockService.conciliar(false);
+
+        assertEquals(3, resultado.getSkusRevisados());
+        assertEquals(2, resultado.getLotesProcesados());
+        assertEquals(1, resultado.getDesviaciones().size());
+        DesviacionStockDTO desviacion = resultado.getDesviaciones().get(0);
+        assertEquals("B", desviacion.getSku());
+        assertEquals(3, desviacion.getSaldoSegunMovimientos());
+        assertEquals(5, desviacion.getDiferencia());
+        assertFalse(desviacion.getReparado());
+        verify(productoInventarioRepository, never()).save(any());
+        verify(bloqueoProcesoService).liberar("conciliacion-stock");
+    }
+
+    @Test
+    void conciliar_ParteDelAjusteOCheckpointMasReciente() {
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("A", "B"));
+        when(movimientoStockRepository.findUltimoAjustePorSku("A", "B")).thenReturn(List.of(
+                new Object[]{"A", 20L},
+                new Object[]{"B", 5L}));
+        when(movimientoStockRepository.findAllById(any())).thenReturn(List.of(ajuste(20L, "A", 50), ajuste(5L, "B", 99)));
+        // A: el AJUSTE (id 20) es posterior al checkpoint; B: el checkpoint (movimiento 30) es posterior al AJUSTE
+        when(checkpointStockRepository.findUltimosPorRangoSku("A", "B")).thenReturn(List.of(
+                new CheckpointStock(1L, "A", 7, 10L, LocalDateTime.now(), LocalDateTime.now()),
+                new CheckpointStock(2L, "B", 40, 30L, LocalDateTime.now(), LocalDateTime.now())));
+        when(movimientoStockRepository.sumarVariacionPorSku("A", "B")).thenReturn(Collections.singletonList(new Object[]{"A", -4L, 1L}));
+        when(productoInventarioRepository.findBySkuBetween("A", "B")).thenReturn(List.of(producto("A", 46), producto("B", 40)));
+
+        assertTrue(conciliacionStockService.conciliar(false).getDesviaciones().isEmpty());
+    }
+
+    @Test
+    void conciliar_ModoReparacion_RecalculaConFilaBloqueadaYCorrige() {
+        ProductoInventario producto = producto("A", 12);
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("A"));
+        when(movimientoStockRepository.findUltimoAjustePorSku("A", "A")).thenReturn(List.of());
+        when(checkpointStockRepository.findUltimosPorRangoSku("A", "A")).thenReturn(List.of());
+        when(movimientoStockRepository.sumarVariacionPorSku("A", "A")).thenReturn(Collections.singletonList(new Object[]{"A", 9L, 3L}));
+        when(productoInventarioRepository.findBySkuBetween("A", "A")).thenReturn(List.of(producto));
+        when(productoInventarioRepository.findBySkuParaActualizar("A")).thenReturn(Optional.of(producto));
+
+        ResultadoConciliacionDTO resultado = conciliacionStockService.conciliar(true);
+
+        assertTrue(resultado.getModoReparacion());
+        assertTrue(resultado.getDesviaciones().get(0).getReparado());
+        assertEquals(9, producto.getCantidadDisponible());
+        assertEquals(9, producto.getStock());
+        verify(productoInventarioRepository).save(producto);
+    }
+
+    @Test
+    void conciliar_ConElBloqueoTomadoPorOtraInstancia_RechazaSinRecorrer() {
+        when(bloqueoProcesoService.adquirir(eq("conciliacion-stock"), any())).thenReturn(false);
+
+        assertThrows(ConciliacionEnCursoException.class, () -> conciliacionStockService.conciliar(false));
+
+        verify(productoInventarioRepository, never()).findAllSkus();
+        verify(bloqueoProcesoService, never()).liberar(any());
+        // El flag local quedó libre: la ejecución programada solo registra que se omitió
+        conciliacionStockService.conciliacionProgramada();
+    }
+
+    private ProductoInventario producto(String sku, int cantidadDisponible) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setSku(sku);
+        producto.setCantidadDisponible(cantidadDisponible);
+        producto.setStock(cantidadDisponible);
+        return producto;
+    }
+
+    private MovimientoStock ajuste(Long id, String sku, int stockFinal) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(id);
+        movimiento.setSku(sku);
+        movimiento.setTipoMovimiento(TipoMovimiento.AJUSTE);
+        movimiento.setCantidadMovida(1);
+        movimiento.setStockFinalDespuesMovimiento(stockFinal);
+        return movimiento;
+    }
+}
@@ -0,0 +1,37 @@
+package com.retailmax.inventario.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConjuntoIdsSkuTest {
+
+    @Test
+    void agregarYQuitar_RecorreLosIdsEnOrdenEntreBloques() {
+        ConjuntoIdsSku conjunto = new ConjuntoIdsSku();
+        // Un ID en el tercer bloque hace crecer el arreglo sin crear los bloques intermedios
+        conjunto.agregar(200_000);
+        conjunto.agregar(63);
+        conjunto.agregar(0);
+        conjunto.agregar(64);
+        conjunto.agregar(65_536);
+        conjunto.agregar(63);
+        conjunto.quitar(64);
+        conjunto.quitar(131_072); // Bloque sin crear: no hace nada
+        conjunto.quitar(1_000_000);
+
+        assertEquals(List.of(0, 63, 65_536, 200_000), ids(conjunto));
+
+        conjunto.limpiar();
+        assertTrue(ids(conjunto).isEmpty());
+    }
+
+    private static List<Integer> ids(ConjuntoIdsSku conjunto) {
+        List<Integer> ids = new ArrayList<>();
+        conjunto.forEach(ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,85 @@
+package com.retailmax.inventario.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DiccionarioSku frente a un ConcurrentHashMap<String, Integer>, y un acumulador indexado por ID frente a un
+ * HashMap por SKU (el patrón de los conteos y mapas de auditoría).
+ * mvn -Pbenchmark test -Djmh.args="DiccionarioSku -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DiccionarioSkuBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int cantidadSkus;
+
+    private String[] skus;
+    private int[] ids;
+    private DiccionarioSku diccionario;
+    private ConcurrentHashMap<String, Integer> mapa;
+    private long[] acumuladoPorId;
+    private HashMap<String, long[]> acumuladoPorSku;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        skus = new String[cantidadSkus];
+        ids = new int[cantidadSkus];
+        diccionario = new DiccionarioSku(null);
+        mapa = new ConcurrentHashMap<>();
+        acumuladoPorId = new long[cantidadSkus];
+        acumuladoPorSku = new HashMap<>();
+        for (int i = 0; i < cantidadSkus; i++) {
+            // Copia nueva del texto: la búsqueda no puede resolverse por identidad de la instancia
+            String sku = String.format("SKU-%08d", i);
+            skus[i] = new String(sku);
+            ids[i] = diccionario.registrar(sku);
+            mapa.put(sku, i);
+            acumuladoPorSku.put(sku, new long[1]);
+        }
+    }
+
+    private int indiceAlAzar() {
+        return ThreadLocalRandom.current().nextInt(cantidadSkus);
+    }
+
+    @Benchmark
+    public int idDiccionario() {
+        return diccionario.id(skus[indiceAlAzar()]);
+    }
+
+    @Benchmark
+    public Integer idMapa() {
+        return mapa.get(skus[indiceAlAzar()]);
+    }
+
+    @Benchmark
+    public long acumularPorId() {
+        return ++acumuladoPorId[ids[indiceAlAzar()]];
+    }
+
+    @Benchmark
+    public long acumularPorSku() {
+        return ++acumuladoPorSku.get(skus[indiceAlAzar()])[0];
+    }
+}
@@ -0,0 +1,94 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiccionarioSkuTest {
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @InjectMocks
+    private DiccionarioSku diccionarioSku;
+
+    @Test
+    void registrar_AsignaIdsDensosYEstables() {
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, diccionarioSku.registrar("SKU-" + i));
+        }
+        assertEquals(42, diccionarioSku.registrar("SKU-42"));
+        assertEquals(4999, diccionarioSku.id("SKU-4999"));
+        assertEquals("SKU-1234", diccionarioSku.sku(1234));
+        assertEquals(DiccionarioSku.SIN_ID, diccionarioSku.id("NO_EXISTE"));
+        assertEquals(5000, diccionarioSku.tamano());
+    }
+
+    @Test
+    void registrar_Concurrente_UnIdPorSku() throws Exception {
+        List<String> skus = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            skus.add("SKU-" + i);
+        }
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                List<String> orden = new ArrayList<>(skus);
+                Collections.shuffle(orden);
+                tareas.add(hilos.submit(() -> orden.forEach(diccionarioSku::registrar)));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertEquals(20_000, diccionarioSku.tamano());
+        Set<Integer> ids = new HashSet<>();
+        for (String sku : skus) {
+            int id = diccionarioSku.id(sku);
+            assertEquals(sku, diccionarioSku.sku(id));
+            ids.add(id);
+        }
+        assertEquals(20_000, ids.size());
+    }
+
+    @Test
+    void cargar_RegistraInventarioUnaVezYLuegoLasAltas() {
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("SKU001", "SKU002"));
+        ProductoInventario nuevo = new ProductoInventario();
+        nuevo.setSku("SKU003");
+
+        diccionarioSku.alAgregarProducto(new ProductoInventarioActualizadoEvent(nuevo, false));
+        assertEquals(DiccionarioSku.SIN_ID, diccionarioSku.id("SKU003"));
+
+        diccionarioSku.cargar();
+        diccionarioSku.cargar();
+        diccionarioSku.alAgregarProducto(new ProductoInventarioActualizadoEvent(nuevo, false));
+
+        assertEquals(0, diccionarioSku.id("SKU001"));
+        assertEquals(1, diccionarioSku.id("SKU002"));
+        assertEquals(2, diccionarioSku.id("SKU003"));
+        verify(productoInventarioRepository, times(1)).findAllSkus();
+    }
+}
@@ -0,0 +1,116 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.exception.VersionNoDisponibleException;
+import com.retailmax.inventario.model.CambioDisponibilidad;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.CambioDisponibilidadRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.service.FormatoDisponibilidad.Contenido;
+import com.retailmax.inventario.service.FormatoDisponibilidad.Tupla;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisponibilidadPosServiceTest {
+
+    @Mock
+    private CambioDisponibilidadRepository cambioDisponibilidadRepository;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @InjectMocks
+    private DisponibilidadPosService disponibilidadPosService;
+
+    @Test
+    void consultarCambios_DesdeCeroDevuelveLaCargaCompletaDeLaUbicacion() throws IOException {
+        when(cambioDisponibilidadRepository.findUltimaVersionHasta(Long.MAX_VALUE)).thenReturn(42L);
+        when(cambioDisponibilidadRepository.findVersionesRegistradasHasta(any(), eq(PageRequest.of(0, 1))))
+                .thenReturn(List.of(45L));
+        when(productoInventarioRepository.findDisponibilidadPorUbicacion("TIENDA-01")).thenReturn(List.of(
+                new Object[]{"SKU001", 10, EstadoStock.DISPONIBLE},
+                new Object[]{"SKU002", 0, EstadoStock.DESCONTINUADO}));
+
+        Contenido contenido = FormatoDisponibilidad.leer(disponibilidadPosService.consultarCambios(" TIENDA-01 ", 0, 100));
+
+        assertEquals(42L, contenido.version());
+        assertFalse(contenido.hayMas());
+        assertEquals(List.of(new Tupla("SKU001", 10, EstadoStock.DISPONIBLE),
+                new Tupla("SKU002", 0, EstadoStock.DESCONTINUADO)), contenido.tuplas());
+        verify(cambioDisponibilidadRepository, never()).findCambios(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void consultarCambios_DeltaConElUltimoEstadoPorSkuYBajas() throws IOException {
+        when(cambioDisponibilidadRepository.findPrimeraVersion()).thenReturn(1L);
+        when(cambioDisponibilidadRepository.findCambios("TIENDA-01", 10L, Long.MAX_VALUE, PageRequest.of(0, 4)))
+                .thenReturn(List.of(
+                        cambio(11L, "SKU001", 8, EstadoStock.DISPONIBLE),
+                        cambio(12L, "SKU002", null, null),
+                        cambio(13L, "SKU001", 5, EstadoStock.RESERVADO),
+                        cambio(14L, "SKU003", 1, EstadoStock.DISPONIBLE)));
+
+        Contenido contenido = FormatoDisponibilidad.leer(disponibilidadPosService.consultarCambios("TIENDA-01", 10L, 3));
+
+        // La página corta en la versión 13: la 14 queda para la próxima consulta
+        assertEquals(13L, contenido.version());
+        assertTrue(contenido.hayMas());
+        assertEquals(List.of(new Tupla("SKU002", 0, null), new Tupla("SKU001", 5, EstadoStock.RESERVADO)),
+                contenido.tuplas());
+    }
+
+    @Test
+    void consultarCambios_RetieneLosCambiosDentroDeLaVentanaDeConfirmacion() throws IOException {
+        when(cambioDisponibilidadRepository.findPrimeraVersion()).thenReturn(1L);
+        when(cambioDisponibilidadRepository.findCambios("TIENDA-01", 10L, Long.MAX_VALUE, PageRequest.of(0, 4)))
+                .thenReturn(List.of(
+                        cambio(11L, "SKU001", 8, EstadoStock.DISPONIBLE),
+                        cambio(12L, "SKU002", 3, EstadoStock.DISPONIBLE, LocalDateTime.now()),
+                        cambio(13L, "SKU003", 1, EstadoStock.DISPONIBLE)));
+
+        Contenido delta = FormatoDisponibilidad.leer(disponibilidadPosService.consultarCambios("TIENDA-01", 10L, 3));
+
+        assertEquals(11L, delta.version());
+        assertFalse(delta.hayMas());
+        assertEquals(List.of(new Tupla("SKU001", 8, EstadoStock.DISPONIBLE)), delta.tuplas());
+
+        // Sin cambios fuera de la ventana, la carga completa queda antes del primero conservado
+        when(cambioDisponibilidadRepository.findUltimaVersionHasta(Long.MAX_VALUE)).thenReturn(13L);
+        when(cambioDisponibilidadRepository.findVersionesRegistradasHasta(any(), eq(PageRequest.of(0, 1))))
+                .thenReturn(List.of());
+        assertEquals(0L, FormatoDisponibilidad.leer(disponibilidadPosService.consultarCambios("TIENDA-01", 0, 3)).version());
+    }
+
+    @Test
+    void consultarCambios_RechazaUnaVersionYaPodada() {
+        when(cambioDisponibilidadRepository.findPrimeraVersion()).thenReturn(50L);
+
+        assertThrows(VersionNoDisponibleException.class,
+                () -> disponibilidadPosService.consultarCambios("TIENDA-01", 30L, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> disponibilidadPosService.consultarCambios(" ", 0, 100));
+        verify(cambioDisponibilidadRepository, never()).findCambios(any(), anyLong(), anyLong(), any());
+    }
+
+    private static CambioDisponibilidad cambio(Long version, String sku, Integer disponible, EstadoStock estado) {
+        return cambio(version, sku, disponible, estado, LocalDateTime.now().minusMinutes(1));
+    }
+
+    private static CambioDisponibilidad cambio(Long version, String sku, Integer disponible, EstadoStock estado,
+                                               LocalDateTime fecha) {
+        return new CambioDisponibilidad(version, sku, "TIENDA-01", disponible, estado, estado == null, fecha);
+    }
+}
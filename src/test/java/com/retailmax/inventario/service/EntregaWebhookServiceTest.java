@@ -0,0 +1,166 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.EventoWebhookFallido;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.EventoWebhookFallidoRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntregaWebhookServiceTest {
+
+    @Mock
+    private EventoWebhookFallidoRepository eventoWebhookFallidoRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private HttpServer servidor;
+    private final BlockingQueue<String> recibidos = new LinkedBlockingQueue<>();
+    private final AtomicInteger solicitudes = new AtomicInteger();
+    // Código de respuesta del stub según el número de solicitud (1, 2, ...)
+    private volatile IntUnaryOperator respuesta = n -> 200;
+
+    private EntregaWebhookService entregaWebhook;
+
+    private final LocalDateTime ahora = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/webhook", exchange -> {
+            recibidos.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(respuesta.applyAsInt(solicitudes.incrementAndGet()), -1);
+            exchange.close();
+        });
+        servidor.start();
+
+        entregaWebhook = new EntregaWebhookService(eventoWebhookFallidoRepository, objectMapper);
+        ReflectionTestUtils.setField(entregaWebhook, "destinos",
+                new String[]{"http://127.0.0.1:" + servidor.getAddress().getPort() + "/webhook"});
+        ReflectionTestUtils.setField(entregaWebhook, "tamanoLote", 3);
+        ReflectionTestUtils.setField(entregaWebhook, "esperaLoteMs", 200L);
+        ReflectionTestUtils.setField(entregaWebhook, "reintentosMaximos", 2);
+        ReflectionTestUtils.setField(entregaWebhook, "esperaReintentoInicialMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        entregaWebhook.detener();
+        servidor.stop(0);
+    }
+
+    @Test
+    void entregar_AgrupaEnLotesYConservaElOrden() throws Exception {
+        entregaWebhook.iniciar();
+        for (int i = 1; i <= 5; i++) {
+            entregaWebhook.alPublicarAlerta(alerta("SKU00" + i));
+        }
+        entregaWebhook.alRegistrarMovimiento(movimiento("SKU006"));
+
+        List<String> skus = new ArrayList<>();
+        while (skus.size() < 6) {
+            JsonNode lote = objectMapper.readTree(recibir());
+            assertTrue(lote.size() <= 3);
+            lote.forEach(evento -> skus.add(evento.get("sku").asText()));
+        }
+        assertEquals(List.of("SKU001", "SKU002", "SKU003", "SKU004", "SKU005", "SKU006"), skus);
+        assertEquals(2, solicitudes.get());
+        verifyNoInteractions(eventoWebhookFallidoRepository);
+    }
+
+    @Test
+    void entregar_ReintentaErroresTransitorios() throws Exception {
+        respuesta = n -> n <= 2 ? 503 : 200;
+        entregaWebhook.iniciar();
+        entregaWebhook.alPublicarAlerta(alerta("SKU001"));
+
+        String primero = recibir();
+        assertEquals(primero, recibir());
+        assertEquals(primero, recibir());
+        JsonNode evento = objectMapper.readTree(primero).get(0);
+        assertEquals("ALERTA", evento.get("tipoEvento").asText());
+        assertEquals("BAJO_STOCK", evento.get("tipoAlerta").asText());
+        assertFalse(evento.has("movimientoId"));
+
+        entregaWebhook.detener();
+        assertEquals(3, solicitudes.get());
+        verifyNoInteractions(eventoWebhookFallidoRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void entregar_GuardaEnFallidosAlAgotarReintentosOConErrorDelCliente() throws Exception {
+        // El primer lote recibe siempre 500; el segundo, 400 (no se reintenta)
+        respuesta = n -> n <= 3 ? 500 : 400;
+        entregaWebhook.iniciar();
+        entregaWebhook.alPublicarAlerta(alerta("SKU001"));
+        for (int i = 0; i < 3; i++) {
+            recibir();
+        }
+        entregaWebhook.alRegistrarMovimiento(movimiento("SKU002"));
+        recibir();
+
+        ArgumentCaptor<List<EventoWebhookFallido>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventoWebhookFallidoRepository, timeout(5000).times(2)).saveAll(captor.capture());
+        EventoWebhookFallido agotado = captor.getAllValues().get(0).get(0);
+        EventoWebhookFallido rechazado = captor.getAllValues().get(1).get(0);
+        assertEquals("SKU001", agotado.getSku());
+        assertEquals(3, agotado.getIntentos());
+        assertTrue(agotado.getUltimoError().startsWith("500"));
+        assertEquals("MOVIMIENTO", rechazado.getTipoEvento());
+        assertEquals(1, rechazado.getIntentos());
+        assertEquals(42L, objectMapper.readTree(rechazado.getPayload()).get("movimientoId").asLong());
+        assertEquals(4, solicitudes.get());
+    }
+
+    private String recibir() throws InterruptedException {
+        String cuerpo = recibidos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(cuerpo, "El webhook no recibió la solicitud esperada");
+        return cuerpo;
+    }
+
+    private AlertaInventarioEvent alerta(String sku) {
+        return new AlertaInventarioEvent(sku, TipoAlerta.BAJO_STOCK, 10, 4, true, ahora);
+    }
+
+    private MovimientoStockRegistradoEvent movimiento(String sku) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(42L);
+        movimiento.setSku(sku);
+        movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
+        movimiento.setCantidadMovida(3);
+        movimiento.setStockFinalDespuesMovimiento(7);
+        movimiento.setFechaMovimiento(ahora);
+        return new MovimientoStockRegistradoEvent(movimiento);
+    }
+}
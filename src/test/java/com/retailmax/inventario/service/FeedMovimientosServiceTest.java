@@ -0,0 +1,142 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.FeedMovimientosDTO;
+import com.retailmax.inventario.dto.MovimientoFeedDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeedMovimientosServiceTest {
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @InjectMocks
+    private FeedMovimientosService feedMovimientos;
+
+    @AfterEach
+    void tearDown() {
+        feedMovimientos.detener();
+    }
+
+    @Test
+    void consultar_NoEntregaMovimientosPosterioresAUnoEnCurso() {
+        when(movimientoStockRepository.findFeed(5L, 9L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(movimiento(6L), movimiento(7L), movimiento(8L)));
+        feedMovimientos.alRegistrarMovimiento(registrado(12L));
+        feedMovimientos.alRegistrarMovimiento(registrado(10L));
+
+        FeedMovimientosDTO pagina = feedMovimientos.consultar(5L, 2);
+
+        assertEquals(List.of(6L, 7L), pagina.getMovimientos().stream().map(MovimientoFeedDTO::getId).toList());
+        assertEquals(7L, pagina.getCursor());
+        assertTrue(pagina.getHayMas());
+
+        // Terminada la transacción del 10, el límite pasa al 12; sin IDs en curso no hay límite
+        feedMovimientos.alTerminarMovimiento(registrado(10L));
+        feedMovimientos.consultar(7L, 2);
+        verify(movimientoStockRepository).findFeed(7L, 11L, PageRequest.of(0, 3));
+        feedMovimientos.alTerminarMovimiento(registrado(12L));
+        FeedMovimientosDTO vacia = feedMovimientos.consultar(7L, 2);
+        verify(movimientoStockRepository).findFeed(7L, Long.MAX_VALUE, PageRequest.of(0, 3));
+        assertEquals(7L, vacia.getCursor());
+        assertFalse(vacia.getHayMas());
+    }
+
+    @Test
+    void consultar_CortaLaPaginaEnElPrimerMovimientoDentroDeLaVentana() {
+        // El 7 se registró hace un instante: un ID menor de otra instancia podría confirmarse todavía
+        when(movimientoStockRepository.findFeed(5L, Long.MAX_VALUE, PageRequest.of(0, 4)))
+                .thenReturn(List.of(movimiento(6L), movimiento(7L, LocalDateTime.now()), movimiento(8L)));
+
+        FeedMovimientosDTO pagina = feedMovimientos.consultar(5L, 3);
+
+        assertEquals(List.of(6L), pagina.getMovimientos().stream().map(MovimientoFeedDTO::getId).toList());
+        assertEquals(6L, pagina.getCursor());
+        assertFalse(pagina.getHayMas());
+    }
+
+    @Test
+    void limiteConfirmado_EsElUltimoRegistradoFueraDeLaVentana() {
+        when(movimientoStockRepository.findIdsRegistradosHasta(any(), eq(PageRequest.of(0, 1))))
+                .thenReturn(List.of(40L));
+        assertEquals(40L, feedMovimientos.limiteConfirmado());
+
+        // Un movimiento en curso en esta instancia sigue limitando
+        feedMovimientos.alRegistrarMovimiento(registrado(30L));
+        assertEquals(29L, feedMovimientos.limiteConfirmado());
+        feedMovimientos.alTerminarMovimiento(registrado(30L));
+
+        // Todo lo registrado está dentro de la ventana: solo cuentan los anteriores al primero
+        when(movimientoStockRepository.findIdsRegistradosHasta(any(), eq(PageRequest.of(0, 1)))).thenReturn(List.of());
+        when(movimientoStockRepository.findIdsPorRegistro(PageRequest.of(0, 1))).thenReturn(List.of(41L));
+        assertEquals(40L, feedMovimientos.limiteConfirmado());
+    }
+
+    @Test
+    void esperar_SeCompletaAlTerminarUnMovimiento() throws Exception {
+        when(movimientoStockRepository.findFeed(eq(3L), anyLong(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(movimiento(4L)));
+
+        DeferredResult<FeedMovimientosDTO> resultado = feedMovimientos.esperar(3L, 100, 5000);
+        assertFalse(resultado.hasResult());
+        assertEquals(1, feedMovimientos.esperasActivas());
+
+        feedMovimientos.alRegistrarMovimiento(registrado(4L));
+        feedMovimientos.alTerminarMovimiento(registrado(4L));
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (!resultado.hasResult() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        FeedMovimientosDTO pagina = (FeedMovimientosDTO) resultado.getResult();
+        assertNotNull(pagina);
+        assertEquals(4L, pagina.getCursor());
+        assertEquals(0, feedMovimientos.esperasActivas());
+    }
+
+    @Test
+    void esperar_SinEsperaDevuelveLaPaginaVaciaEnseguida() {
+        when(movimientoStockRepository.findFeed(eq(3L), anyLong(), any())).thenReturn(List.of());
+
+        DeferredResult<FeedMovimientosDTO> resultado = feedMovimientos.esperar(3L, 100, 0);
+
+        assertTrue(resultado.hasResult());
+        assertEquals(3L, ((FeedMovimientosDTO) resultado.getResult()).getCursor());
+        assertEquals(0, feedMovimientos.esperasActivas());
+        assertThrows(IllegalArgumentException.class, () -> feedMovimientos.consultar(-1L, 10));
+    }
+
+    private static MovimientoFeedDTO movimiento(Long id) {
+        return movimiento(id, LocalDateTime.now().minusMinutes(1));
+    }
+
+    private static MovimientoFeedDTO movimiento(Long id, LocalDateTime registro) {
+        return new MovimientoFeedDTO(id, "SKU001", TipoMovimiento.ENTRADA, 5, 10, registro, null, registro);
+    }
+
+    private static MovimientoStockRegistradoEvent registrado(Long id) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(id);
+        return new MovimientoStockRegistradoEvent(movimiento);
+    }
+}
@@ -0,0 +1,150 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.EstadoJournalDTO;
+import com.retailmax.inventario.dto.EstadoMovimientoJournalDTO;
+import com.retailmax.inventario.dto.MovimientoAceptadoDTO;
+import com.retailmax.inventario.exception.StockInsuficienteException;
+import com.retailmax.inventario.model.MovimientoJournalRechazado;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.PosicionJournal;
+import com.retailmax.inventario.model.enums.EstadoMovimientoJournal;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoJournalRechazadoRepository;
+import com.retailmax.inventario.repository.PosicionJournalRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static java.nio.file.Files.readString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JournalMovimientoServiceTest {
+
+    @Mock
+    private MovimientoStockService movimientoStockService;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private PosicionJournalRepository posicionJournalRepository;
+
+    @Mock
+    private MovimientoJournalRechazadoRepository movimientoJournalRechazadoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private JournalMovimientoService journalMovimientoService;
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(journalMovimientoService, "directorioDatos", directorio.toString());
+        ReflectionTestUtils.setField(journalMovimientoService, "tamanoSegmentoMb", 1);
+        when(posicionJournalRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(productoInventarioRepository.existsBySku("SKU001")).thenReturn(true);
+        ReflectionTestUtils.invokeMethod(journalMovimientoService, "iniciar");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(journalMovimientoService, "detener");
+    }
+
+    @Test
+    void aceptarMovimiento_DevuelveSecuenciaYLoAplicaEnSegundoPlano() throws Exception {
+        MovimientoAceptadoDTO aceptado = journalMovimientoService.aceptarMovimiento(movimiento(TipoMovimiento.ENTRADA, 5));
+
+        assertEquals(1L, aceptado.getSecuencia());
+        assertNotNull(aceptado.getFechaMovimiento());
+        // La posición se guarda con el identificador del journal de esta instancia, persistido junto a sus segmentos
+        String id = aceptado.getJournal();
+        assertEquals(id, readString(directorio.resolve("journal").resolve("journal.id")));
+        ArgumentCaptor<MovimientoStock> captor = ArgumentCaptor.forClass(MovimientoStock.class);
+        verify(movimientoStockService, timeout(2000)).registrarMovimiento(captor.capture());
+        assertEquals("SKU001", captor.getValue().getSku());
+        assertEquals(5, captor.getValue().getCantidadMovida());
+        assertEquals(aceptado.getFechaMovimiento(), captor.getValue().getFechaMovimiento());
+        verify(posicionJournalRepository, timeout(2000)).save(argThat(p -> p.getSecuencia() == 1L && id.equals(p.getJournal())));
+    }
+
+    @Test
+    void aplicar_StockInsuficiente_AvanzaYCuentaRechazo() throws Exception {
+        when(movimientoStockService.registrarMovimiento(any()))
+                .thenThrow(new StockInsuficienteException("sin stock"))
+                .thenReturn(null);
+
+        MovimientoAceptadoDTO salida = journalMovimientoService.aceptarMovimiento(movimiento(TipoMovimiento.SALIDA, 50));
+        journalMovimientoService.aceptarMovimiento(movimiento(TipoMovimiento.ENTRADA, 1));
+
+        verify(movimientoStockService, timeout(2000).times(2)).registrarMovimiento(any());
+        EstadoJournalDTO estado = esperarAplicada(2L);
+        assertEquals(1L, estado.getRechazados());
+        assertEquals(0L, estado.getPendientes());
+
+        // El rechazo queda en la base de datos para quien recibió el 202
+        ArgumentCaptor<MovimientoJournalRechazado> captor = ArgumentCaptor.forClass(MovimientoJournalRechazado.class);
+        verify(movimientoJournalRechazadoRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getSecuencia());
+        assertEquals("sin stock", captor.getValue().getMotivoRechazo());
+        when(movimientoJournalRechazadoRepository.findByJournalAndSecuencia(salida.getJournal(), 1L))
+                .thenReturn(Optional.of(captor.getValue()));
+        EstadoMovimientoJournalDTO consulta = journalMovimientoService.consultarMovimiento(salida.getJournal(), 1L);
+        assertEquals(EstadoMovimientoJournal.RECHAZADO, consulta.getEstado());
+        assertEquals("sin stock", consulta.getMotivoRechazo());
+        when(posicionJournalRepository.findById(salida.getJournal()))
+                .thenReturn(Optional.of(new PosicionJournal(salida.getJournal(), 2L, LocalDateTime.now())));
+        assertEquals(EstadoMovimientoJournal.APLICADO,
+                journalMovimientoService.consultarMovimiento(salida.getJournal(), 2L).getEstado());
+    }
+
+    @Test
+    void aceptarMovimiento_TipoNoSoportado_NoEscribeEnJournal() {
+        assertThrows(IllegalArgumentException.class, () ->
+                journalMovimientoService.aceptarMovimiento(movimiento(TipoMovimiento.AJUSTE, 5)));
+        assertEquals(0L, journalMovimientoService.consultarEstado().getSecuenciaEscrita());
+    }
+
+    private EstadoJournalDTO esperarAplicada(long secuencia) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            EstadoJournalDTO estado = journalMovimientoService.consultarEstado();
+            if (estado.getSecuenciaAplicada() >= secuencia) {
+                return estado;
+            }
+            Thread.sleep(10);
+        }
+        fail("El journal no aplicó la secuencia " + secuencia);
+        return null;
+    }
+
+    private MovimientoStock movimiento(TipoMovimiento tipo, int cantidad) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setSku("SKU001");
+        movimiento.setTipoMovimiento(tipo);
+        movimiento.setCantidadMovida(cantidad);
+        return movimiento;
+    }
+}
@@ -0,0 +1,101 @@
+package com.retailmax.inventario.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalMovimientosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void agregarYLeer_RespetaRangoYOrden() throws Exception {
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 4096, 0)) {
+            for (int i = 1; i <= 5; i++) {
+                assertEquals(i, journal.agregar(datos("mov-" + i)));
+            }
+            assertEquals(5, journal.sincronizar());
+
+            List<JournalMovimientos.Registro> registros = journal.leer(2, 4, 10);
+            assertEquals(List.of(2L, 3L, 4L), registros.stream().map(JournalMovimientos.Registro::secuencia).toList());
+            assertEquals("mov-2", texto(registros.get(0)));
+            // Continúa desde la lectura anterior
+            assertEquals(List.of(5L), journal.leer(5, 5, 10).stream().map(JournalMovimientos.Registro::secuencia).toList());
+        }
+    }
+
+    @Test
+    void reabrir_DescartaColaCortadaYSigueNumerando() throws Exception {
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 4096, 0)) {
+            journal.agregar(datos("uno"));
+            journal.agregar(datos("dos"));
+            journal.agregar(datos("tres"));
+        }
+        // Simula una escritura interrumpida: se corrompe un byte de los datos del tercer registro
+        Path segmento;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            segmento = archivos.findFirst().orElseThrow();
+        }
+        int posicionTercero = 2 * 16 + "uno".length() + "dos".length() + 16;
+        try (RandomAccessFile archivo = new RandomAccessFile(segmento.toFile(), "rw")) {
+            archivo.seek(posicionTercero);
+            archivo.write('X');
+        }
+
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 4096, 0)) {
+            assertEquals(2, journal.ultimaSecuencia());
+            assertEquals(3, journal.agregar(datos("tres-bis")));
+            journal.sincronizar();
+            assertEquals("tres-bis", texto(journal.leer(3, 3, 1).get(0)));
+        }
+    }
+
+    @Test
+    void rotacion_CreaSegmentosYEliminaLosAplicados() throws Exception {
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 64, 0)) {
+            for (int i = 1; i <= 6; i++) {
+                journal.agregar(datos("registro-" + i)); // 16 + 10 bytes: dos por segmento
+            }
+            journal.sincronizar();
+            assertEquals(3, contarSegmentos());
+            assertEquals(6, journal.leer(1, 6, 10).size());
+
+            journal.eliminarSegmentosHasta(4);
+            assertEquals(1, contarSegmentos());
+        }
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 64, 4)) {
+            assertEquals(6, journal.ultimaSecuencia());
+            assertEquals(List.of(5L, 6L), journal.leer(5, 6, 10).stream().map(JournalMovimientos.Registro::secuencia).toList());
+        }
+    }
+
+    @Test
+    void abrir_SinSegmentos_ContinuaDesdeLaSecuenciaAplicada() throws Exception {
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 4096, 41)) {
+            assertEquals(42, journal.agregar(datos("x")));
+        }
+    }
+
+    private long contarSegmentos() throws Exception {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.count();
+        }
+    }
+
+    private static byte[] datos(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String texto(JournalMovimientos.Registro registro) {
+        return new String(registro.datos(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ModeloLecturaInventarioTest {
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ModeloLecturaInventario modeloLectura;
+
+    @TempDir
+    Path directorio;
+
+    private final LocalDateTime ahora = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        modeloLectura = new ModeloLecturaInventario(productoInventarioRepository, movimientoStockRepository, transactionManager,
+                new DiccionarioSku(productoInventarioRepository));
+        configurar(modeloLectura);
+    }
+
+    @Test
+    void alActualizarProducto_MantieneVistasEIndices() {
+        modeloLectura.alActualizarProducto(evento(producto(1L, "SKU001", 3, EstadoStock.DISPONIBLE, ahora), false));
+        modeloLectura.alActualizarProducto(evento(producto(2L, "SKU002", 50, EstadoStock.DISPONIBLE, ahora), false));
+        modeloLectura.alActualizarProducto(evento(producto(3L, "SKU003", 20, EstadoStock.RESERVADO, ahora), false));
+
+        // SKU001 pasa a 80 unidades; un evento anterior que llega tarde no lo pisa
+        modeloLectura.alActualizarProducto(evento(producto(1L, "SKU001", 80, EstadoStock.DISPONIBLE, ahora.plusMinutes(2)), false));
+        modeloLectura.alActualizarProducto(evento(producto(1L, "SKU001", 7, EstadoStock.DISPONIBLE, ahora.plusMinutes(1)), false));
+        modeloLectura.alActualizarProducto(evento(producto(3L, "SKU003", 20, EstadoStock.RESERVADO, ahora), true));
+
+        assertEquals(80, modeloLectura.buscarPorSku("SKU001").orElseThrow().getCantidadDisponible());
+        assertTrue(modeloLectura.buscarPorSku("SKU003").isEmpty());
+        assertEquals(List.of("SKU001", "SKU002"), skus(modeloLectura.buscarPorEstado(EstadoStock.DISPONIBLE)));
+        assertTrue(modeloLectura.buscarPorEstado(EstadoStock.RESERVADO).isEmpty());
+        assertTrue(modeloLectura.buscarConDisponibleMenorQue(50).isEmpty());
+        assertEquals(List.of("SKU002"), skus(modeloLectura.buscarConDisponibleMenorQue(51)));
+        assertEquals(List.of("SKU001", "SKU002"), skus(modeloLectura.buscarConDisponibleMayorQue(10)));
+        assertEquals(List.of("SKU001"), skus(modeloLectura.buscarConDisponibleMayorQue(50)));
+    }
+
+    @Test
+    void cargarAlIniciar_SinSnapshot_CargaCompletaYGuardaSnapshot() throws Exception {
+        when(productoInventarioRepository.findAll()).thenReturn(List.of(
+                producto(1L, "SKU001", 3, EstadoStock.DISPONIBLE, ahora),
+                producto(2L, "SKU002", 50, EstadoStock.DISPONIBLE, ahora)));
+        when(movimientoStockRepository.findUltimoId()).thenReturn(40L);
+
+        modeloLectura.cargarAlIniciar();
+
+        assertTrue(modeloLectura.estaListo());
+        assertEquals(List.of("SKU001", "SKU002"), skus(modeloLectura.buscarPorEstado(EstadoStock.DISPONIBLE)));
+        try (Stream<Path> archivos = Files.list(directorio.resolve("modelo-lectura"))) {
+            assertEquals(1, archivos.filter(p -> p.toString().endsWith(".snap")).count());
+        }
+    }
+
+    @Test
+    void cargarAlIniciar_ConSnapshot_SoloRecargaLaCola() {
+        ProductoInventario conMovimientos = producto(2L, "SKU002", 45, EstadoStock.DISPONIBLE, ahora);
+        ProductoInventario modificado = producto(3L, "SKU003", 9, EstadoStock.DADO_DE_BAJA, ahora.plusHours(1));
+        ProductoInventario nuevo = producto(5L, "SKU005", 1, EstadoStock.DISPONIBLE, ahora.plusHours(1));
+        modeloLectura.alActualizarProducto(evento(producto(1L, "SKU001", 3, EstadoStock.DISPONIBLE, ahora), false));
+        modeloLectura.alActualizarProducto(evento(producto(2L, "SKU002", 50, EstadoStock.DISPONIBLE, ahora), false));
+        modeloLectura.alActualizarProducto(evento(producto(3L, "SKU003", 20, EstadoStock.DISPONIBLE, ahora), false));
+        modeloLectura.alActualizarProducto(evento(producto(4L, "SKU004", 8, EstadoStock.DISPONIBLE, ahora), false));
+        when(movimientoStockRepository.findUltimoId()).thenReturn(40L);
+        modeloLectura.guardarSnapshot();
+
+        // Después del snapshot: SKU002 tuvo movimientos, SKU003 cambió de estado, SKU004 se borró y SKU005 es nuevo
+        when(productoInventarioRepository.findByFechaUltimaActualizacionAfter(any())).thenReturn(List.of(modificado, nuevo));
+        when(movimientoStockRepository.findSkusConMovimientosDespuesDe(40L)).thenReturn(List.of("SKU002", "SKU004"));
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("SKU001", "SKU002", "SKU003", "SKU005"));
+        when(productoInventarioRepository.findBySkuIn(List.of("SKU002"))).thenReturn(List.of(conMovimientos));
+
+        ModeloLecturaInventario reiniciado = new ModeloLecturaInventario(productoInventarioRepository, movimientoStockRepository, transactionManager,
+                new DiccionarioSku(productoInventarioRepository));
+        configurar(reiniciado);
+        reiniciado.cargarAlIniciar();
+
+        verify(productoInventarioRepository, never()).findAll();
+        assertEquals(3, reiniciado.buscarPorSku("SKU001").orElseThrow().getCantidadDisponible());
+        assertEquals(45, reiniciado.buscarPorSku("SKU002").orElseThrow().getCantidadDisponible());
+        assertEquals(EstadoStock.DADO_DE_BAJA, reiniciado.buscarPorSku("SKU003").orElseThrow().getEstado());
+        assertTrue(reiniciado.buscarPorSku("SKU004").isEmpty());
+        assertEquals(List.of("SKU001", "SKU002", "SKU005"), skus(reiniciado.buscarPorEstado(EstadoStock.DISPONIBLE)));
+    }
+
+    private void configurar(ModeloLecturaInventario modelo) {
+        ReflectionTestUtils.setField(modelo, "habilitado", true);
+        ReflectionTestUtils.setField(modelo, "directorioDatos", directorio.toString());
+    }
+
+    private static List<String> skus(List<ProductoInventarioDTO> productos) {
+        return productos.stream().map(ProductoInventarioDTO::getSku).sorted().toList();
+    }
+
+    private static ProductoInventarioActualizadoEvent evento(ProductoInventario producto, boolean eliminado) {
+        return new ProductoInventarioActualizadoEvent(producto, eliminado);
+    }
+
+    private static ProductoInventario producto(Long id, String sku, int disponible, EstadoStock estado, LocalDateTime fecha) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setId(id);
+        producto.setSku(sku);
+        producto.setCantidadDisponible(disponible);
+        producto.setCantidadReservada(0);
+        producto.setCantidadMinimaStock(2);
+        producto.setUbicacionAlmacen(sku.equals("SKU001") ? "A1" : null);
+        producto.setFechaCreacion(fecha.minusDays(1));
+        producto.setFechaUltimaActualizacion(fecha);
+        producto.setEstado(estado);
+        return producto;
+    }
+}
@@ -0,0 +1,269 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.event.ReglaUmbralActualizadaEvent;
+import com.retailmax.inventario.event.UmbralAlertaActualizadoEvent;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.ReglaUmbral;
+import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.CriterioRegla;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ReglaUmbralRepository;
+import com.retailmax.inventario.repository.ResumenMovimientoDiarioRepository;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorAlertasServiceTest {
+
+    @Mock
+    private UmbralAlertaRepository umbralAlertaRepository;
+
+    @Mock
+    private ResumenMovimientoDiarioRepository resumenMovimientoDiarioRepository;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private ReglaUmbralRepository reglaUmbralRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReglaUmbralService reglaUmbralService;
+    private MotorAlertasService motorAlertas;
+
+    private final LocalDateTime ahora = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        reglaUmbralService = new ReglaUmbralService(reglaUmbralRepository, umbralAlertaRepository, productoInventarioRepository);
+        motorAlertas = new MotorAlertasService(umbralAlertaRepository, resumenMovimientoDiarioRepository,
+                productoInventarioRepository, reglaUmbralService, new DiccionarioSku(productoInventarioRepository), eventPublisher);
+        ReflectionTestUtils.setField(motorAlertas, "habilitado", true);
+        ReflectionTestUtils.setField(motorAlertas, "intervaloMinimoRealerta", 0L);
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("SKU001", "SKU002", "SKU004", "SKU005"));
+        // SKU004 se movió por última vez el 1/6; SKU005 el 25/5
+        when(resumenMovimientoDiarioRepository.findUltimoDiaPorSku()).thenReturn(List.of(
+                new Object[]{"SKU004", ahora.toLocalDate()},
+                new Object[]{"SKU005", LocalDate.of(2025, 5, 25)}));
+        when(umbralAlertaRepository.findByActivoTrue()).thenReturn(List.of(
+                umbral("SKU001", TipoAlerta.BAJO_STOCK, 10, true, ahora),
+                umbral("SKU002", TipoAlerta.EXCESO_STOCK, 100, true, ahora),
+                umbral("SKU004", TipoAlerta.SIN_MOVIMIENTO, 3, true, ahora),
+                umbral("SKU005", TipoAlerta.SIN_MOVIMIENTO, 30, true, ahora)));
+        motorAlertas.cargarAlIniciar();
+    }
+
+    @Test
+    void alActualizarProducto_PublicaSoloAlCruzarElUmbral() {
+        actualizar("SKU001", 12, ahora.plusMinutes(1));
+        actualizar("SKU001", 9, ahora.plusMinutes(2));
+        actualizar("SKU001", 4, ahora.plusMinutes(3));
+        // Un cambio anterior que llega tarde no se evalúa
+        actualizar("SKU001", 50, ahora.plusMinutes(2));
+        actualizar("SKU002", 101, ahora.plusMinutes(1));
+        actualizar("SKU001", 10, ahora.plusMinutes(4));
+        actualizar("SKU003", 0, ahora.plusMinutes(1));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(3);
+        assertAlerta(alertas.get(0), "SKU001", TipoAlerta.BAJO_STOCK, 9, true);
+        assertAlerta(alertas.get(1), "SKU002", TipoAlerta.EXCESO_STOCK, 101, true);
+        assertAlerta(alertas.get(2), "SKU001", TipoAlerta.BAJO_STOCK, 10, false);
+    }
+
+    @Test
+    void alActualizarUmbral_CambiaLaReglaEvaluada() {
+        motorAlertas.alActualizarUmbral(new UmbralAlertaActualizadoEvent(
+                umbral("SKU001", TipoAlerta.EXCESO_STOCK, 20, true, ahora.plusMinutes(1)), false));
+        motorAlertas.alActualizarUmbral(new UmbralAlertaActualizadoEvent(
+                umbral("SKU002", TipoAlerta.EXCESO_STOCK, 100, false, ahora.plusMinutes(1)), false));
+        // Umbral de un SKU que todavía no tiene producto: queda registrado para cuando se cree
+        motorAlertas.alActualizarUmbral(new UmbralAlertaActualizadoEvent(
+                umbral("SKU003", TipoAlerta.BAJO_STOCK, 5, true, ahora.plusMinutes(1)), false));
+
+        actualizar("SKU001", 5, ahora.plusMinutes(2));
+        actualizar("SKU001", 25, ahora.plusMinutes(3));
+        actualizar("SKU002", 500, ahora.plusMinutes(2));
+        actualizar("SKU003", 1, ahora.plusMinutes(2));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(2);
+        assertAlerta(alertas.get(0), "SKU001", TipoAlerta.EXCESO_STOCK, 25, true);
+        assertAlerta(alertas.get(1), "SKU003", TipoAlerta.BAJO_STOCK, 1, true);
+    }
+
+    @Test
+    void revisarInactividad_ActivaAlVencerYSeResuelveConElMovimiento() {
+        // El último movimiento cargado de SKU004 cuenta desde el final del 1/6: vence el 5/6 a las 00:00
+        assertEquals(0, revisarInactividad(LocalDateTime.of(2025, 6, 4, 23, 0)));
+        assertEquals(1, revisarInactividad(LocalDateTime.of(2025, 6, 5, 1, 0)));
+
+        motorAlertas.alRegistrarMovimiento(movimiento("SKU004", LocalDateTime.of(2025, 6, 5, 9, 0)));
+        // SKU005 se mueve antes de vencer: el 25/6 su vencimiento se reprograma sin activar la alerta
+        motorAlertas.alRegistrarMovimiento(movimiento("SKU005", LocalDateTime.of(2025, 6, 5, 9, 0)));
+        motorAlertas.publicarPendientes(instante(LocalDateTime.of(2025, 6, 5, 9, 0)));
+        assertEquals(2, revisarInactividad(LocalDateTime.of(2025, 6, 25, 0, 0)));
+        assertEquals(1, revisarInactividad(LocalDateTime.of(2025, 7, 5, 10, 0)));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(4);
+        assertAlerta(alertas.get(0), "SKU004", TipoAlerta.SIN_MOVIMIENTO, null, true);
+        assertAlerta(alertas.get(1), "SKU004", TipoAlerta.SIN_MOVIMIENTO, null, false);
+        assertAlerta(alertas.get(2), "SKU004", TipoAlerta.SIN_MOVIMIENTO, null, true);
+        assertAlerta(alertas.get(3), "SKU005", TipoAlerta.SIN_MOVIMIENTO, null, true);
+    }
+
+    @Test
+    void publicarPendientes_AplicaHisteresisAgrupacionEIntervaloMinimo() {
+        ReflectionTestUtils.setField(motorAlertas, "intervaloMinimoRealerta", 600_000L);
+        motorAlertas.alActualizarUmbral(new UmbralAlertaActualizadoEvent(
+                new UmbralAlerta(null, "SKU001", TipoAlerta.BAJO_STOCK, 10, true, 5, ahora, ahora.plusMinutes(1)), false));
+
+        assertEquals(1, actualizar("SKU001", 9, ahora.plusMinutes(2)));
+        // Dentro de la banda (10 + 5) la alerta sigue activa; al salir se resuelve
+        assertEquals(0, actualizar("SKU001", 11, ahora.plusMinutes(3)));
+        assertEquals(1, actualizar("SKU001", 16, ahora.plusMinutes(4)));
+
+        // Se activa y se resuelve dentro de la misma ventana: no se publica nada
+        motorAlertas.alActualizarProducto(evento("SKU001", 8, ahora.plusMinutes(5)));
+        motorAlertas.alActualizarProducto(evento("SKU001", 20, ahora.plusMinutes(5).plusSeconds(1)));
+        assertEquals(0, motorAlertas.publicarPendientes(instante(ahora.plusMinutes(6))));
+
+        // Nueva activación a los 5 minutos de la anterior: espera hasta cumplir los 10
+        assertEquals(0, actualizar("SKU001", 7, ahora.plusMinutes(7)));
+        assertEquals(0, motorAlertas.publicarPendientes(instante(ahora.plusMinutes(11))));
+        assertEquals(1, motorAlertas.publicarPendientes(instante(ahora.plusMinutes(12))));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(3);
+        assertAlerta(alertas.get(0), "SKU001", TipoAlerta.BAJO_STOCK, 9, true);
+        assertAlerta(alertas.get(1), "SKU001", TipoAlerta.BAJO_STOCK, 16, false);
+        assertAlerta(alertas.get(2), "SKU001", TipoAlerta.BAJO_STOCK, 7, true);
+    }
+
+    @Test
+    void reaplicarReglas_HeredaLaReglaSalvoConUmbralPropio() {
+        ReglaUmbral porColor = new ReglaUmbral(2L, CriterioRegla.COLOR, "ROJO", TipoAlerta.EXCESO_STOCK, 50, null, 1, true, ahora, ahora);
+        when(reglaUmbralRepository.findByActivoTrue()).thenReturn(
+                List.of(new ReglaUmbral(1L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "CAM", TipoAlerta.BAJO_STOCK, 5, null, 0, true, ahora, ahora), porColor),
+                List.of(new ReglaUmbral(1L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "CAM", TipoAlerta.BAJO_STOCK, 5, null, 0, true, ahora, ahora)));
+        when(productoInventarioRepository.findAtributosReglaUmbral()).thenReturn(List.of(
+                new Object[]{"SKU001", "CAM-03", null, null, null},
+                new Object[]{"SKU010", "CAM-01", "M", "AZUL", null},
+                new Object[]{"SKU011", "CAM-02", "M", "ROJO", null}));
+
+        reglaUmbralService.alActualizarRegla(new ReglaUmbralActualizadaEvent(porColor, false));
+        // SKU001 tiene umbral propio (BAJO_STOCK 10): no hereda
+        assertEquals(2, motorAlertas.reaplicarReglas(reglaUmbralService.version()));
+
+        assertEquals(1, actualizar(evento("SKU010", "CAM-01", "AZUL", 4, ahora.plusMinutes(1))));
+        assertEquals(1, actualizar(evento("SKU011", "CAM-02", "ROJO", 60, ahora.plusMinutes(1))));
+        assertEquals(1, actualizar(evento("SKU001", "CAM-03", null, 6, ahora.plusMinutes(1))));
+
+        // Se quita la regla por color: SKU011 pasa a la de su prefijo y la alerta anterior se descarta
+        reglaUmbralService.alActualizarRegla(new ReglaUmbralActualizadaEvent(porColor, true));
+        motorAlertas.reaplicarReglas();
+        assertEquals(1, actualizar(evento("SKU011", "CAM-02", "ROJO", 3, ahora.plusMinutes(2))));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(4);
+        assertAlerta(alertas.get(0), "SKU010", TipoAlerta.BAJO_STOCK, 4, true);
+        assertEquals(5, alertas.get(0).getUmbralCantidad());
+        assertAlerta(alertas.get(1), "SKU011", TipoAlerta.EXCESO_STOCK, 60, true);
+        assertAlerta(alertas.get(2), "SKU001", TipoAlerta.BAJO_STOCK, 6, true);
+        assertEquals(10, alertas.get(2).getUmbralCantidad());
+        assertAlerta(alertas.get(3), "SKU011", TipoAlerta.BAJO_STOCK, 3, true);
+    }
+
+    @Test
+    void alActualizarProducto_RegistraLosSkusQueNoEstanEnElDiccionario() {
+        ReglaUmbral porPrefijo = new ReglaUmbral(1L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "CAM", TipoAlerta.BAJO_STOCK, 5, null, 0, true, ahora, ahora);
+        when(reglaUmbralRepository.findByActivoTrue()).thenReturn(List.of(porPrefijo));
+        reglaUmbralService.alActualizarRegla(new ReglaUmbralActualizadaEvent(porPrefijo, false));
+
+        // SKU020 se creó en otra instancia: no está en el diccionario cargado al arrancar
+        assertEquals(1, actualizar(evento("SKU020", "CAM-09", null, 2, ahora.plusMinutes(1))));
+        assertEquals(1, actualizar(evento("SKU020", "CAM-09", null, 8, ahora.plusMinutes(2))));
+
+        List<AlertaInventarioEvent> alertas = alertasPublicadas(2);
+        assertAlerta(alertas.get(0), "SKU020", TipoAlerta.BAJO_STOCK, 2, true);
+        assertAlerta(alertas.get(1), "SKU020", TipoAlerta.BAJO_STOCK, 8, false);
+    }
+
+    // Aplica el cambio y cierra la ventana de agrupación en el mismo instante
+    private int actualizar(String sku, int disponible, LocalDateTime fecha) {
+        motorAlertas.alActualizarProducto(evento(sku, disponible, fecha));
+        return motorAlertas.publicarPendientes(instante(fecha));
+    }
+
+    private int actualizar(ProductoInventarioActualizadoEvent evento) {
+        motorAlertas.alActualizarProducto(evento);
+        return motorAlertas.publicarPendientes(instante(evento.getProducto().getFechaUltimaActualizacion()));
+    }
+
+    private int revisarInactividad(LocalDateTime fecha) {
+        int procesados = motorAlertas.revisarInactividad(instante(fecha));
+        motorAlertas.publicarPendientes(instante(fecha));
+        return procesados;
+    }
+
+    private List<AlertaInventarioEvent> alertasPublicadas(int cantidad) {
+        ArgumentCaptor<AlertaInventarioEvent> captor = ArgumentCaptor.forClass(AlertaInventarioEvent.class);
+        verify(eventPublisher, times(cantidad)).publishEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static void assertAlerta(AlertaInventarioEvent alerta, String sku, TipoAlerta tipo, Integer disponible, boolean activa) {
+        assertEquals(sku, alerta.getSku());
+        assertEquals(tipo, alerta.getTipoAlerta());
+        assertEquals(disponible, alerta.getCantidadDisponible());
+        assertEquals(activa, alerta.isActiva());
+    }
+
+    private static ProductoInventarioActualizadoEvent evento(String sku, int disponible, LocalDateTime fecha) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setSku(sku);
+        producto.setCantidadDisponible(disponible);
+        producto.setFechaUltimaActualizacion(fecha);
+        return new ProductoInventarioActualizadoEvent(producto, false);
+    }
+
+    private static ProductoInventarioActualizadoEvent evento(String sku, String productoBaseSku, String color, int disponible, LocalDateTime fecha) {
+        ProductoInventarioActualizadoEvent evento = evento(sku, disponible, fecha);
+        evento.getProducto().setProductoBaseSku(productoBaseSku);
+        evento.getProducto().setColor(color);
+        return evento;
+    }
+
+    private static MovimientoStockRegistradoEvent movimiento(String sku, LocalDateTime fecha) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setSku(sku);
+        movimiento.setFechaMovimiento(fecha);
+        return new MovimientoStockRegistradoEvent(movimiento);
+    }
+
+    private static long instante(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static UmbralAlerta umbral(String sku, TipoAlerta tipo, int cantidad, boolean activo, LocalDateTime fecha) {
+        return new UmbralAlerta(null, sku, tipo, cantidad, activo, null, fecha, fecha);
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -31,6 +32,12 @@ public class MovimientoStockServiceUnitTest {
     @Mock
     private ProductoInventarioRepository productoInventarioRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ArchivoMovimientoService archivoMovimientoService;
+
     private ProductoInventario testProducto;
 
     @BeforeEach
@@ -88,6 +95,51 @@ public class MovimientoStockServiceUnitTest {
         verify(movimientoStockRepository, never()).findByProductoInventarioIdOrderByFechaMovimientoDesc(anyLong());
     }
 
+    @Test
+    void testObtenerHistorialMovimientos_IncluyeMovimientosArchivados() {
+        when(productoInventarioRepository.findBySkuIgnoreCase("SKU001")).thenReturn(Optional.of(testProducto));
+        MovimientoStock caliente = crearMovimientoStock(testProducto, TipoMovimiento.SALIDA, 5, "Venta");
+        caliente.setId(50L);
+        MovimientoStock archivado = crearMovimientoStock(testProducto, TipoMovimiento.ENTRADA, 20, "Compra");
+        archivado.setId(7L);
+        archivado.setFechaMovimiento(LocalDateTime.now().minusMonths(8));
+        MovimientoStock duplicado = crearMovimientoStock(testProducto, TipoMovimiento.SALIDA, 5, "Venta");
+        duplicado.setId(50L); // Archivado pero aún no borrado de la tabla
+        when(movimientoStockRepository.findByProductoInventarioIdOrderByFechaMovimientoDesc(testProducto.getId()))
+                .thenReturn(new ArrayList<>(List.of(caliente)));
+        when(archivoMovimientoService.leerArchivados("SKU001", null, null)).thenReturn(List.of(archivado, duplicado));
+
+        List<MovimientoStockDTO> result = movimientoStockService.obtenerHistorialMovimientos("SKU001", null, null);
+
+        assertEquals(2, result.size());
+        assertEquals(50L, result.get(0).getId());
+        assertEquals(7L, result.get(1).getId());
+    }
+
+    @Test
+    void testObtenerHistorialMovimientos_ConCampos_CombinaArchivadosConLosMismosCampos() {
+        when(productoInventarioRepository.findBySkuIgnoreCase("SKU001")).thenReturn(Optional.of(testProducto));
+        MovimientoStock archivado = crearMovimientoStock(testProducto, TipoMovimiento.ENTRADA, 20, "Compra");
+        archivado.setId(7L);
+        archivado.setFechaMovimiento(LocalDateTime.now().minusMonths(8));
+        MovimientoStock duplicado = crearMovimientoStock(testProducto, TipoMovimiento.SALIDA, 5, "Venta");
+        duplicado.setId(50L);
+        when(archivoMovimientoService.leerArchivados("SKU001", null, null)).thenReturn(List.of(archivado, duplicado));
+        Map<String, Object> enTabla = new LinkedHashMap<>();
+        enTabla.put("cantidadMovida", 5);
+        enTabla.put("id", 50L);
+        enTabla.put("fechaMovimiento", LocalDateTime.now());
+        when(movimientoStockRepository.findCamposPorProducto(eq(testProducto.getId()), anyCollection()))
+                .thenReturn(new ArrayList<>(List.of(enTabla)));
+
+        List<Map<String, Object>> result = movimientoStockService.obtenerHistorialMovimientos("SKU001", List.of("cantidadMovida"));
+
+        // id y fechaMovimiento solo sirven para combinar: no se pidieron y no se devuelven
+        assertEquals(List.of(Map.of("cantidadMovida", 5), Map.of("cantidadMovida", 20)), result);
+        verify(movimientoStockRepository).findCamposPorProducto(testProducto.getId(),
+                new LinkedHashSet<>(List.of("cantidadMovida", "id", "fechaMovimiento")));
+    }
+
     @Test
     void testMapToMovimientoStockDTO_ProductoInventarioNotNull() {
         // Caso: Se mapea un movimiento cuyo producto asociado NO es nulo.
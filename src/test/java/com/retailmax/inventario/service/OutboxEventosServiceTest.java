@@ -0,0 +1,138 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.EventoOutbox;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxEventosServiceTest {
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private DestinoOutbox destinoOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboxEventosService outbox;
+
+    private final LocalDateTime ahora = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        // mapMovimientoToDTO no usa las dependencias del servicio
+        ProductoInventarioService productoInventarioService = new ProductoInventarioService(null, null, null, null, null);
+        outbox = new OutboxEventosService(eventoOutboxRepository, destinoOutbox, productoInventarioService,
+                objectMapper, transactionManager, meterRegistry);
+        outbox.registrarMetricas();
+    }
+
+    @Test
+    void alRegistrarMovimiento_GuardaElEventoEnLaMismaTransaccion() throws Exception {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(42L);
+        movimiento.setSku("SKU001");
+        movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
+        movimiento.setCantidadMovida(3);
+        movimiento.setStockFinalDespuesMovimiento(7);
+        movimiento.setFechaMovimiento(ahora);
+
+        outbox.alRegistrarMovimiento(new MovimientoStockRegistradoEvent(movimiento));
+
+        ArgumentCaptor<EventoOutbox> captor = ArgumentCaptor.forClass(EventoOutbox.class);
+        verify(eventoOutboxRepository).save(captor.capture());
+        EventoOutbox evento = captor.getValue();
+        assertEquals(OutboxEventosService.TIPO_MOVIMIENTO, evento.getTipoEvento());
+        assertEquals("SKU001", evento.getClave());
+        assertEquals(42L, evento.getAgregadoId());
+        JsonNode payload = objectMapper.readTree(evento.getPayload());
+        assertEquals("SALIDA", payload.get("tipoMovimiento").asText());
+        assertEquals(7, payload.get("stockFinalDespuesMovimiento").asInt());
+    }
+
+    @Test
+    void relevar_PublicaPorLotesYBorraLoPublicado() throws Exception {
+        ReflectionTestUtils.setField(outbox, "tamanoLote", 2);
+        when(eventoOutboxRepository.reclamarLote(2)).thenReturn(List.of(evento(1L), evento(2L)), List.of(evento(3L)));
+        when(eventoOutboxRepository.findPendientesYMasAntiguo()).thenReturn(List.<Object[]>of(new Object[]{0L, null}));
+
+        outbox.relevar();
+
+        verify(destinoOutbox, times(2)).publicar(any());
+        verify(eventoOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(eventoOutboxRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(eventoOutboxRepository, times(2)).reclamarLote(2);
+        assertEquals(3.0, meterRegistry.get("inventario.outbox.publicados").counter().count());
+        assertEquals(3, meterRegistry.get("inventario.outbox.latencia").timer().count());
+        assertEquals(0.0, meterRegistry.get("inventario.outbox.pendientes").gauge().value());
+    }
+
+    @Test
+    void relevar_ConErrorDelDestinoNoBorraNadaYMideElRetraso() throws Exception {
+        when(eventoOutboxRepository.reclamarLote(200)).thenReturn(List.of(evento(1L)));
+        doThrow(new IOException("Disco lleno")).when(destinoOutbox).publicar(any());
+        when(eventoOutboxRepository.findPendientesYMasAntiguo())
+                .thenReturn(List.<Object[]>of(new Object[]{1L, ahora.minusSeconds(30)}));
+
+        outbox.relevar();
+
+        verify(eventoOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.get("inventario.outbox.errores").counter().count());
+        assertEquals(0.0, meterRegistry.get("inventario.outbox.publicados").counter().count());
+        assertEquals(1.0, meterRegistry.get("inventario.outbox.pendientes").gauge().value());
+        assertTrue(meterRegistry.get("inventario.outbox.retraso").gauge().value() >= 30.0);
+    }
+
+    @Test
+    void destinoArchivo_AgregaUnaLineaJsonPorEvento(@TempDir Path directorio) throws Exception {
+        DestinoOutboxArchivo archivo = new DestinoOutboxArchivo(objectMapper);
+        ReflectionTestUtils.setField(archivo, "directorioDatos", directorio.toString());
+
+        archivo.publicar(List.of(evento(1L), evento(2L)));
+        archivo.publicar(List.of(evento(3L)));
+
+        List<String> lineas = Files.readAllLines(directorio.resolve("outbox").resolve(DestinoOutboxArchivo.ARCHIVO));
+        assertEquals(3, lineas.size());
+        JsonNode ultima = objectMapper.readTree(lineas.get(2));
+        assertEquals(3L, ultima.get("id").asLong());
+        assertEquals("SKU001", ultima.get("clave").asText());
+        assertEquals(3L, ultima.get("payload").get("id").asLong());
+    }
+
+    private EventoOutbox evento(Long id) {
+        return new EventoOutbox(id, OutboxEventosService.TIPO_MOVIMIENTO, "SKU001", id,
+                "{\"id\":" + id + ",\"sku\":\"SKU001\"}", ahora.minusSeconds(1));
+    }
+}
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.retailmax.inventario.dto.ActualizarStockRequestDTO;
 import com.retailmax.inventario.dto.AgregarProductoInventarioRequestDTO;
@@ -43,6 +44,15 @@ public class ProductoInventarioServiceTest {
     @Mock
     private MovimientoStockRepository movimientoStockRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ModeloLecturaInventario modeloLectura;
+
+    @Mock
+    private TablaEstadoSkuService tablaEstadoSku;
+
     @InjectMocks
     private ProductoInventarioService productoInventarioService;
 
@@ -606,4 +616,16 @@ public class ProductoInventarioServiceTest {
         assertEquals("SKU-VENDIDO-1", result.get(0).getSku());
         verify(productoInventarioRepository, times(1)).findByEstado(EstadoStock.VENDIDO);
     }
+
+    @Test
+    void consultarProductoPorSku_ConModeloLecturaListo_NoConsultaRepositorio() {
+        ProductoInventarioDTO vista = ProductoInventarioDTO.builder().sku("SKU123").cantidadDisponible(5).build();
+        when(modeloLectura.estaListo()).thenReturn(true);
+        when(modeloLectura.buscarPorSku("SKU123")).thenReturn(Optional.of(vista));
+
+        ProductoInventarioDTO dto = productoInventarioService.consultarProductoPorSku("SKU123");
+
+        assertEquals(5, dto.getCantidadDisponible());
+        verifyNoInteractions(productoInventarioRepository);
+    }
 }
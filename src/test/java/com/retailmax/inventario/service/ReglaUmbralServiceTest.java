@@ -0,0 +1,142 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ReglaUmbralDTO;
+import com.retailmax.inventario.dto.UmbralEfectivoDTO;
+import com.retailmax.inventario.event.ReglaUmbralActualizadaEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.ReglaUmbral;
+import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.CriterioRegla;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ReglaUmbralRepository;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReglaUmbralServiceTest {
+
+    @Mock
+    private ReglaUmbralRepository reglaUmbralRepository;
+
+    @Mock
+    private UmbralAlertaRepository umbralAlertaRepository;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @InjectMocks
+    private ReglaUmbralService reglaUmbralService;
+
+    @Test
+    void resolver_AplicaLaReglaDeMayorPrecedencia() {
+        when(reglaUmbralRepository.findByActivoTrue()).thenReturn(List.of(
+                regla(1L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "C", TipoAlerta.BAJO_STOCK, 1, 0),
+                regla(2L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "CAM", TipoAlerta.BAJO_STOCK, 2, 0),
+                regla(3L, CriterioRegla.TALLA, "M", TipoAlerta.BAJO_STOCK, 3, 0),
+                regla(4L, CriterioRegla.UBICACION_ALMACEN, "A1", TipoAlerta.BAJO_STOCK, 4, 0),
+                regla(5L, CriterioRegla.COLOR, "ROJO", TipoAlerta.EXCESO_STOCK, 5, 2)));
+
+        // Con igual prioridad: prefijo más largo, luego ubicación, color y talla
+        assertEquals(2L, reglaUmbralService.resolver("SKU1", "CAMISA-01", "M", "AZUL", null).getId());
+        assertEquals(1L, reglaUmbralService.resolver("SKU2", "CO-1", "M", null, null).getId());
+        assertEquals(4L, reglaUmbralService.resolver("SKU3", "ZAP-1", "M", null, "A1").getId());
+        assertEquals(3L, reglaUmbralService.resolver("SKU4", "ZAP-1", "M", null, "B2").getId());
+        // Una prioridad mayor gana sobre cualquier criterio
+        assertEquals(5L, reglaUmbralService.resolver("SKU5", "CAMISA-01", "M", "ROJO", "A1").getId());
+        // Sin productoBaseSku el prefijo se compara con el SKU
+        assertEquals(2L, reglaUmbralService.resolver("CAM-9", null, null, null, null).getId());
+        assertNull(reglaUmbralService.resolver("ZAP-2", "ZAP-2", "L", "VERDE", "B2"));
+
+        // Se compila una vez por versión de las reglas
+        verify(reglaUmbralRepository, times(1)).findByActivoTrue();
+        reglaUmbralService.alActualizarRegla(new ReglaUmbralActualizadaEvent(
+                regla(1L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "C", TipoAlerta.BAJO_STOCK, 1, 0), true));
+        reglaUmbralService.resolver("SKU1", "CAMISA-01", null, null, null);
+        verify(reglaUmbralRepository, times(2)).findByActivoTrue();
+    }
+
+    @Test
+    void verificarCambiosExternos_RecompilaCuandoOtraInstanciaModificaLasReglas() {
+        LocalDateTime antes = LocalDateTime.of(2025, 3, 1, 10, 0);
+        when(reglaUmbralRepository.findByActivoTrue()).thenReturn(List.of(
+                regla(1L, CriterioRegla.TALLA, "M", TipoAlerta.BAJO_STOCK, 1, 0)));
+        when(reglaUmbralRepository.findHuella())
+                .thenReturn(List.<Object[]>of(new Object[]{1L, antes, 1L}))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, antes, 1L}))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, antes.plusMinutes(5), 3L}));
+
+        reglaUmbralService.resolver("SKU1", null, "M", null, null);
+        long version = reglaUmbralService.version();
+
+        // Sin cambios en la tabla no se recompila
+        reglaUmbralService.verificarCambiosExternos();
+        assertEquals(version, reglaUmbralService.version());
+        reglaUmbralService.resolver("SKU1", null, "M", null, null);
+        verify(reglaUmbralRepository, times(1)).findByActivoTrue();
+
+        // Otra instancia agregó una regla: cambia la versión y la próxima resolución recompila
+        reglaUmbralService.verificarCambiosExternos();
+        assertNotEquals(version, reglaUmbralService.version());
+        reglaUmbralService.resolver("SKU1", null, "M", null, null);
+        verify(reglaUmbralRepository, times(2)).findByActivoTrue();
+    }
+
+    @Test
+    void consultarUmbralEfectivo_PrefiereElUmbralPropioDelSku() {
+        LocalDateTime ahora = LocalDateTime.now();
+        when(reglaUmbralRepository.findByActivoTrue()).thenReturn(List.of(
+                regla(7L, CriterioRegla.PREFIJO_PRODUCTO_BASE, "CAM", TipoAlerta.BAJO_STOCK, 5, 0)));
+        when(umbralAlertaRepository.findBySku("SKU001")).thenReturn(Optional.of(
+                new UmbralAlerta(1L, "SKU001", TipoAlerta.BAJO_STOCK, 20, true, null, ahora, ahora)));
+        when(umbralAlertaRepository.findBySku("SKU002")).thenReturn(Optional.of(
+                new UmbralAlerta(2L, "SKU002", TipoAlerta.BAJO_STOCK, 20, false, null, ahora, ahora)));
+        when(productoInventarioRepository.findBySku("SKU002")).thenReturn(Optional.of(producto("SKU002", "CAM-01")));
+
+        UmbralEfectivoDTO propio = reglaUmbralService.consultarUmbralEfectivo("SKU001");
+        assertEquals("SKU", propio.getOrigen());
+        assertEquals(20, propio.getUmbralCantidad());
+
+        // Un umbral propio inactivo no reemplaza a la regla
+        UmbralEfectivoDTO heredado = reglaUmbralService.consultarUmbralEfectivo("SKU002");
+        assertEquals("REGLA", heredado.getOrigen());
+        assertEquals(7L, heredado.getReglaId());
+        assertEquals(5, heredado.getUmbralCantidad());
+        assertEquals("PREFIJO_PRODUCTO_BASE", heredado.getCriterio());
+    }
+
+    @Test
+    void crearRegla_RechazaCriterioYValorRepetidos() {
+        when(reglaUmbralRepository.findByCriterioAndValor(CriterioRegla.COLOR, "ROJO"))
+                .thenReturn(Optional.of(regla(1L, CriterioRegla.COLOR, "ROJO", TipoAlerta.BAJO_STOCK, 5, 0)));
+        ReglaUmbralDTO dto = ReglaUmbralDTO.builder()
+                .criterio("color").valor(" ROJO ").tipoAlerta("BAJO_STOCK").umbralCantidad(5).activo(true).build();
+
+        assertThrows(IllegalArgumentException.class, () -> reglaUmbralService.crearRegla(dto));
+        verify(reglaUmbralRepository, never()).save(any());
+    }
+
+    private static ReglaUmbral regla(Long id, CriterioRegla criterio, String valor, TipoAlerta tipo, int cantidad, int prioridad) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return new ReglaUmbral(id, criterio, valor, tipo, cantidad, null, prioridad, true, ahora, ahora);
+    }
+
+    private static ProductoInventario producto(String sku, String productoBaseSku) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setSku(sku);
+        producto.setProductoBaseSku(productoBaseSku);
+        return producto;
+    }
+}
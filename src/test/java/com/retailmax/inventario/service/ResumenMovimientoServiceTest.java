@@ -0,0 +1,154 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ResumenMovimientoDiarioDTO;
+import com.retailmax.inventario.event.MovimientoStockRegistradoEvent;
+import com.retailmax.inventario.model.BloqueoProceso;
+import com.retailmax.inventario.model.MovimientoStock;
+import com.retailmax.inventario.model.ResumenMovimientoDiario;
+import com.retailmax.inventario.model.enums.TipoMovimiento;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.repository.ResumenMovimientoDiarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumenMovimientoServiceTest {
+
+    @Mock
+    private ResumenMovimientoDiarioRepository resumenMovimientoDiarioRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private ArchivoMovimientoService archivoMovimientoService;
+
+    @Mock
+    private BloqueoProcesoService bloqueoProcesoService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ResumenMovimientoService resumenMovimientoService;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 10, 9, 30);
+    private long siguienteId = 1;
+
+    @Test
+    void alRegistrarMovimiento_AcumulaEnElDiaDelMovimiento() {
+        // SALIDA registrada en negativo: el resumen guarda la cantidad en valor absoluto
+        resumenMovimientoService.alRegistrarMovimiento(
+                new MovimientoStockRegistradoEvent(movimiento("SKU001", TipoMovimiento.SALIDA, -7, base)));
+
+        verify(resumenMovimientoDiarioRepository).acumular("SKU001", LocalDate.of(2025, 3, 10), "SALIDA", 7L);
+    }
+
+    @Test
+    void consultarTotalesPorTipo_MapeaFilasAgregadas() {
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 7);
+        when(resumenMovimientoDiarioRepository.sumarPorTipo(desde, hasta))
+                .thenReturn(Collections.singletonList(new Object[]{TipoMovimiento.SALIDA, 120L, 15L}));
+
+        List<ResumenMovimientoDiarioDTO> result = resumenMovimientoService.consultarTotalesPorTipo(desde, hasta);
+
+        assertEquals(1, result.size());
+        assertEquals("SALIDA", result.get(0).getTipoMovimiento());
+        assertEquals(120L, result.get(0).getCantidadTotal());
+        assertEquals(15L, result.get(0).getNumeroMovimientos());
+        assertNull(result.get(0).getSku());
+    }
+
+    @Test
+    void reconstruirResumenes_AgrupaPorDiaYTipo() {
+        when(bloqueoProcesoService.adquirir(eq("reconstruccion-resumenes"), any())).thenReturn(true);
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("SKU001"));
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU001", 0L)).thenReturn(List.of(
+                movimiento("SKU001", TipoMovimiento.ENTRADA, 10, base),
+                movimiento("SKU001", TipoMovimiento.ENTRADA, 5, base.plusHours(3)),
+                movimiento("SKU001", TipoMovimiento.ENTRADA, 4, base.plusDays(1))));
+
+        resumenMovimientoService.reconstruirResumenes();
+
+        verify(productoInventarioRepository).findBySkuParaActualizar("SKU001");
+        verify(resumenMovimientoDiarioRepository).deleteBySku("SKU001");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<ResumenMovimientoDiario>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(resumenMovimientoDiarioRepository).saveAll(captor.capture());
+        List<ResumenMovimientoDiario> resumenes = new ArrayList<>();
+        captor.getValue().forEach(resumenes::add);
+        assertEquals(2, resumenes.size());
+        assertEquals(15L, resumenes.get(0).getCantidadTotal());
+        assertEquals(2L, resumenes.get(0).getNumeroMovimientos());
+        assertEquals(LocalDate.of(2025, 3, 11), resumenes.get(1).getFecha());
+        verify(bloqueoProcesoService).registrarAvance("reconstruccion-resumenes", "SKU001", false);
+        verify(bloqueoProcesoService).registrarAvance("reconstruccion-resumenes", null, true);
+        verify(bloqueoProcesoService).liberar("reconstruccion-resumenes");
+    }
+
+    @Test
+    void completarResumenesAlIniciar_RetomaDespuesDelUltimoSkuEIncluyeArchivados() {
+        when(bloqueoProcesoService.consultar("reconstruccion-resumenes")).thenReturn(Optional.of(
+                new BloqueoProceso("reconstruccion-resumenes", null, null, "SKU001", false, base)));
+        when(bloqueoProcesoService.adquirir(eq("reconstruccion-resumenes"), any())).thenReturn(true);
+        when(productoInventarioRepository.findAllSkus()).thenReturn(List.of("SKU002", "SKU001"));
+        when(archivoMovimientoService.leerArchivados("SKU002", null, null))
+                .thenReturn(List.of(movimiento("SKU002", TipoMovimiento.SALIDA, 3, base.minusMonths(8))));
+        when(movimientoStockRepository.findBySkuAndIdGreaterThanOrderByIdAsc("SKU002", 0L))
+                .thenReturn(List.of(movimiento("SKU002", TipoMovimiento.ENTRADA, 6, base)));
+
+        resumenMovimientoService.completarResumenesAlIniciar();
+
+        verify(resumenMovimientoDiarioRepository, never()).deleteBySku("SKU001");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<ResumenMovimientoDiario>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(resumenMovimientoDiarioRepository).saveAll(captor.capture());
+        List<ResumenMovimientoDiario> resumenes = new ArrayList<>();
+        captor.getValue().forEach(resumenes::add);
+        assertEquals(2, resumenes.size());
+        assertEquals(LocalDate.of(2024, 7, 10), resumenes.get(0).getFecha());
+        verify(bloqueoProcesoService).registrarAvance("reconstruccion-resumenes", null, true);
+    }
+
+    @Test
+    void completarResumenesAlIniciar_OtraInstanciaReconstruyendo_NoToca() {
+        when(bloqueoProcesoService.consultar("reconstruccion-resumenes")).thenReturn(Optional.of(
+                new BloqueoProceso("reconstruccion-resumenes", "otra", base.plusYears(100), null, false, base)));
+        when(bloqueoProcesoService.adquirir(eq("reconstruccion-resumenes"), any())).thenReturn(false);
+
+        resumenMovimientoService.completarResumenesAlIniciar();
+
+        verifyNoInteractions(resumenMovimientoDiarioRepository, productoInventarioRepository);
+        verify(bloqueoProcesoService, never()).liberar(any());
+    }
+
+    private MovimientoStock movimiento(String sku, TipoMovimiento tipo, int cantidad, LocalDateTime fecha) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(siguienteId++);
+        movimiento.setSku(sku);
+        movimiento.setTipoMovimiento(tipo);
+        movimiento.setCantidadMovida(cantidad);
+        movimiento.setFechaMovimiento(fecha);
+        return movimiento;
+    }
+}
@@ -0,0 +1,164 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.DiscrepanciaStockDTO;
+import com.retailmax.inventario.dto.LecturaConteoDTO;
+import com.retailmax.inventario.dto.ResultadoAuditoriaDTO;
+import com.retailmax.inventario.dto.SesionConteoDTO;
+import com.retailmax.inventario.exception.RecursoNoEncontradoException;
+import com.retailmax.inventario.model.LecturaConteo;
+import com.retailmax.inventario.model.SesionConteo;
+import com.retailmax.inventario.model.enums.EstadoSesionConteo;
+import com.retailmax.inventario.repository.LecturaConteoRepository;
+import com.retailmax.inventario.repository.SesionConteoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SesionConteoServiceTest {
+
+    @Mock
+    private SesionConteoRepository sesionConteoRepository;
+
+    @Mock
+    private LecturaConteoRepository lecturaConteoRepository;
+
+    @Mock
+    private AuditoriaInventarioService auditoriaInventarioService;
+
+    @InjectMocks
+    private SesionConteoService sesionConteoService;
+
+    @Test
+    void abrirSesion_GuardaSesionAbierta() {
+        when(sesionConteoRepository.save(any(SesionConteo.class))).thenAnswer(i -> {
+            SesionConteo s = i.getArgument(0);
+            s.setId(1L);
+            return s;
+        });
+
+        SesionConteoDTO result = sesionConteoService.abrirSesion("Bodega A");
+
+        assertEquals(1L, result.getId());
+        assertEquals("ABIERTA", result.getEstado());
+        assertEquals("Bodega A", result.getZona());
+        assertEquals(0, result.getSkusContados());
+    }
+
+    @Test
+    void registrarLecturas_AgregaLoteAntesDeEscribirBitacora() {
+        abrirSesionConId(1L);
+
+        List<LecturaConteoDTO> lote = List.of(
+                new LecturaConteoDTO("SKU001", 1, null),
+                new LecturaConteoDTO("SKU001", 1, null),
+                new LecturaConteoDTO("SKU002", 3, "Pasillo 4"));
+
+        sesionConteoService.registrarLecturas(1L, lote);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<LecturaConteo>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(lecturaConteoRepository).saveAll(captor.capture());
+        List<LecturaConteo> escritas = new ArrayList<>();
+        captor.getValue().forEach(escritas::add);
+        assertEquals(2, escritas.size());
+        assertEquals(2, escritas.get(0).getCantidad());
+        assertEquals("Bodega A", escritas.get(0).getZona());
+        assertEquals("Pasillo 4", escritas.get(1).getZona());
+
+        SesionConteoDTO sesion = sesionConteoService.consultarSesion(1L);
+        assertEquals(Map.of("SKU001", 2L, "SKU002", 3L), sesion.getConteoPorSku());
+        assertEquals(5L, sesion.getUnidadesContadas());
+    }
+
+    @Test
+    void registrarLecturas_SesionNoExiste_LanzaExcepcion() {
+        when(sesionConteoRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(RecursoNoEncontradoException.class, () ->
+                sesionConteoService.registrarLecturas(99L, List.of(new LecturaConteoDTO("SKU001", 1, null))));
+        verify(lecturaConteoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void registrarLecturas_SesionCerrada_LanzaExcepcion() {
+        SesionConteo cerrada = new SesionConteo(5L, null, EstadoSesionConteo.CERRADA, LocalDateTime.now(), LocalDateTime.now());
+        when(sesionConteoRepository.findById(5L)).thenReturn(Optional.of(cerrada));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                sesionConteoService.registrarLecturas(5L, List.of(new LecturaConteoDTO("SKU001", 1, null))));
+    }
+
+    @Test
+    void registrarLecturas_TrasReinicio_ReconstruyeDesdeBitacora() {
+        SesionConteo abierta = new SesionConteo(7L, "Bodega B", EstadoSesionConteo.ABIERTA, LocalDateTime.now(), null);
+        when(sesionConteoRepository.findById(7L)).thenReturn(Optional.of(abierta));
+        when(lecturaConteoRepository.sumarCantidadesPorSku(7L))
+                .thenReturn(Collections.singletonList(new Object[]{"SKU001", 10L}));
+
+        sesionConteoService.registrarLecturas(7L, List.of(new LecturaConteoDTO("SKU001", 2, null)));
+
+        assertEquals(12L, sesionConteoService.consultarSesion(7L).getConteoPorSku().get("SKU001"));
+    }
+
+    @Test
+    void cerrarSesion_ComparaTotalesContraSistema() {
+        abrirSesionConId(1L);
+        sesionConteoService.registrarLecturas(1L, List.of(new LecturaConteoDTO("SKU001", 4, null)));
+        DiscrepanciaStockDTO discrepancia = DiscrepanciaStockDTO.builder().sku("SKU001").build();
+        when(auditoriaInventarioService.compararConStockFisico(anyMap()))
+                .thenReturn(ResultadoAuditoriaDTO.builder().discrepancias(List.of(discrepancia)).build());
+
+        ResultadoAuditoriaDTO result = sesionConteoService.cerrarSesion(1L);
+
+        assertEquals(1, result.getDiscrepancias().size());
+        verify(auditoriaInventarioService).compararConStockFisico(Map.of("SKU001", 4));
+        ArgumentCaptor<SesionConteo> captor = ArgumentCaptor.forClass(SesionConteo.class);
+        verify(sesionConteoRepository, times(2)).save(captor.capture());
+        assertEquals(EstadoSesionConteo.CERRADA, captor.getValue().getEstado());
+        assertNotNull(captor.getValue().getFechaCierre());
+    }
+
+    @Test
+    void cerrarSesion_SiFallaElGuardado_LaSesionSigueAbierta() {
+        abrirSesionConId(1L);
+        sesionConteoService.registrarLecturas(1L, List.of(new LecturaConteoDTO("SKU001", 4, null)));
+        when(sesionConteoRepository.save(any(SesionConteo.class)))
+                .thenThrow(new DataAccessResourceFailureException("Sin conexión"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> sesionConteoService.cerrarSesion(1L));
+        assertEquals("ABIERTA", sesionConteoService.consultarSesion(1L).getEstado());
+        assertNull(sesionConteoService.consultarSesion(1L).getFechaCierre());
+
+        // Se siguen aceptando lecturas y el cierre se puede reintentar
+        sesionConteoService.registrarLecturas(1L, List.of(new LecturaConteoDTO("SKU001", 1, null)));
+        sesionConteoService.cerrarSesion(1L);
+        verify(auditoriaInventarioService).compararConStockFisico(Map.of("SKU001", 5));
+    }
+
+    private void abrirSesionConId(Long id) {
+        when(sesionConteoRepository.save(any(SesionConteo.class))).thenAnswer(i -> {
+            SesionConteo s = i.getArgument(0);
+            s.setId(id);
+            return s;
+        });
+        sesionConteoService.abrirSesion("Bodega A");
+    }
+}
@@ -0,0 +1,150 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.MovimientoStockRepository;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.service.SnapshotInventarioService.SnapshotInventario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotInventarioServiceTest {
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private FeedMovimientosService feedMovimientosService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directorio;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private SnapshotInventarioService snapshots;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = nuevoServicio();
+    }
+
+    @Test
+    void generar_EscribeElInventarioPorPaginasComoNdjsonGzip() throws IOException {
+        ReflectionTestUtils.setField(snapshots, "tamanoPagina", 2);
+        when(movimientoStockRepository.findUltimoId()).thenReturn(90L);
+        when(feedMovimientosService.limiteConfirmado()).thenReturn(84L);
+        when(productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(producto(1L, "SKU001", 5), producto(2L, "SKU002", 0)));
+        when(productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(producto(7L, "SKU003", 12)));
+        when(productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(7L, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+
+        SnapshotInventario snapshot = snapshots.generar();
+
+        // Un movimiento sin confirmar por debajo del último ID limita la versión
+        assertEquals(84L, snapshot.version());
+        assertEquals(32, snapshot.etag().length());
+        assertEquals(Files.size(snapshot.archivo()), snapshot.tamano());
+        List<String> lineas = leer(snapshot.archivo());
+        assertEquals(3, lineas.size());
+        JsonNode ultimo = objectMapper.readTree(lineas.get(2));
+        assertEquals("SKU003", ultimo.get("sku").asText());
+        assertEquals(12, ultimo.get("cantidadDisponible").asInt());
+        assertSame(snapshot, snapshots.actual());
+    }
+
+    @Test
+    void generar_ConservaElSnapshotSiElInventarioNoCambio() throws IOException {
+        ReflectionTestUtils.setField(snapshots, "snapshotsAConservar", 1);
+        when(movimientoStockRepository.findUltimoId()).thenReturn(10L, 11L, 12L);
+        when(feedMovimientosService.limiteConfirmado()).thenReturn(Long.MAX_VALUE);
+        when(productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(producto(1L, "SKU001", 5)), List.of(producto(1L, "SKU001", 5)),
+                        List.of(producto(1L, "SKU001", 4)));
+        when(productoInventarioRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 1000)))
+                .thenReturn(List.of());
+
+        SnapshotInventario primero = snapshots.generar();
+        assertSame(primero, snapshots.generar());
+        assertEquals(10L, snapshots.actual().version());
+
+        SnapshotInventario segundo = snapshots.generar();
+        assertNotEquals(primero.etag(), segundo.etag());
+        assertEquals(12L, segundo.version());
+        // Solo queda el último snapshot, sin temporales
+        try (var archivos = Files.list(directorio.resolve("snapshot"))) {
+            assertEquals(List.of(segundo.archivo()), archivos.toList());
+        }
+
+        // Al reiniciar se vuelve a servir el último snapshot del disco
+        SnapshotInventarioService reiniciado = nuevoServicio();
+        reiniciado.recuperar();
+        assertEquals(segundo, reiniciado.actual());
+    }
+
+    private SnapshotInventarioService nuevoServicio() {
+        // mapToDTO no usa las dependencias del servicio
+        SnapshotInventarioService servicio = new SnapshotInventarioService(productoInventarioRepository,
+                movimientoStockRepository, new ProductoInventarioService(null, null, null, null, null),
+                feedMovimientosService, objectMapper, transactionManager);
+        ReflectionTestUtils.setField(servicio, "directorioDatos", directorio.toString());
+        return servicio;
+    }
+
+    private static List<String> leer(Path archivo) throws IOException {
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivo)), StandardCharsets.UTF_8))) {
+            return lector.lines().toList();
+        }
+    }
+
+    private static ProductoInventario producto(Long id, String sku, int disponible) {
+        LocalDateTime ahora = LocalDateTime.of(2024, 1, 1, 10, 0);
+        ProductoInventario producto = new ProductoInventario();
+        producto.setId(id);
+        producto.setSku(sku);
+        producto.setStock(disponible);
+        producto.setCantidadDisponible(disponible);
+        producto.setCantidadReservada(0);
+        producto.setCantidadEnTransito(0);
+        producto.setCantidadMinimaStock(1);
+        producto.setUbicacionAlmacen("A1");
+        producto.setFechaCreacion(ahora);
+        producto.setFechaUltimaActualizacion(ahora);
+        producto.setActivo(true);
+        producto.setEstado(EstadoStock.DISPONIBLE);
+        return producto;
+    }
+}
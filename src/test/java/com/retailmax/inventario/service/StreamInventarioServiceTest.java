@@ -0,0 +1,166 @@
+package com.retailmax.inventario.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.retailmax.inventario.event.AlertaInventarioEvent;
+import com.retailmax.inventario.event.ProductoInventarioActualizadoEvent;
+import com.retailmax.inventario.model.ProductoInventario;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import com.retailmax.inventario.service.StreamInventarioService.FiltroStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamInventarioServiceTest {
+
+    @Mock
+    private ProductoInventarioRepository productoInventarioRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private StreamInventarioService streamInventario;
+
+    @BeforeEach
+    void setUp() {
+        // mapToDTO no usa las dependencias del servicio
+        ProductoInventarioService productoInventarioService = new ProductoInventarioService(null, null, null, null, null);
+        streamInventario = new StreamInventarioService(productoInventarioService, productoInventarioRepository, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamInventario.detener();
+    }
+
+    @Test
+    void publicar_EnviaSoloLoQueAceptaElFiltroDeCadaSuscriptor() throws Exception {
+        EmitterDePrueba porSku = new EmitterDePrueba();
+        EmitterDePrueba porUbicacion = new EmitterDePrueba();
+        streamInventario.suscribir(porSku, FiltroStream.de(List.of("SKU1"), null));
+        streamInventario.suscribir(porUbicacion, FiltroStream.de(null, List.of(" A1 ")));
+        when(productoInventarioRepository.findBySku("SKU2")).thenReturn(Optional.of(producto("SKU2", "A1")));
+
+        streamInventario.alActualizarProducto(new ProductoInventarioActualizadoEvent(producto("SKU1", "B2"), false));
+        streamInventario.alActualizarProducto(new ProductoInventarioActualizadoEvent(producto("SKU2", "A1"), true));
+        streamInventario.alPublicarAlerta(new AlertaInventarioEvent("SKU2", TipoAlerta.BAJO_STOCK, 10, 3, true,
+                LocalDateTime.of(2025, 6, 1, 10, 0)));
+
+        String evento = porSku.recibir();
+        assertTrue(evento.contains("event:producto\n"));
+        assertTrue(evento.contains("\"sku\":\"SKU1\""));
+        assertTrue(evento.contains("\"cantidadTotal\":12"));
+        assertTrue(porUbicacion.recibir().contains("event:producto-eliminado\n"));
+        String alerta = porUbicacion.recibir();
+        assertTrue(alerta.contains("event:alerta\n"));
+        assertTrue(alerta.contains("\"tipoAlerta\":\"BAJO_STOCK\""));
+        assertTrue(alerta.contains("\"fecha\":\"2025-06-01T10:00:00\""));
+        assertNull(porSku.recibidos.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void publicar_ConElBufferLlenoDescartaLosMasAntiguosYLoInforma() throws Exception {
+        ReflectionTestUtils.setField(streamInventario, "capacidadBuffer", 2);
+        EmitterDePrueba lento = new EmitterDePrueba();
+        lento.bloqueo = new CountDownLatch(1);
+        EmitterDePrueba rapido = new EmitterDePrueba();
+        streamInventario.suscribir(lento, FiltroStream.de(null, null));
+        streamInventario.suscribir(rapido, FiltroStream.de(null, null));
+
+        streamInventario.alActualizarProducto(new ProductoInventarioActualizadoEvent(producto("SKU1", "A1"), false));
+        assertTrue(lento.enEnvio.await(5, TimeUnit.SECONDS));
+        assertTrue(rapido.recibir().contains("\"sku\":\"SKU1\""));
+        // El suscriptor lento no demora al otro
+        for (int i = 2; i <= 5; i++) {
+            streamInventario.alActualizarProducto(new ProductoInventarioActualizadoEvent(producto("SKU" + i, "A1"), false));
+            assertTrue(rapido.recibir().contains("\"sku\":\"SKU" + i + "\""));
+        }
+
+        lento.bloqueo.countDown();
+        assertTrue(lento.recibir().contains("\"sku\":\"SKU1\""));
+        String descartados = lento.recibir();
+        assertTrue(descartados.contains("event:descartados\n"));
+        assertTrue(descartados.contains("data:2\n"));
+        assertTrue(lento.recibir().contains("\"sku\":\"SKU4\""));
+        assertTrue(lento.recibir().contains("\"sku\":\"SKU5\""));
+    }
+
+    @Test
+    void suscribir_QuitaAlSuscriptorCuandoFallaElEnvio() throws Exception {
+        EmitterDePrueba cortado = new EmitterDePrueba();
+        cortado.error = new IOException("Broken pipe");
+        streamInventario.suscribir(cortado, FiltroStream.de(null, null));
+        assertEquals(1, streamInventario.suscriptoresActivos());
+
+        streamInventario.enviarLatido();
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (streamInventario.suscriptoresActivos() > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, streamInventario.suscriptoresActivos());
+        verifyNoInteractions(productoInventarioRepository);
+    }
+
+    private static ProductoInventario producto(String sku, String ubicacion) {
+        ProductoInventario producto = new ProductoInventario();
+        producto.setId(1L);
+        producto.setSku(sku);
+        producto.setCantidadDisponible(10);
+        producto.setCantidadReservada(2);
+        producto.setUbicacionAlmacen(ubicacion);
+        return producto;
+    }
+
+    // Registra cada evento como texto SSE; puede quedar bloqueado en el primer envío o fallar
+    private static final class EmitterDePrueba extends SseEmitter {
+        private final BlockingQueue<String> recibidos = new LinkedBlockingQueue<>();
+        private final CountDownLatch enEnvio = new CountDownLatch(1);
+        private volatile CountDownLatch bloqueo;
+        private volatile IOException error;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            enEnvio.countDown();
+            if (error != null) {
+                throw error;
+            }
+            if (bloqueo != null) {
+                try {
+                    bloqueo.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Set<DataWithMediaType> partes = builder.build();
+            recibidos.add(partes.stream().map(parte -> parte.getData().toString()).collect(Collectors.joining()));
+        }
+
+        private String recibir() throws InterruptedException {
+            String evento = recibidos.poll(5, TimeUnit.SECONDS);
+            assertNotNull(evento, "El suscriptor no recibió el evento esperado");
+            return evento;
+        }
+    }
+}
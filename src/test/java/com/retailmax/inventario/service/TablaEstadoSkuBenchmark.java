@@ -0,0 +1,122 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.dto.ProductoInventarioDTO;
+import com.retailmax.inventario.model.enums.EstadoStock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TablaEstadoSku frente a un ConcurrentHashMap de ProductoInventarioDTO: lectura de disponibilidad por SKU,
+ * actualización y filtro por umbral. No corre con los tests; se ejecuta con el perfil benchmark:
+ * mvn -Pbenchmark test -Djmh.args="TablaEstadoSku -prof gc"
+ * (-prof gc muestra además la asignación en el heap de cada variante).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+public class TablaEstadoSkuBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int cantidadSkus;
+
+    private String[] skus;
+    private TablaEstadoSku tabla;
+    private ConcurrentHashMap<String, ProductoInventarioDTO> mapa;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        skus = new String[cantidadSkus];
+        tabla = new TablaEstadoSku(new DiccionarioSku(null), cantidadSkus);
+        mapa = new ConcurrentHashMap<>(cantidadSkus * 2);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < cantidadSkus; i++) {
+            String sku = String.format("SKU-%08d", i);
+            int disponible = i % 500;
+            skus[i] = sku;
+            tabla.escribir(sku, 1, disponible, 0, 0, 10, EstadoStock.DISPONIBLE);
+            mapa.put(sku, ProductoInventarioDTO.builder()
+                    .id((long) i).sku(sku).cantidadDisponible(disponible).cantidadReservada(0).cantidadTotal(disponible)
+                    .cantidadMinimaStock(10).ubicacionAlmacen("A-" + (i % 40)).fechaCreacion(ahora).fechaUltimaActualizacion(ahora)
+                    .estado(EstadoStock.DISPONIBLE).build());
+        }
+    }
+
+    private String skuAlAzar() {
+        return skus[ThreadLocalRandom.current().nextInt(skus.length)];
+    }
+
+    @Benchmark
+    public boolean disponibilidadTabla() {
+        return tabla.disponible(skuAlAzar()).orElse(0) >= 5;
+    }
+
+    @Benchmark
+    public boolean disponibilidadMapa() {
+        ProductoInventarioDTO producto = mapa.get(skuAlAzar());
+        return producto != null && producto.getCantidadDisponible() >= 5;
+    }
+
+    @Benchmark
+    public void actualizarTabla() {
+        String sku = skuAlAzar();
+        tabla.escribir(sku, 2, ThreadLocalRandom.current().nextInt(500), 1, 0, 10, EstadoStock.DISPONIBLE);
+    }
+
+    // El modelo de lectura reemplaza la vista completa en cada cambio; se replica aquí con el DTO
+    @Benchmark
+    public void actualizarMapa() {
+        String sku = skuAlAzar();
+        ProductoInventarioDTO actual = mapa.get(sku);
+        int disponible = ThreadLocalRandom.current().nextInt(500);
+        ProductoInventarioDTO nuevo = ProductoInventarioDTO.builder()
+                .id(actual.getId()).sku(sku).cantidadDisponible(disponible).cantidadReservada(1).cantidadTotal(disponible + 1)
+                .cantidadMinimaStock(actual.getCantidadMinimaStock()).ubicacionAlmacen(actual.getUbicacionAlmacen())
+                .fechaCreacion(actual.getFechaCreacion()).fechaUltimaActualizacion(LocalDateTime.now())
+                .estado(actual.getEstado()).build();
+        mapa.put(sku, nuevo);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public List<String> umbralTabla() {
+        return tabla.skusConDisponibleMenorQue(3);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public List<String> umbralMapa() {
+        List<String> resultado = new ArrayList<>();
+        for (ProductoInventarioDTO producto : mapa.values()) {
+            if (producto.getCantidadDisponible() < 3) {
+                resultado.add(producto.getSku());
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,102 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.model.enums.EstadoStock;
+import com.retailmax.inventario.repository.ProductoInventarioRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TablaEstadoSkuTest {
+
+    @Test
+    void escribirYLeer_RespetaMarcaYEliminacion() {
+        TablaEstadoSku tabla = new TablaEstadoSku(new DiccionarioSku(mock(ProductoInventarioRepository.class)), 100_000);
+        tabla.escribir("SKU001", 10, 5, 1, 0, 2, EstadoStock.DISPONIBLE);
+        tabla.escribir("SKU002", 10, 80, 0, 3, 2, EstadoStock.RESERVADO);
+
+        // Un cambio con marca anterior llega tarde y no pisa el vigente
+        tabla.escribir("SKU001", 20, 7, 0, 0, 2, EstadoStock.DISPONIBLE);
+        tabla.escribir("SKU001", 15, 1, 0, 0, 2, EstadoStock.DISPONIBLE);
+
+        TablaEstadoSku.Registro registro = tabla.leer("SKU001").orElseThrow();
+        assertEquals(7, registro.disponible());
+        assertEquals(0, registro.reservada());
+        assertEquals(EstadoStock.DISPONIBLE, registro.estado());
+        assertEquals(3, tabla.leer("SKU002").orElseThrow().enTransito());
+        assertEquals(List.of("SKU001"), tabla.skusConDisponibleMenorQue(10));
+        assertEquals(List.of("SKU002"), tabla.skusConDisponibleMayorQue(10));
+
+        tabla.eliminar("SKU002", 30);
+        assertTrue(tabla.leer("SKU002").isEmpty());
+        assertTrue(tabla.disponible("SKU002").isEmpty());
+        assertTrue(tabla.skusConDisponibleMayorQue(10).isEmpty());
+        assertTrue(tabla.leer("NO_EXISTE").isEmpty());
+
+        tabla.escribir("SKU002", 40, 12, 0, 0, 1, EstadoStock.DISPONIBLE);
+        assertEquals(12, tabla.disponible("SKU002").getAsInt());
+        assertEquals(2, tabla.tamano());
+    }
+
+    @Test
+    void escribir_VariosBloques() {
+        TablaEstadoSku tabla = new TablaEstadoSku(new DiccionarioSku(mock(ProductoInventarioRepository.class)), 200_000);
+        for (int i = 0; i < 150_000; i++) {
+            tabla.escribir("SKU" + i, 1, i, 0, 0, 0, EstadoStock.DISPONIBLE);
+        }
+        assertEquals(149_999, tabla.disponible("SKU149999").getAsInt());
+        assertEquals(10, tabla.skusConDisponibleMenorQue(10).size());
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 150_000; i < 300_000; i++) {
+                tabla.escribir("SKU" + i, 1, i, 0, 0, 0, EstadoStock.DISPONIBLE);
+            }
+        });
+    }
+
+    @Test
+    void leer_ConEscritoresConcurrentes_NuncaVeRegistrosMezclados() throws Exception {
+        TablaEstadoSku tabla = new TablaEstadoSku(new DiccionarioSku(mock(ProductoInventarioRepository.class)), 1000);
+        tabla.escribir("SKU001", 0, 0, 0, 0, 0, EstadoStock.DISPONIBLE);
+        AtomicBoolean activo = new AtomicBoolean(true);
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            // Cada escritura deja los cuatro campos con el mismo valor; un lector no debe ver valores distintos
+            List<Future<?>> escritores = List.of(
+                    hilos.submit(() -> escribirHasta(tabla, activo, 0)),
+                    hilos.submit(() -> escribirHasta(tabla, activo, 1_000_000)));
+            Future<Integer> lector = hilos.submit(() -> {
+                int lecturas = 0;
+                while (activo.get()) {
+                    TablaEstadoSku.Registro r = tabla.leer("SKU001").orElseThrow();
+                    if (r.disponible() != r.reservada() || r.reservada() != r.enTransito() || r.enTransito() != r.minima()) {
+                        throw new AssertionError("Registro mezclado: " + r);
+                    }
+                    lecturas++;
+                }
+                return lecturas;
+            });
+            Thread.sleep(300);
+            activo.set(false);
+            for (Future<?> escritor : escritores) {
+                escritor.get(5, TimeUnit.SECONDS);
+            }
+            assertTrue(lector.get(5, TimeUnit.SECONDS) > 0);
+            assertEquals(0, tabla.leer("SKU001").orElseThrow().version() % 2);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static void escribirHasta(TablaEstadoSku tabla, AtomicBoolean activo, int inicio) {
+        for (int i = inicio; activo.get(); i++) {
+            tabla.escribir("SKU001", 0, i, i, i, i, EstadoStock.DISPONIBLE);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.retailmax.inventario.service;
 
+import com.retailmax.inventario.dto.ResultadoCargaUmbralesDTO;
 import com.retailmax.inventario.dto.UmbralAlertaDTO;
+import com.retailmax.inventario.event.UmbralesAlertaCargadosEvent;
 import com.retailmax.inventario.exception.RecursoNoEncontradoException;
 import com.retailmax.inventario.model.UmbralAlerta;
 import com.retailmax.inventario.model.enums.TipoAlerta;
@@ -12,7 +14,15 @@ import org.mockito.InjectMocks;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -27,6 +37,12 @@ class UmbralAlertaServiceTest {
     @Mock
     private UmbralAlertaRepository umbralAlertaRepository;
 
+    @Mock
+    private VistaUmbralesActivos vistaUmbralesActivos;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UmbralAlertaService umbralAlertaService;
 
@@ -223,17 +239,31 @@ class UmbralAlertaServiceTest {
 
     @Test
     void testConsultarUmbralesActivosPorTipo() {
-        when(umbralAlertaRepository.findAll()).thenReturn(Arrays.asList(
-                crearEntidad("SKU001", TipoAlerta.BAJO_STOCK, 10, true),
-                crearEntidad("SKU002", TipoAlerta.BAJO_STOCK, 10, false),
-                crearEntidad("SKU003", TipoAlerta.EXCESO_STOCK, 50, true)
-        ));
+        Pageable pageable = PageRequest.of(1, 2);
+        when(vistaUmbralesActivos.estaHabilitada()).thenReturn(true);
+        when(vistaUmbralesActivos.consultar(TipoAlerta.BAJO_STOCK, pageable)).thenReturn(new PageImpl<>(
+                List.of(crearEntidad("SKU003", TipoAlerta.BAJO_STOCK, 10, true)), pageable, 3));
 
-        List<UmbralAlertaDTO> result = umbralAlertaService.consultarUmbralesActivosPorTipo(TipoAlerta.BAJO_STOCK);
+        Page<UmbralAlertaDTO> result = umbralAlertaService.consultarUmbralesActivosPorTipo(TipoAlerta.BAJO_STOCK, pageable);
 
-        assertEquals(1, result.size());
-        assertEquals("SKU001", result.get(0).getSku());
-        verify(umbralAlertaRepository).findAll();
+        assertEquals(1, result.getNumberOfElements());
+        assertEquals(3, result.getTotalElements());
+        assertEquals("SKU003", result.getContent().get(0).getSku());
+        verify(umbralAlertaRepository, never()).findAll();
+    }
+
+    @Test
+    void testConsultarUmbralesActivosPorTipo_SinVista_PaginaEnBaseDeDatosPorSku() {
+        Pageable pedido = PageRequest.of(1, 2);
+        Pageable porSku = PageRequest.of(1, 2, Sort.by("sku"));
+        when(umbralAlertaRepository.findByTipoAlertaAndActivoTrue(TipoAlerta.BAJO_STOCK, porSku)).thenReturn(new PageImpl<>(
+                List.of(crearEntidad("SKU003", TipoAlerta.BAJO_STOCK, 10, true)), porSku, 3));
+
+        Page<UmbralAlertaDTO> result = umbralAlertaService.consultarUmbralesActivosPorTipo(TipoAlerta.BAJO_STOCK, pedido);
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals("SKU003", result.getContent().get(0).getSku());
+        verify(vistaUmbralesActivos, never()).consultar(any(), any());
     }
 
     @Test
@@ -257,6 +287,67 @@ class UmbralAlertaServiceTest {
         verify(umbralAlertaRepository, never()).delete(any());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCargarUmbrales_UnaBusquedaYUnMergePorLote() {
+        ReflectionTestUtils.setField(umbralAlertaService, "tamanoLoteCarga", 2);
+        UmbralAlerta existente = crearEntidad("SKU001", TipoAlerta.BAJO_STOCK, 10, true);
+        existente.setId(1L);
+        when(umbralAlertaRepository.findCopiasBySkuIn(any())).thenReturn(List.of(existente), List.of());
+        when(umbralAlertaRepository.findIdsBySkuIn(any())).thenReturn(
+                List.<Object[]>of(new Object[]{"SKU002", 2L}), List.<Object[]>of(new Object[]{"SKU004", 4L}));
+
+        ResultadoCargaUmbralesDTO resultado = umbralAlertaService.cargarUmbrales(Arrays.asList(
+                UmbralAlertaDTO.builder().sku("SKU001").umbralCantidad(15).build(), // Solo cambia la cantidad
+                crearDTO("SKU002", "EXCESO_STOCK", 100, true),
+                crearDTO("SKU003", null, 5, true), // Nuevo sin tipo: se rechaza
+                crearDTO(" ", "BAJO_STOCK", 5, true),
+                crearDTO("SKU004", "BAJO_STOCK", 5, false)));
+
+        assertEquals(5, resultado.getRecibidos());
+        assertEquals(2, resultado.getCreados());
+        assertEquals(1, resultado.getActualizados());
+        assertEquals(2, resultado.getRechazados());
+        assertTrue(resultado.getErrores().stream().anyMatch(error -> error.startsWith("Fila 3: SKU SKU003")));
+        verify(umbralAlertaRepository, times(2)).findCopiasBySkuIn(any());
+        verify(umbralAlertaRepository, times(2)).mergePorSku(any());
+        verify(umbralAlertaRepository, never()).save(any());
+
+        // Los umbrales en memoria se actualizan una sola vez, con el estado final de cada SKU
+        ArgumentCaptor<UmbralesAlertaCargadosEvent> captor = ArgumentCaptor.forClass(UmbralesAlertaCargadosEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        List<UmbralAlerta> cargados = captor.getValue().getUmbrales();
+        assertEquals(List.of("SKU001", "SKU002", "SKU004"), cargados.stream().map(UmbralAlerta::getSku).toList());
+        assertEquals(15, cargados.get(0).getUmbralCantidad());
+        assertEquals(TipoAlerta.BAJO_STOCK, cargados.get(0).getTipoAlerta());
+        assertEquals(2L, cargados.get(1).getId());
+        assertEquals(4L, cargados.get(2).getId());
+    }
+
+    @Test
+    void testCargarUmbralesCsv_LeeLineasYRechazaLasInvalidas() throws Exception {
+        when(umbralAlertaRepository.findCopiasBySkuIn(any())).thenReturn(List.of());
+        when(umbralAlertaRepository.findIdsBySkuIn(any())).thenReturn(List.<Object[]>of(new Object[]{"SKU001", 1L}));
+        String csv = """
+                sku,tipoAlerta,umbralCantidad,activo,histeresis
+                SKU001,BAJO_STOCK,10,true,3
+                SKU002,BAJO_STOCK,diez,true
+
+                SKU003,BAJO_STOCK,10
+                """;
+
+        ResultadoCargaUmbralesDTO resultado = umbralAlertaService.cargarUmbralesCsv(new StringReader(csv));
+
+        assertEquals(3, resultado.getRecibidos());
+        assertEquals(1, resultado.getCreados());
+        assertEquals(2, resultado.getRechazados());
+        assertTrue(resultado.getErrores().get(0).startsWith("Fila 3:"));
+        assertTrue(resultado.getErrores().get(1).startsWith("Fila 5:"));
+        ArgumentCaptor<UmbralesAlertaCargadosEvent> captor = ArgumentCaptor.forClass(UmbralesAlertaCargadosEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(3, captor.getValue().getUmbrales().get(0).getHisteresis());
+    }
+
     // Helpers
     private UmbralAlertaDTO crearDTO(String sku, String tipoAlerta, Integer cantidad, Boolean activo) {
         return UmbralAlertaDTO.builder()
@@ -0,0 +1,86 @@
+package com.retailmax.inventario.service;
+
+import com.retailmax.inventario.event.UmbralAlertaActualizadoEvent;
+import com.retailmax.inventario.model.UmbralAlerta;
+import com.retailmax.inventario.model.enums.TipoAlerta;
+import com.retailmax.inventario.repository.UmbralAlertaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VistaUmbralesActivosTest {
+
+    @Mock
+    private UmbralAlertaRepository umbralAlertaRepository;
+
+    @InjectMocks
+    private VistaUmbralesActivos vista;
+
+    @Test
+    void consultar_CargaPorIndiceUnaVezYPagina() {
+        ReflectionTestUtils.setField(vista, "tamanoPaginaCarga", 2);
+        when(umbralAlertaRepository.findByTipoAlertaAndActivoTrueOrderBySkuAsc(eq(TipoAlerta.BAJO_STOCK), any()))
+                .thenReturn(List.of(umbral("SKU001", TipoAlerta.BAJO_STOCK, true), umbral("SKU002", TipoAlerta.BAJO_STOCK, true)));
+        when(umbralAlertaRepository.findByTipoAlertaAndActivoTrueAndSkuGreaterThanOrderBySkuAsc(eq(TipoAlerta.BAJO_STOCK), eq("SKU002"), any()))
+                .thenReturn(List.of(umbral("SKU003", TipoAlerta.BAJO_STOCK, true)));
+
+        Page<UmbralAlerta> primera = vista.consultar(TipoAlerta.BAJO_STOCK, PageRequest.of(0, 2));
+        Page<UmbralAlerta> segunda = vista.consultar(TipoAlerta.BAJO_STOCK, PageRequest.of(1, 2));
+        Page<UmbralAlerta> fuera = vista.consultar(TipoAlerta.BAJO_STOCK, PageRequest.of(5, 2));
+
+        assertEquals(List.of("SKU001", "SKU002"), skus(primera));
+        assertEquals(List.of("SKU003"), skus(segunda));
+        assertEquals(3, segunda.getTotalElements());
+        assertTrue(fuera.getContent().isEmpty());
+        assertEquals(3, vista.consultar(TipoAlerta.BAJO_STOCK, Pageable.unpaged()).getNumberOfElements());
+        // La primera página va sin límite de SKU: en Oracle '' es NULL y sku > NULL no devolvería filas
+        verify(umbralAlertaRepository, times(1)).findByTipoAlertaAndActivoTrueOrderBySkuAsc(any(), any());
+        verify(umbralAlertaRepository, times(1)).findByTipoAlertaAndActivoTrueAndSkuGreaterThanOrderBySkuAsc(any(), any(), any());
+    }
+
+    @Test
+    void alActualizarUmbral_MantieneLasVistasCargadas() {
+        when(umbralAlertaRepository.findByTipoAlertaAndActivoTrueOrderBySkuAsc(eq(TipoAlerta.BAJO_STOCK), any()))
+                .thenReturn(List.of(umbral("SKU002", TipoAlerta.BAJO_STOCK, true)));
+        when(umbralAlertaRepository.findByTipoAlertaAndActivoTrueOrderBySkuAsc(eq(TipoAlerta.EXCESO_STOCK), any()))
+                .thenReturn(List.of());
+        assertEquals(1, vista.consultar(TipoAlerta.BAJO_STOCK, Pageable.unpaged()).getTotalElements());
+        assertEquals(0, vista.consultar(TipoAlerta.EXCESO_STOCK, Pageable.unpaged()).getTotalElements());
+
+        vista.alActualizarUmbral(new UmbralAlertaActualizadoEvent(umbral("SKU001", TipoAlerta.BAJO_STOCK, true), false));
+        vista.alActualizarUmbral(new UmbralAlertaActualizadoEvent(umbral("SKU004", TipoAlerta.BAJO_STOCK, false), false));
+        // SKU002 pasa a EXCESO_STOCK: sale de una vista y entra en la otra
+        vista.alActualizarUmbral(new UmbralAlertaActualizadoEvent(umbral("SKU002", TipoAlerta.EXCESO_STOCK, true), false));
+        vista.alActualizarUmbral(new UmbralAlertaActualizadoEvent(umbral("SKU003", TipoAlerta.EXCESO_STOCK, true), false));
+        vista.alActualizarUmbral(new UmbralAlertaActualizadoEvent(umbral("SKU003", TipoAlerta.EXCESO_STOCK, true), true));
+
+        assertEquals(List.of("SKU001"), skus(vista.consultar(TipoAlerta.BAJO_STOCK, Pageable.unpaged())));
+        assertEquals(List.of("SKU002"), skus(vista.consultar(TipoAlerta.EXCESO_STOCK, Pageable.unpaged())));
+        // SIN_MOVIMIENTO no se había cargado: su primera consulta va a la base de datos
+        verify(umbralAlertaRepository, never()).findByTipoAlertaAndActivoTrueOrderBySkuAsc(eq(TipoAlerta.SIN_MOVIMIENTO), any());
+    }
+
+    private static List<String> skus(Page<UmbralAlerta> pagina) {
+        return pagina.getContent().stream().map(UmbralAlerta::getSku).toList();
+    }
+
+    private static UmbralAlerta umbral(String sku, TipoAlerta tipo, boolean activo) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return new UmbralAlerta(null, sku, tipo, 10, activo, null, ahora, ahora);
+    }
+}